@@ -48,6 +48,8 @@ public abstract class BaseID implements ID {
 	 */
 	public int compareTo(Object o) {
 		Assert.isTrue(o != null && o instanceof BaseID, "incompatible types for compare"); //$NON-NLS-1$
+		if (this == o)
+			return 0;
 		return namespace.getCompareToForObject(this, (BaseID) o);
 	}
 
@@ -11,6 +11,7 @@
  *****************************************************************************/
 package org.eclipse.ecf.core.identity;
 
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.util.*;
 import org.eclipse.core.runtime.IStatus;
@@ -29,6 +30,21 @@ public class IDFactory implements IIDFactory {
 
 	protected static IIDFactory instance = null;
 
+	// Interned IDs.  Weak, so that IDs no longer referenced elsewhere are not
+	// kept alive.  Split by hash code into stripes with a lock each, so that
+	// interning on the message receive path does not serialize all threads
+	private static final int INTERN_STRIPES = 64;
+
+	private static final Map<ID, WeakReference<ID>>[] internedIDs = createInternStripes();
+
+	@SuppressWarnings("unchecked")
+	private static Map<ID, WeakReference<ID>>[] createInternStripes() {
+		final Map<ID, WeakReference<ID>>[] result = new Map[INTERN_STRIPES];
+		for (int i = 0; i < result.length; i++)
+			result[i] = new WeakHashMap<ID, WeakReference<ID>>();
+		return result;
+	}
+
 	static {
 		instance = new IDFactory();
 		addNamespace0(new StringID.StringIDNamespace());
@@ -303,4 +319,38 @@ public class IDFactory implements IIDFactory {
 	public ID createUuID() throws IDCreateException {
 		return createID(new UuID.UuIDNamespace(), (Object[]) null);
 	}
+
+	/**
+	 * @since 3.11
+	 */
+	public ID intern(ID id) {
+		return internID(id);
+	}
+
+	/**
+	 * Get the canonical instance for the given ID, as {@link #intern(ID)} does
+	 * for this factory. Static, so that callers that intern on every received
+	 * message do not need the (synchronized) {@link #getDefault()}.
+	 * 
+	 * @param id
+	 *            the ID to intern. May be <code>null</code>.
+	 * @return ID the canonical instance, or <code>null</code> if id is
+	 *         <code>null</code>
+	 * @since 3.11
+	 */
+	public final static ID internID(ID id) {
+		if (id == null)
+			return null;
+		int h = id.hashCode();
+		h ^= (h >>> 16);
+		final Map<ID, WeakReference<ID>> stripe = internedIDs[h & (INTERN_STRIPES - 1)];
+		synchronized (stripe) {
+			final WeakReference<ID> ref = stripe.get(id);
+			final ID result = (ref == null) ? null : ref.get();
+			if (result != null)
+				return result;
+			stripe.put(id, new WeakReference<ID>(id));
+			return id;
+		}
+	}
 }
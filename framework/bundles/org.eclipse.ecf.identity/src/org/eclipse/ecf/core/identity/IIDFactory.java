@@ -285,4 +285,23 @@ public interface IIDFactory {
 	 *                NamespacePermission for given namespace
 	 */
 	public Namespace removeNamespace(Namespace n) throws SecurityException;
+
+	/**
+	 * Get the canonical instance for the given ID. If an ID equal to the given
+	 * one has been interned before (and is still referenced), that instance is
+	 * returned, otherwise the given ID becomes the canonical instance. Interned
+	 * IDs can be compared by identity, which makes <code>equals</code> on them
+	 * (and lookups in maps keyed by them) cheap.
+	 * <p>
+	 * The default implementation does not intern and returns the given ID.
+	 * 
+	 * @param id
+	 *            the ID to intern. May be <code>null</code>.
+	 * @return ID the canonical instance, or <code>null</code> if id is
+	 *         <code>null</code>
+	 * @since 3.11
+	 */
+	public default ID intern(ID id) {
+		return id;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.provider;
+
+import java.nio.ByteBuffer;
+
+public final class ByteBufferUtil {
+
+	private ByteBufferUtil() {
+		// no instances
+	}
+
+	/**
+	 * Concatenate the remaining bytes of the given buffers.  The buffers'
+	 * positions are not changed.
+	 *
+	 * @param buffers the buffers to concatenate, in order
+	 * @return byte[] the concatenated bytes
+	 */
+	public static byte[] toByteArray(ByteBuffer[] buffers) {
+		int length = 0;
+		for (int i = 0; i < buffers.length; i++)
+			length += buffers[i].remaining();
+		final byte[] result = new byte[length];
+		int offset = 0;
+		for (int i = 0; i < buffers.length; i++) {
+			final int count = buffers[i].remaining();
+			buffers[i].duplicate().get(result, offset, count);
+			offset += count;
+		}
+		return result;
+	}
+}
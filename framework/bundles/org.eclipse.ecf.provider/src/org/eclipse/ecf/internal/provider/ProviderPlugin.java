@@ -20,6 +20,7 @@ import javax.net.ssl.SSLSocketFactory;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.ContainerTypeDescription;
 import org.eclipse.ecf.core.util.*;
+import org.eclipse.ecf.provider.comm.nio.NIOSelectorGroup;
 import org.eclipse.ecf.provider.generic.GenericContainerInstantiator;
 import org.eclipse.ecf.provider.generic.SSLGenericContainerInstantiator;
 import org.osgi.framework.BundleActivator;
@@ -96,6 +97,7 @@ public class ProviderPlugin implements BundleActivator {
 	 * This method is called when the plug-in is stopped
 	 */
 	public void stop(BundleContext context1) throws Exception {
+		NIOSelectorGroup.shutdownDefault();
 		if (logServiceTracker != null) {
 			logServiceTracker.close();
 			logServiceTracker = null;
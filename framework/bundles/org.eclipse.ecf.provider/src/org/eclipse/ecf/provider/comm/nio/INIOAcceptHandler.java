@@ -0,0 +1,42 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.nio;
+
+import java.io.Serializable;
+import org.eclipse.ecf.provider.comm.tcp.ConnectRequestMessage;
+
+/**
+ * Handler for connect requests arriving at a {@link NIOServer}.  This is the
+ * non-blocking counterpart of
+ * {@link org.eclipse.ecf.provider.comm.tcp.ISocketAcceptHandler}: rather than
+ * being handed a socket to read from, the handler is called (on a worker
+ * thread) once the connect request message has been fully received.
+ *
+ * @since 4.11
+ */
+public interface INIOAcceptHandler {
+
+	/**
+	 * Handle a connect request.  Implementations must set the event handler
+	 * for the new connection via {@link NIOClient#setEventHandler(org.eclipse.ecf.provider.comm.ISynchAsynchEventHandler)}
+	 * before starting it.  The returned data is sent back to the client in a
+	 * {@link org.eclipse.ecf.provider.comm.tcp.ConnectResultMessage}.
+	 * Nothing else is sent on the connection until this method returns.
+	 *
+	 * @param client the new connection.  Will not be <code>null</code>.
+	 * @param request the connect request.  Will not be <code>null</code>.
+	 * @return Serializable the connect result data
+	 * @throws Exception if the request is invalid.  The connection is closed.
+	 */
+	public Serializable handleConnectRequest(NIOClient client, ConnectRequestMessage request) throws Exception;
+}
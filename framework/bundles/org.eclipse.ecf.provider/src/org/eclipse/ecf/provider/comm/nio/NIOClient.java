@@ -0,0 +1,903 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.nio;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.util.ECFException;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+import org.eclipse.ecf.provider.comm.*;
+import org.eclipse.ecf.provider.comm.tcp.*;
+
+/**
+ * {@link ISynchAsynchConnection} built on a non-blocking {@link SocketChannel}.
+ * Unlike {@link Client}, no threads are dedicated to a connection: reads and
+ * writes are done by the I/O threads of a shared {@link NIOSelectorGroup},
+ * messages are deserialized and delivered to the event handler on the
+ * group's worker pool (in order for any one connection), and keep-alive
+ * pings run on the group's scheduler.
+ * <p>
+ * The wire protocol is identical to that of {@link Client}, so an
+ * <code>NIOClient</code> can talk to a {@link Server} based container and
+ * vice versa.
+ *
+ * @since 4.11
+ */
+public final class NIOClient implements ISynchAsynchConnection {
+	public static final String PROTOCOL = Client.PROTOCOL;
+
+	public static final int DEFAULT_READ_BUFFER_SIZE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.nio.client.readbuffer", "16384")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Maximum number of bytes waiting to be written to the socket.  Threads
+	 * sending messages wait while this many bytes are queued, for at most
+	 * {@link Client#DEFAULT_SEND_QUEUE_TIMEOUT} ms.
+	 * @since 4.12
+	 */
+	public static final int DEFAULT_MAX_WRITE_QUEUE_BYTES = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.nio.client.maxwritequeue", "4194304")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Maximum number of bytes of received messages waiting to be delivered.
+	 * Above this, the connection is not read from until half of them have
+	 * been delivered.
+	 * @since 4.12
+	 */
+	public static final int DEFAULT_MAX_READ_QUEUE_BYTES = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.nio.client.maxreadqueue", "4194304")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Time in ms within which an accepted connection must send its connect
+	 * request.  0 or less disables the timeout.
+	 * @since 4.12
+	 */
+	public static final long DEFAULT_HANDSHAKE_TIMEOUT = Long.parseLong(System.getProperty("org.eclipse.ecf.provider.comm.nio.client.handshaketimeout", "30000")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Maximum size in bytes of a single received message.  A connection
+	 * whose peer sends a larger message is closed.
+	 * @since 4.12
+	 */
+	public static final int DEFAULT_MAX_MESSAGE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.nio.client.maxmessage", "67108864")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	// Delay in ms before a dispatch rejected by a full worker queue is retried
+	private static final long DISPATCH_RETRY_DELAY = 10;
+
+	// Maximum number of buffers handed to a single gathering write
+	private static final int MAX_GATHER = 64;
+
+	/**
+	 * Object output stream sink that gives away its buffer rather than
+	 * copying it.
+	 */
+	static final class OutputBuffer extends ByteArrayOutputStream {
+		OutputBuffer() {
+			super(512);
+		}
+
+		ByteBuffer take() {
+			ByteBuffer result = ByteBuffer.wrap(buf, 0, count);
+			buf = new byte[Math.max(512, Math.min(count, 8192))];
+			count = 0;
+			return result;
+		}
+	}
+
+	/**
+	 * Input stream over the frames found by the selector thread.  It is only
+	 * ever asked for bytes of a frame that is complete.
+	 */
+	static final class FrameInputStream extends InputStream {
+		private byte[] frame;
+		private int pos;
+
+		void setFrame(byte[] f) {
+			frame = f;
+			pos = 0;
+		}
+
+		boolean isConsumed() {
+			return frame == null || pos == frame.length;
+		}
+
+		public int read() throws IOException {
+			if (isConsumed())
+				throw new StreamCorruptedException("read past end of message frame"); //$NON-NLS-1$
+			return frame[pos++] & 0xff;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (isConsumed())
+				throw new StreamCorruptedException("read past end of message frame"); //$NON-NLS-1$
+			int n = Math.min(len, frame.length - pos);
+			System.arraycopy(frame, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		public int available() {
+			return (frame == null) ? 0 : frame.length - pos;
+		}
+	}
+
+	private final NIOSelectorGroup group;
+	private final NIOSelectorGroup.SelectorLoop loop;
+	private final NIOSelectorGroup.SelectionHandler selectionHandler = new NIOSelectorGroup.SelectionHandler() {
+		public void handleSelection(SelectionKey k) throws IOException {
+			if (k.isReadable())
+				doRead();
+			if (k.isValid() && k.isWritable())
+				doWrite();
+		}
+
+		public void handleSelectionException(Throwable t) {
+			handleInputClosed(t);
+		}
+	};
+
+	private volatile SocketChannel channel;
+	private volatile SelectionKey key;
+	private String addressPort = "-1:<no endpoint>:-1"; //$NON-NLS-1$
+
+	// Event handler
+	private volatile ISynchAsynchEventHandler handler;
+	private volatile ID containerID = null;
+	private int keepAlive = 0;
+	private long closeTimeout = Client.DEFAULT_CLOSE_TIMEOUT;
+	private Map properties;
+	private int maxmsgs = Client.DEFAULT_MAX_BUFFER_MSG;
+
+	private volatile boolean isClosing = false;
+	private volatile boolean started = false;
+	private volatile boolean stopped = false;
+	volatile boolean disconnectHandled = false;
+	private final Object disconnectLock = new Object();
+
+	// Outbound
+	private final Object outputStreamLock = new Object();
+	private OutputBuffer outputBuffer;
+	private ObjectOutputStream outputStream;
+	private int resetCounter = 0;
+	private final Object writeLock = new Object();
+	private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<ByteBuffer>();
+	// Bytes remaining in writeQueue, guarded by writeLock
+	private long writeQueueBytes = 0;
+
+	// Inbound, accessed only by the selector thread
+	private byte[] readBuffer = new byte[DEFAULT_READ_BUFFER_SIZE];
+	private int readStart = 0;
+	private int readEnd = 0;
+	private boolean headerScanned = false;
+	private int maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
+	private final SerializationStreamScanner scanner = new SerializationStreamScanner();
+
+	// Inbound, accessed only by the (serialized) dispatch task
+	private final FrameInputStream frameInput = new FrameInputStream();
+	private ObjectInputStream inputStream;
+	private volatile boolean handshakeDone = false;
+
+	private final ConcurrentLinkedQueue<byte[]> frames = new ConcurrentLinkedQueue<byte[]>();
+	private final AtomicLong framesBytes = new AtomicLong();
+	private final AtomicBoolean readPaused = new AtomicBoolean();
+	private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+	private final Runnable dispatchTask = new Runnable() {
+		public void run() {
+			dispatch();
+		}
+	};
+	private final Runnable retryDispatchTask = new Runnable() {
+		public void run() {
+			executeDispatch();
+		}
+	};
+	private volatile boolean inputClosed = false;
+	private volatile Throwable inputException;
+
+	// Handshake
+	private CompletableFuture<ConnectResultMessage> connectResult;
+	private final INIOAcceptHandler acceptHandler;
+	private volatile ScheduledFuture<?> handshakeTimeout;
+
+	// Keep alive
+	private final PingMessage ping = new PingMessage();
+	private final PingResponseMessage pingResp = new PingResponseMessage();
+	private volatile boolean waitForPing = false;
+	private volatile long lastReceived;
+	private ScheduledFuture<?> pingFuture;
+
+	/**
+	 * Create a client connection using the default {@link NIOSelectorGroup}.
+	 * @param handler the event handler.  Must not be <code>null</code>.
+	 * @param keepAlive keep alive interval in ms.  0 or less disables keep alive.
+	 * @throws IOException if the default selector group cannot be created
+	 */
+	public NIOClient(ISynchAsynchEventHandler handler, int keepAlive) throws IOException {
+		this(NIOSelectorGroup.getDefault(), handler, keepAlive);
+	}
+
+	public NIOClient(NIOSelectorGroup group, ISynchAsynchEventHandler handler, int keepAlive) {
+		if (handler == null)
+			throw new NullPointerException("event handler cannot be null"); //$NON-NLS-1$
+		if (group == null)
+			throw new NullPointerException("selector group cannot be null"); //$NON-NLS-1$
+		this.group = group;
+		this.loop = group.nextLoop();
+		this.handler = handler;
+		this.keepAlive = keepAlive;
+		this.containerID = handler.getEventHandlerID();
+		this.properties = new HashMap();
+		this.acceptHandler = null;
+	}
+
+	/**
+	 * Server side constructor, used by {@link NIOServer} for accepted channels.
+	 */
+	NIOClient(NIOSelectorGroup group, SocketChannel aChannel, INIOAcceptHandler acceptHandler) throws IOException {
+		this.group = group;
+		this.loop = group.nextLoop();
+		this.acceptHandler = acceptHandler;
+		this.keepAlive = Integer.valueOf(System.getProperty("org.eclipse.ecf.provider.generic.keepalive", "30000")).intValue(); //$NON-NLS-1$ //$NON-NLS-2$
+		this.properties = new Properties();
+		setChannel(aChannel);
+		// Send the stream header right away, as the blocking Client waits
+		// for it before sending its connect request
+		synchronized (outputStreamLock) {
+			initOutputStream();
+			write(outputBuffer.take());
+		}
+		register();
+		// Do not keep connections around that never send a connect request
+		if (DEFAULT_HANDSHAKE_TIMEOUT > 0)
+			handshakeTimeout = group.getScheduler().schedule(new Runnable() {
+				public void run() {
+					if (!handshakeDone)
+						handleInputClosed(new SocketTimeoutException(getAddressPort() + " no connect request received within " + DEFAULT_HANDSHAKE_TIMEOUT + "ms")); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}, DEFAULT_HANDSHAKE_TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+	private String getHostNameForAddressWithoutLookup(InetAddress inetAddress) {
+		String inetAddressStr = inetAddress.toString();
+		int slashPos = inetAddressStr.indexOf('/');
+		if (slashPos == 0)
+			return inetAddressStr.substring(1);
+		return inetAddressStr.substring(0, slashPos);
+	}
+
+	private void setChannel(SocketChannel c) throws IOException {
+		channel = c;
+		lastReceived = System.currentTimeMillis();
+		if (c != null) {
+			Socket s = c.socket();
+			addressPort = s.getLocalPort() + ":" //$NON-NLS-1$
+					+ getHostNameForAddressWithoutLookup(s.getInetAddress()) + ":" + s.getPort(); //$NON-NLS-1$
+		} else
+			addressPort = "-1:<no endpoint>:-1"; //$NON-NLS-1$
+	}
+
+	private void register() {
+		final SocketChannel c = channel;
+		loop.execute(new Runnable() {
+			public void run() {
+				try {
+					key = loop.register(c, SelectionKey.OP_READ, selectionHandler);
+					synchronized (writeLock) {
+						if (!writeQueue.isEmpty())
+							key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+					}
+				} catch (IOException e) {
+					handleInputClosed(e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Set the event handler for an accepted connection.  Intended to be
+	 * called by {@link INIOAcceptHandler} implementations.
+	 * @param h the event handler.  Must not be <code>null</code>.
+	 */
+	public void setEventHandler(ISynchAsynchEventHandler h) {
+		if (h == null)
+			throw new NullPointerException("event handler cannot be null"); //$NON-NLS-1$
+		this.handler = h;
+		this.containerID = h.getEventHandlerID();
+	}
+
+	/**
+	 * @return Socket the socket for this connection, or <code>null</code> if
+	 * not connected
+	 */
+	public Socket getSocket() {
+		SocketChannel c = channel;
+		return (c == null) ? null : c.socket();
+	}
+
+	public synchronized ID getLocalID() {
+		if (containerID != null)
+			return containerID;
+		Socket socket = getSocket();
+		if (socket == null)
+			return null;
+		try {
+			return IDFactory.getDefault().createStringID(PROTOCOL + "://" + getHostNameForAddressWithoutLookup(socket.getLocalAddress()) //$NON-NLS-1$
+					+ ":" + socket.getLocalPort()); //$NON-NLS-1$
+		} catch (final Exception e) {
+			traceStack("Exception in getLocalID()", e); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	public void removeListener(IConnectionListener l) {
+		// XXX does not support listeners
+	}
+
+	public void addListener(IConnectionListener l) {
+		// XXX does not support listeners
+	}
+
+	public boolean isConnected() {
+		SocketChannel c = channel;
+		return c != null && c.isConnected();
+	}
+
+	public boolean isStarted() {
+		return started && !stopped;
+	}
+
+	public synchronized Object connect(ID remote, Object data, int timeout) throws ECFException {
+		debug("connect(" + remote + "," + data + "," + timeout + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		if (channel != null)
+			throw new ECFException("Already connected"); //$NON-NLS-1$
+		if (remote == null)
+			throw new ECFException("remote cannot be null"); //$NON-NLS-1$
+		URI anURI = null;
+		try {
+			anURI = new URI(remote.getName());
+		} catch (final URISyntaxException e) {
+			throw new ECFException("Invalid URI for remoteID=" + remote, e); //$NON-NLS-1$
+		}
+		ConnectResultMessage res = null;
+		SocketChannel c = null;
+		try {
+			c = SocketChannel.open();
+			c.socket().setTcpNoDelay(true);
+			if (keepAlive > 0)
+				c.socket().setKeepAlive(true);
+			c.socket().connect(new InetSocketAddress(anURI.getHost(), anURI.getPort()), Math.max(timeout, 0));
+			c.configureBlocking(false);
+			setChannel(c);
+			connectResult = new CompletableFuture<ConnectResultMessage>();
+			register();
+			debug("connect;" + anURI); //$NON-NLS-1$
+			synchronized (outputStreamLock) {
+				initOutputStream();
+				send(new ConnectRequestMessage(anURI, (Serializable) data));
+			}
+			res = (timeout > 0) ? connectResult.get(timeout, TimeUnit.MILLISECONDS) : connectResult.get();
+		} catch (final Exception e) {
+			closeChannel();
+			Throwable t = (e instanceof ExecutionException) ? e.getCause() : e;
+			throw new ECFException("Exception during connection to " + remote.getName(), t); //$NON-NLS-1$
+		}
+		debug("connect;rcv:" + res); //$NON-NLS-1$
+		if (res == null)
+			throw new ECFException("Result cannot be null"); //$NON-NLS-1$
+		final Object ret = res.getData();
+		debug("connect;returning:" + ret); //$NON-NLS-1$
+		return ret;
+	}
+
+	private void initOutputStream() throws IOException {
+		if (outputStream == null) {
+			outputBuffer = new OutputBuffer();
+			outputStream = new ObjectOutputStream(outputBuffer);
+			outputStream.flush();
+		}
+	}
+
+	// Outbound
+
+	void send(Serializable snd) throws IOException {
+		synchronized (outputStreamLock) {
+			initOutputStream();
+			outputStream.writeObject(snd);
+			outputStream.flush();
+			if (resetCounter > this.maxmsgs) {
+				outputStream.reset();
+				resetCounter = 0;
+			} else
+				resetCounter++;
+			write(outputBuffer.take());
+		}
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		final SocketChannel c = channel;
+		if (c == null)
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+		synchronized (writeLock) {
+			if (writeQueueBytes >= DEFAULT_MAX_WRITE_QUEUE_BYTES)
+				waitForWriteQueue(c);
+			// Try to write directly.  Only if the socket buffer is full is
+			// the remainder queued for the selector thread.
+			if (writeQueue.isEmpty())
+				c.write(buffer);
+			if (buffer.hasRemaining()) {
+				boolean wasEmpty = writeQueue.isEmpty();
+				writeQueue.add(buffer);
+				writeQueueBytes += buffer.remaining();
+				if (wasEmpty)
+					setInterest(SelectionKey.OP_WRITE, true);
+			}
+		}
+	}
+
+	/**
+	 * Wait until the selector thread has written enough of the queue, which
+	 * it does only as fast as the peer reads.  Must hold writeLock.
+	 */
+	private void waitForWriteQueue(SocketChannel c) throws IOException {
+		final long deadline = System.currentTimeMillis() + Client.DEFAULT_SEND_QUEUE_TIMEOUT;
+		while (writeQueueBytes >= DEFAULT_MAX_WRITE_QUEUE_BYTES && c.isOpen()) {
+			final long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0)
+				throw new IOException(getAddressPort() + " send queue full"); //$NON-NLS-1$
+			try {
+				writeLock.wait(remaining);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting for send queue"); //$NON-NLS-1$
+			}
+		}
+		if (!c.isOpen())
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+	}
+
+	private void setInterest(final int op, final boolean on) {
+		loop.execute(new Runnable() {
+			public void run() {
+				SelectionKey k = key;
+				if (k == null || !k.isValid())
+					return;
+				if (on)
+					k.interestOps(k.interestOps() | op);
+				else
+					k.interestOps(k.interestOps() & ~op);
+			}
+		});
+	}
+
+	void doWrite() throws IOException {
+		synchronized (writeLock) {
+			while (!writeQueue.isEmpty()) {
+				ByteBuffer[] buffers = new ByteBuffer[Math.min(writeQueue.size(), MAX_GATHER)];
+				Iterator<ByteBuffer> it = writeQueue.iterator();
+				for (int i = 0; i < buffers.length; i++)
+					buffers[i] = it.next();
+				final long written = channel.write(buffers);
+				while (!writeQueue.isEmpty() && !writeQueue.peek().hasRemaining())
+					writeQueue.poll();
+				if (written > 0) {
+					writeQueueBytes -= written;
+					// Wake up senders waiting for room
+					writeLock.notifyAll();
+				}
+				// Socket buffer full, wait for next OP_WRITE
+				if (buffers[buffers.length - 1].hasRemaining())
+					return;
+			}
+			setInterest(SelectionKey.OP_WRITE, false);
+		}
+	}
+
+	// Inbound
+
+	void doRead() throws IOException {
+		if (readEnd == readBuffer.length) {
+			if (readStart > 0) {
+				System.arraycopy(readBuffer, readStart, readBuffer, 0, readEnd - readStart);
+				readEnd -= readStart;
+				readStart = 0;
+			} else {
+				// The buffer holds only the start of one message
+				if (readBuffer.length >= maxMessageSize)
+					throw new StreamCorruptedException(getAddressPort() + " message larger than " + maxMessageSize + " bytes"); //$NON-NLS-1$ //$NON-NLS-2$
+				readBuffer = Arrays.copyOf(readBuffer, (int) Math.min((long) readBuffer.length * 2, maxMessageSize));
+			}
+		}
+		int n = channel.read(ByteBuffer.wrap(readBuffer, readEnd, readBuffer.length - readEnd));
+		if (n < 0)
+			throw new EOFException("Connection closed by peer " + getAddressPort()); //$NON-NLS-1$
+		if (n == 0)
+			return;
+		readEnd += n;
+		lastReceived = System.currentTimeMillis();
+		boolean found = false;
+		for (;;) {
+			int frameStart = readStart;
+			int p = readStart;
+			if (!headerScanned) {
+				p = scanner.scanHeader(readBuffer, readStart, readEnd);
+				if (p < 0)
+					break;
+			}
+			int end = scanner.scan(readBuffer, p, readEnd);
+			if (end < 0)
+				break;
+			headerScanned = true;
+			frames.add(Arrays.copyOfRange(readBuffer, frameStart, end));
+			framesBytes.addAndGet(end - frameStart);
+			readStart = end;
+			found = true;
+		}
+		if (readStart == readEnd)
+			readStart = readEnd = 0;
+		if (found) {
+			scheduleDispatch();
+			// Stop reading while the handler is behind, so the peer blocks
+			// rather than received messages piling up here
+			if (framesBytes.get() > DEFAULT_MAX_READ_QUEUE_BYTES && readPaused.compareAndSet(false, true)) {
+				key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+				// The dispatch task may have caught up before readPaused was set
+				if (framesBytes.get() <= DEFAULT_MAX_READ_QUEUE_BYTES / 2)
+					resumeReading();
+			}
+		}
+	}
+
+	private void resumeReading() {
+		if (readPaused.compareAndSet(true, false))
+			setInterest(SelectionKey.OP_READ, true);
+	}
+
+	void handleInputClosed(Throwable t) {
+		if (inputClosed)
+			return;
+		inputException = t;
+		inputClosed = true;
+		closeChannel();
+		CompletableFuture<ConnectResultMessage> cr = connectResult;
+		if (cr != null && !cr.isDone())
+			cr.completeExceptionally((t == null) ? new EOFException("Connection closed") : t); //$NON-NLS-1$
+		scheduleDispatch();
+	}
+
+	void setMaxMessageSize(int size) {
+		maxMessageSize = size;
+	}
+
+	private void scheduleDispatch() {
+		if (dispatchScheduled.compareAndSet(false, true))
+			executeDispatch();
+	}
+
+	private void executeDispatch() {
+		try {
+			group.getWorkers().execute(dispatchTask);
+		} catch (RejectedExecutionException e) {
+			// The worker queue is full.  Try again shortly, meanwhile reading
+			// stops once DEFAULT_MAX_READ_QUEUE_BYTES are waiting.
+			if (!group.isShutdown())
+				try {
+					group.getScheduler().schedule(retryDispatchTask, DISPATCH_RETRY_DELAY, TimeUnit.MILLISECONDS);
+					return;
+				} catch (RejectedExecutionException e1) {
+					// group shut down
+				}
+			dispatchScheduled.set(false);
+		}
+	}
+
+	/**
+	 * Deliver received messages.  At most one dispatch task runs at a time for
+	 * any connection, so messages are delivered in order.
+	 */
+	void dispatch() {
+		try {
+			for (;;) {
+				if (!handshakeDone || started) {
+					byte[] frame = frames.poll();
+					if (frame != null) {
+						processFrame(frame);
+						if (framesBytes.addAndGet(-frame.length) <= DEFAULT_MAX_READ_QUEUE_BYTES / 2 && readPaused.get())
+							resumeReading();
+						continue;
+					}
+				}
+				break;
+			}
+			if (inputClosed && (started || acceptHandler != null && !handshakeDone))
+				handleException(inputException);
+		} finally {
+			dispatchScheduled.set(false);
+		}
+		if (((!handshakeDone || started) && !frames.isEmpty()) || (inputClosed && started && !disconnectHandled))
+			scheduleDispatch();
+	}
+
+	private void processFrame(byte[] frame) {
+		if (disconnectHandled)
+			return;
+		try {
+			frameInput.setFrame(frame);
+			if (inputStream == null)
+				inputStream = ProviderPlugin.getDefault().createObjectInputStream(frameInput);
+			Serializable rcv = readObject();
+			if (!handshakeDone) {
+				handshakeDone = true;
+				handleHandshake(rcv);
+			} else
+				handleRcv(rcv);
+		} catch (Exception e) {
+			if (connectResult != null && !connectResult.isDone())
+				connectResult.completeExceptionally(e);
+			handleInputClosed(e);
+		}
+	}
+
+	private void handleHandshake(Serializable rcv) throws Exception {
+		if (acceptHandler == null) {
+			if (!(rcv instanceof ConnectResultMessage))
+				throw new InvalidObjectException("Expected ConnectResultMessage but received " + rcv); //$NON-NLS-1$
+			connectResult.complete((ConnectResultMessage) rcv);
+			return;
+		}
+		cancelHandshakeTimeout();
+		if (!(rcv instanceof ConnectRequestMessage))
+			throw new InvalidObjectException("Expected ConnectRequestMessage but received " + rcv); //$NON-NLS-1$
+		// Nothing may be sent until the connect request has been accepted or
+		// rejected and the result is on its way
+		synchronized (outputStreamLock) {
+			final Serializable resp = acceptHandler.handleConnectRequest(this, (ConnectRequestMessage) rcv);
+			send(new ConnectResultMessage(resp));
+		}
+	}
+
+	void handleRcv(Serializable rcv) throws IOException {
+		try {
+			if (rcv instanceof SynchMessage) {
+				handler.handleSynchEvent(new SynchEvent(this, ((SynchMessage) rcv).getData()));
+			} else if (rcv instanceof AsynchMessage) {
+				final Serializable d = ((AsynchMessage) rcv).getData();
+				handler.handleAsynchEvent(new AsynchEvent(this, d));
+			} else if (rcv instanceof PingMessage) {
+				send(pingResp);
+			} else if (rcv instanceof PingResponseMessage) {
+				waitForPing = false;
+			} else
+				throw new IOException("Invalid message received"); //$NON-NLS-1$
+		} catch (final IOException e) {
+			disconnect();
+			throw e;
+		}
+	}
+
+	Serializable readObject() throws IOException {
+		try {
+			return (Serializable) inputStream.readObject();
+		} catch (final ClassNotFoundException e) {
+			traceStack("readObject;classnotfoundexception", e); //$NON-NLS-1$
+			final IOException except = new IOException("Protocol violation due to class load failure"); //$NON-NLS-1$
+			except.setStackTrace(e.getStackTrace());
+			throw except;
+		}
+	}
+
+	void handleException(Throwable e) {
+		synchronized (disconnectLock) {
+			if (!disconnectHandled) {
+				disconnectHandled = true;
+				if (e != null)
+					traceStack("handleException in thread=" //$NON-NLS-1$
+							+ Thread.currentThread().getName(), e);
+				cancelPing();
+				ISynchAsynchEventHandler h = handler;
+				if (h != null)
+					h.handleDisconnectEvent(new DisconnectEvent(this, e, null));
+			}
+		}
+		synchronized (this) {
+			notifyAll();
+		}
+	}
+
+	// Lifecycle
+
+	public synchronized void start() {
+		debug("start()"); //$NON-NLS-1$
+		if (started || stopped)
+			return;
+		started = true;
+		if (keepAlive > 0)
+			setupPing();
+		scheduleDispatch();
+	}
+
+	public void stop() {
+		debug("stop()"); //$NON-NLS-1$
+	}
+
+	private void setupPing() {
+		debug("setupPing()"); //$NON-NLS-1$
+		final int frequency = keepAlive / 2;
+		final int pingStartWait = (new SecureRandom()).nextInt(frequency) + frequency;
+		pingFuture = group.getScheduler().scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				if (stopped || disconnectHandled) {
+					cancelPing();
+					return;
+				}
+				try {
+					// Mirror the blocking Client's socket timeout
+					if (System.currentTimeMillis() - lastReceived > keepAlive)
+						throw new SocketTimeoutException(getAddressPort() + " read timed out"); //$NON-NLS-1$
+					// If we haven't received a response, then we assume
+					// the remote is not reachable
+					if (waitForPing)
+						throw new IOException(getAddressPort() + " remote not reachable by ping"); //$NON-NLS-1$
+					waitForPing = true;
+					group.getWorkers().execute(new Runnable() {
+						public void run() {
+							try {
+								send(ping);
+							} catch (IOException e) {
+								handleInputClosed(e);
+							}
+						}
+					});
+				} catch (final RejectedExecutionException e) {
+					// Workers busy, ping next time
+					waitForPing = false;
+				} catch (final Exception e) {
+					handleInputClosed(e);
+				}
+			}
+		}, pingStartWait, frequency, TimeUnit.MILLISECONDS);
+	}
+
+	private void cancelHandshakeTimeout() {
+		final ScheduledFuture<?> f = handshakeTimeout;
+		if (f != null) {
+			handshakeTimeout = null;
+			f.cancel(false);
+		}
+	}
+
+	private synchronized void cancelPing() {
+		if (pingFuture != null) {
+			pingFuture.cancel(false);
+			pingFuture = null;
+		}
+	}
+
+	private void closeChannel() {
+		SocketChannel c = channel;
+		if (c == null)
+			return;
+		SelectionKey k = key;
+		if (k != null)
+			k.cancel();
+		try {
+			c.close();
+		} catch (final IOException e) {
+			traceStack("closeChannel Exception", e); //$NON-NLS-1$
+		}
+		// Senders waiting for room in the write queue fail now
+		synchronized (writeLock) {
+			writeLock.notifyAll();
+		}
+	}
+
+	public synchronized void disconnect() {
+		debug("disconnect()"); //$NON-NLS-1$
+		stopped = true;
+		cancelPing();
+		handleInputClosed(null);
+		// Notify any threads waiting to get hold of our lock
+		notifyAll();
+	}
+
+	public void setCloseTimeout(long t) {
+		closeTimeout = t;
+	}
+
+	private void sendClose(Serializable snd) throws IOException {
+		isClosing = true;
+		debug("sendClose(" + snd + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+		send(snd);
+		int count = 0;
+		final int interval = Client.DEFAULT_WAIT_INTERVAL;
+		while (!disconnectHandled && count < interval) {
+			try {
+				wait(closeTimeout / interval);
+				count++;
+			} catch (final InterruptedException e) {
+				traceStack("sendClose wait", e); //$NON-NLS-1$
+				return;
+			}
+		}
+	}
+
+	public void sendAsynch(ID recipient, byte[] obj) throws IOException {
+		queueObject(recipient, obj);
+	}
+
+	public void sendAsynch(ID recipient, Object obj) throws IOException {
+		queueObject(recipient, (Serializable) obj);
+	}
+
+	public void queueObject(ID recipient, Serializable obj) throws IOException {
+		if (stopped || inputClosed || isClosing)
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+		send(new AsynchMessage(obj));
+	}
+
+	public synchronized Serializable sendObject(ID recipient, Serializable obj) throws IOException {
+		if (stopped || inputClosed || isClosing)
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+		sendClose(new SynchMessage(obj));
+		return null;
+	}
+
+	public Object sendSynch(ID rec, Object obj) throws IOException {
+		return sendObject(rec, (Serializable) obj);
+	}
+
+	public Object sendSynch(ID rec, byte[] obj) throws IOException {
+		return sendObject(rec, obj);
+	}
+
+	public Map getProperties() {
+		return properties;
+	}
+
+	public void setProperties(Map props) {
+		this.properties = props;
+	}
+
+	public Object getAdapter(Class clazz) {
+		return null;
+	}
+
+	String getAddressPort() {
+		return addressPort;
+	}
+
+	/**
+	 * @return Object the output stream lock
+	 */
+	public Object getOutputStreamLock() {
+		return outputStreamLock;
+	}
+
+	private void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, getLocalID() + "." + msg); //$NON-NLS-1$
+	}
+
+	private void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOClient.class, msg, e);
+	}
+}
@@ -0,0 +1,234 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.nio;
+
+import java.io.IOException;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+
+/**
+ * A fixed set of selector (I/O) threads shared by many {@link NIOClient} and
+ * {@link NIOServer} instances, along with a bounded worker pool for message
+ * deserialization/dispatch and a single scheduler used for keep-alive pings.
+ * <p>
+ * The number of I/O threads is given by the
+ * <code>org.eclipse.ecf.provider.comm.nio.selectors</code> system property,
+ * and the number of worker threads by
+ * <code>org.eclipse.ecf.provider.comm.nio.workers</code>.
+ * <p>
+ * Each connection has at most one dispatch task waiting for or running on
+ * the worker pool, so messages of one connection are delivered in order and
+ * a busy connection cannot crowd out the others.  The worker queue is
+ * bounded by <code>org.eclipse.ecf.provider.comm.nio.workerqueue</code>;
+ * dispatch tasks rejected by a full queue are retried by the connection.
+ *
+ * @since 4.11
+ */
+public class NIOSelectorGroup {
+
+	public static final int DEFAULT_SELECTORS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.nio.selectors", String.valueOf(Math.min(4, Runtime.getRuntime().availableProcessors())))); //$NON-NLS-1$
+
+	public static final int DEFAULT_WORKERS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.nio.workers", String.valueOf(Math.max(4, 2 * Runtime.getRuntime().availableProcessors())))); //$NON-NLS-1$
+
+	/**
+	 * @since 4.12
+	 */
+	public static final int DEFAULT_WORKER_QUEUE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.nio.workerqueue", "10000")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static NIOSelectorGroup defaultGroup;
+
+	/**
+	 * Something registered with a selector loop.
+	 */
+	interface SelectionHandler {
+		void handleSelection(SelectionKey key) throws IOException;
+
+		void handleSelectionException(Throwable t);
+	}
+
+	final class SelectorLoop implements Runnable {
+		final Selector selector;
+		private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+		private final Thread thread;
+		private volatile boolean closed = false;
+
+		SelectorLoop(String name) throws IOException {
+			selector = Selector.open();
+			thread = new Thread(this, name);
+			thread.setDaemon(true);
+		}
+
+		void start() {
+			thread.start();
+		}
+
+		boolean inLoop() {
+			return Thread.currentThread() == thread;
+		}
+
+		/**
+		 * Run the given task on this loop's thread.  Registration and
+		 * interest changes are done this way so they never contend with a
+		 * blocked select.
+		 */
+		void execute(Runnable task) {
+			if (inLoop())
+				task.run();
+			else {
+				tasks.add(task);
+				selector.wakeup();
+			}
+		}
+
+		SelectionKey register(SelectableChannel channel, int ops, SelectionHandler handler) throws ClosedChannelException {
+			return channel.register(selector, ops, handler);
+		}
+
+		public void run() {
+			while (!closed) {
+				try {
+					selector.select();
+					Runnable task;
+					while ((task = tasks.poll()) != null)
+						task.run();
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						SelectionHandler handler = (SelectionHandler) key.attachment();
+						try {
+							if (key.isValid())
+								handler.handleSelection(key);
+						} catch (CancelledKeyException e) {
+							handler.handleSelectionException(e);
+						} catch (Exception e) {
+							handler.handleSelectionException(e);
+						}
+					}
+				} catch (ClosedSelectorException e) {
+					break;
+				} catch (Exception e) {
+					traceStack("Unexpected exception in selector loop", e); //$NON-NLS-1$
+				}
+			}
+			debug("SELECTOR TERMINATING"); //$NON-NLS-1$
+		}
+
+		void close() {
+			closed = true;
+			try {
+				selector.close();
+			} catch (IOException e) {
+				traceStack("Exception closing selector", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private final SelectorLoop[] loops;
+	private final AtomicInteger nextLoop = new AtomicInteger();
+	private final ExecutorService workers;
+	private final ScheduledExecutorService scheduler;
+
+	public NIOSelectorGroup(String name, int selectorCount, int workerCount) throws IOException {
+		this(name, selectorCount, workerCount, DEFAULT_WORKER_QUEUE);
+	}
+
+	/**
+	 * @param name prefix for thread names
+	 * @param selectorCount number of I/O threads
+	 * @param workerCount number of worker threads
+	 * @param workerQueueSize maximum number of tasks waiting for a worker
+	 * @throws IOException if selectors cannot be opened
+	 * @since 4.12
+	 */
+	public NIOSelectorGroup(String name, int selectorCount, int workerCount, int workerQueueSize) throws IOException {
+		if (selectorCount < 1 || workerCount < 1 || workerQueueSize < 1)
+			throw new IllegalArgumentException("selectorCount, workerCount and workerQueueSize must be positive"); //$NON-NLS-1$
+		loops = new SelectorLoop[selectorCount];
+		for (int i = 0; i < selectorCount; i++) {
+			loops[i] = new SelectorLoop(name + ":selector:" + i); //$NON-NLS-1$
+			loops[i].start();
+		}
+		workers = new ThreadPoolExecutor(workerCount, workerCount, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(workerQueueSize), createThreadFactory(name + ":worker:")); //$NON-NLS-1$
+		((ThreadPoolExecutor) workers).allowCoreThreadTimeOut(true);
+		scheduler = Executors.newSingleThreadScheduledExecutor(createThreadFactory(name + ":scheduler:")); //$NON-NLS-1$
+	}
+
+	private static ThreadFactory createThreadFactory(final String prefix) {
+		return new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, prefix + count.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+	/**
+	 * @return the process-wide default group, created on first use
+	 * @throws IOException if selectors cannot be opened
+	 */
+	public static synchronized NIOSelectorGroup getDefault() throws IOException {
+		if (defaultGroup == null)
+			defaultGroup = new NIOSelectorGroup("ecfnio", DEFAULT_SELECTORS, DEFAULT_WORKERS); //$NON-NLS-1$
+		return defaultGroup;
+	}
+
+	/**
+	 * Shut down the default group if it was ever created.
+	 */
+	public static synchronized void shutdownDefault() {
+		if (defaultGroup != null) {
+			defaultGroup.shutdown();
+			defaultGroup = null;
+		}
+	}
+
+	SelectorLoop nextLoop() {
+		return loops[(nextLoop.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+	}
+
+	Executor getWorkers() {
+		return workers;
+	}
+
+	ScheduledExecutorService getScheduler() {
+		return scheduler;
+	}
+
+	boolean isShutdown() {
+		return workers.isShutdown();
+	}
+
+	public void shutdown() {
+		for (int i = 0; i < loops.length; i++)
+			loops[i].close();
+		workers.shutdown();
+		scheduler.shutdownNow();
+	}
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, msg);
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOSelectorGroup.class, msg, e);
+	}
+}
@@ -0,0 +1,114 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.nio;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+import org.eclipse.ecf.provider.comm.tcp.Server;
+
+/**
+ * Non-blocking counterpart of {@link Server}.  Accepting is done by one of
+ * the selector threads of a {@link NIOSelectorGroup} rather than a dedicated
+ * listener thread, and each accepted channel becomes an {@link NIOClient}
+ * that is handed to the {@link INIOAcceptHandler} once its connect request
+ * has arrived.
+ *
+ * @since 4.11
+ */
+public class NIOServer {
+
+	private final NIOSelectorGroup group;
+	private final NIOSelectorGroup.SelectorLoop loop;
+	private final ServerSocketChannel serverChannel;
+	private final INIOAcceptHandler acceptHandler;
+	private volatile SelectionKey key;
+
+	private final NIOSelectorGroup.SelectionHandler selectionHandler = new NIOSelectorGroup.SelectionHandler() {
+		public void handleSelection(SelectionKey k) throws IOException {
+			if (k.isAcceptable())
+				handleAccept();
+		}
+
+		public void handleSelectionException(Throwable t) {
+			traceStack("Exception in accept", t); //$NON-NLS-1$
+		}
+	};
+
+	public NIOServer(NIOSelectorGroup group, int port, int backlog, InetAddress bindAddress, INIOAcceptHandler handler) throws IOException {
+		if (handler == null)
+			throw new NullPointerException("Accept handler cannot be null"); //$NON-NLS-1$
+		this.group = group;
+		this.acceptHandler = handler;
+		this.loop = group.nextLoop();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(bindAddress, port), backlog);
+		serverChannel.configureBlocking(false);
+		loop.execute(new Runnable() {
+			public void run() {
+				try {
+					key = loop.register(serverChannel, SelectionKey.OP_ACCEPT, selectionHandler);
+				} catch (IOException e) {
+					traceStack("Could not register server channel", e); //$NON-NLS-1$
+				}
+			}
+		});
+		debug("NIOServer listening on port " + getLocalPort()); //$NON-NLS-1$
+	}
+
+	public NIOServer(NIOSelectorGroup group, int port, InetAddress bindAddress, INIOAcceptHandler handler) throws IOException {
+		this(group, port, Server.DEFAULT_BACKLOG, bindAddress, handler);
+	}
+
+	void handleAccept() throws IOException {
+		SocketChannel channel;
+		while ((channel = serverChannel.accept()) != null) {
+			try {
+				debug("accept:" + channel.socket().getInetAddress()); //$NON-NLS-1$
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+				new NIOClient(group, channel, acceptHandler);
+			} catch (Exception e) {
+				traceStack("Unexpected exception in handleAccept...closing", e); //$NON-NLS-1$
+				try {
+					channel.close();
+				} catch (IOException e1) {
+					traceStack("accept.close", e1); //$NON-NLS-1$
+				}
+			}
+		}
+	}
+
+	public int getLocalPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	public synchronized void close() throws IOException {
+		SelectionKey k = key;
+		if (k != null)
+			k.cancel();
+		serverChannel.close();
+	}
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, msg);
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOServer.class, msg, e);
+	}
+}
@@ -0,0 +1,404 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.nio;
+
+import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the boundaries of top-level objects in a java serialization stream
+ * without deserializing them.  The existing ecftcp wire protocol is a single
+ * {@link java.io.ObjectOutputStream} per connection with no length prefix, so
+ * a non-blocking reader has to know when a complete message has arrived
+ * before handing it to the (blocking) {@link java.io.ObjectInputStream}.
+ * <p>
+ * The scanner walks the grammar given in the java object serialization
+ * specification (chapter 6) and keeps its own handle table so that back
+ * references to class descriptors can be resolved.  Classes with a
+ * <code>writeObject</code> method are assumed to call
+ * <code>defaultWriteObject</code> or <code>writeFields</code> first, as the
+ * specification requires.  Externalizable classes must use protocol version
+ * 2 (the default since 1.2).
+ * <p>
+ * Instances are not thread safe and are used only from the selector thread
+ * that owns the connection.
+ */
+final class SerializationStreamScanner implements ObjectStreamConstants {
+
+	private static final Object OTHER_HANDLE = new Object();
+
+	static final int HEADER_LENGTH = 4;
+
+	/**
+	 * Thrown when the buffered bytes end before the current item does.
+	 * Preallocated since it is part of normal control flow.
+	 */
+	private static final class Underflow extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		Underflow() {
+			super(null, null, false, false);
+		}
+	}
+
+	private static final Underflow UNDERFLOW = new Underflow();
+
+	private static final class ClassDesc {
+		final byte flags;
+		final int primBytes;
+		final int objFields;
+		final char arrayComponent;
+		ClassDesc superDesc;
+
+		ClassDesc(byte flags, int primBytes, int objFields, char arrayComponent) {
+			this.flags = flags;
+			this.primBytes = primBytes;
+			this.objFields = objFields;
+			this.arrayComponent = arrayComponent;
+		}
+	}
+
+	private List<Object> handles = new ArrayList<Object>();
+	private List<Object> savedHandles;
+	private int handleMark;
+
+	private byte[] buf;
+	private int pos;
+	private int limit;
+	private int needed;
+	// length (relative to the start of the current frame) that must be
+	// buffered before another scan attempt can possibly succeed
+	private int requiredLength;
+
+	/**
+	 * Check the stream header.
+	 * @param b buffer
+	 * @param start offset of first unread byte
+	 * @param lim end of buffered bytes
+	 * @return offset after the header, or -1 if not enough bytes are available
+	 * @throws StreamCorruptedException if the header is invalid
+	 */
+	int scanHeader(byte[] b, int start, int lim) throws StreamCorruptedException {
+		if (lim - start < HEADER_LENGTH)
+			return -1;
+		short magic = (short) (((b[start] & 0xff) << 8) | (b[start + 1] & 0xff));
+		short version = (short) (((b[start + 2] & 0xff) << 8) | (b[start + 3] & 0xff));
+		if (magic != STREAM_MAGIC || version != STREAM_VERSION)
+			throw new StreamCorruptedException("invalid stream header"); //$NON-NLS-1$
+		return start + HEADER_LENGTH;
+	}
+
+	/**
+	 * Scan one top-level object, including any preceding reset markers.
+	 * @param b buffer
+	 * @param start offset of first unread byte
+	 * @param lim end of buffered bytes
+	 * @return offset just after the object, or -1 if it is not yet complete
+	 * @throws StreamCorruptedException if the stream cannot be parsed
+	 */
+	int scan(byte[] b, int start, int lim) throws StreamCorruptedException {
+		if (lim - start < Math.max(1, requiredLength))
+			return -1;
+		buf = b;
+		pos = start;
+		limit = lim;
+		handleMark = handles.size();
+		savedHandles = null;
+		try {
+			int tc = readByte();
+			while (tc == TC_RESET) {
+				resetHandles();
+				tc = readByte();
+			}
+			if (tc == TC_BLOCKDATA || tc == TC_BLOCKDATALONG || tc == TC_ENDBLOCKDATA)
+				throw new StreamCorruptedException("unexpected block data at top level"); //$NON-NLS-1$
+			readContent(tc);
+			requiredLength = 0;
+			return pos;
+		} catch (Underflow u) {
+			// roll back any handles assigned during this attempt
+			if (savedHandles != null)
+				handles = savedHandles;
+			while (handles.size() > handleMark)
+				handles.remove(handles.size() - 1);
+			requiredLength = needed - start;
+			return -1;
+		} finally {
+			buf = null;
+			savedHandles = null;
+		}
+	}
+
+	private void resetHandles() {
+		if (savedHandles == null) {
+			savedHandles = handles;
+			handles = new ArrayList<Object>();
+		} else
+			handles.clear();
+	}
+
+	private void readContent(int tc) throws Underflow, StreamCorruptedException {
+		switch (tc) {
+			case TC_NULL :
+				return;
+			case TC_REFERENCE :
+				getHandle(readInt());
+				return;
+			case TC_CLASSDESC :
+				readNonProxyDesc();
+				return;
+			case TC_PROXYCLASSDESC :
+				readProxyDesc();
+				return;
+			case TC_CLASS :
+				readClassDesc(readByte());
+				handles.add(OTHER_HANDLE);
+				return;
+			case TC_STRING :
+				handles.add(OTHER_HANDLE);
+				skip(readUnsignedShort());
+				return;
+			case TC_LONGSTRING :
+				handles.add(OTHER_HANDLE);
+				skip(readLong());
+				return;
+			case TC_ARRAY :
+				readArray();
+				return;
+			case TC_ENUM :
+				readClassDesc(readByte());
+				handles.add(OTHER_HANDLE);
+				readContent(readByte());
+				return;
+			case TC_OBJECT :
+				readOrdinaryObject();
+				return;
+			case TC_EXCEPTION :
+				resetHandles();
+				readContent(readByte());
+				resetHandles();
+				return;
+			case TC_RESET :
+				resetHandles();
+				readContent(readByte());
+				return;
+			default :
+				throw new StreamCorruptedException("invalid type code: " + Integer.toHexString(tc)); //$NON-NLS-1$
+		}
+	}
+
+	private Object getHandle(int handle) throws StreamCorruptedException {
+		int index = handle - baseWireHandle;
+		if (index < 0 || index >= handles.size())
+			throw new StreamCorruptedException("invalid handle value: " + Integer.toHexString(handle)); //$NON-NLS-1$
+		return handles.get(index);
+	}
+
+	private ClassDesc readClassDesc(int tc) throws Underflow, StreamCorruptedException {
+		switch (tc) {
+			case TC_NULL :
+				return null;
+			case TC_REFERENCE :
+				Object o = getHandle(readInt());
+				if (!(o instanceof ClassDesc))
+					throw new StreamCorruptedException("reference is not a class descriptor"); //$NON-NLS-1$
+				return (ClassDesc) o;
+			case TC_CLASSDESC :
+				return readNonProxyDesc();
+			case TC_PROXYCLASSDESC :
+				return readProxyDesc();
+			default :
+				throw new StreamCorruptedException("invalid class descriptor type code: " + Integer.toHexString(tc)); //$NON-NLS-1$
+		}
+	}
+
+	private ClassDesc readNonProxyDesc() throws Underflow, StreamCorruptedException {
+		int nameLength = readUnsignedShort();
+		char arrayComponent = 0;
+		if (nameLength >= 2) {
+			require(2);
+			if (buf[pos] == '[')
+				arrayComponent = (char) buf[pos + 1];
+		}
+		skip(nameLength);
+		// serialVersionUID
+		skip(8);
+		int handleIndex = handles.size();
+		handles.add(OTHER_HANDLE);
+		byte flags = (byte) readByte();
+		int fieldCount = readShort();
+		if (fieldCount < 0)
+			throw new StreamCorruptedException("negative field count"); //$NON-NLS-1$
+		int primBytes = 0;
+		int objFields = 0;
+		for (int i = 0; i < fieldCount; i++) {
+			int typeCode = readByte();
+			skip(readUnsignedShort());
+			if (typeCode == '[' || typeCode == 'L') {
+				objFields++;
+				// field type signature
+				int stc = readByte();
+				if (stc != TC_STRING && stc != TC_LONGSTRING && stc != TC_REFERENCE)
+					throw new StreamCorruptedException("invalid field type signature"); //$NON-NLS-1$
+				readContent(stc);
+			} else
+				primBytes += primitiveSize((char) typeCode);
+		}
+		ClassDesc desc = new ClassDesc(flags, primBytes, objFields, arrayComponent);
+		handles.set(handleIndex, desc);
+		readAnnotation();
+		desc.superDesc = readClassDesc(readByte());
+		return desc;
+	}
+
+	private ClassDesc readProxyDesc() throws Underflow, StreamCorruptedException {
+		ClassDesc desc = new ClassDesc(SC_SERIALIZABLE, 0, 0, (char) 0);
+		handles.add(desc);
+		int count = readInt();
+		if (count < 0)
+			throw new StreamCorruptedException("negative proxy interface count"); //$NON-NLS-1$
+		for (int i = 0; i < count; i++)
+			skip(readUnsignedShort());
+		readAnnotation();
+		desc.superDesc = readClassDesc(readByte());
+		return desc;
+	}
+
+	private void readArray() throws Underflow, StreamCorruptedException {
+		ClassDesc desc = readClassDesc(readByte());
+		if (desc == null)
+			throw new StreamCorruptedException("array class descriptor cannot be null"); //$NON-NLS-1$
+		handles.add(OTHER_HANDLE);
+		int length = readInt();
+		if (length < 0)
+			throw new StreamCorruptedException("negative array length"); //$NON-NLS-1$
+		char component = desc.arrayComponent;
+		if (component == '[' || component == 'L') {
+			for (int i = 0; i < length; i++)
+				readContent(readByte());
+		} else
+			skip((long) length * primitiveSize(component));
+	}
+
+	private void readOrdinaryObject() throws Underflow, StreamCorruptedException {
+		ClassDesc desc = readClassDesc(readByte());
+		if (desc == null)
+			throw new StreamCorruptedException("object class descriptor cannot be null"); //$NON-NLS-1$
+		handles.add(OTHER_HANDLE);
+		if ((desc.flags & SC_EXTERNALIZABLE) != 0) {
+			if ((desc.flags & SC_BLOCK_DATA) == 0)
+				throw new StreamCorruptedException("externalizable data without block data mode is not supported"); //$NON-NLS-1$
+			readAnnotation();
+			return;
+		}
+		readClassData(desc);
+	}
+
+	private void readClassData(ClassDesc desc) throws Underflow, StreamCorruptedException {
+		// class data is written from the topmost serializable superclass down
+		if (desc.superDesc != null)
+			readClassData(desc.superDesc);
+		if ((desc.flags & SC_SERIALIZABLE) == 0)
+			return;
+		skip(desc.primBytes);
+		for (int i = 0; i < desc.objFields; i++)
+			readContent(readByte());
+		if ((desc.flags & SC_WRITE_METHOD) != 0)
+			readAnnotation();
+	}
+
+	private void readAnnotation() throws Underflow, StreamCorruptedException {
+		for (;;) {
+			int tc = readByte();
+			switch (tc) {
+				case TC_ENDBLOCKDATA :
+					return;
+				case TC_BLOCKDATA :
+					skip(readByte());
+					break;
+				case TC_BLOCKDATALONG :
+					int length = readInt();
+					if (length < 0)
+						throw new StreamCorruptedException("negative block data length"); //$NON-NLS-1$
+					skip(length);
+					break;
+				default :
+					readContent(tc);
+			}
+		}
+	}
+
+	private static int primitiveSize(char typeCode) throws StreamCorruptedException {
+		switch (typeCode) {
+			case 'B' :
+			case 'Z' :
+				return 1;
+			case 'C' :
+			case 'S' :
+				return 2;
+			case 'I' :
+			case 'F' :
+				return 4;
+			case 'J' :
+			case 'D' :
+				return 8;
+			default :
+				throw new StreamCorruptedException("invalid primitive type code: " + typeCode); //$NON-NLS-1$
+		}
+	}
+
+	private void require(long n) throws Underflow {
+		if (pos + n > limit) {
+			needed = (int) Math.min(Integer.MAX_VALUE, pos + n);
+			throw UNDERFLOW;
+		}
+	}
+
+	private void skip(long n) throws Underflow, StreamCorruptedException {
+		if (n < 0 || pos + n > Integer.MAX_VALUE)
+			throw new StreamCorruptedException("invalid length: " + n); //$NON-NLS-1$
+		require(n);
+		pos += (int) n;
+	}
+
+	private int readByte() throws Underflow {
+		require(1);
+		return buf[pos++] & 0xff;
+	}
+
+	private int readUnsignedShort() throws Underflow {
+		require(2);
+		int v = ((buf[pos] & 0xff) << 8) | (buf[pos + 1] & 0xff);
+		pos += 2;
+		return v;
+	}
+
+	private int readShort() throws Underflow {
+		return (short) readUnsignedShort();
+	}
+
+	private int readInt() throws Underflow {
+		require(4);
+		int v = ((buf[pos] & 0xff) << 24) | ((buf[pos + 1] & 0xff) << 16) | ((buf[pos + 2] & 0xff) << 8) | (buf[pos + 3] & 0xff);
+		pos += 4;
+		return v;
+	}
+
+	private long readLong() throws Underflow {
+		long hi = readInt() & 0xffffffffL;
+		long lo = readInt() & 0xffffffffL;
+		return (hi << 32) | lo;
+	}
+}
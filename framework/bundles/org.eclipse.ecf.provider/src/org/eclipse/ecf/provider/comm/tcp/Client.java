@@ -14,16 +14,20 @@ package org.eclipse.ecf.provider.comm.tcp;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.util.RingFIFOQueue;
 import org.eclipse.ecf.core.sharedobject.util.SimpleFIFOQueue;
 import org.eclipse.ecf.core.util.ECFException;
 import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ByteBufferUtil;
 import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
 import org.eclipse.ecf.internal.provider.ProviderPlugin;
 import org.eclipse.ecf.provider.comm.*;
@@ -37,6 +41,52 @@ public final class Client implements ISynchAsynchConnection {
 	// Default maximum cached messages on object stream is 50
 	public static final int DEFAULT_MAX_BUFFER_MSG = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.maxmsgs", "50")); //$NON-NLS-1$ //$NON-NLS-2$
 	public static final int DEFAULT_WAIT_INTERVAL = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.waitinterval", "10")); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * Property (system property or {@link #setProperties(Map)} key) for the
+	 * maximum number of bytes the sender thread writes before flushing. The
+	 * sender writes all queued messages (up to this many bytes) and then
+	 * flushes once, rather than flushing after every message.
+	 * @since 4.11
+	 */
+	public static final String MAX_BATCH_BYTES_PROP = "org.eclipse.ecf.provider.comm.tcp.client.maxbatchbytes"; //$NON-NLS-1$
+	/**
+	 * Property (system property or {@link #setProperties(Map)} key) for the
+	 * maximum time, in microseconds, the sender thread waits for more
+	 * messages to add to a batch once the queue is empty. 0 (the default)
+	 * means batches are flushed as soon as the queue is empty.
+	 * @since 4.11
+	 */
+	public static final String MAX_LINGER_MICROS_PROP = "org.eclipse.ecf.provider.comm.tcp.client.maxlingermicros"; //$NON-NLS-1$
+	/**
+	 * @since 4.11
+	 */
+	public static final int DEFAULT_MAX_BATCH_BYTES = Integer.parseInt(System.getProperty(MAX_BATCH_BYTES_PROP, "65536")); //$NON-NLS-1$
+	/**
+	 * @since 4.11
+	 */
+	public static final long DEFAULT_MAX_LINGER_MICROS = Long.parseLong(System.getProperty(MAX_LINGER_MICROS_PROP, "0")); //$NON-NLS-1$
+	/**
+	 * System property for the maximum number of messages waiting to be sent.
+	 * Threads sending asynchronous messages wait while the send queue is
+	 * full. 0 or less, the default, means the queue is unbounded.
+	 * @since 4.12
+	 */
+	public static final String SEND_QUEUE_CAPACITY_PROP = "org.eclipse.ecf.provider.comm.tcp.client.sendqueuecapacity"; //$NON-NLS-1$
+	/**
+	 * System property for the maximum time, in milliseconds, a thread waits
+	 * for room in a full send queue before the send fails with an
+	 * IOException.
+	 * @since 4.12
+	 */
+	public static final String SEND_QUEUE_TIMEOUT_PROP = "org.eclipse.ecf.provider.comm.tcp.client.sendqueuetimeout"; //$NON-NLS-1$
+	/**
+	 * @since 4.12
+	 */
+	public static final int DEFAULT_SEND_QUEUE_CAPACITY = Integer.parseInt(System.getProperty(SEND_QUEUE_CAPACITY_PROP, "0")); //$NON-NLS-1$
+	/**
+	 * @since 4.12
+	 */
+	public static final long DEFAULT_SEND_QUEUE_TIMEOUT = Long.parseLong(System.getProperty(SEND_QUEUE_TIMEOUT_PROP, "30000")); //$NON-NLS-1$
 	protected Socket socket;
 	private String addressPort = "-1:<no endpoint>:-1"; //$NON-NLS-1$
 	// Underlying streams
@@ -45,7 +95,7 @@ public final class Client implements ISynchAsynchConnection {
 	// Event handler
 	protected ISynchAsynchEventHandler handler;
 	// Our queue
-	protected SimpleFIFOQueue queue = new SimpleFIFOQueue();
+	protected SimpleFIFOQueue queue = createSendQueue();
 	protected int keepAlive = 0;
 	protected Thread sendThread;
 	protected Thread rcvThread;
@@ -62,6 +112,11 @@ public final class Client implements ISynchAsynchConnection {
 	private final Object disconnectLock = new Object();
 	protected final Object outputStreamLock = new Object();
 	private int maxmsgs = DEFAULT_MAX_BUFFER_MSG;
+	private volatile int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+	private volatile long maxLingerMicros = DEFAULT_MAX_LINGER_MICROS;
+	// Only written by the sender thread
+	private volatile long sentMessageCount = 0;
+	private volatile long sentBatchCount = 0;
 
 	private String getHostNameForAddressWithoutLookup(InetAddress inetAddress) {
 		// First get InetAddress.toString(), which returns
@@ -215,7 +270,7 @@ public final class Client implements ISynchAsynchConnection {
 			setSocketOptions(s);
 			// Now we've got a connection so set our socket
 			setSocket(s);
-			outputStream = new ObjectOutputStream(s.getOutputStream());
+			outputStream = new CoalescingObjectOutputStream(s.getOutputStream());
 			outputStream.flush();
 			inputStream = ProviderPlugin.getDefault().createObjectInputStream(s.getInputStream());
 			debug("connect;" + anURI); //$NON-NLS-1$
@@ -267,10 +322,9 @@ public final class Client implements ISynchAsynchConnection {
 					if (me.isInterrupted() || aMsg == null)
 						break;
 					try {
-						// Actually send message
-						send(aMsg);
-						// Successful...remove message from queue
-						queue.removeHead();
+						// Actually send message, along with any others that
+						// are queued.  Each is removed from queue once sent
+						sendBatch(aMsg);
 					} catch (Exception e) {
 						handleException(e);
 						break;
@@ -315,16 +369,81 @@ public final class Client implements ISynchAsynchConnection {
 
 	void send(Serializable snd) throws IOException {
 		synchronized (outputStreamLock) {
-			outputStream.writeObject(snd);
+			writeMessage(snd);
 			outputStream.flush();
-			if (resetCounter > this.maxmsgs) {
-				outputStream.reset();
-				resetCounter = 0;
-			} else
-				resetCounter++;
 		}
 	}
 
+	private void writeMessage(Serializable snd) throws IOException {
+		if (snd instanceof BuffersMessage && outputStream instanceof CoalescingObjectOutputStream) {
+			// Resets the stream itself
+			((CoalescingObjectOutputStream) outputStream).writeAsynchMessage(((BuffersMessage) snd).data);
+			resetCounter = 0;
+			return;
+		}
+		outputStream.writeObject(snd);
+		if (resetCounter > this.maxmsgs) {
+			outputStream.reset();
+			resetCounter = 0;
+		} else
+			resetCounter++;
+	}
+
+	/**
+	 * Write first, and then any further queued messages, and flush once.
+	 * The batch ends when the queue is empty (after waiting up to
+	 * maxLingerMicros for more messages) or when at least maxBatchBytes have
+	 * been written.  Byte counts are only available if the output stream is
+	 * a {@link CoalescingObjectOutputStream}; otherwise batches end only when
+	 * the queue is empty.  The output stream lock is not held while waiting
+	 * for more messages, so other writers are not held up by the linger.
+	 */
+	void sendBatch(Serializable first) throws IOException {
+		final long lingerNanos = maxLingerMicros * 1000L;
+		long lingerStart = 0;
+		boolean lingering = false;
+		long limit = -1;
+		int count = 0;
+		Serializable aMsg = first;
+		while (aMsg != null) {
+			synchronized (outputStreamLock) {
+				final CoalescingObjectOutputStream counter = (outputStream instanceof CoalescingObjectOutputStream) ? (CoalescingObjectOutputStream) outputStream : null;
+				if (limit < 0)
+					limit = (counter == null) ? Long.MAX_VALUE : counter.getBytesWritten() + maxBatchBytes;
+				boolean full;
+				do {
+					writeMessage(aMsg);
+					// Successful...remove message from queue
+					queue.removeHead();
+					count++;
+					full = counter != null && counter.getBytesWritten() >= limit;
+					// Only this thread removes from queue, so peekQueue will
+					// not block if queue is not empty
+					aMsg = (full || queue.isEmpty()) ? null : (Serializable) queue.peekQueue();
+				} while (aMsg != null);
+				if (full || lingerNanos <= 0 || queue.isStopped()) {
+					outputStream.flush();
+					break;
+				}
+			}
+			final long now = System.nanoTime();
+			if (!lingering) {
+				lingering = true;
+				lingerStart = now;
+			}
+			final long remaining = lingerNanos - (now - lingerStart);
+			if (remaining > 0)
+				aMsg = (Serializable) queue.peekQueue(remaining, TimeUnit.NANOSECONDS);
+			if (aMsg == null) {
+				synchronized (outputStreamLock) {
+					outputStream.flush();
+				}
+			}
+		}
+		sentMessageCount += count;
+		sentBatchCount++;
+	}
+
 	private void handlePingResp() {
 		synchronized (pingLock) {
 			waitForPing = false;
@@ -448,9 +567,16 @@ public final class Client implements ISynchAsynchConnection {
 							break;
 						synchronized (pingLock) {
 							waitForPing = true;
-							// Actually queue ping instance for send by sender
-							// thread
-							queue.enqueue(ping);
+						}
+						// Actually queue ping instance for send by sender
+						// thread.  Not holding pingLock, so that the receiver
+						// is not blocked while waiting for room in the queue
+						if (!queue.enqueue(ping)) {
+							if (queue.isStopped())
+								break;
+							throw new IOException(getAddressPort() + " send queue full"); //$NON-NLS-1$
+						}
+						synchronized (pingLock) {
 							// send(ping);
 							int count = 0;
 							final int interval = DEFAULT_WAIT_INTERVAL;
@@ -502,10 +628,71 @@ public final class Client implements ISynchAsynchConnection {
 		queueObject(recipient, (Serializable) obj);
 	}
 
-	public synchronized void queueObject(ID recipient, Serializable obj) throws IOException {
-		if (queue.isStopped() || isClosing)
-			throw new ConnectException("Not connected"); //$NON-NLS-1$
-		queue.enqueue(new AsynchMessage(obj));
+	/**
+	 * Send an asynchronous message whose data is the byte array made of the
+	 * given buffers.  The buffers are written to the connection without being
+	 * copied into one array first, and must not be modified after this call.
+	 * The receiver gets the same message as from
+	 * {@link #sendAsynch(ID, byte[])} with the concatenated buffers.
+	 *
+	 * @param recipient the receiver of the message
+	 * @param data the buffers of the message data
+	 * @throws IOException if the message cannot be queued
+	 * @since 4.12
+	 */
+	public void sendAsynch(ID recipient, ByteBuffer[] data) throws IOException {
+		queueMessage(new BuffersMessage(data));
+	}
+
+	public void queueObject(ID recipient, Serializable obj) throws IOException {
+		queueMessage(new AsynchMessage(obj));
+	}
+
+	private void queueMessage(Serializable msg) throws IOException {
+		synchronized (this) {
+			if (queue.isStopped() || isClosing)
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+		}
+		// Wait for room in a full queue without holding this client's lock,
+		// so that disconnect is not blocked.  disconnect closes the queue,
+		// which ends the wait
+		enqueue(msg);
+	}
+
+	/**
+	 * Queued message of buffers.  Written by {@link CoalescingObjectOutputStream}
+	 * without concatenating the buffers, and replaced by an equivalent
+	 * {@link AsynchMessage} when written to any other stream.
+	 */
+	private static final class BuffersMessage implements Serializable {
+		private static final long serialVersionUID = 1L;
+		final transient ByteBuffer[] data;
+
+		BuffersMessage(ByteBuffer[] data) {
+			this.data = data;
+		}
+
+		private Object writeReplace() {
+			return new AsynchMessage(ByteBufferUtil.toByteArray(data));
+		}
+	}
+
+	/**
+	 * Create the queue of messages waiting to be sent. The queue is unbounded
+	 * unless {@link #SEND_QUEUE_CAPACITY_PROP} is set.
+	 */
+	static SimpleFIFOQueue createSendQueue() {
+		if (DEFAULT_SEND_QUEUE_CAPACITY <= 0)
+			return new SimpleFIFOQueue();
+		return new RingFIFOQueue(DEFAULT_SEND_QUEUE_CAPACITY, DEFAULT_SEND_QUEUE_TIMEOUT);
+	}
+
+	private void enqueue(Serializable msg) throws IOException {
+		if (!queue.enqueue(msg)) {
+			if (queue.isStopped())
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+			throw new IOException(getAddressPort() + " send queue full"); //$NON-NLS-1$
+		}
 	}
 
 	public synchronized Serializable sendObject(ID recipient, Serializable obj) throws IOException {
@@ -559,6 +746,51 @@ public final class Client implements ISynchAsynchConnection {
 
 	public void setProperties(Map props) {
 		this.properties = props;
+		if (props != null) {
+			maxBatchBytes = (int) getLongProperty(props, MAX_BATCH_BYTES_PROP, maxBatchBytes);
+			maxLingerMicros = getLongProperty(props, MAX_LINGER_MICROS_PROP, maxLingerMicros);
+		}
+	}
+
+	private long getLongProperty(Map props, String key, long def) {
+		final Object val = props.get(key);
+		if (val instanceof Number)
+			return ((Number) val).longValue();
+		if (val instanceof String) {
+			try {
+				return Long.parseLong((String) val);
+			} catch (final NumberFormatException e) {
+				traceStack("Invalid value for property " + key, e); //$NON-NLS-1$
+			}
+		}
+		return def;
+	}
+
+	/**
+	 * @return long the number of messages written by the sender thread
+	 * @since 4.11
+	 */
+	public long getSentMessageCount() {
+		return sentMessageCount;
+	}
+
+	/**
+	 * @return long the number of batches (flushes) written by the sender
+	 *         thread
+	 * @since 4.11
+	 */
+	public long getSentBatchCount() {
+		return sentBatchCount;
+	}
+
+	/**
+	 * @return long the number of messages written by the sender thread that
+	 *         did not need a flush of their own, because they were written in
+	 *         the same batch as an earlier message
+	 * @since 4.11
+	 */
+	public long getCoalescedMessageCount() {
+		return sentMessageCount - sentBatchCount;
 	}
 
 	/**
@@ -0,0 +1,143 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.eclipse.ecf.internal.provider.ByteBufferUtil;
+
+/**
+ * ObjectOutputStream that buffers everything written to it until it is
+ * flushed (or the buffer is full), so that several objects written in a row
+ * go out to the socket in one write.  It also counts the bytes written, so
+ * that {@link Client} can bound the size of the batches it writes between
+ * flushes.  The stream format is that of ObjectOutputStream.
+ *
+ * @since 4.11
+ */
+public class CoalescingObjectOutputStream extends ObjectOutputStream {
+
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * The serialized form of an {@link AsynchMessage} with byte array data, as
+	 * written to a new stream, up to but excluding the array length.
+	 */
+	private static final byte[] ASYNCH_MESSAGE_HEADER = createAsynchMessageHeader();
+
+	private static byte[] createAsynchMessageHeader() {
+		try {
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			final ObjectOutputStream oos = new ObjectOutputStream(bos);
+			oos.writeObject(new AsynchMessage(new byte[0]));
+			oos.close();
+			final byte[] bytes = bos.toByteArray();
+			// Leave off the stream header and the array length (0)
+			return Arrays.copyOfRange(bytes, 4, bytes.length - 4);
+		} catch (final IOException e) {
+			// Cannot happen with a ByteArrayOutputStream
+			return null;
+		}
+	}
+
+	static class CountingOutputStream extends BufferedOutputStream {
+		long written;
+
+		CountingOutputStream(OutputStream out, int size) {
+			super(out, size);
+		}
+
+		public synchronized void write(int b) throws IOException {
+			super.write(b);
+			written++;
+		}
+
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			super.write(b, off, len);
+			written += len;
+		}
+	}
+
+	private final CountingOutputStream counter;
+
+	public CoalescingObjectOutputStream(OutputStream out) throws IOException {
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+
+	public CoalescingObjectOutputStream(OutputStream out, int bufferSize) throws IOException {
+		this(new CountingOutputStream(out, bufferSize));
+	}
+
+	private CoalescingObjectOutputStream(CountingOutputStream counter) throws IOException {
+		super(counter);
+		this.counter = counter;
+	}
+
+	/**
+	 * Get the number of bytes written so far.  Complete after each
+	 * <code>writeObject</code>, since ObjectOutputStream drains its own block
+	 * buffer at the end of every top level object.
+	 *
+	 * @return long the number of bytes written to the underlying buffer
+	 */
+	public long getBytesWritten() {
+		synchronized (counter) {
+			return counter.written;
+		}
+	}
+
+	/**
+	 * Write an {@link AsynchMessage} whose data is the byte array made of the
+	 * given buffers, without first copying them into one array.  The stream
+	 * is reset before and after the message, so that the handles the reader
+	 * assigns to the message, which this stream does not know of, are not
+	 * used.  The buffers' positions are not changed.
+	 *
+	 * @param data the buffers to write in order as the message data
+	 * @throws IOException if the message cannot be written
+	 */
+	void writeAsynchMessage(ByteBuffer[] data) throws IOException {
+		long length = 0;
+		for (int i = 0; i < data.length; i++)
+			length += data[i].remaining();
+		if (ASYNCH_MESSAGE_HEADER == null || length > Integer.MAX_VALUE) {
+			writeObject(new AsynchMessage(ByteBufferUtil.toByteArray(data)));
+			return;
+		}
+		// After a reset neither side knows any handles, so the message can be
+		// written as it would be to a new stream
+		reset();
+		synchronized (counter) {
+			counter.write(ASYNCH_MESSAGE_HEADER, 0, ASYNCH_MESSAGE_HEADER.length);
+			final int len = (int) length;
+			counter.write(len >>> 24);
+			counter.write(len >>> 16);
+			counter.write(len >>> 8);
+			counter.write(len);
+			for (int i = 0; i < data.length; i++) {
+				final ByteBuffer b = data[i];
+				if (b.hasArray())
+					counter.write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+				else {
+					final byte[] bytes = new byte[b.remaining()];
+					b.duplicate().get(bytes);
+					counter.write(bytes, 0, bytes.length);
+				}
+			}
+		}
+		reset();
+	}
+
+}
@@ -49,7 +49,7 @@ public final class SSLClient implements ISynchAsynchConnection {
 	// Event handler
 	protected ISynchAsynchEventHandler handler;
 	// Our queue
-	protected SimpleFIFOQueue queue = new SimpleFIFOQueue();
+	protected SimpleFIFOQueue queue = Client.createSendQueue();
 	protected int keepAlive = 0;
 	protected Thread sendThread;
 	protected Thread rcvThread;
@@ -428,9 +428,16 @@ public final class SSLClient implements ISynchAsynchConnection {
 							break;
 						synchronized (pingLock) {
 							waitForPing = true;
-							// Actually queue ping instance for send by sender
-							// thread
-							queue.enqueue(ping);
+						}
+						// Actually queue ping instance for send by sender
+						// thread.  Not holding pingLock, so that the receiver
+						// is not blocked while waiting for room in the queue
+						if (!queue.enqueue(ping)) {
+							if (queue.isStopped())
+								break;
+							throw new IOException(getAddressPort() + " send queue full"); //$NON-NLS-1$
+						}
+						synchronized (pingLock) {
 							// send(ping);
 							int count = 0;
 							final int interval = DEFAULT_WAIT_INTERVAL;
@@ -482,10 +489,19 @@ public final class SSLClient implements ISynchAsynchConnection {
 		queueObject(recipient, (Serializable) obj);
 	}
 
-	public synchronized void queueObject(ID recipient, Serializable obj) throws IOException {
-		if (queue.isStopped() || isClosing)
-			throw new ConnectException("Not connected"); //$NON-NLS-1$
-		queue.enqueue(new AsynchMessage(obj));
+	public void queueObject(ID recipient, Serializable obj) throws IOException {
+		synchronized (this) {
+			if (queue.isStopped() || isClosing)
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+		}
+		// Wait for room in a full queue without holding this client's lock,
+		// so that disconnect is not blocked.  disconnect closes the queue,
+		// which ends the wait
+		if (!queue.enqueue(new AsynchMessage(obj))) {
+			if (queue.isStopped())
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+			throw new IOException(getAddressPort() + " send queue full"); //$NON-NLS-1$
+		}
 	}
 
 	public synchronized Serializable sendObject(ID recipient, Serializable obj) throws IOException {
@@ -18,6 +18,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.ecf.core.ContainerConnectException;
 import org.eclipse.ecf.core.events.*;
 import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
 import org.eclipse.ecf.core.security.*;
 import org.eclipse.ecf.core.sharedobject.*;
 import org.eclipse.ecf.core.util.ECFException;
@@ -111,7 +112,7 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 	private void setStateConnected(ID serverID, ISynchAsynchConnection conn) {
 		connectionState = CONNECTED;
 		connection = conn;
-		remoteServerID = serverID;
+		remoteServerID = IDFactory.internID(serverID);
 	}
 
 	/* (non-Javadoc)
@@ -244,7 +245,7 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 						// known
 						if (groupManager.getMemberForID(changeIDs[i]) == null) {
 							wasAdded = true;
-							groupManager.addMember(new Member(changeIDs[i]));
+							groupManager.addMember(new Member(IDFactory.internID(changeIDs[i])));
 						}
 					}
 					// Notify listeners only if the add was actually
@@ -13,8 +13,10 @@
 
 package org.eclipse.ecf.provider.generic;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
 
 public class ContainerMessage implements Serializable {
 	private static final long serialVersionUID = 3257009847533975857L;
@@ -118,6 +120,20 @@ public class ContainerMessage implements Serializable {
 		this.data = data;
 	}
 
+	/**
+	 * Replace the container IDs with their interned instances, so that
+	 * lookups of group members can compare IDs by identity.
+	 * 
+	 * @return Object this message
+	 * @throws ObjectStreamException not thrown by this implementation
+	 * @since 4.11
+	 */
+	protected Object readResolve() throws ObjectStreamException {
+		fromContainerID = IDFactory.internID(fromContainerID);
+		toContainerID = IDFactory.internID(toContainerID);
+		return this;
+	}
+
 	public String toString() {
 		final StringBuffer sb = new StringBuffer("ContainerMessage["); //$NON-NLS-1$
 		sb.append(fromContainerID).append(";").append(toContainerID) //$NON-NLS-1$
@@ -268,6 +284,12 @@ public class ContainerMessage implements Serializable {
 		public ID getFromSharedObjectID() {
 			return fromSharedObjectID;
 		}
+
+		private Object readResolve() throws ObjectStreamException {
+			// Intern shared object ID for lookup of the target shared object
+			final ID interned = IDFactory.internID(fromSharedObjectID);
+			return (interned == fromSharedObjectID) ? this : new SharedObjectMessage(interned, data);
+		}
 	}
 
 	public static final class SharedObjectDisposeMessage implements Serializable {
@@ -0,0 +1,183 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.generic;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.internal.provider.ByteBufferUtil;
+import org.eclipse.ecf.provider.comm.IAsynchConnection;
+import org.eclipse.ecf.provider.comm.tcp.Client;
+
+/**
+ * A {@link ContainerMessage} serialized once for delivery to many recipients.
+ * <p>
+ * The serialized form of a ContainerMessage starts with its class descriptor,
+ * followed by the <code>sequence</code> field and then the object fields in
+ * name order (<code>data</code>, <code>fromContainerID</code>,
+ * <code>toContainerID</code>).  So the only per-recipient parts of the
+ * message, the sequence and the toContainerID, are at a fixed offset and at
+ * the very end of the stream respectively.  The message is serialized once
+ * with a <code>null</code> toContainerID to give a shared, immutable prefix.
+ * Per-recipient messages are then made of buffers over the prefix before and
+ * after the sequence, the sequence itself, and the serialized toContainerID,
+ * so that the (possibly large) message data is never copied per recipient.
+ * Connections that can write such buffers directly, like {@link Client}, are
+ * given the buffers; others get them concatenated.
+ * <p>
+ * The appended toContainerID must not refer back to objects in the prefix,
+ * and any back references within it must use the handles the reader will
+ * assign.  To get that, it is written by a separate ObjectOutputStream that
+ * has first used up as many handles (with distinct empty strings) as the
+ * prefix defines.  So up to the toContainerID the bytes are the same as
+ * those of the message serialized on its own, while the toContainerID
+ * repeats class descriptors that a single stream would refer back to.  The
+ * reader gets an equal message either way.
+ * <p>
+ * Instances are not thread safe.
+ */
+final class ContainerMessageTemplate {
+
+	private static final int SEQUENCE_OFFSET;
+
+	private static final byte[] HEADER;
+
+	private static final byte[] NULL_ID = {ObjectStreamConstants.TC_NULL};
+
+	static {
+		byte[] header = null;
+		try {
+			header = SOContainer.serialize(new ContainerMessage(null, null, 0, null));
+		} catch (final IOException e) {
+			// Cannot happen with a ByteArrayOutputStream
+		}
+		HEADER = header;
+		// header is followed by sequence (8 bytes) and three null object fields
+		SEQUENCE_OFFSET = (header == null) ? -1 : header.length - 11;
+	}
+
+	private final byte[] prefix;
+
+	private final int handleCount;
+
+	private String[] handleFillers;
+
+	private ByteArrayOutputStream idBytes;
+
+	private ObjectOutputStream idOutputStream;
+
+	private ContainerMessageTemplate(byte[] prefix, int handleCount) {
+		this.prefix = prefix;
+		this.handleCount = handleCount;
+	}
+
+	/**
+	 * Serialize the given message data once.
+	 *
+	 * @param from the fromContainerID for all messages
+	 * @param data the message data shared by all messages
+	 * @return ContainerMessageTemplate the template, or <code>null</code> if
+	 *         the serialized form was not as expected, in which case callers
+	 *         should serialize each message separately
+	 * @throws IOException if data cannot be serialized
+	 */
+	static ContainerMessageTemplate create(ID from, Serializable data) throws IOException {
+		if (SEQUENCE_OFFSET < 0)
+			return null;
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(new ContainerMessage(from, null, 0, data));
+		oos.flush();
+		final int length = bos.size();
+		// Write a fresh string and then a reference to it, to learn the next
+		// handle the reader will assign
+		final String probe = new String();
+		oos.writeObject(probe);
+		oos.writeObject(probe);
+		oos.close();
+		final byte[] bytes = bos.toByteArray();
+		if (bytes.length != length + 8 || bytes[length - 1] != ObjectStreamConstants.TC_NULL || bytes[length] != ObjectStreamConstants.TC_STRING || bytes[length + 3] != ObjectStreamConstants.TC_REFERENCE)
+			return null;
+		for (int i = 0; i < SEQUENCE_OFFSET; i++)
+			if (bytes[i] != HEADER[i])
+				return null;
+		final int handleCount = readInt(bytes, length + 4) - ObjectStreamConstants.baseWireHandle;
+		if (handleCount < 0)
+			return null;
+		// The prefix leaves off the null toContainerID
+		return new ContainerMessageTemplate(Arrays.copyOf(bytes, length - 1), handleCount);
+	}
+
+	/**
+	 * Get the buffers of the serialized message for one recipient.  The
+	 * buffers share the template's prefix, and must not be modified.
+	 *
+	 * @param to the toContainerID for the message.  May be <code>null</code>.
+	 * @param sequence the sequence for the message
+	 * @return ByteBuffer[] the buffers that, written in order, are the
+	 *         serialized message.  It reads back as the message serialized
+	 *         by {@link SOContainer#serialize(Serializable)}.
+	 * @throws IOException if the toContainerID cannot be serialized
+	 */
+	ByteBuffer[] serialize(ID to, long sequence) throws IOException {
+		final byte[] seq = new byte[8];
+		for (int i = 7; i >= 0; i--) {
+			seq[i] = (byte) sequence;
+			sequence >>>= 8;
+		}
+		ByteBuffer id = ByteBuffer.wrap(NULL_ID);
+		if (to != null) {
+			if (idOutputStream == null) {
+				idBytes = new ByteArrayOutputStream();
+				idOutputStream = new ObjectOutputStream(idBytes);
+				handleFillers = new String[handleCount];
+				for (int i = 0; i < handleCount; i++)
+					handleFillers[i] = new String();
+			} else
+				idOutputStream.reset();
+			for (int i = 0; i < handleCount; i++)
+				idOutputStream.writeObject(handleFillers[i]);
+			idOutputStream.flush();
+			final int idStart = idBytes.size();
+			idOutputStream.writeObject(to);
+			idOutputStream.flush();
+			final byte[] bytes = idBytes.toByteArray();
+			idBytes.reset();
+			id = ByteBuffer.wrap(bytes, idStart, bytes.length - idStart);
+		}
+		final int suffixStart = SEQUENCE_OFFSET + seq.length;
+		return new ByteBuffer[] {ByteBuffer.wrap(prefix, 0, SEQUENCE_OFFSET), ByteBuffer.wrap(seq), ByteBuffer.wrap(prefix, suffixStart, prefix.length - suffixStart), id};
+	}
+
+	/**
+	 * Send the message for one recipient on the given connection.
+	 *
+	 * @param conn the connection to send on
+	 * @param to the toContainerID for the message
+	 * @param sequence the sequence for the message
+	 * @throws IOException if the message cannot be serialized or sent
+	 */
+	void send(IAsynchConnection conn, ID to, long sequence) throws IOException {
+		final ByteBuffer[] buffers = serialize(to, sequence);
+		if (conn instanceof Client)
+			((Client) conn).sendAsynch(to, buffers);
+		else
+			conn.sendAsynch(to, ByteBufferUtil.toByteArray(buffers));
+	}
+
+	private static int readInt(byte[] b, int off) {
+		return ((b[off] & 0xff) << 24) | ((b[off + 1] & 0xff) << 16) | ((b[off + 2] & 0xff) << 8) | (b[off + 3] & 0xff);
+	}
+}
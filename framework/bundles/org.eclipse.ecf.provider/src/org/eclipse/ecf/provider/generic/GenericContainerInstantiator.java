@@ -48,6 +48,14 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 
 	private static final String BINDADDRESS_PROP = "bindAddress"; //$NON-NLS-1$
 
+	/**
+	 * Container property selecting the connection transport.  Value must be
+	 * either {@link TCPServerSOContainer#TRANSPORT_TCP} or
+	 * {@link TCPServerSOContainer#TRANSPORT_NIO}.
+	 * @since 4.11
+	 */
+	public static final String TRANSPORT_PROP = "transport"; //$NON-NLS-1$
+
 	public GenericContainerInstantiator() {
 		super();
 	}
@@ -88,6 +96,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 		ID id;
 		Integer keepAlive;
 		InetAddress bindAddress;
+		String transport;
 
 		public GenericContainerArgs(ID id, Integer keepAlive) {
 			this.id = id;
@@ -108,6 +117,14 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 			return keepAlive;
 		}
 
+		/**
+		 * @since 4.11
+		 */
+		public GenericContainerArgs(ID id, Integer keepAlive, InetAddress bindAddress, String transport) {
+			this(id, keepAlive, bindAddress);
+			this.transport = transport;
+		}
+
 		/**
 		 * @return InetAddress the bind address.  May be <code>null</code>
 		 * @since 4.5
@@ -115,6 +132,30 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 		public InetAddress getBindAddress() {
 			return bindAddress;
 		}
+
+		/**
+		 * @return String the transport.  Will not be <code>null</code>
+		 * @since 4.11
+		 */
+		public String getTransport() {
+			return (transport == null) ? TCPServerSOContainer.DEFAULT_TRANSPORT : transport;
+		}
+	}
+
+	/**
+	 * @param arg transport argument
+	 * @return String the transport, or <code>null</code> if arg is <code>null</code>
+	 * @since 4.11
+	 */
+	protected String getTransportFromArg(Object arg) {
+		if (arg == null)
+			return null;
+		if (!(arg instanceof String))
+			throw new IllegalArgumentException("transport value must be of type String"); //$NON-NLS-1$
+		String transport = ((String) arg).toLowerCase();
+		if (!TCPServerSOContainer.TRANSPORT_TCP.equals(transport) && !TCPServerSOContainer.TRANSPORT_NIO.equals(transport))
+			throw new IllegalArgumentException("transport=" + arg + " is not supported"); //$NON-NLS-1$ //$NON-NLS-2$
+		return transport;
 	}
 
 	/**
@@ -126,6 +167,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 	protected GenericContainerArgs getClientArgs(Object[] args) throws IDCreateException {
 		ID newID = null;
 		Integer ka = null;
+		String transport = null;
 		if (args != null && args.length > 0) {
 			if (args[0] instanceof Map) {
 				Map map = (Map) args[0];
@@ -138,6 +180,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 				if (o == null)
 					o = map.get(KEEPALIVE_PROP.toLowerCase());
 				ka = getIntegerFromArg(o);
+				transport = getTransportFromArg(map.get(TRANSPORT_PROP));
 			} else if (args.length > 1) {
 				if (args[0] instanceof String || args[0] instanceof ID)
 					newID = getIDFromArg(args[0]);
@@ -150,7 +193,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 			newID = IDFactory.getDefault().createStringID(IDFactory.getDefault().createGUID().getName());
 		if (ka == null)
 			ka = Integer.valueOf(TCPServerSOContainer.DEFAULT_KEEPALIVE);
-		return new GenericContainerArgs(newID, ka);
+		return new GenericContainerArgs(newID, ka, null, transport);
 	}
 
 	protected boolean isClient(ContainerTypeDescription description) {
@@ -170,6 +213,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 		ID newID = null;
 		Integer ka = null;
 		InetAddress bindAddress = null;
+		String transport = null;
 		boolean privateIntent = false;
 		if (args != null && args.length > 0) {
 			if (args[0] instanceof Map) {
@@ -212,6 +256,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 				if (o == null)
 					o = map.get(KEEPALIVE_PROP.toLowerCase());
 				ka = getIntegerFromArg(o);
+				transport = getTransportFromArg(map.get(TRANSPORT_PROP));
 				// Get private intent if present
 				privateIntent = ContainerInstantiatorUtils.containsPrivateIntent(map);
 
@@ -234,7 +279,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 		if (privateIntent)
 			ContainerInstantiatorUtils.checkPrivate(newID);
 
-		return new GenericContainerArgs(newID, ka, bindAddress);
+		return new GenericContainerArgs(newID, ka, bindAddress, transport);
 	}
 
 	private ID createTCPServerID(String hostname, int port, String path) {
@@ -293,7 +338,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 	 * @since 4.5
 	 */
 	protected IContainer createClientContainer(GenericContainerArgs gcargs) throws Exception {
-		return new TCPClientSOContainer(new SOContainerConfig(gcargs.getID()), gcargs.getKeepAlive().intValue());
+		return new TCPClientSOContainer(new SOContainerConfig(gcargs.getID()), gcargs.getKeepAlive().intValue(), gcargs.getTransport());
 	}
 
 	/**
@@ -303,7 +348,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 	 * @since 4.5
 	 */
 	protected IContainer createServerContainer(GenericContainerArgs gcargs) throws Exception {
-		return new TCPServerSOContainer(new SOContainerConfig(gcargs.getID()), gcargs.getBindAddress(), gcargs.getKeepAlive().intValue());
+		return new TCPServerSOContainer(new SOContainerConfig(gcargs.getID()), gcargs.getBindAddress(), gcargs.getKeepAlive().intValue(), gcargs.getTransport());
 	}
 
 	public IContainer createInstance(ContainerTypeDescription description, Object[] args) throws ContainerCreateException {
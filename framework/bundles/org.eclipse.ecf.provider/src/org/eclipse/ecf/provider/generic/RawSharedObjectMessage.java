@@ -0,0 +1,93 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.Serializable;
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * A shared object message that its sender has already serialized.  When sent
+ * through a shared object context, the default serialization of
+ * {@link SOContainer} puts the bytes into the container message as they are,
+ * rather than serializing them again, and the receiving shared object is
+ * delivered a RawSharedObjectMessage over the received bytes.
+ * <p>
+ * Containers before 4.12 cannot read such messages, so shared objects should
+ * only send them to containers known to support them.
+ *
+ * @since 4.12
+ */
+public final class RawSharedObjectMessage implements Serializable {
+
+	private static final long serialVersionUID = -2304619263467813317L;
+
+	/**
+	 * First byte of a serialized raw message.  Messages serialized with an
+	 * object stream always start with the stream magic (0xACED).
+	 */
+	static final byte RAW_MESSAGE_TYPE = 0;
+
+	private final byte[] bytes;
+	private final int offset;
+	private final int length;
+
+	public RawSharedObjectMessage(byte[] bytes) {
+		this(bytes, 0, (bytes == null) ? 0 : bytes.length);
+	}
+
+	public RawSharedObjectMessage(byte[] bytes, int offset, int length) {
+		Assert.isNotNull(bytes);
+		Assert.isLegal(offset >= 0 && length >= 0 && offset + length <= bytes.length);
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * @return byte[] the array holding the message.  The message is the
+	 * {@link #getLength()} bytes starting at {@link #getOffset()}.  Not copied,
+	 * so must not be modified.
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	byte[] serialize() {
+		final byte[] result = new byte[length + 1];
+		result[0] = RAW_MESSAGE_TYPE;
+		System.arraycopy(bytes, offset, result, 1, length);
+		return result;
+	}
+
+	static boolean isRawMessage(byte[] data) {
+		return data.length > 0 && data[0] == RAW_MESSAGE_TYPE;
+	}
+
+	static RawSharedObjectMessage deserialize(byte[] data) {
+		return new RawSharedObjectMessage(data, 1, data.length - 1);
+	}
+
+	public String toString() {
+		final StringBuffer sb = new StringBuffer("RawSharedObjectMessage["); //$NON-NLS-1$
+		sb.append("length=").append(length).append("]"); //$NON-NLS-1$ //$NON-NLS-2$
+		return sb.toString();
+	}
+}
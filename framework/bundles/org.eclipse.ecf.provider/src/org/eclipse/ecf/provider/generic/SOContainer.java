@@ -15,6 +15,8 @@ import java.io.*;
 import java.security.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.AbstractContainer;
 import org.eclipse.ecf.core.ContainerConnectException;
@@ -34,6 +36,20 @@ import org.eclipse.ecf.provider.generic.ContainerMessage.SharedObjectMessage;
 import org.eclipse.ecf.provider.generic.gmm.Member;
 
 public abstract class SOContainer extends AbstractContainer implements ISharedObjectContainer {
+	private static final int DESERIALIZER_THREADS = Integer.getInteger("org.eclipse.ecf.provider.generic.messageDeserializerThreads", Runtime.getRuntime().availableProcessors()).intValue(); //$NON-NLS-1$
+
+	private static final int DESERIALIZER_QUEUE_SIZE = Integer.getInteger("org.eclipse.ecf.provider.generic.messageDeserializerQueueSize", 1024).intValue(); //$NON-NLS-1$
+
+	private static ThreadPoolExecutor messageDeserializer;
+
+	private static final String SHARED_OBJECT_DISPATCH = System.getProperty("org.eclipse.ecf.provider.generic.sharedObjectDispatch", "thread"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final int DISPATCHER_THREADS = Integer.getInteger("org.eclipse.ecf.provider.generic.sharedObjectDispatchThreads", Math.max(4, 2 * Runtime.getRuntime().availableProcessors())).intValue(); //$NON-NLS-1$
+
+	private static Executor sharedObjectDispatcher;
+
+	private static boolean sharedObjectDispatcherCreated;
+
 	class LoadingSharedObject implements ISharedObject {
 		final ReplicaSharedObjectDescription description;
 		private Thread runner = null;
@@ -212,7 +228,7 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	public SOContainer(ISharedObjectContainerConfig config) {
 		Assert.isNotNull(config, "container config cannot be null"); //$NON-NLS-1$
 		this.config = config;
-		groupManager = new SOContainerGMM(this, new Member(config.getID()));
+		groupManager = new SOContainerGMM(this, new Member(IDFactory.internID(config.getID())));
 		sharedObjectManager = new SOManager(this);
 		loadingThreadGroup = new ThreadGroup(getID() + ":loading"); //$NON-NLS-1$
 		sharedObjectThreadGroup = new ThreadGroup(getID() + ":SOs"); //$NON-NLS-1$
@@ -344,7 +360,7 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	}
 
 	protected boolean addNewRemoteMember(ID memberID, Object data) {
-		return groupManager.addMember(new Member(memberID, data));
+		return groupManager.addMember(new Member(IDFactory.internID(memberID), data));
 	}
 
 	protected ISharedObjectContainerTransaction addSharedObject0(ID id, ISharedObject s, Map props) throws Exception {
@@ -516,6 +532,69 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 		return new Thread(sharedObjectThreadGroup, runnable, sharedObjectID.getName() + ":run"); //$NON-NLS-1$
 	}
 
+	/**
+	 * Get the executor that processes the events of this container's shared
+	 * objects.  The events of each shared object are run on it one at a time
+	 * and in order, instead of by a thread of the shared object's own.  If
+	 * <code>null</code> is returned, every shared object gets a dedicated
+	 * thread from {@link #getNewSharedObjectThread(ID, Runnable)}.
+	 * <p>
+	 * The default implementation is chosen by the
+	 * <code>org.eclipse.ecf.provider.generic.sharedObjectDispatch</code>
+	 * system property:
+	 * <ul>
+	 * <li><code>thread</code> (default): <code>null</code>, a thread per shared object</li>
+	 * <li><code>shared</code>: a pool shared by all containers, sized by the
+	 * <code>org.eclipse.ecf.provider.generic.sharedObjectDispatchThreads</code>
+	 * system property (default: twice the number of processors, at least 4)</li>
+	 * <li><code>virtual</code>: a virtual thread per batch of events.  Requires
+	 * Java 21 or later, otherwise a thread per shared object is used</li>
+	 * </ul>
+	 * With a bounded pool, shared objects that block while handling an event,
+	 * for example waiting for a response that is delivered to another shared
+	 * object of the same pool, may exhaust it.
+	 * 
+	 * @return Executor the executor, or <code>null</code>
+	 * @since 4.12
+	 */
+	protected Executor getSharedObjectEventExecutor() {
+		return getDefaultSharedObjectDispatcher();
+	}
+
+	private static synchronized Executor getDefaultSharedObjectDispatcher() {
+		if (!sharedObjectDispatcherCreated) {
+			sharedObjectDispatcherCreated = true;
+			sharedObjectDispatcher = createSharedObjectDispatcher(SHARED_OBJECT_DISPATCH);
+		}
+		return sharedObjectDispatcher;
+	}
+
+	static Executor createSharedObjectDispatcher(String dispatch) {
+		if ("shared".equals(dispatch)) { //$NON-NLS-1$
+			final ThreadPoolExecutor executor = new ThreadPoolExecutor(DISPATCHER_THREADS, DISPATCHER_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				public Thread newThread(Runnable r) {
+					final Thread t = new Thread(r, "ECF shared object dispatcher:" + count.getAndIncrement()); //$NON-NLS-1$
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			executor.allowCoreThreadTimeOut(true);
+			return executor;
+		} else if ("virtual".equals(dispatch)) { //$NON-NLS-1$
+			try {
+				// Java 21+, looked up reflectively as we still run on 11
+				return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null); //$NON-NLS-1$
+			} catch (final Exception e) {
+				ProviderPlugin.getDefault().log(new Status(IStatus.WARNING, ProviderPlugin.PLUGIN_ID, "Virtual threads are not available, using a thread per shared object", e)); //$NON-NLS-1$
+			}
+		} else if (!"thread".equals(dispatch)) { //$NON-NLS-1$
+			ProviderPlugin.getDefault().log(new Status(IStatus.WARNING, ProviderPlugin.PLUGIN_ID, "Unknown shared object dispatch " + dispatch + ", using a thread per shared object")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return null;
+	}
+
 	protected long getNextSequenceNumber() {
 		if (sequenceNumber == Long.MAX_VALUE) {
 			sequenceNumber = 0;
@@ -701,45 +780,130 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 		return false;
 	}
 
+	/**
+	 * Handle a shared object message.  The message is deserialized and
+	 * delivered to the target shared object, and forwarded to other group
+	 * members, without holding the group membership lock.  If
+	 * {@link #getSharedObjectMessageExecutor()} returns an executor, the
+	 * message is deserialized by it rather than on the calling (connection
+	 * receive) thread.  In either case the message takes its place in the
+	 * shared object's event queue before this method returns, so messages
+	 * are delivered to a shared object in the order they are received.
+	 * 
+	 * @param mess the message
+	 * @throws IOException if the message cannot be forwarded
+	 */
 	protected void handleSharedObjectMessage(ContainerMessage mess) throws IOException {
 		final ID fromID = mess.getFromContainerID();
 		final ID toID = mess.getToContainerID();
 		final ContainerMessage.SharedObjectMessage resp = (ContainerMessage.SharedObjectMessage) mess.getData();
 		final ID sharedObjectID = resp.getFromSharedObjectID();
-		SOWrapper sow = null;
-		Serializable obj = null;
-		synchronized (getGroupMembershipLock()) {
-			// We only deliver to local copy if the toID equals null (all), or it equals ours
-			if (verifySharedObjectMessageTarget(toID)) {
-				sow = getSharedObjectWrapper(sharedObjectID);
-				if (sow != null) {
-					try {
-						obj = (Serializable) deserializeSharedObjectMessage((byte[]) resp.getData());
-						// Actually deliver event to shared object asynchronously
+		// We only deliver to local copy if the toID equals null (all), or it equals ours
+		if (verifySharedObjectMessageTarget(toID)) {
+			final SOWrapper sow = getSharedObjectWrapper(sharedObjectID);
+			if (sow != null) {
+				final Executor executor = getSharedObjectMessageExecutor();
+				if (executor == null) {
+					final Serializable obj = deserializeSharedObjectMessage(fromID, sharedObjectID, resp);
+					// Actually deliver event to shared object asynchronously
+					if (obj != null)
 						sow.deliverSharedObjectMessage(fromID, obj);
-					} catch (final ClassNotFoundException e) {
-						String message = "shared object message ClassNotFoundException.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
-						ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, e));
-						printToSystemError(message, e);
-					} catch (final IOException e) {
-						String message = "shared object message IOException.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
-						ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, e));
-						printToSystemError(message, e);
-					} catch (final NoClassDefFoundError e) {
-						String message = "shared object message NoClassDefFoundError.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
-						ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, e));
-						printToSystemError(message, e);
+					// Fire container event notifying container listeners about
+					// receiving event.
+					fireSharedObjectMessageReceivingEvent(fromID, sharedObjectID, obj);
+				} else {
+					final CompletableFuture<Serializable> data = new CompletableFuture<Serializable>();
+					final Runnable task = new Runnable() {
+						public void run() {
+							try {
+								data.complete(deserializeSharedObjectMessage(fromID, sharedObjectID, resp));
+							} catch (final Throwable t) {
+								data.completeExceptionally(t);
+							}
+						}
+					};
+					// Queue before deserializing, so that the message keeps its
+					// place among the events delivered to the shared object
+					sow.deliverSharedObjectMessage(fromID, data);
+					try {
+						executor.execute(task);
+					} catch (final RejectedExecutionException e) {
+						// the executor is full or shut down
+						task.run();
 					}
-				} else
-					handleUndeliveredSharedObjectMessage(resp);
-			}
-			// forward in any case
-			forward(fromID, toID, mess);
+				}
+			} else
+				handleUndeliveredSharedObjectMessage(resp);
 		}
-		// Fire container event notifying container listeners about
-		// receiving event.
-		if (sow != null)
-			fireContainerEvent(new ContainerSharedObjectMessageReceivingEvent(getID(), fromID, sharedObjectID, obj));
+		// forward in any case
+		forward(fromID, toID, mess);
+	}
+
+	Serializable deserializeSharedObjectMessage(ID fromID, ID sharedObjectID, ContainerMessage.SharedObjectMessage resp) {
+		String message = null;
+		Throwable exception = null;
+		try {
+			return (Serializable) deserializeSharedObjectMessage((byte[]) resp.getData());
+		} catch (final ClassNotFoundException e) {
+			message = "shared object message ClassNotFoundException.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
+			exception = e;
+		} catch (final IOException e) {
+			message = "shared object message IOException.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
+			exception = e;
+		} catch (final NoClassDefFoundError e) {
+			message = "shared object message NoClassDefFoundError.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
+			exception = e;
+		}
+		ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, exception));
+		printToSystemError(message, exception);
+		return null;
+	}
+
+	void fireSharedObjectMessageReceivingEvent(ID fromID, ID sharedObjectID, Object obj) {
+		fireContainerEvent(new ContainerSharedObjectMessageReceivingEvent(getID(), fromID, sharedObjectID, obj));
+	}
+
+	/**
+	 * Get the executor used to deserialize shared object messages.  The
+	 * default implementation returns a pool shared by all containers, sized
+	 * by the <code>org.eclipse.ecf.provider.generic.messageDeserializerThreads</code>
+	 * system property (default: number of processors), or <code>null</code>
+	 * if that property is 0 or less, in which case messages are deserialized
+	 * on the thread that received them.  At most
+	 * <code>org.eclipse.ecf.provider.generic.messageDeserializerQueueSize</code>
+	 * messages (default: 1024) wait for the pool; further messages are
+	 * deserialized on the thread that received them until it catches up.
+	 * 
+	 * @return Executor the executor, or <code>null</code>
+	 * @since 4.11
+	 */
+	protected Executor getSharedObjectMessageExecutor() {
+		return getDefaultMessageDeserializer();
+	}
+
+	private static synchronized Executor getDefaultMessageDeserializer() {
+		if (DESERIALIZER_THREADS <= 0)
+			return null;
+		if (messageDeserializer == null)
+			messageDeserializer = createMessageDeserializer(DESERIALIZER_THREADS, Math.max(1, DESERIALIZER_QUEUE_SIZE));
+		return messageDeserializer;
+	}
+
+	static ThreadPoolExecutor createMessageDeserializer(int threads, int queueSize) {
+		// Bounded, so that a fast sender cannot queue messages without limit.
+		// Once full, a message is rejected and deserialized on the receiving
+		// thread, which holds back reading from the connection
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				final Thread t = new Thread(r, "ECF shared object message deserializer:" + count.getAndIncrement()); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
 	}
 
 	/**
@@ -1001,6 +1165,9 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	 * @since 2.0
 	 */
 	protected byte[] defaultSerializeSharedObjectMessage(ID sharedObjectID, Object message) throws IOException {
+		// Already serialized by the sender, so not serialized again
+		if (message instanceof RawSharedObjectMessage)
+			return ((RawSharedObjectMessage) message).serialize();
 		if (!(message instanceof Serializable))
 			throw new NotSerializableException("shared object=" + sharedObjectID + " message=" + message + " not serializable"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		try {
@@ -1032,6 +1199,8 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	 * @since 2.0
 	 */
 	protected Object defaultDeserializeSharedObjectMessage(byte[] bytes) throws IOException, ClassNotFoundException {
+		if (RawSharedObjectMessage.isRawMessage(bytes))
+			return RawSharedObjectMessage.deserialize(bytes);
 		try {
 			return AccessController.doPrivileged((PrivilegedExceptionAction<Object>) () -> {
 				final ByteArrayInputStream bins = new ByteArrayInputStream(bytes);
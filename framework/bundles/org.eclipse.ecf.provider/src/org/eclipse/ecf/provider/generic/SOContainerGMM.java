@@ -27,6 +27,9 @@ class SOContainerGMM implements Observer {
 	// Maximum number of members. Default is -1 (no maximum).
 	int maxMembers = -1;
 	TreeMap loading, active;
+	// Copy of active for lookups without locking.  Replaced whenever active
+	// changes
+	private volatile Map activeSnapshot = Collections.EMPTY_MAP;
 
 	SOContainerGMM(SOContainer cont, Member local) {
 		container = cont;
@@ -188,6 +191,7 @@ class SOContainerGMM implements Observer {
 		if (so != null)
 			debug("addSharedObjectToActive(" + so.getObjID() + ")"); //$NON-NLS-1$ //$NON-NLS-2$
 		active.put(so.getObjID(), so);
+		updateActiveSnapshot();
 		so.activated();
 	}
 
@@ -215,6 +219,7 @@ class SOContainerGMM implements Observer {
 		final SOWrapper ro = removeFromMap(id, active);
 		if (ro == null)
 			return false;
+		updateActiveSnapshot();
 		ro.deactivated();
 		return true;
 	}
@@ -231,8 +236,16 @@ class SOContainerGMM implements Observer {
 		return getFromMap(objID, loading);
 	}
 
+	private void updateActiveSnapshot() {
+		activeSnapshot = new HashMap(active);
+	}
+
+	/**
+	 * Does not lock, so may be used by message delivery without blocking on
+	 * (or blocking) group membership changes.
+	 */
 	SOWrapper getFromActive(ID objID) {
-		return getFromMap(objID, active);
+		return (SOWrapper) activeSnapshot.get(objID);
 	}
 
 	synchronized SOWrapper getFromAny(ID objID) {
@@ -19,9 +19,11 @@ import java.net.URI;
 import java.util.*;
 import org.eclipse.ecf.internal.provider.ProviderPlugin;
 import org.eclipse.ecf.provider.comm.IConnectRequestHandler;
+import org.eclipse.ecf.provider.comm.nio.INIOAcceptHandler;
+import org.eclipse.ecf.provider.comm.nio.NIOClient;
 import org.eclipse.ecf.provider.comm.tcp.*;
 
-public class SOContainerGroup implements ISocketAcceptHandler {
+public class SOContainerGroup implements ISocketAcceptHandler, INIOAcceptHandler {
 
 	/**
 	 * @since 4.7
@@ -76,7 +78,7 @@ public class SOContainerGroup implements ISocketAcceptHandler {
 	 * @since 4.7
 	 */
 	protected ObjectOutputStream createObjectOutputStream(Socket aSocket) throws IOException {
-		return new ObjectOutputStream(aSocket.getOutputStream());
+		return new CoalescingObjectOutputStream(aSocket.getOutputStream());
 	}
 
 	/**
@@ -117,17 +119,9 @@ public class SOContainerGroup implements ISocketAcceptHandler {
 
 		final ConnectRequestMessage req = readConnectRequestMessage(iStream);
 
-		final URI uri = req.getTarget();
-		if (uri == null)
-			throw new InvalidObjectException(INVALID_CONNECT + " URI connect target cannot be null"); //$NON-NLS-1$
-		final String path = uri.getPath();
-		if (path == null)
-			throw new InvalidObjectException(INVALID_CONNECT + " Path cannot be null"); //$NON-NLS-1$
-
+		final String path = getConnectPath(req);
 		// Given path, lookup associated container
-		final SOContainer srs = get(path);
-		if (srs == null)
-			throw new InvalidObjectException("Container not found for path=" + path); //$NON-NLS-1$
+		final SOContainer srs = getContainerForPath(path);
 
 		// Create our local messaging interface
 		final Client newClient = new Client(aSocket, iStream, oStream, srs.getMessageReceiver());
@@ -144,4 +138,36 @@ public class SOContainerGroup implements ISocketAcceptHandler {
 		}
 	}
 
-}
\ No newline at end of file
+	private String getConnectPath(ConnectRequestMessage req) throws IOException {
+		final URI uri = req.getTarget();
+		if (uri == null)
+			throw new InvalidObjectException(INVALID_CONNECT + " URI connect target cannot be null"); //$NON-NLS-1$
+		final String path = uri.getPath();
+		if (path == null)
+			throw new InvalidObjectException(INVALID_CONNECT + " Path cannot be null"); //$NON-NLS-1$
+		return path;
+	}
+
+	private SOContainer getContainerForPath(String path) throws IOException {
+		final SOContainer srs = get(path);
+		if (srs == null)
+			throw new InvalidObjectException("Container not found for path=" + path); //$NON-NLS-1$
+		return srs;
+	}
+
+	/**
+	 * @param client the new non-blocking connection
+	 * @param req the connect request received on it
+	 * @since 4.11
+	 */
+	public Serializable handleConnectRequest(NIOClient client, ConnectRequestMessage req) throws Exception {
+		final String path = getConnectPath(req);
+		// Given path, lookup associated container
+		final SOContainer srs = getContainerForPath(path);
+		client.setEventHandler(srs.getMessageReceiver());
+		// The caller holds the client's output stream lock, so nothing is
+		// sent until the connect result has been sent
+		return ((IConnectRequestHandler) srs).handleConnectRequest(client.getSocket(), path, req.getData(), client);
+	}
+
+}
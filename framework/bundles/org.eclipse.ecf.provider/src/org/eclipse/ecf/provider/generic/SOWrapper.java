@@ -16,6 +16,8 @@ package org.eclipse.ecf.provider.generic;
 import java.io.Serializable;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.LinkedList;
+import java.util.concurrent.*;
 import org.eclipse.ecf.core.events.ContainerConnectedEvent;
 import org.eclipse.ecf.core.events.ContainerDisconnectedEvent;
 import org.eclipse.ecf.core.identity.ID;
@@ -38,6 +40,20 @@ public class SOWrapper {
 	private ID containerID;
 	private Thread thread;
 	SimpleFIFOQueue queue;
+	/**
+	 * The queue when events are processed by the container's shared object
+	 * event executor, <code>null</code> when they are processed by
+	 * {@link #thread}.
+	 */
+	private SharedObjectMailbox mailbox;
+	private volatile boolean running;
+	/**
+	 * The message still being deserialized that the events of this shared
+	 * object wait for, and the events that arrived after it.  Only used by
+	 * the thread processing the events.
+	 */
+	private PendingMessageEvent waitingFor;
+	private final LinkedList<Event> waiting = new LinkedList<Event>();
 
 	protected SOWrapper(SOContainer.LoadingSharedObject obj, SOContainer cont) {
 		sharedObjectID = obj.getID();
@@ -46,7 +62,7 @@ public class SOWrapper {
 		containerID = cont.getID();
 		sharedObjectConfig = null;
 		thread = null;
-		queue = new SimpleFIFOQueue();
+		createQueue();
 	}
 
 	public SOWrapper(SOConfig aConfig, ISharedObject obj, SOContainer cont) {
@@ -56,7 +72,17 @@ public class SOWrapper {
 		container = cont;
 		containerID = cont.getID();
 		thread = null;
-		queue = new SimpleFIFOQueue();
+		createQueue();
+	}
+
+	private void createQueue() {
+		final Executor executor = container.getSharedObjectEventExecutor();
+		if (executor == null) {
+			queue = new SimpleFIFOQueue();
+		} else {
+			mailbox = new SharedObjectMailbox(executor);
+			queue = mailbox;
+		}
 	}
 
 	protected void init() throws SharedObjectInitException {
@@ -78,16 +104,22 @@ public class SOWrapper {
 	}
 
 	protected void activated() {
-		thread = (Thread) AccessController.doPrivileged(new PrivilegedAction() {
-			public Object run() {
-				Thread aThread = getThread();
-				return aThread;
-			}
-		});
+		if (mailbox == null) {
+			thread = (Thread) AccessController.doPrivileged(new PrivilegedAction() {
+				public Object run() {
+					Thread aThread = getThread();
+					return aThread;
+				}
+			});
+		}
+		running = true;
 		// Notify container and listeners
 		container.notifySharedObjectActivated(sharedObjectID);
-		// Start thread
-		thread.start();
+		// Start processing events
+		if (mailbox == null)
+			thread.start();
+		else
+			mailbox.start(this);
 		// Send message
 		send(new SharedObjectActivatedEvent(containerID, sharedObjectID));
 	}
@@ -100,14 +132,14 @@ public class SOWrapper {
 
 	protected void destroyed() {
 		if (!queue.isStopped()) {
-			if (thread != null)
+			if (running)
 				queue.enqueue(new DisposeEvent());
 			queue.close();
 		}
 	}
 
 	protected void otherChanged(ID otherID, boolean activated) {
-		if (activated && thread != null) {
+		if (activated && running) {
 			send(new SharedObjectActivatedEvent(containerID, otherID));
 		} else {
 			send(new SharedObjectDeactivatedEvent(containerID, otherID));
@@ -115,7 +147,7 @@ public class SOWrapper {
 	}
 
 	protected void memberChanged(Member m, boolean add) {
-		if (thread != null) {
+		if (running) {
 			if (add) {
 				send(new ContainerConnectedEvent(containerID, m.getID()));
 			} else {
@@ -135,17 +167,7 @@ public class SOWrapper {
 					evt = (Event) queue.dequeue();
 					if (Thread.currentThread().isInterrupted() || evt == null)
 						break;
-					try {
-						if (evt instanceof ProcEvent) {
-							SOWrapper.this.svc(((ProcEvent) evt).getEvent());
-						} else if (evt instanceof DisposeEvent) {
-							SOWrapper.this.doDestroy();
-						} else {
-							SOWrapper.this.svc(evt);
-						}
-					} catch (Throwable t) {
-						handleRuntimeException(t);
-					}
+					process(evt);
 				}
 				if (Thread.currentThread().isInterrupted()) {
 					debug("runner(" + sharedObjectID //$NON-NLS-1$
@@ -158,6 +180,64 @@ public class SOWrapper {
 		});
 	}
 
+	/**
+	 * Process a single event from the queue.  While a shared object message
+	 * is still being deserialized, the events after it are put aside rather
+	 * than waiting for it, and processed when it has been delivered.
+	 * 
+	 * @param evt the event
+	 */
+	void process(Event evt) {
+		if (evt instanceof PendingMessageDoneEvent) {
+			if (waitingFor == ((PendingMessageDoneEvent) evt).pending)
+				resume(false);
+		} else if (waitingFor != null) {
+			waiting.add(evt);
+			// No done event can be queued once the queue is closed after
+			// this, so wait for the message here
+			if (evt instanceof DisposeEvent)
+				resume(true);
+		} else
+			dispatch(evt);
+	}
+
+	private void resume(boolean wait) {
+		while (waitingFor != null && (wait || waitingFor.data.isDone())) {
+			final PendingMessageEvent pending = waitingFor;
+			waitingFor = null;
+			try {
+				deliverPendingMessage(pending);
+			} catch (Throwable t) {
+				handleRuntimeException(t);
+			}
+			while (waitingFor == null && !waiting.isEmpty())
+				dispatch(waiting.removeFirst());
+		}
+	}
+
+	private void dispatch(Event evt) {
+		try {
+			if (evt instanceof ProcEvent) {
+				svc(((ProcEvent) evt).getEvent());
+			} else if (evt instanceof PendingMessageEvent) {
+				final PendingMessageEvent pending = (PendingMessageEvent) evt;
+				if (pending.data.isDone())
+					deliverPendingMessage(pending);
+				else {
+					waitingFor = pending;
+					// Deliver on the thread processing the events once done
+					pending.data.whenComplete((obj, e) -> queue.enqueue(new PendingMessageDoneEvent(pending)));
+				}
+			} else if (evt instanceof DisposeEvent) {
+				doDestroy();
+			} else {
+				svc(evt);
+			}
+		} catch (Throwable t) {
+			handleRuntimeException(t);
+		}
+	}
+
 	private void send(Event evt) {
 		queue.enqueue(new ProcEvent(evt));
 	}
@@ -174,6 +254,31 @@ public class SOWrapper {
 		}
 	}
 
+	/**
+	 * Placeholder for a shared object message that is still being
+	 * deserialized.
+	 */
+	static class PendingMessageEvent implements Event {
+		final ID fromID;
+		final CompletableFuture<Serializable> data;
+
+		PendingMessageEvent(ID fromID, CompletableFuture<Serializable> data) {
+			this.fromID = fromID;
+			this.data = data;
+		}
+	}
+
+	/**
+	 * Queued when the data of a pending message is done.
+	 */
+	static class PendingMessageDoneEvent implements Event {
+		final PendingMessageEvent pending;
+
+		PendingMessageDoneEvent(PendingMessageEvent pending) {
+			this.pending = pending;
+		}
+	}
+
 	protected static class DisposeEvent implements Event {
 		DisposeEvent() {
 			//
@@ -194,6 +299,35 @@ public class SOWrapper {
 		send(new RemoteSharedObjectEvent(getObjID(), fromID, data));
 	}
 
+	/**
+	 * Deliver a shared object message that is being deserialized.  Events
+	 * queued after this one are not delivered until data is done, but the
+	 * thread processing the events does not wait for it.
+	 * 
+	 * @param fromID the sender
+	 * @param data the deserialized message, or <code>null</code> if it could
+	 *            not be deserialized
+	 */
+	void deliverSharedObjectMessage(ID fromID, CompletableFuture<Serializable> data) {
+		queue.enqueue(new PendingMessageEvent(fromID, data));
+	}
+
+	void deliverPendingMessage(PendingMessageEvent pending) {
+		Serializable obj = null;
+		try {
+			obj = pending.data.get();
+		} catch (final InterruptedException e) {
+			// runner will terminate, an executor thread is being shut down
+			Thread.currentThread().interrupt();
+			return;
+		} catch (final ExecutionException e) {
+			traceStack("deliverPendingMessage", e.getCause()); //$NON-NLS-1$
+		}
+		container.fireSharedObjectMessageReceivingEvent(pending.fromID, sharedObjectID, obj);
+		if (obj != null)
+			svc(new RemoteSharedObjectEvent(getObjID(), pending.fromID, obj));
+	}
+
 	protected void deliverCreateResponse(ID fromID, ContainerMessage.CreateResponseMessage resp) {
 		send(new RemoteSharedObjectCreateResponseEvent(resp.getSharedObjectID(), fromID, resp.getSequence(), resp.getException()));
 	}
@@ -152,6 +152,8 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 			queueContainerMessage(new ContainerMessage(from, null, getNextSequenceNumber(), data.getData()));
 		} else {
 			final Object ms[] = groupManager.getMembers();
+			// Serialize the shared part of the message only once for all members
+			ContainerMessageTemplate template = null;
 			for (int i = 0; i < ms.length; i++) {
 				final Member m = (Member) ms[i];
 				final ID oldID = m.getID();
@@ -159,7 +161,13 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 					final IAsynchConnection conn = (IAsynchConnection) m.getData();
 					if (conn != null) {
 						try {
-							conn.sendAsynch(oldID, serialize(new ContainerMessage(from, oldID, getNextSequenceNumber(), data.getData())));
+							if (template == null)
+								template = ContainerMessageTemplate.create(from, data.getData());
+							final long seq = getNextSequenceNumber();
+							if (template == null)
+								conn.sendAsynch(oldID, serialize(new ContainerMessage(from, oldID, seq, data.getData())));
+							else
+								template.send(conn, oldID, seq);
 						} catch (final IOException e) {
 							traceStack("Exception in forwardExcluding from " //$NON-NLS-1$
 									+ from + " with oldID " + oldID, e); //$NON-NLS-1$
@@ -286,11 +294,16 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 
 	private final void queueToAll(ContainerMessage message) {
 		final Object[] members = groupManager.getMembers();
+		// The message is the same for all members, so serialize it once and
+		// give the same (unmodified) bytes to every connection
+		byte[] bytes = null;
 		for (int i = 0; i < members.length; i++) {
 			final IAsynchConnection conn = (IAsynchConnection) ((Member) members[i]).getData();
 			if (conn != null) {
 				try {
-					conn.sendAsynch(message.getToContainerID(), serialize(message));
+					if (bytes == null)
+						bytes = serialize(message);
+					conn.sendAsynch(message.getToContainerID(), bytes);
 				} catch (final IOException e) {
 					traceStack("Exception in queueToAll for ContainerMessage " + message, e); //$NON-NLS-1$
 				}
@@ -0,0 +1,114 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.generic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.ecf.core.sharedobject.util.SimpleFIFOQueue;
+import org.eclipse.ecf.core.util.Event;
+
+/**
+ * Event queue of a shared object that is processed by a shared executor
+ * rather than by a thread of its own.  Enqueuing schedules the mailbox on the
+ * executor unless it is already scheduled, so at most one executor thread
+ * processes the events of a shared object at any time, in the order they
+ * were enqueued.
+ */
+final class SharedObjectMailbox extends SimpleFIFOQueue implements Runnable {
+
+	/**
+	 * The number of events processed before the executor thread is handed
+	 * over to other shared objects.
+	 */
+	private static final int BATCH_SIZE = 64;
+
+	private final Executor executor;
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	/**
+	 * The events taken from the queue by {@link #run()}, only used by the
+	 * thread the mailbox is scheduled on.
+	 */
+	private final List<Object> batch = new ArrayList<Object>(BATCH_SIZE);
+
+	private volatile SOWrapper wrapper;
+
+	SharedObjectMailbox(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Start processing events, including those that have been enqueued before.
+	 *
+	 * @param sow the wrapper that processes the events
+	 */
+	void start(SOWrapper sow) {
+		this.wrapper = sow;
+		schedule();
+	}
+
+	public boolean enqueue(final Object obj) {
+		if (!super.enqueue(obj))
+			return false;
+		if (wrapper != null)
+			schedule();
+		return true;
+	}
+
+	private void schedule() {
+		if (!scheduled.compareAndSet(false, true))
+			return;
+		try {
+			executor.execute(this);
+		} catch (final RejectedExecutionException e) {
+			// executor has been shut down, keep the events flowing on this
+			// thread, one batch after the other rather than recursively, and
+			// without asking the executor again
+			do {
+				processBatch();
+			} while (!isEmpty() && scheduled.compareAndSet(false, true));
+		}
+	}
+
+	public void run() {
+		try {
+			processBatch();
+		} finally {
+			// events may have been enqueued after the drain
+			if (!isEmpty())
+				schedule();
+		}
+	}
+
+	private void processBatch() {
+		drainTo(batch, BATCH_SIZE);
+		try {
+			for (int i = 0; i < batch.size(); i++)
+				wrapper.process((Event) batch.get(i));
+		} finally {
+			batch.clear();
+			scheduled.set(false);
+		}
+	}
+
+	public String toString() {
+		// rejecting executors put the task into their message, so do not
+		// list the queued events
+		return "SharedObjectMailbox[size=" + size() + ",scheduled=" + scheduled.get() + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
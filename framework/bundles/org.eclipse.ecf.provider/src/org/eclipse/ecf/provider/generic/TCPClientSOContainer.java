@@ -13,16 +13,20 @@
 
 package org.eclipse.ecf.provider.generic;
 
+import java.io.IOException;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.identity.IDFactory;
 import org.eclipse.ecf.core.sharedobject.ISharedObjectContainerConfig;
 import org.eclipse.ecf.provider.comm.ConnectionCreateException;
 import org.eclipse.ecf.provider.comm.ISynchAsynchConnection;
+import org.eclipse.ecf.provider.comm.nio.NIOClient;
 import org.eclipse.ecf.provider.comm.tcp.Client;
 
 public class TCPClientSOContainer extends ClientSOContainer {
 	int keepAlive = 0;
 
+	private String transport = TCPServerSOContainer.DEFAULT_TRANSPORT;
+
 	public static final int DEFAULT_TCP_CONNECT_TIMEOUT = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.generic.TCPClientSOContainer.defaultConnectTimeout", "30000")); //$NON-NLS-1$ //$NON-NLS-2$
 
 	public static final String DEFAULT_COMM_NAME = org.eclipse.ecf.provider.comm.tcp.Client.class.getName();
@@ -36,6 +40,19 @@ public class TCPClientSOContainer extends ClientSOContainer {
 		keepAlive = ka;
 	}
 
+	/**
+	 * @param config config
+	 * @param ka keep alive
+	 * @param transport one of {@link TCPServerSOContainer#TRANSPORT_TCP} or {@link TCPServerSOContainer#TRANSPORT_NIO}.
+	 * If <code>null</code>, {@link TCPServerSOContainer#DEFAULT_TRANSPORT} is used.
+	 * @since 4.11
+	 */
+	public TCPClientSOContainer(ISharedObjectContainerConfig config, int ka, String transport) {
+		this(config, ka);
+		if (transport != null)
+			this.transport = transport;
+	}
+
 	protected int getConnectTimeout() {
 		return DEFAULT_TCP_CONNECT_TIMEOUT;
 	}
@@ -44,10 +61,17 @@ public class TCPClientSOContainer extends ClientSOContainer {
 	 * @param remoteSpace remote space
 	 * @param data and data
 	 * @return ISynchAsynchConnection a non-<code>null</code> instance.
-	 * @throws ConnectionCreateException not thrown by this implementation.
+	 * @throws ConnectionCreateException if the nio transport cannot be initialized.
 	 */
 	protected ISynchAsynchConnection createConnection(ID remoteSpace, Object data) throws ConnectionCreateException {
 		debug("createClientConnection:" + remoteSpace + ":" + data); //$NON-NLS-1$ //$NON-NLS-2$
+		if (TCPServerSOContainer.TRANSPORT_NIO.equals(transport)) {
+			try {
+				return new NIOClient(receiver, keepAlive);
+			} catch (IOException e) {
+				throw new ConnectionCreateException("Could not create nio connection", e); //$NON-NLS-1$
+			}
+		}
 		ISynchAsynchConnection conn = new Client(receiver, keepAlive);
 		return conn;
 	}
@@ -37,6 +37,24 @@ public class TCPServerSOContainer extends ServerSOContainer implements IConnectR
 	 */
 	public static final boolean DEFAULT_FALLBACK_PORT = Boolean.valueOf(System.getProperty("org.eclipse.ecf.provider.generic.port.fallback", "true")).booleanValue(); //$NON-NLS-1$//$NON-NLS-2$
 
+	/**
+	 * Transport using a dedicated set of threads per connection.
+	 * @since 4.11
+	 */
+	public static final String TRANSPORT_TCP = "tcp"; //$NON-NLS-1$
+
+	/**
+	 * Transport using non-blocking channels serviced by a shared set of
+	 * selector threads.  Same wire protocol as {@link #TRANSPORT_TCP}.
+	 * @since 4.11
+	 */
+	public static final String TRANSPORT_NIO = "nio"; //$NON-NLS-1$
+
+	/**
+	 * @since 4.11
+	 */
+	public static final String DEFAULT_TRANSPORT = System.getProperty("org.eclipse.ecf.provider.generic.transport", TRANSPORT_TCP); //$NON-NLS-1$
+
 	static {
 		final Boolean useHostname = Boolean.valueOf(System.getProperty("org.eclipse.ecf.provider.generic.host.useHostName", "true")); //$NON-NLS-1$ //$NON-NLS-2$
 		if (useHostname.booleanValue()) {
@@ -95,6 +113,19 @@ public class TCPServerSOContainer extends ServerSOContainer implements IConnectR
 	 * @since 4.4
 	 */
 	public TCPServerSOContainer(ISharedObjectContainerConfig config, InetAddress bindAddress, int keepAlive) throws IOException, URISyntaxException {
+		this(config, bindAddress, keepAlive, DEFAULT_TRANSPORT);
+	}
+
+	/**
+	 * @param config config
+	 * @param bindAddress bind address
+	 * @param keepAlive keep alive
+	 * @param transport one of {@link #TRANSPORT_TCP} or {@link #TRANSPORT_NIO}
+	 * @throws IOException if some problem creating
+	 * @throws URISyntaxException if some problem creating
+	 * @since 4.11
+	 */
+	public TCPServerSOContainer(ISharedObjectContainerConfig config, InetAddress bindAddress, int keepAlive, String transport) throws IOException, URISyntaxException {
 		super(config);
 		isSingle = true;
 		URI actualURI = parseAndValidateURI();
@@ -102,7 +133,7 @@ public class TCPServerSOContainer extends ServerSOContainer implements IConnectR
 		String path = actualURI.getPath();
 		if (path == null)
 			throw new NullPointerException("path cannot be null"); //$NON-NLS-1$
-		this.group = new TCPServerSOContainerGroup(TCPServerSOContainerGroup.DEFAULT_GROUP_NAME, null, port, Server.DEFAULT_BACKLOG, bindAddress);
+		this.group = new TCPServerSOContainerGroup(TCPServerSOContainerGroup.DEFAULT_GROUP_NAME, null, port, Server.DEFAULT_BACKLOG, bindAddress, transport);
 		this.group.add(path, this);
 		this.group.putOnTheAir();
 	}
@@ -17,6 +17,8 @@ import java.net.InetAddress;
 import org.eclipse.ecf.core.util.Trace;
 import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
 import org.eclipse.ecf.internal.provider.ProviderPlugin;
+import org.eclipse.ecf.provider.comm.nio.NIOSelectorGroup;
+import org.eclipse.ecf.provider.comm.nio.NIOServer;
 import org.eclipse.ecf.provider.comm.tcp.Server;
 
 public class TCPServerSOContainerGroup extends SOContainerGroup {
@@ -24,26 +26,43 @@ public class TCPServerSOContainerGroup extends SOContainerGroup {
 	public static final String DEFAULT_GROUP_NAME = TCPServerSOContainerGroup.class.getName();
 	private int port;
 	private Server listener;
+	private NIOServer nioListener;
 	private boolean isOnTheAir = false;
 	private final ThreadGroup threadGroup;
 
 	private int backlog = Server.DEFAULT_BACKLOG;
 	private InetAddress bindAddress;
+	private final String transport;
 
 	/**
 	 * @param name name
-	 * @param group thread group to use
+	 * @param group thread group to use.  Not used by the nio transport.
 	 * @param port port
 	 * @param backlog backlog
 	 * @param bindAddress bind address
-	 * @since 4.4
+	 * @param transport one of {@link TCPServerSOContainer#TRANSPORT_TCP} or {@link TCPServerSOContainer#TRANSPORT_NIO}.
+	 * If <code>null</code>, {@link TCPServerSOContainer#DEFAULT_TRANSPORT} is used.
+	 * @since 4.11
 	 */
-	public TCPServerSOContainerGroup(String name, ThreadGroup group, int port, int backlog, InetAddress bindAddress) {
+	public TCPServerSOContainerGroup(String name, ThreadGroup group, int port, int backlog, InetAddress bindAddress, String transport) {
 		super(name);
 		threadGroup = group;
 		this.port = port;
 		this.backlog = backlog;
 		this.bindAddress = bindAddress;
+		this.transport = (transport == null) ? TCPServerSOContainer.DEFAULT_TRANSPORT : transport;
+	}
+
+	/**
+	 * @param name name
+	 * @param group thread group to use
+	 * @param port port
+	 * @param backlog backlog
+	 * @param bindAddress bind address
+	 * @since 4.4
+	 */
+	public TCPServerSOContainerGroup(String name, ThreadGroup group, int port, int backlog, InetAddress bindAddress) {
+		this(name, group, port, backlog, bindAddress, null);
 	}
 
 	/**
@@ -79,8 +98,13 @@ public class TCPServerSOContainerGroup extends SOContainerGroup {
 
 	public synchronized void putOnTheAir() throws IOException {
 		trace("TCPServerSOContainerGroup at port " + port + " on the air"); //$NON-NLS-1$ //$NON-NLS-2$
-		listener = new Server(threadGroup, port, backlog, bindAddress, this);
-		port = listener.getLocalPort();
+		if (isNIO()) {
+			nioListener = new NIOServer(NIOSelectorGroup.getDefault(), port, backlog, bindAddress, this);
+			port = nioListener.getLocalPort();
+		} else {
+			listener = new Server(threadGroup, port, backlog, bindAddress, this);
+			port = listener.getLocalPort();
+		}
 		isOnTheAir = true;
 	}
 
@@ -98,6 +122,15 @@ public class TCPServerSOContainerGroup extends SOContainerGroup {
 			}
 			listener = null;
 		}
+		if (nioListener != null) {
+			trace("Taking " + getName() + " off the air."); //$NON-NLS-1$ //$NON-NLS-2$
+			try {
+				nioListener.close();
+			} catch (final IOException e) {
+				traceStack("Exception in closeListener", e); //$NON-NLS-1$
+			}
+			nioListener = null;
+		}
 		isOnTheAir = false;
 	}
 
@@ -105,6 +138,18 @@ public class TCPServerSOContainerGroup extends SOContainerGroup {
 		return port;
 	}
 
+	/**
+	 * @return String the transport used by this group
+	 * @since 4.11
+	 */
+	public String getTransport() {
+		return transport;
+	}
+
+	private boolean isNIO() {
+		return TCPServerSOContainer.TRANSPORT_NIO.equals(transport);
+	}
+
 	public String toString() {
 		return super.toString() + ";port:" + port; //$NON-NLS-1$
 	}
@@ -0,0 +1,148 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.remoteservice.rest;
+
+import java.io.*;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Body subscriber that provides the response body as an input stream, like
+ * {@link java.net.http.HttpResponse.BodySubscribers#ofInputStream()}, but with a
+ * timeout for each read.  A read that receives no data within the timeout closes
+ * the stream, which cancels the response, and throws a {@link SocketTimeoutException}.
+ * This is the behavior of the socket timeout of the Apache http client previously
+ * used for rest calls.
+ */
+public class ResponseBodyInputStream extends InputStream implements BodySubscriber<InputStream> {
+
+	private static final List<ByteBuffer> END = Collections.emptyList();
+
+	private final long readTimeout;
+
+	private final BlockingQueue<List<ByteBuffer>> received = new LinkedBlockingQueue<List<ByteBuffer>>();
+
+	private final CompletableFuture<Flow.Subscription> subscription = new CompletableFuture<Flow.Subscription>();
+
+	private Iterator<ByteBuffer> buffers = Collections.<ByteBuffer> emptyList().iterator();
+
+	private ByteBuffer current;
+
+	private volatile Throwable error;
+
+	private boolean eof;
+
+	private volatile boolean closed;
+
+	/**
+	 * @param readTimeout the longest time in milliseconds a read waits for data.  If
+	 * <code>&lt;= 0</code>, reads wait without a timeout.
+	 */
+	public ResponseBodyInputStream(long readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	public CompletionStage<InputStream> getBody() {
+		return CompletableFuture.completedStage(this);
+	}
+
+	public void onSubscribe(Flow.Subscription s) {
+		if (!subscription.complete(s) || closed) {
+			s.cancel();
+			return;
+		}
+		s.request(1);
+	}
+
+	public void onNext(List<ByteBuffer> item) {
+		received.offer(item);
+	}
+
+	public void onError(Throwable throwable) {
+		error = throwable;
+		received.offer(END);
+	}
+
+	public void onComplete() {
+		received.offer(END);
+	}
+
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		return (read(b, 0, 1) == -1) ? -1 : (b[0] & 0xff);
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		Objects.checkFromIndexSize(off, len, b.length);
+		if (len == 0)
+			return 0;
+		if (!nextBuffer())
+			return -1;
+		int count = Math.min(len, current.remaining());
+		current.get(b, off, count);
+		return count;
+	}
+
+	public int available() throws IOException {
+		return (current == null || closed) ? 0 : current.remaining();
+	}
+
+	private boolean nextBuffer() throws IOException {
+		while (current == null || !current.hasRemaining()) {
+			if (closed)
+				throw new IOException("closed"); //$NON-NLS-1$
+			if (eof)
+				return false;
+			if (buffers.hasNext()) {
+				current = buffers.next();
+				continue;
+			}
+			List<ByteBuffer> next;
+			try {
+				next = (readTimeout > 0) ? received.poll(readTimeout, TimeUnit.MILLISECONDS) : received.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new InterruptedIOException("read interrupted"); //$NON-NLS-1$
+			}
+			if (next == null) {
+				close();
+				throw new SocketTimeoutException("Read timed out after " + readTimeout + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			if (next == END) {
+				eof = true;
+				if (error != null)
+					throw (error instanceof IOException) ? (IOException) error : new IOException(error);
+				return false;
+			}
+			buffers = next.iterator();
+			// ask for the next list of buffers while this one is read
+			subscription.join().request(1);
+		}
+		return true;
+	}
+
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		Flow.Subscription s = subscription.getNow(null);
+		if (s != null)
+			s.cancel();
+		received.clear();
+	}
+
+}
@@ -12,7 +12,9 @@
  *****************************************************************************/
 package org.eclipse.ecf.remoteservice.rest.client;
 
+import java.net.http.HttpClient;
 import java.text.MessageFormat;
+import java.time.Duration;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import org.eclipse.ecf.core.ContainerConnectException;
@@ -35,6 +37,35 @@ public abstract class AbstractRestClientContainer extends AbstractClientContaine
 		setResponseDeserializer(new XMLRemoteResponseDeserializer());
 	}
 
+	private HttpClient httpClient;
+
+	/**
+	 * Create the http client that is shared by the remote services of this container.
+	 * The default client prefers HTTP/2, falls back to HTTP/1.1 where the server does
+	 * not support it, and keeps connections open for reuse.  Subclasses may override
+	 * to customize the client (e.g. proxy, SSL context or executor).
+	 * 
+	 * @return HttpClient the client to use.  Must not be <code>null</code>.
+	 * @since 2.9
+	 */
+	protected HttpClient createHttpClient() {
+		HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).followRedirects(HttpClient.Redirect.NORMAL);
+		if (RestClientService.connectTimeout > 0)
+			builder.connectTimeout(Duration.ofMillis(RestClientService.connectTimeout));
+		return builder.build();
+	}
+
+	/**
+	 * @return HttpClient the http client shared by the remote services of this container.
+	 * Created by {@link #createHttpClient()} when first needed.
+	 * @since 2.9
+	 */
+	public synchronized HttpClient getHttpClient() {
+		if (httpClient == null)
+			httpClient = createHttpClient();
+		return httpClient;
+	}
+
 	public boolean setRemoteServiceCallPolicy(IRemoteServiceCallPolicy policy) {
 		return false;
 	}
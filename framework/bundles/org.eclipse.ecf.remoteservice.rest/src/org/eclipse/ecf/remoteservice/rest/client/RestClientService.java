@@ -15,7 +15,16 @@ package org.eclipse.ecf.remoteservice.rest.client;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
 import org.apache.http.*;
 import org.apache.http.auth.*;
 import org.apache.http.client.HttpClient;
@@ -23,25 +32,42 @@ import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.*;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.message.AbstractHttpMessage;
-import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.message.*;
 import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HTTP;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.ecf.core.security.*;
 import org.eclipse.ecf.core.util.ECFException;
-import org.eclipse.ecf.remoteservice.IRemoteCall;
-import org.eclipse.ecf.remoteservice.IRemoteService;
+import org.eclipse.ecf.internal.remoteservice.rest.ResponseBodyInputStream;
+import org.eclipse.ecf.remoteservice.*;
+import org.eclipse.ecf.remoteservice.asyncproxy.IAsyncProxyCompletable;
 import org.eclipse.ecf.remoteservice.client.*;
 import org.eclipse.ecf.remoteservice.rest.IRestCall;
 import org.eclipse.ecf.remoteservice.rest.RestException;
+import org.eclipse.equinox.concurrent.future.IProgressRunnable;
+import org.eclipse.equinox.concurrent.future.ThreadsExecutor;
 
 /**
  * This class represents a REST service from the client side of view. So a
  * RESTful web service can be accessed via the methods provided by this class.
  * Mostly the methods are inherited from {@link IRemoteService}.
+ * <p>
+ * Requests are sent with the http client shared by the remote services of the
+ * container (see {@link AbstractRestClientContainer#getHttpClient()}).  Asynchronous
+ * calls are completed when the response arrives, without a thread waiting for it,
+ * and the response body is passed to the container's response deserializer as a
+ * stream.
+ * </p>
+ * <p>
+ * Subclasses that override {@link #createHttpClient()} keep sending requests with
+ * the Apache client it returns, as before 2.9.  Their asynchronous calls wait for
+ * the response on another thread.
+ * </p>
  */
-public class RestClientService extends AbstractRestClientService {
+public class RestClientService extends AbstractRestClientService implements ICompletableRemoteService {
 
 	public static final int socketTimeout = Integer.parseInt(System.getProperty("org.eclipse.ecf.remoteservice.rest.RestClientService.socketTimeout", "-1")); //$NON-NLS-1$ //$NON-NLS-2$
 	public static final int connectRequestTimeout = Integer.parseInt(System.getProperty("org.eclipse.ecf.remoteservice.rest.RestClientService.connectRequestTimeout", "-1")); //$NON-NLS-1$ //$NON-NLS-2$
@@ -51,18 +77,59 @@ public class RestClientService extends AbstractRestClientService {
 
 	protected final static String DEFAULT_HTTP_CONTENT_CHARSET = "UTF-8"; //$NON-NLS-1$
 
+	/**
+	 * Request headers that are set by the http client itself.
+	 */
+	private static final Set RESTRICTED_REQUEST_HEADERS = new HashSet(Arrays.asList(new String[] {"connection", "content-length", "expect", "host", "upgrade"})); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+	private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0); //$NON-NLS-1$
+
+	/**
+	 * The Apache client that requests are sent with.  <code>null</code> unless
+	 * {@link #createHttpClient()} is overridden.
+	 * @deprecated requests are sent with the container's shared client.  See
+	 * {@link #getHttpClient()}.
+	 */
 	protected HttpClient httpClient;
 	protected int responseBufferSize = DEFAULT_RESPONSE_BUFFER_SIZE;
 
 	public RestClientService(RestClientContainer container, RemoteServiceClientRegistration registration) {
 		super(container, registration);
-		this.httpClient = createHttpClient();
+		if (overridesCreateHttpClient(getClass()))
+			this.httpClient = createHttpClient();
 	}
 
+	/**
+	 * Called only if overridden by a subclass, in which case requests are sent with
+	 * the returned client rather than the container's shared client.
+	 * 
+	 * @deprecated override {@link AbstractRestClientContainer#createHttpClient()} to
+	 * customize the container's shared client instead.
+	 */
 	protected HttpClient createHttpClient() {
 		return HttpClientBuilder.create().build();
 	}
 
+	private static boolean overridesCreateHttpClient(Class clazz) {
+		for (; clazz != RestClientService.class; clazz = clazz.getSuperclass()) {
+			try {
+				clazz.getDeclaredMethod("createHttpClient"); //$NON-NLS-1$
+				return true;
+			} catch (NoSuchMethodException e) {
+				// look in superclass
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the http client shared by the remote services of the container
+	 * @since 2.9
+	 */
+	protected java.net.http.HttpClient getHttpClient() {
+		return ((AbstractRestClientContainer) getClientContainer()).getHttpClient();
+	}
+
 	private boolean isResponseOk(HttpResponse response) {
 		int isOkCode = response.getStatusLine().getStatusCode() - 200;
 		return (isOkCode >= 0 && isOkCode < 100);
@@ -111,37 +178,204 @@ public class RestClientService extends AbstractRestClientService {
 		return httpMethod;
 	}
 
+	private HttpRequestBase createHttpMethod(String endpointUri, IRemoteCall call, IRemoteCallable callable) throws RestException {
+		UriRequest urirequest = createUriRequest(endpointUri, call, callable);
+		return (urirequest == null) ? createAndPrepareHttpMethod(endpointUri, call, callable) : createAndPrepareHttpMethod(urirequest);
+	}
+
 	/**
 	 * Calls the Rest service with given URL of IRestCall. The returned value is
-	 * the response body as an InputStream.
+	 * the response body deserialized by the container's response deserializer.
 	 * 
 	 * @param call
 	 *            The remote call to make.  Must not be <code>null</code>.
 	 * @param callable
 	 *            The callable with default parameters to use to make the call.
-	 * @return The InputStream of the response body or <code>null</code> if an
-	 *         error occurs.
+	 * @return The deserialized response body.  May be <code>null</code>.
 	 */
 	protected Object invokeRemoteCall(final IRemoteCall call, final IRemoteCallable callable) throws ECFException {
 		trace("invokeRemoteCall", "call=" + call + ";callable=" + callable); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		String endpointUri = prepareEndpointAddress(call, callable);
 		trace("invokeRemoteCall", "prepared endpoint=" + endpointUri); //$NON-NLS-1$ //$NON-NLS-2$
-		UriRequest urirequest = createUriRequest(endpointUri, call, callable);
-		// If the request
-		HttpRequestBase httpMethod = (urirequest == null) ? createAndPrepareHttpMethod(endpointUri, call, callable) : createAndPrepareHttpMethod(urirequest);
+		HttpRequestBase httpMethod = createHttpMethod(endpointUri, call, callable);
 		trace("invokeRemoteCall", "executing httpMethod" + httpMethod); //$NON-NLS-1$ //$NON-NLS-2$
 		// execute method
-		byte[] responseBody = null;
-		int responseCode = 500;
 		HttpResponse response = null;
 		try {
-			response = httpClient.execute(httpMethod);
-			trace("invokeRemoteCall", "httpMethod executed. response=" + response); //$NON-NLS-1$ //$NON-NLS-2$
-			responseCode = response.getStatusLine().getStatusCode();
-			if (isResponseOk(response)) {
-				// Get responseBody as String
-				responseBody = getResponseAsBytes(response);
-			} else {
+			if (httpClient != null)
+				response = httpClient.execute(httpMethod);
+			else
+				response = createHttpResponse(getHttpClient().send(createHttpRequest(httpMethod, call, callable), createBodyHandler(httpMethod)));
+		} catch (IOException e) {
+			handleException("RestClientService transport IOException", e, 500); //$NON-NLS-1$
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			handleException("RestClientService call interrupted", e, 500); //$NON-NLS-1$
+		}
+		return processHttpResponse(endpointUri, httpMethod, call, callable, response);
+	}
+
+	/**
+	 * Send the call with the container's shared http client and return without waiting
+	 * for the response.  The completable is called, and the response body deserialized,
+	 * on a thread of the http client's executor once the response headers have arrived.
+	 * Reading the response body is subject to the same timeout as for synchronous calls,
+	 * so a stalled response does not hold the executor thread.
+	 * <p>
+	 * If {@link #createHttpClient()} is overridden, the call is made with that client
+	 * on a new thread, which waits for the response.
+	 * </p>
+	 * 
+	 * @since 2.9
+	 */
+	public void callCompletable(final IRemoteCall call, final IAsyncProxyCompletable completable) {
+		final IRemoteCallable callable = getRegistration().lookupCallable(call);
+		if (httpClient != null && callable != null) {
+			new ThreadsExecutor().execute(new IProgressRunnable() {
+				public Object run(IProgressMonitor monitor) {
+					Object result = null;
+					Throwable exception = null;
+					try {
+						result = invokeRemoteCall(call, callable);
+					} catch (Throwable e) {
+						exception = e;
+					}
+					completable.handleComplete(result, exception != null, exception);
+					return null;
+				}
+			}, null);
+			return;
+		}
+		final String endpointUri;
+		final HttpRequestBase httpMethod;
+		HttpRequest request = null;
+		try {
+			if (callable == null)
+				throw new ECFException("Callable not found for call=" + call); //$NON-NLS-1$
+			trace("callCompletable", "call=" + call + ";callable=" + callable); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			endpointUri = prepareEndpointAddress(call, callable);
+			httpMethod = createHttpMethod(endpointUri, call, callable);
+			try {
+				request = createHttpRequest(httpMethod, call, callable);
+			} catch (IOException e) {
+				handleException("RestClientService transport IOException", e, 500); //$NON-NLS-1$
+			}
+		} catch (ECFException e) {
+			completable.handleComplete(null, true, e);
+			return;
+		}
+		trace("callCompletable", "sending httpMethod" + httpMethod); //$NON-NLS-1$ //$NON-NLS-2$
+		getHttpClient().sendAsync(request, createBodyHandler(httpMethod)).whenComplete(new BiConsumer<java.net.http.HttpResponse<InputStream>, Throwable>() {
+			public void accept(java.net.http.HttpResponse<InputStream> response, Throwable t) {
+				Object result = null;
+				Throwable exception = null;
+				try {
+					if (t != null) {
+						Throwable cause = (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+						handleException("RestClientService transport IOException", cause, 500); //$NON-NLS-1$
+					}
+					result = processHttpResponse(endpointUri, httpMethod, call, callable, createHttpResponse(response));
+				} catch (Throwable e) {
+					exception = e;
+				}
+				completable.handleComplete(result, exception != null, exception);
+			}
+		});
+	}
+
+	/**
+	 * Create the request sent by the shared http client from the prepared http method.
+	 * The method, uri, headers and entity of the http method are used.  The socket timeout
+	 * of the http method's config, if set, is used as the request timeout, i.e. the time to
+	 * wait for the response headers, and as the timeout for each read of the response body.
+	 * The connection request timeout of the config is not used, as the shared http client
+	 * does not wait to lease connections from a bounded pool.  Nor is the connect timeout:
+	 * the shared client has a single connect timeout, set from the
+	 * <code>org.eclipse.ecf.remoteservice.rest.RestClientService.connectTimeout</code> system
+	 * property by {@link AbstractRestClientContainer#createHttpClient()}.  The request
+	 * timeout includes the time to connect, so a call's timeout still limits it.
+	 * 
+	 * @param httpMethod the prepared http method.  Will not be <code>null</code>.
+	 * @param call the remote call.  Will not be <code>null</code>.
+	 * @param callable the remote callable.  Will not be <code>null</code>.
+	 * @return HttpRequest the request to send.  Must not be <code>null</code>.
+	 * @throws IOException if the request entity cannot be read
+	 * @since 2.9
+	 */
+	protected HttpRequest createHttpRequest(HttpRequestBase httpMethod, IRemoteCall call, IRemoteCallable callable) throws IOException {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(httpMethod.getURI());
+		RequestConfig config = httpMethod.getConfig();
+		if (config != null) {
+			if (config.getSocketTimeout() > 0)
+				builder.timeout(Duration.ofMillis(config.getSocketTimeout()));
+			builder.expectContinue(config.isExpectContinueEnabled());
+		}
+		Header[] headers = httpMethod.getAllHeaders();
+		for (int i = 0; i < headers.length; i++)
+			if (!RESTRICTED_REQUEST_HEADERS.contains(headers[i].getName().toLowerCase(Locale.ENGLISH)))
+				builder.header(headers[i].getName(), headers[i].getValue());
+		BodyPublisher body = BodyPublishers.noBody();
+		HttpEntity entity = (httpMethod instanceof HttpEntityEnclosingRequest) ? ((HttpEntityEnclosingRequest) httpMethod).getEntity() : null;
+		if (entity != null) {
+			if (entity.getContentType() != null && !httpMethod.containsHeader(HTTP.CONTENT_TYPE))
+				builder.header(HTTP.CONTENT_TYPE, entity.getContentType().getValue());
+			if (entity.getContentEncoding() != null && !httpMethod.containsHeader(HTTP.CONTENT_ENCODING))
+				builder.header(HTTP.CONTENT_ENCODING, entity.getContentEncoding().getValue());
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			entity.writeTo(os);
+			body = BodyPublishers.ofByteArray(os.toByteArray());
+		}
+		return builder.method(httpMethod.getMethod(), body).build();
+	}
+
+	private BodyHandler<InputStream> createBodyHandler(HttpRequestBase httpMethod) {
+		RequestConfig config = httpMethod.getConfig();
+		final int readTimeout = (config == null) ? -1 : config.getSocketTimeout();
+		return new BodyHandler<InputStream>() {
+			public BodySubscriber<InputStream> apply(ResponseInfo responseInfo) {
+				return new ResponseBodyInputStream(readTimeout);
+			}
+		};
+	}
+
+	/**
+	 * Create the response passed to {@link #retrieveErrorResponseBody(HttpResponse)},
+	 * {@link #getResponseAsBytes(HttpResponse)} and the response deserializer.  The entity
+	 * of the result reads the body of the given response as it arrives.
+	 * 
+	 * @param response the response received by the shared http client.  Will not be <code>null</code>.
+	 * @return HttpResponse the response.  Must not be <code>null</code>.
+	 * @since 2.9
+	 */
+	protected HttpResponse createHttpResponse(java.net.http.HttpResponse<InputStream> response) {
+		ProtocolVersion version = (response.version() == java.net.http.HttpClient.Version.HTTP_2) ? HTTP_2 : HttpVersion.HTTP_1_1;
+		BasicHttpResponse result = new BasicHttpResponse(version, response.statusCode(), null);
+		for (Iterator i = response.headers().map().entrySet().iterator(); i.hasNext();) {
+			Map.Entry header = (Map.Entry) i.next();
+			String name = (String) header.getKey();
+			// skip http/2 pseudo headers
+			if (name.startsWith(":")) //$NON-NLS-1$
+				continue;
+			for (Iterator values = ((List) header.getValue()).iterator(); values.hasNext();)
+				result.addHeader(name, (String) values.next());
+		}
+		InputStreamEntity entity = new InputStreamEntity(response.body(), response.headers().firstValueAsLong(HTTP.CONTENT_LEN).orElse(-1));
+		Header contentType = result.getFirstHeader(HTTP.CONTENT_TYPE);
+		if (contentType != null)
+			entity.setContentType(contentType);
+		Header contentEncoding = result.getFirstHeader(HTTP.CONTENT_ENCODING);
+		if (contentEncoding != null)
+			entity.setContentEncoding(contentEncoding);
+		result.setEntity(entity);
+		return result;
+	}
+
+	private Object processHttpResponse(String endpointUri, HttpRequestBase httpMethod, IRemoteCall call, IRemoteCallable callable, HttpResponse response) throws ECFException {
+		trace("invokeRemoteCall", "httpMethod executed. response=" + response); //$NON-NLS-1$ //$NON-NLS-2$
+		int responseCode = response.getStatusLine().getStatusCode();
+		try {
+			if (!isResponseOk(response)) {
+				byte[] responseBody = null;
 				// If this method returns true, we should retrieve the response body
 				if (retrieveErrorResponseBody(response)) {
 					responseBody = getResponseAsBytes(response);
@@ -149,18 +383,21 @@ public class RestClientService extends AbstractRestClientService {
 				// Now pass to the exception handler
 				handleException("Http response not OK.  httpMethod=" + httpMethod + " responseCode=" + Integer.valueOf(responseCode), null, responseCode, responseBody); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-		} catch (IOException e) {
-			handleException("RestClientService transport IOException", e, responseCode); //$NON-NLS-1$
-		}
-		Object result = null;
-		try {
 			Map responseHeaders = convertResponseHeaders(response.getAllHeaders());
-			trace("processResponse", "httpMethod=" + httpMethod + ";call=" + call + ";callable=" + callable + ";responseHeaders=" + responseHeaders + ";responseBody=" + responseBody); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
-			result = processResponse(endpointUri, call, callable, responseHeaders, responseBody);
+			trace("processResponse", "httpMethod=" + httpMethod + ";call=" + call + ";callable=" + callable + ";responseHeaders=" + responseHeaders); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			return processResponse(endpointUri, call, callable, responseHeaders, response.getEntity().getContent());
 		} catch (NotSerializableException e) {
 			handleException("Exception deserializing response.  httpMethod=" + httpMethod + " responseCode=" + Integer.valueOf(responseCode), e, responseCode); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (IOException e) {
+			handleException("RestClientService transport IOException", e, responseCode); //$NON-NLS-1$
+		} finally {
+			try {
+				response.getEntity().getContent().close();
+			} catch (IOException e) {
+				// ignore
+			}
 		}
-		return result;
+		return null;
 	}
 
 	protected boolean retrieveErrorResponseBody(HttpResponse response) {
@@ -182,7 +419,8 @@ public class RestClientService extends AbstractRestClientService {
 	}
 
 	private Map convertResponseHeaders(Header[] headers) {
-		Map result = new HashMap();
+		// http/2 header names are lower case
+		Map result = new TreeMap(String.CASE_INSENSITIVE_ORDER);
 		if (headers == null)
 			return result;
 		for (int i = 0; i < headers.length; i++) {
@@ -277,6 +515,9 @@ public class RestClientService extends AbstractRestClientService {
 			sTimeout = scTimeout = scrTimeout = new Long(callTimeout).intValue();
 		}
 		updatedRequestConfigBuilder.setSocketTimeout(sTimeout);
+		// Only an Apache client (see createHttpClient()) uses the connect timeout per
+		// request.  For the shared client the socket timeout, which is also the request
+		// timeout, limits connecting (see createHttpRequest)
 		updatedRequestConfigBuilder.setConnectTimeout(scTimeout);
 		updatedRequestConfigBuilder.setConnectionRequestTimeout(scrTimeout);
 
@@ -406,6 +647,11 @@ public class RestClientService extends AbstractRestClientService {
 		return (NameValuePair[]) nameValueList.toArray(new NameValuePair[nameValueList.size()]);
 	}
 
+	/**
+	 * @param httpClient the Apache client the request is sent with.  <code>null</code>
+	 * unless {@link #createHttpClient()} is overridden.
+	 * @param method the http method to add authentication to
+	 */
 	protected void setupAuthenticaton(HttpClient httpClient, HttpRequestBase method) {
 		IConnectContext connectContext = container.getConnectContextForAuthentication();
 		if (connectContext != null) {
@@ -50,6 +50,158 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 	 */
 	protected ExecutorService futureExecutorService;
 
+	/**
+	 * If <code>true</code> (the default), <code>CompletableFuture</code>, <code>CompletionStage</code> and
+	 * <code>Promise</code> results of proxy calls on an {@link ICompletableRemoteService} are completed on the
+	 * thread that receives the response.  Dependent actions that block should then use the async
+	 * variants (e.g. <code>thenApplyAsync</code>).  If <code>false</code>, they are completed on a thread of
+	 * the future executor service (see {@link #getFutureExecutorService(IRemoteCall)}).
+	 * @since 8.15
+	 */
+	protected static final boolean COMPLETE_ON_RESPONSE_THREAD = Boolean.valueOf(System.getProperty("ecf.remoteservice.completeOnResponseThread", "true")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static ScheduledThreadPoolExecutor timeoutScheduler;
+
+	private static synchronized ScheduledThreadPoolExecutor getTimeoutScheduler() {
+		if (timeoutScheduler == null) {
+			timeoutScheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ECF Remote Call Timeouts"); //$NON-NLS-1$
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return timeoutScheduler;
+	}
+
+	/**
+	 * Future completed by an {@link IAsyncProxyCompletable} callback rather than by
+	 * running a task.  The first completion wins.
+	 */
+	static class CompletableCallFuture implements Future<Object>, IAsyncProxyCompletable {
+
+		private static final int RUNNING = 0;
+		private static final int SUCCEEDED = 1;
+		private static final int FAILED = 2;
+		private static final int CANCELLED = 3;
+
+		// @GuardedBy this
+		private int state = RUNNING;
+		private Object result;
+		private Throwable exception;
+
+		private volatile Future<?> task;
+
+		private volatile Future<?> timeout;
+
+		void setTask(Future<?> task) {
+			this.task = task;
+		}
+
+		void setTimeout(Future<?> timeout) {
+			this.timeout = timeout;
+			if (isDone())
+				cancelTimeout();
+		}
+
+		private boolean finish(int newState, Object r, Throwable e) {
+			synchronized (this) {
+				if (state != RUNNING)
+					return false;
+				state = newState;
+				result = r;
+				exception = e;
+				notifyAll();
+			}
+			cancelTimeout();
+			return true;
+		}
+
+		private void cancelTimeout() {
+			Future<?> t = timeout;
+			// Cancelled timeouts stay in the scheduler's queue until they are
+			// due unless purged (setRemoveOnCancelPolicy is not in Java 5)
+			if (t != null && t.cancel(false))
+				getTimeoutScheduler().purge();
+		}
+
+		/**
+		 * @return <code>true</code> if this call completed the future, <code>false</code> if it was already complete
+		 */
+		boolean complete(Object r) {
+			return finish(SUCCEEDED, r, null);
+		}
+
+		public void handleComplete(Object r, boolean hadException, Throwable e) {
+			if (hadException)
+				finish(FAILED, null, e);
+			else
+				finish(SUCCEEDED, r, null);
+		}
+
+		void cancelTask() {
+			Future<?> t = task;
+			if (t != null)
+				t.cancel(true);
+		}
+
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (!finish(CANCELLED, null, null))
+				return false;
+			if (mayInterruptIfRunning)
+				cancelTask();
+			return true;
+		}
+
+		public synchronized boolean isCancelled() {
+			return state == CANCELLED;
+		}
+
+		public synchronized boolean isDone() {
+			return state != RUNNING;
+		}
+
+		public synchronized Object get() throws InterruptedException, ExecutionException {
+			while (state == RUNNING)
+				wait();
+			return getResult();
+		}
+
+		public synchronized Object get(long time, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			final long deadline = System.nanoTime() + unit.toNanos(time);
+			while (state == RUNNING) {
+				final long remaining = deadline - System.nanoTime();
+				if (remaining <= 0)
+					throw new TimeoutException();
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+			return getResult();
+		}
+
+		// @GuardedBy this
+		private Object getResult() throws ExecutionException {
+			if (state == CANCELLED)
+				throw new CancellationException();
+			if (state == FAILED)
+				throw new ExecutionException(exception);
+			return result;
+		}
+	}
+
+	/**
+	 * IFuture completed by an {@link IAsyncProxyCompletable} callback.
+	 */
+	static class CompletableCallIFuture extends SingleOperationFuture implements IAsyncProxyCompletable {
+
+		public void handleComplete(Object result, boolean hadException, Throwable exception) {
+			if (hadException)
+				setException(exception);
+			else
+				set(result);
+		}
+	}
+
 	/**
 	 * @since 8.2
 	 * @param call the remote call to get the ExecutorService for
@@ -146,6 +298,15 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 	}
 
 	public IFuture callAsync(final IRemoteCall call) {
+		if (this instanceof ICompletableRemoteService) {
+			final CompletableCallIFuture future = new CompletableCallIFuture();
+			((ICompletableRemoteService) this).callCompletable(call, new IAsyncProxyCompletable() {
+				public void handleComplete(Object result, boolean hadException, Throwable exception) {
+					future.handleComplete(result, hadException, (hadException) ? createCompletionException(call, exception) : null);
+				}
+			});
+			return future;
+		}
 		IExecutor executor = getIFutureExecutor(call);
 		if (executor == null)
 			throw new ServiceException("iFuture executor is null.  Cannot callAsync remote method=" + call.getMethod()); //$NON-NLS-1$
@@ -611,6 +772,15 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 	 */
 	@Override
 	protected void callCompletableAsync(AbstractAsyncProxyRemoteCall call, final IAsyncProxyCompletable completable) {
+		if (this instanceof ICompletableRemoteService) {
+			final IRemoteCall remoteCall = (IRemoteCall) call;
+			((ICompletableRemoteService) this).callCompletable(remoteCall, (COMPLETE_ON_RESPONSE_THREAD) ? completable : new IAsyncProxyCompletable() {
+				public void handleComplete(Object result, boolean hadException, Throwable exception) {
+					completeOnFutureExecutor(remoteCall, completable, result, hadException, exception);
+				}
+			});
+			return;
+		}
 		callAsync((IRemoteCall) call, new IRemoteCallListener() {
 			public void handleEvent(IRemoteCallEvent event) {
 				if (event instanceof IRemoteCallCompleteEvent) {
@@ -621,6 +791,27 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 		});
 	}
 
+	/**
+	 * Hand the completion of a call to the future executor service rather than the thread that
+	 * received the response.  If there is no executor, or it rejects the task, complete here.
+	 */
+	private void completeOnFutureExecutor(IRemoteCall call, final IAsyncProxyCompletable completable, final Object result, final boolean hadException, final Throwable exception) {
+		final ExecutorService executorService = getFutureExecutorService(call);
+		if (executorService != null) {
+			try {
+				executorService.execute(new Runnable() {
+					public void run() {
+						completable.handleComplete(result, hadException, exception);
+					}
+				});
+				return;
+			} catch (RejectedExecutionException e) {
+				// complete on this thread
+			}
+		}
+		completable.handleComplete(result, hadException, exception);
+	}
+
 	/**
 	 * @since 8.4
 	 * @param call abstract async proxy remote call
@@ -637,6 +828,15 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 	 * @return Future future result
 	 */
 	protected Future callFutureAsync(final IRemoteCall call) {
+		if (this instanceof ICompletableRemoteService) {
+			final CompletableCallFuture future = new CompletableCallFuture();
+			((ICompletableRemoteService) this).callCompletable(call, new IAsyncProxyCompletable() {
+				public void handleComplete(Object result, boolean hadException, Throwable exception) {
+					future.handleComplete(result, hadException, (hadException) ? createCompletionException(call, exception) : null);
+				}
+			});
+			return future;
+		}
 		ExecutorService executorService = getFutureExecutorService(call);
 		if (executorService == null)
 			throw new ServiceException("future executor service is null.  .  Cannot callAsync remote method=" + call.getMethod()); //$NON-NLS-1$
@@ -647,6 +847,23 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 		});
 	}
 
+	/**
+	 * Get the exception for a <code>Future</code> or <code>IFuture</code> result of a call completed via
+	 * {@link ICompletableRemoteService#callCompletable(IRemoteCall, IAsyncProxyCompletable)}.  This default
+	 * implementation wraps the exception in an {@link ECFException}, as {@link #callSync(IRemoteCall)} does
+	 * for exceptions thrown by the remote method.  {@link ServiceException}s (e.g. timeouts) are returned unchanged.
+	 * 
+	 * @param call the remote call.  Will not be <code>null</code>.
+	 * @param exception the exception the call completed with.  May be <code>null</code>.
+	 * @return Throwable the exception to complete the future with.  Must not be <code>null</code>.
+	 * @since 8.15
+	 */
+	protected Throwable createCompletionException(IRemoteCall call, Throwable exception) {
+		if (exception instanceof ServiceException)
+			return exception;
+		return new ECFException("Exception in remote call", exception); //$NON-NLS-1$
+	}
+
 	/**
 	 * @since 3.3
 	 * @param method method 
@@ -734,24 +951,38 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 	}
 
 	/**
+	 * Run the given callable on the future executor service.  The returned future
+	 * fails with a {@link TimeoutException} if the callable does not complete within
+	 * the call's timeout.  Timeouts are scheduled on a shared timer, so no thread
+	 * waits for the callable.
 	 * @since 8.13
 	 */
 	protected Future<Object> callAsyncWithTimeout(final IRemoteCall call, final Callable<Object> callable) {
-		return getFutureExecutorService(call).submit(new Callable<Object>() {
-			public Object call() throws Exception {
+		final CompletableCallFuture result = new CompletableCallFuture();
+		result.setTask(getFutureExecutorService(call).submit(new Runnable() {
+			public void run() {
 				try {
-					long timeout = call.getTimeout();
-					Future<Object> future = getFutureExecutorService(call).submit(callable);
-					return (timeout == 0L) ? future.get() : future.get(timeout, TimeUnit.MILLISECONDS);
-				} catch (InterruptedException e) {
-					throw new InterruptedException("Interrupted calling remote service method=" + call.getMethod()); //$NON-NLS-1$
-				} catch (ExecutionException e) {
-					throw new InvocationTargetException(e.getCause(), "Exception calling remote service method=" + call.getMethod()); //$NON-NLS-1$
-				} catch (TimeoutException e) {
-					throw new TimeoutException("Timeout calling remote service method=" + call.getMethod() + " timeout=" + call.getTimeout()); //$NON-NLS-1$ //$NON-NLS-2$
+					result.handleComplete(callable.call(), false, null);
+				} catch (Throwable e) {
+					result.handleComplete(null, true, new InvocationTargetException(e, "Exception calling remote service method=" + call.getMethod())); //$NON-NLS-1$
+				}
+			}
+		}));
+		scheduleTimeout(call, result, new Runnable() {
+			public void run() {
+				if (!result.isDone()) {
+					result.handleComplete(null, true, new TimeoutException("Timeout calling remote service method=" + call.getMethod() + " timeout=" + call.getTimeout())); //$NON-NLS-1$ //$NON-NLS-2$
+					result.cancelTask();
 				}
 			}
 		});
+		return result;
+	}
+
+	private void scheduleTimeout(IRemoteCall call, CompletableCallFuture result, Runnable onTimeout) {
+		long timeout = call.getTimeout();
+		if (timeout > 0L)
+			result.setTimeout(getTimeoutScheduler().schedule(onTimeout, timeout, TimeUnit.MILLISECONDS));
 	}
 
 	/**
@@ -792,21 +1023,33 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 	}
 
 	/**
+	 * Run the given callable on the future executor service and notify the given
+	 * callback with the complete event it returns.  If the callable does not complete
+	 * within the call's timeout, the callback is notified with a {@link TimeoutException}
+	 * instead.  Timeouts are scheduled on a shared timer, so no thread waits for the callable.
 	 * @since 8.13
 	 */
 	protected void callAsyncWithTimeout(final IRemoteCall call, final Callable<IRemoteCallCompleteEvent> callable, final IRemoteCallListener callback) {
-		getFutureExecutorService(call).submit(new Runnable() {
+		final CompletableCallFuture result = new CompletableCallFuture();
+		result.setTask(getFutureExecutorService(call).submit(new Runnable() {
 			public void run() {
+				IRemoteCallCompleteEvent event;
 				try {
-					long timeout = call.getTimeout();
-					Future<IRemoteCallCompleteEvent> future = getFutureExecutorService(call).submit(callable);
-					callback.handleEvent((timeout == 0L) ? future.get() : future.get(timeout, TimeUnit.MILLISECONDS));
-				} catch (InterruptedException e) {
-					callback.handleEvent(createRCCE(null, new InterruptedException("Interrupted calling remote service method=" + call.getMethod()))); //$NON-NLS-1$
-				} catch (ExecutionException e) {
-					callback.handleEvent(createRCCE(null, new InvocationTargetException(e.getCause(), "Exception calling remote service method=" + call.getMethod()))); //$NON-NLS-1$
-				} catch (TimeoutException e) {
-					callback.handleEvent(createRCCE(null, new TimeoutException("Timeout calling remote service method=" + call.getMethod() + " timeout=" + call.getTimeout()))); //$NON-NLS-1$ //$NON-NLS-2$
+					event = callable.call();
+				} catch (Throwable e) {
+					event = createRCCE(null, new InvocationTargetException(e, "Exception calling remote service method=" + call.getMethod())); //$NON-NLS-1$
+				}
+				// Only notify if not already timed out
+				if (result.complete(event))
+					callback.handleEvent(event);
+			}
+		}));
+		scheduleTimeout(call, result, new Runnable() {
+			public void run() {
+				IRemoteCallCompleteEvent event = createRCCE(null, new TimeoutException("Timeout calling remote service method=" + call.getMethod() + " timeout=" + call.getTimeout())); //$NON-NLS-1$ //$NON-NLS-2$
+				if (result.complete(event)) {
+					result.cancelTask();
+					callback.handleEvent(event);
 				}
 			}
 		});
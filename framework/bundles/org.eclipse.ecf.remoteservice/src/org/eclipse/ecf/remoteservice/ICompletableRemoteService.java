@@ -0,0 +1,47 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.remoteservice;
+
+import org.eclipse.ecf.remoteservice.asyncproxy.IAsyncProxyCompletable;
+
+/**
+ * Optional interface for {@link IRemoteService} implementations that can
+ * complete a remote call when its response arrives, without a thread waiting
+ * for the response.
+ * <p>
+ * {@link AbstractRemoteService} uses this interface, when implemented, for
+ * asynchronous proxy calls (<code>Future</code>, <code>IFuture</code>,
+ * <code>CompletableFuture</code>, <code>CompletionStage</code> and OSGi
+ * <code>Promise</code> return types), and for {@link #callAsync(IRemoteCall)}.
+ * 
+ * @since 8.15
+ */
+public interface ICompletableRemoteService extends IRemoteService {
+
+	/**
+	 * Start the given remote call and return immediately.  When the call completes,
+	 * <code>completable.handleComplete</code> must be called exactly once, with the
+	 * same result and exception that the {@link org.eclipse.ecf.remoteservice.events.IRemoteCallCompleteEvent}
+	 * for {@link #callAsync(IRemoteCall, IRemoteCallListener)} would carry.  A call
+	 * that does not complete within {@link IRemoteCall#getTimeout()} must be
+	 * completed with an exception.
+	 * <p>
+	 * The completable may be called on the thread that received the response, so it
+	 * must not block.
+	 * 
+	 * @param call the remote call to make.  Must not be <code>null</code>.
+	 * @param completable the completable to notify when the call completes.  Must not be <code>null</code>.
+	 */
+	public void callCompletable(IRemoteCall call, IAsyncProxyCompletable completable);
+
+}
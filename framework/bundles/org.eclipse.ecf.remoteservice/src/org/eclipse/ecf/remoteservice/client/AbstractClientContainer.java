@@ -12,7 +12,7 @@
  *****************************************************************************/
 package org.eclipse.ecf.remoteservice.client;
 
-import java.io.NotSerializableException;
+import java.io.*;
 import java.util.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.AbstractContainer;
@@ -515,6 +515,34 @@ public abstract class AbstractClientContainer extends AbstractContainer implemen
 		return (deserializer == null) ? null : deserializer.deserializeResponse(uri, call, callable, responseHeaders, responseBody);
 	}
 
+	/**
+	 * Process a response whose body is read from a stream.  If the response deserializer is an
+	 * {@link IRemoteResponseStreamDeserializer}, it reads the body from the stream.  Otherwise
+	 * the body is read into a <code>byte[]</code> and passed to
+	 * {@link #processResponse(String, IRemoteCall, IRemoteCallable, Map, byte[])}.
+	 * 
+	 * @param uri uri
+	 * @param call call
+	 * @param callable callable
+	 * @param responseHeaders http response headers
+	 * @param responseBody response body stream.  Will not be closed by this method.
+	 * @return Object response deserialized via response deserializer
+	 * @throws NotSerializableException if response cannot be deserialized for processing
+	 * @throws IOException if the response body cannot be read
+	 * @since 8.16
+	 */
+	protected Object processResponse(String uri, IRemoteCall call, IRemoteCallable callable, Map responseHeaders, InputStream responseBody) throws IOException {
+		IRemoteResponseDeserializer deserializer = getResponseDeserializer();
+		if (deserializer instanceof IRemoteResponseStreamDeserializer)
+			return ((IRemoteResponseStreamDeserializer) deserializer).deserializeResponse(uri, call, callable, responseHeaders, responseBody);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		byte[] buf = new byte[4096];
+		int count;
+		while ((count = responseBody.read(buf)) != -1)
+			bos.write(buf, 0, count);
+		return processResponse(uri, call, callable, responseHeaders, bos.toByteArray());
+	}
+
 	/**
 	 * Create a remote service for a given remote service registration.   This method will be 
 	 * called as part of the RemoteServiceAdmin.importService.   
@@ -12,13 +12,14 @@
  *****************************************************************************/
 package org.eclipse.ecf.remoteservice.client;
 
-import java.io.NotSerializableException;
+import java.io.*;
 import java.lang.reflect.Method;
 import java.util.Map;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.ecf.core.util.ECFException;
 import org.eclipse.ecf.remoteservice.*;
+import org.eclipse.ecf.remoteservice.asyncproxy.IAsyncProxyCompletable;
 import org.eclipse.ecf.remoteservice.events.IRemoteCallCompleteEvent;
 import org.eclipse.ecf.remoteservice.events.IRemoteCallStartEvent;
 import org.eclipse.equinox.concurrent.future.*;
@@ -49,6 +50,9 @@ public abstract class AbstractClientService extends AbstractRemoteService {
 	}
 
 	public IFuture callAsync(final IRemoteCall call) {
+		// completable services complete the future from the response
+		if (this instanceof ICompletableRemoteService)
+			return super.callAsync(call);
 		return callAsync(call, getRegistration().lookupCallable(call));
 	}
 
@@ -86,11 +90,23 @@ public abstract class AbstractClientService extends AbstractRemoteService {
 	}
 
 	protected void callAsync(IRemoteCall call, IRemoteCallable restClientCallable, IRemoteCallListener listener) {
+		if (this instanceof ICompletableRemoteService) {
+			final AsyncResult asyncResult = new AsyncResult(call, restClientCallable, listener);
+			final long reqID = asyncResult.fireStart();
+			((ICompletableRemoteService) this).callCompletable(call, new IAsyncProxyCompletable() {
+				public void handleComplete(Object result, boolean hadException, Throwable exception) {
+					asyncResult.fireComplete(reqID, result, (hadException) ? exception : null);
+				}
+			});
+			return;
+		}
 		final AbstractExecutor executor = new ThreadsExecutor();
 		executor.execute(new AsyncResult(call, restClientCallable, listener), null);
 	}
 
 	protected IFuture callAsync(final IRemoteCall call, final IRemoteCallable callable) {
+		if (this instanceof ICompletableRemoteService)
+			return super.callAsync(call);
 		final AbstractExecutor executor = new ThreadsExecutor();
 		return executor.execute(new IProgressRunnable() {
 			public Object run(IProgressMonitor monitor) throws Exception {
@@ -129,6 +145,21 @@ public abstract class AbstractClientService extends AbstractRemoteService {
 			Object r = null;
 			Throwable e = null;
 
+			final long reqID = fireStart();
+
+			try {
+				if (callable == null)
+					throw new ECFException("Restcall not found for method=" + call.getMethod()); //$NON-NLS-1$
+				r = invokeRemoteCall(call, callable);
+			} catch (Throwable t) {
+				e = t;
+			}
+
+			fireComplete(reqID, r, e);
+			return null;
+		}
+
+		long fireStart() {
 			final long reqID = getNextRequestID();
 
 			if (listener != null) {
@@ -146,15 +177,10 @@ public abstract class AbstractClientService extends AbstractRemoteService {
 					}
 				});
 			}
+			return reqID;
+		}
 
-			try {
-				if (callable == null)
-					throw new ECFException("Restcall not found for method=" + call.getMethod()); //$NON-NLS-1$
-				r = invokeRemoteCall(call, callable);
-			} catch (Throwable t) {
-				e = t;
-			}
-
+		void fireComplete(final long reqID, Object r, Throwable e) {
 			synchronized (AsyncResult.this) {
 				result = r;
 				exception = e;
@@ -181,7 +207,6 @@ public abstract class AbstractClientService extends AbstractRemoteService {
 					}
 				});
 			}
-			return null;
 		}
 	}
 
@@ -219,6 +244,21 @@ public abstract class AbstractClientService extends AbstractRemoteService {
 		return getClientContainer().processResponse(uri, call, callable, responseHeaders, responseBody);
 	}
 
+	/**
+	 * @param uri uri
+	 * @param call call
+	 * @param callable callable
+	 * @param responseHeaders responseHeaders
+	 * @param responseBody response body stream.  Will not be closed by this method.
+	 * @return Object processed response
+	 * @throws NotSerializableException if response cannot be deserialized
+	 * @throws IOException if the response body cannot be read
+	 * @since 8.16
+	 */
+	protected Object processResponse(String uri, IRemoteCall call, IRemoteCallable callable, Map responseHeaders, InputStream responseBody) throws IOException {
+		return getClientContainer().processResponse(uri, call, callable, responseHeaders, responseBody);
+	}
+
 	protected IRemoteServiceID getRemoteServiceID() {
 		return registration.getID();
 	}
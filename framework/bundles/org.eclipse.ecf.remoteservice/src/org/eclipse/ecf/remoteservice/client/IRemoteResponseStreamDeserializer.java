@@ -0,0 +1,45 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.remoteservice.client;
+
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.util.Map;
+import org.eclipse.ecf.remoteservice.IRemoteCall;
+
+/**
+ * Deserializer that reads the response body as it arrives, rather than
+ * after it has been read into a <code>byte[]</code>.  Clients that can
+ * provide the response body as a stream use
+ * {@link #deserializeResponse(String, IRemoteCall, IRemoteCallable, Map, InputStream)}
+ * when the response deserializer implements this interface.
+ *
+ * @since 8.16
+ */
+public interface IRemoteResponseStreamDeserializer extends IRemoteResponseDeserializer {
+
+	/**
+	 * Deserialize remote response from a stream.
+	 *
+	 * @param endpoint the endpoint.  Should not be <code>null</code>.
+	 * @param call the call associated with the response.  Will not be <code>null</code>.
+	 * @param callable the callable associated with the response.  Will not be <code>null</code>.
+	 * @param responseHeaders response headers associated with the successful remote call.  May be <code>null</code>.
+	 * @param responseBody the response body to deserialize.  Will not be <code>null</code>.  The
+	 * caller closes the stream after this method returns.
+	 * @return Object the deserialized response.  May be <code>null</code>.
+	 * @throws NotSerializableException thrown if the responseBody cannot be read or deserialized.
+	 */
+	public Object deserializeResponse(String endpoint, IRemoteCall call, IRemoteCallable callable, Map responseHeaders, InputStream responseBody) throws NotSerializableException;
+
+}
@@ -33,7 +33,10 @@ public class QueueEnqueueImpl implements IQueueEnqueue {
 	 * @throws QueueException not thrown by this implementation.
 	 */
 	public void enqueue(Event element) throws QueueException {
-		queue.enqueue(element);
+		// a queue that is full, rather than stopped, rejects elements to
+		// push back on the producer
+		if (!queue.enqueue(element) && !queue.isStopped())
+			throw new QueueException("Queue is full"); //$NON-NLS-1$
 	}
 
 	/*
@@ -95,8 +98,7 @@ public class QueueEnqueueImpl implements IQueueEnqueue {
 	 * @see org.eclipse.ecf.core.util.IQueueEnqueue#enqueue_lossy(org.eclipse.ecf.core.util.Event)
 	 */
 	public boolean enqueue_lossy(Event element) {
-		queue.enqueue(element);
-		return true;
+		return queue.enqueue(element);
 	}
 
 	/*
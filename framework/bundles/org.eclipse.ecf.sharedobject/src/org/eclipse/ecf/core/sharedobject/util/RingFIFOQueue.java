@@ -0,0 +1,380 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.core.sharedobject.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, array backed queue for many producer threads and a single consumer
+ * thread. Enqueuing and dequeuing do not take a lock: producers claim a slot of
+ * the ring with a compare and set, and every slot carries a sequence number
+ * that tells the consumer when its element has been published.
+ * <p>
+ * A consumer waiting for an element is parked rather than waiting on a
+ * monitor. When the queue is full, producers wait for up to the
+ * <code>maxEnqueueWait</code> given to the constructor for the consumer to
+ * make room, and {@link #enqueue(Object)} returns <code>false</code> if none
+ * was made in time.
+ * </p>
+ * <p>
+ * Only one thread at a time may use the consuming methods
+ * ({@link #dequeue()}, {@link #peekQueue()}, {@link #removeHead()},
+ * {@link #drainTo(Collection, int)} and {@link #flush()}). In particular, an
+ * element returned by {@link #peekQueue()} is only guaranteed to be the one
+ * removed by the following {@link #removeHead()} if no other thread consumes in
+ * between.
+ * </p>
+ * <p>
+ * This class extends {@link SimpleFIFOQueue} so that it can be used where a
+ * <code>SimpleFIFOQueue</code> is expected, such as the protected
+ * <code>queue</code> field of the TCP client. It overrides every method of
+ * that class and does not use the inherited list or monitor.
+ * </p>
+ *
+ * @since 2.7
+ */
+public class RingFIFOQueue extends SimpleFIFOQueue {
+
+	private final Object[] elements;
+
+	/**
+	 * The position that each slot is ready for. A slot at index
+	 * <code>i</code> can be written by the producer that claimed position
+	 * <code>p</code> when its sequence is <code>p</code>, and read by the
+	 * consumer at position <code>p</code> when its sequence is
+	 * <code>p + 1</code>.
+	 */
+	private final AtomicLongArray sequences;
+
+	private final int mask;
+
+	private final long maxEnqueueWait;
+
+	/**
+	 * The next position to be claimed by a producer.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * The next position to be consumed.
+	 */
+	private volatile long head;
+
+	private volatile boolean stopped;
+
+	private volatile Thread consumer;
+
+	private final AtomicInteger producersWaiting = new AtomicInteger();
+
+	private final Object notFull = new Object();
+
+	private final AtomicInteger highWaterMark = new AtomicInteger();
+
+	/**
+	 * Create a queue that lets producers wait indefinitely while it is full.
+	 *
+	 * @param capacity
+	 *            the minimum number of elements the queue can hold. Rounded up
+	 *            to a power of two of at least 2
+	 */
+	public RingFIFOQueue(int capacity) {
+		this(capacity, -1);
+	}
+
+	/**
+	 * @param capacity
+	 *            the minimum number of elements the queue can hold. Rounded up
+	 *            to a power of two of at least 2
+	 * @param maxEnqueueWait
+	 *            how long, in milliseconds, {@link #enqueue(Object)} waits for
+	 *            room in a full queue. 0 rejects elements as soon as the queue
+	 *            is full, a negative value waits until there is room or the
+	 *            queue is closed
+	 */
+	public RingFIFOQueue(int capacity, long maxEnqueueWait) {
+		if (capacity < 1 || capacity > (1 << 30))
+			throw new IllegalArgumentException("capacity=" + capacity); //$NON-NLS-1$
+		// a single slot could not tell a full ring from an empty one
+		int size = 2;
+		while (size < capacity)
+			size <<= 1;
+		this.elements = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+			sequences.set(i, i);
+		this.mask = size - 1;
+		this.maxEnqueueWait = maxEnqueueWait;
+	}
+
+	/**
+	 * Enqueue given object. If the queue is full, wait for room as configured
+	 * for this queue.
+	 *
+	 * @param obj
+	 *            the Object to enqueue
+	 * @return true if enqueued, false if the queue has been stopped or was
+	 *         still full after waiting
+	 */
+	public boolean enqueue(final Object obj) {
+		if (obj == null)
+			return false;
+		long deadline = 0;
+		for (;;) {
+			if (stopped)
+				return false;
+			final long pos = tail.get();
+			final int index = (int) pos & mask;
+			final long diff = sequences.get(index) - pos;
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					elements[index] = obj;
+					// publish to the consumer
+					sequences.set(index, pos + 1);
+					updateHighWaterMark(pos + 1 - head);
+					final Thread waiter = consumer;
+					if (waiter != null)
+						LockSupport.unpark(waiter);
+					return true;
+				}
+			} else if (diff < 0) {
+				// full
+				if (maxEnqueueWait == 0)
+					return false;
+				if (deadline == 0)
+					deadline = (maxEnqueueWait < 0) ? Long.MAX_VALUE : System.currentTimeMillis() + maxEnqueueWait;
+				if (!awaitNotFull(pos, deadline))
+					return false;
+			}
+			// otherwise another producer claimed pos, try the next one
+		}
+	}
+
+	private boolean awaitNotFull(long pos, long deadline) {
+		producersWaiting.incrementAndGet();
+		try {
+			synchronized (notFull) {
+				while (!stopped && pos - head >= elements.length) {
+					final long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0)
+						return false;
+					notFull.wait(remaining);
+				}
+			}
+			return true;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			producersWaiting.decrementAndGet();
+		}
+	}
+
+	private void updateHighWaterMark(long depth) {
+		final int d = (int) Math.min(depth, elements.length);
+		int max = highWaterMark.get();
+		while (d > max && !highWaterMark.compareAndSet(max, d))
+			max = highWaterMark.get();
+	}
+
+	private Object poll() {
+		final long pos = head;
+		final int index = (int) pos & mask;
+		if (sequences.get(index) != pos + 1)
+			return null;
+		final Object obj = elements[index];
+		elements[index] = null;
+		// hand the slot back to the producers
+		sequences.set(index, pos + elements.length);
+		head = pos + 1;
+		if (producersWaiting.get() > 0) {
+			synchronized (notFull) {
+				notFull.notifyAll();
+			}
+		}
+		return obj;
+	}
+
+	private Object peek() {
+		final long pos = head;
+		final int index = (int) pos & mask;
+		if (sequences.get(index) != pos + 1)
+			return null;
+		return elements[index];
+	}
+
+	/**
+	 * Wait for an element and return it without removing it.
+	 *
+	 * @param timeoutNanos
+	 *            how long to wait, or a negative value to wait until an
+	 *            element arrives or the queue is stopped
+	 * @return the head of the queue, or <code>null</code>
+	 */
+	private Object awaitHead(long timeoutNanos) {
+		Object obj = peek();
+		if (obj != null || timeoutNanos == 0)
+			return obj;
+		final long deadline = System.nanoTime() + timeoutNanos;
+		final Thread me = Thread.currentThread();
+		consumer = me;
+		try {
+			for (;;) {
+				// check again after announcing ourselves to the producers
+				obj = peek();
+				if (obj != null || stopped || me.isInterrupted())
+					return obj;
+				if (timeoutNanos < 0) {
+					LockSupport.park(this);
+				} else {
+					final long remaining = deadline - System.nanoTime();
+					if (remaining <= 0)
+						return null;
+					LockSupport.parkNanos(this, remaining);
+				}
+			}
+		} finally {
+			consumer = null;
+		}
+	}
+
+	public Object dequeue() {
+		final Object val = peekQueue();
+		if (val != null)
+			removeHead();
+		return val;
+	}
+
+	/**
+	 * Return the head of the queue without removing it. Waits until an
+	 * element arrives, the queue is stopped or the calling thread is
+	 * interrupted.
+	 *
+	 * @return the head of the queue, or <code>null</code> if the queue is
+	 *         empty and stopped or the calling thread has been interrupted
+	 */
+	public Object peekQueue() {
+		return awaitHead(-1);
+	}
+
+	/**
+	 * Return the head of the queue without removing it, waiting up to
+	 * <code>waitMS</code> for an element to arrive if the queue is empty.
+	 *
+	 * @param waitMS
+	 *            the maximum time to wait, in milliseconds. 0 waits like
+	 *            {@link #peekQueue()}
+	 * @return the head of the queue, or <code>null</code>
+	 */
+	public Object peekQueue(final long waitMS) {
+		if (waitMS == 0)
+			return peekQueue();
+		return awaitHead(TimeUnit.MILLISECONDS.toNanos(waitMS));
+	}
+
+	public Object peekQueue(long timeout, TimeUnit unit) {
+		return awaitHead(Math.max(0, unit.toNanos(timeout)));
+	}
+
+	public Object removeHead() {
+		return poll();
+	}
+
+	public int drainTo(Collection c, int maxElements) {
+		int count = 0;
+		while (count < maxElements) {
+			final Object obj = poll();
+			if (obj == null)
+				break;
+			c.add(obj);
+			count++;
+		}
+		return count;
+	}
+
+	public boolean isEmpty() {
+		return peek() == null;
+	}
+
+	public void stop() {
+		stopped = true;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * @return the number of elements in the queue. Elements that are being
+	 *         enqueued concurrently may or may not be included
+	 */
+	public int size() {
+		final long size = tail.get() - head;
+		if (size < 0)
+			return 0;
+		return (int) Math.min(size, elements.length);
+	}
+
+	/**
+	 * @return the maximum number of elements this queue can hold
+	 */
+	public int getCapacity() {
+		return elements.length;
+	}
+
+	/**
+	 * @return the largest number of elements the queue has held since it was
+	 *         created or {@link #resetHighWaterMark()} was last called
+	 */
+	public int getHighWaterMark() {
+		return highWaterMark.get();
+	}
+
+	/**
+	 * Reset the high water mark to the current size of the queue.
+	 */
+	public void resetHighWaterMark() {
+		highWaterMark.set(size());
+	}
+
+	public Object[] flush() {
+		close();
+		final List out = new ArrayList(size());
+		drainTo(out, Integer.MAX_VALUE);
+		return out.toArray();
+	}
+
+	public void close() {
+		stop();
+		final Thread waiter = consumer;
+		if (waiter != null)
+			LockSupport.unpark(waiter);
+		synchronized (notFull) {
+			notFull.notifyAll();
+		}
+	}
+
+	public String toString() {
+		final StringBuffer sb = new StringBuffer("RingFIFOQueue["); //$NON-NLS-1$
+		sb.append("size=").append(size()).append(",capacity=").append(getCapacity()); //$NON-NLS-1$ //$NON-NLS-2$
+		sb.append(",highWaterMark=").append(getHighWaterMark()).append("]"); //$NON-NLS-1$ //$NON-NLS-2$
+		return sb.toString();
+	}
+}
@@ -13,8 +13,10 @@
 
 package org.eclipse.ecf.core.sharedobject.util;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class SimpleFIFOQueue implements ISimpleFIFOQueue {
 	private final List list;
@@ -77,6 +79,56 @@ public class SimpleFIFOQueue implements ISimpleFIFOQueue {
 		return list.get(0);
 	}
 
+	/**
+	 * Return the head of the queue without removing it, waiting up to the
+	 * given time for an element to arrive if the queue is empty.
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait
+	 * @param unit
+	 *            the unit of timeout
+	 * @return the head of the queue, or <code>null</code> if the queue is
+	 *         still empty, has been stopped or the calling thread has been
+	 *         interrupted
+	 * @since 2.7
+	 */
+	public synchronized Object peekQueue(long timeout, TimeUnit unit) {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (isEmpty() && !stopped) {
+			final long remaining = deadline - System.nanoTime();
+			if (remaining <= 0)
+				return null;
+			try {
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+		return isEmpty() ? null : list.get(0);
+	}
+
+	/**
+	 * Remove up to <code>maxElements</code> elements from the head of the
+	 * queue without waiting, and add them to the given collection in order.
+	 * 
+	 * @param c
+	 *            the collection to add the elements to
+	 * @param maxElements
+	 *            the maximum number of elements to remove
+	 * @return the number of elements removed
+	 * @since 2.7
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized int drainTo(Collection c, int maxElements) {
+		int count = 0;
+		while (count < maxElements && !list.isEmpty()) {
+			c.add(list.remove(0));
+			count++;
+		}
+		return count;
+	}
+
 	public synchronized Object removeHead() {
 		if (list.isEmpty())
 			return null;
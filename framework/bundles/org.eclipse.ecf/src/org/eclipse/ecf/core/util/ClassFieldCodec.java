@@ -0,0 +1,302 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors: Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.core.util;
+
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The serialized fields (non-static, non-transient) declared by a single
+ * class, as written by {@link OSGIObjectOutputStream#writeFields(Object, Class)}
+ * and read by {@link OSGIObjectInputStream#readFields(Class, Object)}.
+ * <p>
+ * Instances are computed once per class and cached with the class (so they
+ * do not keep bundle class loaders alive).  Field access goes through method
+ * handles that are looked up on first use, and primitive fields are read
+ * and written without boxing.  The stream format is unchanged: primitive
+ * field values are written with the same tags as their boxed values.
+ * <p>
+ * The public fields of the class (declared or inherited), as transferred by
+ * {@link SerDTO}, and its no-arg constructor are cached here as well.
+ */
+final class ClassFieldCodec implements OSGIObjectStreamConstants {
+
+	private static final ClassValue<ClassFieldCodec> CODECS = new ClassValue<ClassFieldCodec>() {
+		@Override
+		protected ClassFieldCodec computeValue(Class<?> type) {
+			return new ClassFieldCodec(type);
+		}
+	};
+
+	private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType OBJECT_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+	static ClassFieldCodec get(Class<?> clazz) {
+		return CODECS.get(clazz);
+	}
+
+	final FieldCodec[] fields;
+
+	private final Map<String, FieldCodec> fieldsByName;
+
+	private final Class<?> clazz;
+
+	private volatile FieldCodec[] publicFields;
+
+	private volatile MethodHandle constructor;
+
+	private ClassFieldCodec(Class<?> clazz) {
+		this.clazz = clazz;
+		final Field[] allFields = clazz.getDeclaredFields();
+		int count = 0;
+		for (int i = 0; i < allFields.length; i++) {
+			final int mod = allFields[i].getModifiers();
+			if (!(Modifier.isStatic(mod) || Modifier.isTransient(mod)))
+				count++;
+		}
+		this.fields = new FieldCodec[count];
+		this.fieldsByName = new HashMap<String, FieldCodec>(count * 2);
+		count = 0;
+		for (int i = 0; i < allFields.length; i++) {
+			final int mod = allFields[i].getModifiers();
+			if (!(Modifier.isStatic(mod) || Modifier.isTransient(mod))) {
+				final FieldCodec fc = new FieldCodec(allFields[i], false);
+				fields[count++] = fc;
+				fieldsByName.put(fc.name, fc);
+			}
+		}
+	}
+
+	/**
+	 * @param name the field name
+	 * @return FieldCodec for the given field, or <code>null</code> if the
+	 *         class has no serialized field with the given name
+	 */
+	FieldCodec getField(String name) {
+		return fieldsByName.get(name);
+	}
+
+	/**
+	 * @return FieldCodec[] the non-static, non-transient public fields of the
+	 *         class, including inherited ones
+	 */
+	FieldCodec[] getPublicFields() {
+		FieldCodec[] result = publicFields;
+		if (result == null) {
+			final Field[] allFields = clazz.getFields();
+			int count = 0;
+			for (int i = 0; i < allFields.length; i++) {
+				final int mod = allFields[i].getModifiers();
+				if (!(Modifier.isStatic(mod) || Modifier.isTransient(mod)))
+					count++;
+			}
+			result = new FieldCodec[count];
+			count = 0;
+			for (int i = 0; i < allFields.length; i++) {
+				final int mod = allFields[i].getModifiers();
+				if (!(Modifier.isStatic(mod) || Modifier.isTransient(mod)))
+					result[count++] = new FieldCodec(allFields[i], true);
+			}
+			publicFields = result;
+		}
+		return result;
+	}
+
+	/**
+	 * @return Object a new instance created with the public no-arg constructor
+	 */
+	Object newInstance() throws Throwable {
+		MethodHandle mh = constructor;
+		if (mh == null) {
+			mh = MethodHandles.publicLookup().unreflectConstructor(clazz.getConstructor()).asType(MethodType.methodType(Object.class));
+			constructor = mh;
+		}
+		return mh.invokeExact();
+	}
+
+	static final class FieldCodec {
+
+		final String name;
+		private final Field field;
+		private final Class<?> type;
+		// tag written for (boxed) values of this field's primitive type, or -1
+		// if the field is not primitive
+		final byte primitiveTag;
+		// whether to make the field accessible for setting even if it is
+		// public, so that public final fields can be set
+		private final boolean alwaysAccessible;
+		// getter and setter with the declaring class erased to Object
+		private volatile MethodHandle getter;
+		private volatile MethodHandle setter;
+		// getter and setter with the field type erased to Object as well.
+		// Same as getter and setter for non-primitive fields
+		private volatile MethodHandle objectGetter;
+		private volatile MethodHandle objectSetter;
+
+		FieldCodec(Field field, boolean alwaysAccessible) {
+			this.field = field;
+			this.alwaysAccessible = alwaysAccessible;
+			this.name = field.getName();
+			this.type = field.getType();
+			this.primitiveTag = getPrimitiveTag(type);
+		}
+
+		private static byte getPrimitiveTag(Class<?> type) {
+			if (!type.isPrimitive())
+				return -1;
+			else if (type == int.class)
+				return C_OINT;
+			else if (type == long.class)
+				return C_OLONG;
+			else if (type == boolean.class)
+				return C_OBOOL;
+			else if (type == double.class)
+				return C_ODOUBLE;
+			else if (type == float.class)
+				return C_OFLOAT;
+			else if (type == short.class)
+				return C_OSHORT;
+			else if (type == byte.class)
+				return C_OBYTE;
+			return C_OCHAR;
+		}
+
+		private void makeAccessible(boolean forSet) {
+			if ((forSet && alwaysAccessible) || !Modifier.isPublic(field.getModifiers()))
+				field.setAccessible(true);
+		}
+
+		private MethodHandle getGetter(boolean boxed) throws IllegalAccessException {
+			MethodHandle mh = boxed ? objectGetter : getter;
+			if (mh == null) {
+				makeAccessible(false);
+				final MethodHandle g = MethodHandles.lookup().unreflectGetter(field);
+				final MethodHandle og = g.asType(OBJECT_GETTER);
+				getter = (primitiveTag < 0) ? og : g.asType(MethodType.methodType(type, Object.class));
+				objectGetter = og;
+				mh = boxed ? objectGetter : getter;
+			}
+			return mh;
+		}
+
+		private MethodHandle getSetter(boolean boxed) throws IllegalAccessException {
+			MethodHandle mh = boxed ? objectSetter : setter;
+			if (mh == null) {
+				makeAccessible(true);
+				final MethodHandle s = MethodHandles.lookup().unreflectSetter(field);
+				final MethodHandle os = s.asType(OBJECT_SETTER);
+				setter = (primitiveTag < 0) ? os : s.asType(MethodType.methodType(void.class, Object.class, type));
+				objectSetter = os;
+				mh = boxed ? objectSetter : setter;
+			}
+			return mh;
+		}
+
+		boolean isPrimitive() {
+			return primitiveTag >= 0;
+		}
+
+		/**
+		 * Get the field value, boxing primitive values.
+		 */
+		Object get(Object obj) throws Throwable {
+			return (Object) getGetter(true).invokeExact(obj);
+		}
+
+		/**
+		 * Set the field value, unboxing (and widening) primitive values.
+		 */
+		void set(Object obj, Object value) throws Throwable {
+			getSetter(true).invokeExact(obj, value);
+		}
+
+		/**
+		 * Write the value of a primitive field as its tag and value, exactly as
+		 * {@link OSGIObjectOutputStream#writeObjectOverride(Object)} would
+		 * write the boxed value.
+		 */
+		void writePrimitive(Object obj, ObjectOutput out) throws Throwable {
+			final MethodHandle mh = getGetter(false);
+			out.writeByte(primitiveTag);
+			switch (primitiveTag) {
+				case C_OINT :
+					out.writeInt((int) mh.invokeExact(obj));
+					break;
+				case C_OLONG :
+					out.writeLong((long) mh.invokeExact(obj));
+					break;
+				case C_OBOOL :
+					out.writeBoolean((boolean) mh.invokeExact(obj));
+					break;
+				case C_ODOUBLE :
+					out.writeDouble((double) mh.invokeExact(obj));
+					break;
+				case C_OFLOAT :
+					out.writeFloat((float) mh.invokeExact(obj));
+					break;
+				case C_OSHORT :
+					out.writeShort((short) mh.invokeExact(obj));
+					break;
+				case C_OBYTE :
+					out.writeByte((byte) mh.invokeExact(obj));
+					break;
+				default :
+					out.writeChar((char) mh.invokeExact(obj));
+			}
+		}
+
+		/**
+		 * @param tag the tag already read from the stream
+		 * @return boolean true if the value following tag was read and set,
+		 *         false if tag is not the (primitive or boxed) tag for this
+		 *         field's type, in which case nothing was read
+		 */
+		boolean readPrimitive(Object obj, byte tag, ObjectInput in) throws Throwable {
+			if (primitiveTag < 0 || (tag != primitiveTag && tag != primitiveTag - (C_OLONG - C_LONG)))
+				return false;
+			final MethodHandle mh = getSetter(false);
+			switch (primitiveTag) {
+				case C_OINT :
+					mh.invokeExact(obj, in.readInt());
+					break;
+				case C_OLONG :
+					mh.invokeExact(obj, in.readLong());
+					break;
+				case C_OBOOL :
+					mh.invokeExact(obj, in.readBoolean());
+					break;
+				case C_ODOUBLE :
+					mh.invokeExact(obj, in.readDouble());
+					break;
+				case C_OFLOAT :
+					mh.invokeExact(obj, in.readFloat());
+					break;
+				case C_OSHORT :
+					mh.invokeExact(obj, in.readShort());
+					break;
+				case C_OBYTE :
+					mh.invokeExact(obj, in.readByte());
+					break;
+				default :
+					mh.invokeExact(obj, in.readChar());
+			}
+			return true;
+		}
+	}
+}
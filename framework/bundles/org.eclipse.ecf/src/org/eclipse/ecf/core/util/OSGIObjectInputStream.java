@@ -132,7 +132,10 @@ public class OSGIObjectInputStream extends ObjectInputStream implements OSGIObje
 	}
 
 	protected final Object readObjectOverride() throws IOException, ClassNotFoundException {
-		final byte type = in.readByte();
+		return readObject(in.readByte());
+	}
+
+	private Object readObject(byte type) throws IOException, ClassNotFoundException {
 		switch (type) {
 			case C_NULL : // null
 				return null;
@@ -246,22 +249,24 @@ public class OSGIObjectInputStream extends ObjectInputStream implements OSGIObje
 		try {
 			int fieldCount = in.readInt();
 			while (fieldCount > -1) {
+				final ClassFieldCodec codec = ClassFieldCodec.get(clazz);
 				for (int i = 0; i < fieldCount; i++) {
 					final String fieldName = in.readUTF();
-					final Field field = clazz.getDeclaredField(fieldName);
-					final int mod = field.getModifiers();
-					if (!Modifier.isPublic(mod))
-						field.setAccessible(true);
-
-					//
-					final Object value = readObjectOverride();
-					field.set(inst, value);
+					final ClassFieldCodec.FieldCodec field = codec.getField(fieldName);
+					if (field == null)
+						throw new NoSuchFieldException(fieldName);
+					final byte type = in.readByte();
+					// primitive values are set without boxing
+					if (!field.readPrimitive(inst, type, in))
+						field.set(inst, readObject(type));
 				}
 				clazz = clazz.getSuperclass();
 				fieldCount = in.readInt();
 			}
 			return inst;
-		} catch (final Exception e) {
+		} catch (final Error e) {
+			throw e;
+		} catch (final Throwable e) {
 			IOException t = new IOException("Error while deserializing class=" + clazz.getName() + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
 			t.setStackTrace(e.getStackTrace());
 			throw t;
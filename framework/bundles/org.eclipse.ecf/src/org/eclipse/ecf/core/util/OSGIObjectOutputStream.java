@@ -82,32 +82,30 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 	protected void writeFields(Object obj, Class<?> clazz) throws IOException {
 		while (clazz != Object.class) {
 			try {
-				final Field[] allFields = clazz.getDeclaredFields();
-				final int allFieldCount = allFields.length;
-				int actualFieldCount = 0;
-				for (int i = 0; i < allFieldCount; i++) {
-					final int mod = allFields[i].getModifiers();
-					if (!(Modifier.isStatic(mod) || Modifier.isTransient(mod)))
-						actualFieldCount++;
-				}
+				final ClassFieldCodec.FieldCodec[] fields = ClassFieldCodec.get(clazz).fields;
 				// write field count
-				out.writeInt(actualFieldCount);
-				for (int i = 0; i < allFieldCount; i++) {
-					final int mod = allFields[i].getModifiers();
-					if (Modifier.isStatic(mod) || Modifier.isTransient(mod))
+				out.writeInt(fields.length);
+				for (int i = 0; i < fields.length; i++) {
+					final ClassFieldCodec.FieldCodec field = fields[i];
+					if (field.isPrimitive()) {
+						// write field name
+						out.writeUTF(field.name);
+						// field value, without boxing
+						field.writePrimitive(obj, out);
 						continue;
-					else if (!Modifier.isPublic(mod))
-						allFields[i].setAccessible(true);
-					Object val = allFields[i].get(obj);
+					}
+					Object val = field.get(obj);
 					// Check to see it's not a circular ref
 					if (val != obj) {
 						// write field name
-						out.writeUTF(allFields[i].getName());
+						out.writeUTF(field.name);
 						// field value
 						writeObjectOverride(val);
 					}
 				}
-			} catch (final Exception e) {
+			} catch (final Error e) {
+				throw e;
+			} catch (final Throwable e) {
 				throw new NotSerializableException("Exception while serializing " + obj.toString() //$NON-NLS-1$
 						+ ":\n" + e.getMessage()); //$NON-NLS-1$ 
 			}
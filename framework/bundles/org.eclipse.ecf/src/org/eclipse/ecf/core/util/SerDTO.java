@@ -13,8 +13,6 @@ package org.eclipse.ecf.core.util;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,18 +29,17 @@ public class SerDTO implements Serializable {
 		Class<?> clazz = obj.getClass();
 		this.className = clazz.getName();
 		this.fields = new HashMap<String, Object>();
-		for (Field f : clazz.getFields()) {
-			final int mod = f.getModifiers();
-			if (Modifier.isStatic(mod) || Modifier.isTransient(mod))
-				continue;
+		for (ClassFieldCodec.FieldCodec f : ClassFieldCodec.get(clazz).getPublicFields()) {
 			Object value = null;
 			try {
 				value = f.get(obj);
-			} catch (Exception e) {
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
 				//
 			}
 			if (value != null) {
-				fields.put(f.getName(), value);
+				fields.put(f.name, value);
 			}
 		}
 	}
@@ -58,14 +55,16 @@ public class SerDTO implements Serializable {
 	public Object readObject(Class<?> clazz) throws IOException {
 		Object result = null;
 		try {
-			result = clazz.getConstructor(new Class[] {}).newInstance();
-			for (Field f : clazz.getFields()) {
-				Object v = fields.get(f.getName());
+			final ClassFieldCodec codec = ClassFieldCodec.get(clazz);
+			result = codec.newInstance();
+			for (ClassFieldCodec.FieldCodec f : codec.getPublicFields()) {
+				Object v = fields.get(f.name);
 				if (v != null) {
-					f.setAccessible(true);
 					try {
 						f.set(result, v);
-					} catch (Exception e) {
+					} catch (Error e) {
+						throw e;
+					} catch (Throwable e) {
 						// ignore
 					}
 				}
@@ -120,6 +120,11 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 
 	private ServiceTracker endpointListenerTracker;
 	private ServiceTracker endpointEventListenerTracker;
+	// Compiled listener scopes, maintained by the trackers above
+	private final EndpointListenerScopeIndex<EndpointListener> endpointListenerIndex = new EndpointListenerScopeIndex<EndpointListener>(
+			EndpointListener.ENDPOINT_LISTENER_SCOPE);
+	private final EndpointListenerScopeIndex<EndpointEventListener> endpointEventListenerIndex = new EndpointListenerScopeIndex<EndpointEventListener>(
+			EndpointEventListener.ENDPOINT_LISTENER_SCOPE);
 
 	private ServiceTracker advertiserTracker;
 	private Object advertiserTrackerLock = new Object();
@@ -255,25 +260,27 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 						EndpointListener listener = (EndpointListener) context.getService(reference);
 						if (listener == null)
 							return null;
-						Collection<org.osgi.service.remoteserviceadmin.EndpointDescription> allDiscoveredEndpointDescriptions = getEDs();
-						for (org.osgi.service.remoteserviceadmin.EndpointDescription ed : allDiscoveredEndpointDescriptions) {
-							EndpointDescriptionLocator.EndpointListenerHolder[] endpointListenerHolders = getMatchingEndpointListenerHolders(
-									new ServiceReference[] { reference }, ed);
-							if (endpointListenerHolders != null) {
-								for (int i = 0; i < endpointListenerHolders.length; i++) {
-									queueEndpointDescription(endpointListenerHolders[i].getListener(),
-											endpointListenerHolders[i].getDescription(),
-											endpointListenerHolders[i].getMatchingFilter(), true);
-								}
+						EndpointListenerScopeIndex.Entry<EndpointListener> entry = endpointListenerIndex.put(reference,
+								listener, getScopes(reference, EndpointListener.ENDPOINT_LISTENER_SCOPE));
+						if (entry != null) {
+							Collection<org.osgi.service.remoteserviceadmin.EndpointDescription> allDiscoveredEndpointDescriptions = getEDs();
+							for (org.osgi.service.remoteserviceadmin.EndpointDescription ed : allDiscoveredEndpointDescriptions) {
+								String matchingFilter = entry.match(ed);
+								if (matchingFilter != null)
+									queueEndpointDescription(listener, ed, matchingFilter, true);
 							}
 						}
 						return listener;
 					}
 
 					public void modifiedService(ServiceReference reference, Object service) {
+						endpointListenerIndex.put(reference, (EndpointListener) service,
+								getScopes(reference, EndpointListener.ENDPOINT_LISTENER_SCOPE));
 					}
 
 					public void removedService(ServiceReference reference, Object service) {
+						endpointListenerIndex.remove(reference);
+						ungetService(reference);
 					}
 				});
 
@@ -291,26 +298,28 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 						EndpointEventListener listener = (EndpointEventListener) context.getService(reference);
 						if (listener == null)
 							return null;
-						Collection<org.osgi.service.remoteserviceadmin.EndpointDescription> allDiscoveredEndpointDescriptions = getEDs();
-						for (org.osgi.service.remoteserviceadmin.EndpointDescription ed : allDiscoveredEndpointDescriptions) {
-							EndpointDescriptionLocator.EndpointEventListenerHolder[] endpointEventListenerHolders = getMatchingEndpointEventListenerHolders(
-									new ServiceReference[] { reference }, ed, EndpointEvent.ADDED);
-							if (endpointEventListenerHolders != null) {
-								for (int i = 0; i < endpointEventListenerHolders.length; i++) {
-									queueEndpointDescription(endpointEventListenerHolders[i].getListener(),
-											endpointEventListenerHolders[i].getDescription(),
-											endpointEventListenerHolders[i].getMatchingFilter(),
-											endpointEventListenerHolders[i].getType());
-								}
+						EndpointListenerScopeIndex.Entry<EndpointEventListener> entry = endpointEventListenerIndex.put(
+								reference, listener,
+								getScopes(reference, EndpointEventListener.ENDPOINT_LISTENER_SCOPE));
+						if (entry != null) {
+							Collection<org.osgi.service.remoteserviceadmin.EndpointDescription> allDiscoveredEndpointDescriptions = getEDs();
+							for (org.osgi.service.remoteserviceadmin.EndpointDescription ed : allDiscoveredEndpointDescriptions) {
+								String matchingFilter = entry.match(ed);
+								if (matchingFilter != null)
+									queueEndpointDescription(listener, ed, matchingFilter, EndpointEvent.ADDED);
 							}
 						}
 						return listener;
 					}
 
 					public void modifiedService(ServiceReference reference, Object service) {
+						endpointEventListenerIndex.put(reference, (EndpointEventListener) service,
+								getScopes(reference, EndpointEventListener.ENDPOINT_LISTENER_SCOPE));
 					}
 
 					public void removedService(ServiceReference reference, Object service) {
+						endpointEventListenerIndex.remove(reference);
+						ungetService(reference);
 					}
 				});
 
@@ -383,6 +392,8 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 			endpointEventListenerTracker.close();
 			endpointEventListenerTracker = null;
 		}
+		endpointListenerIndex.clear();
+		endpointEventListenerIndex.clear();
 
 		// Shutdown asynchronous event manager
 		if (eventManager != null) {
@@ -692,19 +703,31 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 		}
 	}
 
-	private Object endpointListenerServiceTrackerLock = new Object();
+	private void ungetService(ServiceReference reference) {
+		BundleContext c = context;
+		if (c != null) {
+			try {
+				c.ungetService(reference);
+			} catch (IllegalStateException e) {
+				// context no longer valid
+			}
+		}
+	}
 
-	private Object endpointEventListenerServiceTrackerLock = new Object();
+	private List<String> getScopes(ServiceReference reference, String scopeProperty) {
+		return PropertiesUtil.getStringPlusProperty(getMapFromProperties(reference), scopeProperty);
+	}
 
 	protected EndpointListenerHolder[] getMatchingEndpointListenerHolders(final EndpointDescription description) {
-		return AccessController.doPrivileged(new PrivilegedAction<EndpointListenerHolder[]>() {
-			public EndpointListenerHolder[] run() {
-				synchronized (endpointListenerServiceTrackerLock) {
-					return getMatchingEndpointListenerHolders(endpointListenerTracker.getServiceReferences(),
-							description);
-				}
-			}
-		});
+		List<EndpointListenerHolder> results = new ArrayList<EndpointListenerHolder>();
+		Dictionary<String, Object> properties = EndpointListenerScopeIndex.asDictionary(description);
+		for (EndpointListenerScopeIndex.Entry<EndpointListener> entry : endpointListenerIndex
+				.getCandidates(description)) {
+			String matchingFilter = entry.match(properties);
+			if (matchingFilter != null)
+				results.add(new EndpointListenerHolder(entry.getListener(), description, matchingFilter));
+		}
+		return results.toArray(new EndpointListenerHolder[results.size()]);
 	}
 
 	/**
@@ -716,14 +739,15 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 	 */
 	protected EndpointEventListenerHolder[] getMatchingEndpointEventListenerHolders(
 			final EndpointDescription description, final int type) {
-		return AccessController.doPrivileged(new PrivilegedAction<EndpointEventListenerHolder[]>() {
-			public EndpointEventListenerHolder[] run() {
-				synchronized (endpointEventListenerServiceTrackerLock) {
-					return getMatchingEndpointEventListenerHolders(endpointEventListenerTracker.getServiceReferences(),
-							description, type);
-				}
-			}
-		});
+		List<EndpointEventListenerHolder> results = new ArrayList<EndpointEventListenerHolder>();
+		Dictionary<String, Object> properties = EndpointListenerScopeIndex.asDictionary(description);
+		for (EndpointListenerScopeIndex.Entry<EndpointEventListener> entry : endpointEventListenerIndex
+				.getCandidates(description)) {
+			String matchingFilter = entry.match(properties);
+			if (matchingFilter != null)
+				results.add(new EndpointEventListenerHolder(entry.getListener(), description, matchingFilter, type));
+		}
+		return results.toArray(new EndpointEventListenerHolder[results.size()]);
 	}
 
 	/**
@@ -797,17 +821,22 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 		if (refs == null)
 			return null;
 		List results = new ArrayList();
+		Dictionary<String, Object> properties = EndpointListenerScopeIndex.asDictionary(description);
 		for (int i = 0; i < refs.length; i++) {
-			EndpointEventListener listener = (EndpointEventListener) context.getService(refs[i]);
-			if (listener == null)
-				continue;
-			List<String> filters = PropertiesUtil.getStringPlusProperty(getMapFromProperties(refs[i]),
-					EndpointEventListener.ENDPOINT_LISTENER_SCOPE);
+			EndpointListenerScopeIndex.Entry<EndpointEventListener> entry = endpointEventListenerIndex.get(refs[i]);
+			if (entry == null) {
+				// Not tracked (yet), compile the scope for this call only
+				EndpointEventListener listener = (EndpointEventListener) context.getService(refs[i]);
+				if (listener == null)
+					continue;
+				entry = endpointEventListenerIndex.createEntry(listener,
+						getScopes(refs[i], EndpointEventListener.ENDPOINT_LISTENER_SCOPE));
+			}
 			// Only proceed if there is a filter present
-			if (filters.size() > 0) {
-				String matchingFilter = isMatch(description, filters);
+			if (entry != null) {
+				String matchingFilter = entry.match(properties);
 				if (matchingFilter != null)
-					results.add(new EndpointEventListenerHolder(listener, description, matchingFilter, type));
+					results.add(new EndpointEventListenerHolder(entry.getListener(), description, matchingFilter, type));
 			}
 		}
 		return (EndpointEventListenerHolder[]) results.toArray(new EndpointEventListenerHolder[results.size()]);
@@ -818,36 +847,26 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 		if (refs == null)
 			return null;
 		List results = new ArrayList();
+		Dictionary<String, Object> properties = EndpointListenerScopeIndex.asDictionary(description);
 		for (int i = 0; i < refs.length; i++) {
-			EndpointListener listener = (EndpointListener) context.getService(refs[i]);
-			if (listener == null)
-				continue;
-			List<String> filters = PropertiesUtil.getStringPlusProperty(getMapFromProperties(refs[i]),
-					EndpointListener.ENDPOINT_LISTENER_SCOPE);
-			if (filters.size() > 0) {
-				String matchingFilter = isMatch(description, filters);
+			EndpointListenerScopeIndex.Entry<EndpointListener> entry = endpointListenerIndex.get(refs[i]);
+			if (entry == null) {
+				// Not tracked (yet), compile the scope for this call only
+				EndpointListener listener = (EndpointListener) context.getService(refs[i]);
+				if (listener == null)
+					continue;
+				entry = endpointListenerIndex.createEntry(listener,
+						getScopes(refs[i], EndpointListener.ENDPOINT_LISTENER_SCOPE));
+			}
+			if (entry != null) {
+				String matchingFilter = entry.match(properties);
 				if (matchingFilter != null)
-					results.add(new EndpointListenerHolder(listener, description, matchingFilter));
+					results.add(new EndpointListenerHolder(entry.getListener(), description, matchingFilter));
 			}
 		}
 		return (EndpointListenerHolder[]) results.toArray(new EndpointListenerHolder[results.size()]);
 	}
 
-	private String isMatch(EndpointDescription description, List<String> filters) {
-		for (String filter : filters) {
-			if (filter == null || "".equals(filter)) //$NON-NLS-1$
-				continue;
-			try {
-				if (description.matches(filter))
-					return filter;
-			} catch (IllegalArgumentException e) {
-				logError("isMatch", "invalid endpoint listener filter=" //$NON-NLS-1$ //$NON-NLS-2$
-						+ filters, e);
-			}
-		}
-		return null;
-	}
-
 	private Map getMapFromProperties(ServiceReference ref) {
 		Map<String, Object> results = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
 		String[] keys = ref.getPropertyKeys();
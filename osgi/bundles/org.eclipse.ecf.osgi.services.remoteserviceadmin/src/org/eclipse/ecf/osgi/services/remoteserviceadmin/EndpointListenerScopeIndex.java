@@ -0,0 +1,302 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.osgi.services.remoteserviceadmin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.DebugOptions;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.LogUtility;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Filter;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Index of the compiled endpoint listener scopes of one kind of endpoint
+ * listener. Scope filters are parsed once, when a listener is added or
+ * modified. Filters that require a specific <code>objectClass</code> or
+ * <code>endpoint.framework.uuid</code> value are indexed by that value, so an
+ * endpoint description is only matched against listeners that can possibly
+ * match it.
+ * <p>
+ * Lookups work on an immutable snapshot and do not block updates.
+ */
+final class EndpointListenerScopeIndex<L> {
+
+	private static final String FRAMEWORK_UUID = org.osgi.service.remoteserviceadmin.RemoteConstants.ENDPOINT_FRAMEWORK_UUID;
+
+	static final class Entry<L> {
+
+		private final L listener;
+		private final String[] scopes;
+		private final Filter[] filters;
+
+		Entry(L listener, String[] scopes, Filter[] filters) {
+			this.listener = listener;
+			this.scopes = scopes;
+			this.filters = filters;
+		}
+
+		L getListener() {
+			return listener;
+		}
+
+		/**
+		 * @return the first scope that matches the given endpoint properties, or
+		 *         <code>null</code> if none match
+		 */
+		String match(Dictionary<String, Object> properties) {
+			for (int i = 0; i < filters.length; i++)
+				if (filters[i].matchCase(properties))
+					return scopes[i];
+			return null;
+		}
+
+		String match(org.osgi.service.remoteserviceadmin.EndpointDescription description) {
+			return match(asDictionary(description));
+		}
+	}
+
+	private static final class Snapshot<L> {
+		final Map<ServiceReference, Entry<L>> entries;
+		final Map<String, Set<Entry<L>>> byObjectClass = new HashMap<String, Set<Entry<L>>>();
+		final Map<String, Set<Entry<L>>> byFrameworkUUID = new HashMap<String, Set<Entry<L>>>();
+		final Set<Entry<L>> unindexed = new LinkedHashSet<Entry<L>>();
+
+		Snapshot(Map<ServiceReference, Entry<L>> entries) {
+			this.entries = entries;
+			for (Entry<L> entry : entries.values())
+				for (int i = 0; i < entry.filters.length; i++)
+					index(entry, entry.filters[i]);
+		}
+
+		private void index(Entry<L> entry, Filter filter) {
+			String objectClass = null;
+			String frameworkUUID = null;
+			for (String[] term : getEqualityTerms(filter.toString())) {
+				if (objectClass == null && Constants.OBJECTCLASS.equalsIgnoreCase(term[0]))
+					objectClass = term[1];
+				else if (frameworkUUID == null && FRAMEWORK_UUID.equalsIgnoreCase(term[0]))
+					frameworkUUID = term[1];
+			}
+			if (objectClass != null)
+				add(byObjectClass, objectClass, entry);
+			else if (frameworkUUID != null)
+				add(byFrameworkUUID, frameworkUUID, entry);
+			else
+				unindexed.add(entry);
+		}
+
+		private static <L> void add(Map<String, Set<Entry<L>>> map, String key, Entry<L> entry) {
+			Set<Entry<L>> entries = map.get(key);
+			if (entries == null) {
+				entries = new LinkedHashSet<Entry<L>>();
+				map.put(key, entries);
+			}
+			entries.add(entry);
+		}
+	}
+
+	private final String scopeProperty;
+
+	private volatile Snapshot<L> snapshot = new Snapshot<L>(Collections.<ServiceReference, Entry<L>> emptyMap());
+
+	EndpointListenerScopeIndex(String scopeProperty) {
+		this.scopeProperty = scopeProperty;
+	}
+
+	/**
+	 * Compile the scope of a listener without adding it to the index.
+	 *
+	 * @param scopes the listener's scope filters
+	 * @return the compiled entry, or <code>null</code> if the listener has no
+	 *         valid scope filter
+	 */
+	Entry<L> createEntry(L listener, List<String> scopes) {
+		List<String> validScopes = new ArrayList<String>(scopes.size());
+		List<Filter> filters = new ArrayList<Filter>(scopes.size());
+		for (String scope : scopes) {
+			if (scope == null || "".equals(scope)) //$NON-NLS-1$
+				continue;
+			try {
+				filters.add(FrameworkUtil.createFilter(scope));
+				validScopes.add(scope);
+			} catch (InvalidSyntaxException e) {
+				LogUtility.logError("createEntry", DebugOptions.ENDPOINT_DESCRIPTION_LOCATOR, getClass(), //$NON-NLS-1$
+						"invalid endpoint listener filter=" + scope + " in " + scopeProperty, e); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		if (filters.isEmpty())
+			return null;
+		return new Entry<L>(listener, validScopes.toArray(new String[validScopes.size()]),
+				filters.toArray(new Filter[filters.size()]));
+	}
+
+	/**
+	 * Add or replace the entry for the given listener service.
+	 *
+	 * @return the new entry, or <code>null</code> if the listener has no valid
+	 *         scope filter
+	 */
+	synchronized Entry<L> put(ServiceReference reference, L listener, List<String> scopes) {
+		Entry<L> entry = createEntry(listener, scopes);
+		Map<ServiceReference, Entry<L>> entries = new LinkedHashMap<ServiceReference, Entry<L>>(snapshot.entries);
+		if (entry == null)
+			entries.remove(reference);
+		else
+			entries.put(reference, entry);
+		snapshot = new Snapshot<L>(entries);
+		return entry;
+	}
+
+	synchronized void remove(ServiceReference reference) {
+		if (!snapshot.entries.containsKey(reference))
+			return;
+		Map<ServiceReference, Entry<L>> entries = new LinkedHashMap<ServiceReference, Entry<L>>(snapshot.entries);
+		entries.remove(reference);
+		snapshot = new Snapshot<L>(entries);
+	}
+
+	synchronized void clear() {
+		snapshot = new Snapshot<L>(Collections.<ServiceReference, Entry<L>> emptyMap());
+	}
+
+	Entry<L> get(ServiceReference reference) {
+		return snapshot.entries.get(reference);
+	}
+
+	/**
+	 * @return the entries whose scope may match the given description. Each
+	 *         candidate still has to be checked with
+	 *         {@link Entry#match(Dictionary)}
+	 */
+	Set<Entry<L>> getCandidates(org.osgi.service.remoteserviceadmin.EndpointDescription description) {
+		Snapshot<L> s = snapshot;
+		Set<Entry<L>> results = new LinkedHashSet<Entry<L>>();
+		if (!s.byObjectClass.isEmpty()) {
+			List<String> interfaces = description.getInterfaces();
+			for (String iface : interfaces) {
+				Set<Entry<L>> entries = s.byObjectClass.get(iface);
+				if (entries != null)
+					results.addAll(entries);
+			}
+		}
+		String frameworkUUID = description.getFrameworkUUID();
+		if (frameworkUUID != null) {
+			Set<Entry<L>> entries = s.byFrameworkUUID.get(frameworkUUID);
+			if (entries != null)
+				results.addAll(entries);
+		}
+		results.addAll(s.unindexed);
+		return results;
+	}
+
+	/**
+	 * Split a filter in normalized form into its top level
+	 * <code>(attr=value)</code> equality terms. Substring, presence, and
+	 * comparison terms, as well as terms nested in <code>|</code> or
+	 * <code>!</code>, are ignored.
+	 *
+	 * @return list of {attribute, unescaped value} pairs
+	 */
+	static List<String[]> getEqualityTerms(String filter) {
+		List<String[]> results = new ArrayList<String[]>();
+		if (filter.startsWith("(&")) { //$NON-NLS-1$
+			int depth = 0;
+			int start = -1;
+			for (int i = 2; i < filter.length() - 1; i++) {
+				char c = filter.charAt(i);
+				if (c == '\\')
+					i++;
+				else if (c == '(') {
+					if (depth++ == 0)
+						start = i;
+				} else if (c == ')' && --depth == 0)
+					addEqualityTerm(filter.substring(start, i + 1), results);
+			}
+		} else if (!filter.startsWith("(|") && !filter.startsWith("(!")) //$NON-NLS-1$ //$NON-NLS-2$
+			addEqualityTerm(filter, results);
+		return results;
+	}
+
+	private static void addEqualityTerm(String term, List<String[]> results) {
+		if (term.length() < 3 || term.charAt(1) == '&' || term.charAt(1) == '|' || term.charAt(1) == '!')
+			return;
+		int eq = term.indexOf('=');
+		if (eq < 2)
+			return;
+		char op = term.charAt(eq - 1);
+		if (op == '~' || op == '<' || op == '>')
+			return;
+		StringBuffer value = new StringBuffer();
+		for (int i = eq + 1; i < term.length() - 1; i++) {
+			char c = term.charAt(i);
+			if (c == '*')
+				// substring or presence
+				return;
+			if (c == '\\')
+				c = term.charAt(++i);
+			value.append(c);
+		}
+		results.add(new String[] { term.substring(1, eq).trim(), value.toString() });
+	}
+
+	/**
+	 * View of the description properties for {@link Filter#matchCase(Dictionary)}.
+	 * The properties of an endpoint description already have case insensitive
+	 * keys, as in {@link EndpointDescription#matches(String)}.
+	 */
+	static Dictionary<String, Object> asDictionary(
+			org.osgi.service.remoteserviceadmin.EndpointDescription description) {
+		final Map<String, Object> properties = description.getProperties();
+		return new Dictionary<String, Object>() {
+			public int size() {
+				return properties.size();
+			}
+
+			public boolean isEmpty() {
+				return properties.isEmpty();
+			}
+
+			public Enumeration<String> keys() {
+				return Collections.enumeration(properties.keySet());
+			}
+
+			public Enumeration<Object> elements() {
+				return Collections.enumeration(properties.values());
+			}
+
+			public Object get(Object key) {
+				return properties.get(key);
+			}
+
+			public Object put(String key, Object value) {
+				throw new UnsupportedOperationException();
+			}
+
+			public Object remove(Object key) {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+}
@@ -29,6 +29,8 @@
 package ch.ethz.iks.r_osgi;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 
 import org.osgi.framework.Filter;
 
@@ -140,6 +142,17 @@ public interface RemoteOSGiService {
 	 */
 	String SERVICE_URI = "service.uri"; //$NON-NLS-1$
 
+	/**
+	 * the maximum number of concurrent remote invocations of a service. Can be
+	 * set as an <code>Integer</code> or <code>String</code> in the service
+	 * properties. Invocations beyond the limit wait until a running invocation
+	 * has completed. If not set, invocations are only limited by the workers
+	 * per channel endpoint.
+	 * 
+	 * @since 1.1
+	 */
+	String CONCURRENCY = "service.remote.concurrency"; //$NON-NLS-1$
+
 	/**
 	 * connect to a remote OSGi framework. Has to be called prior to any service
 	 * access. Causes the frameworks to exchange leases and start the transport
@@ -270,4 +283,20 @@ public interface RemoteOSGiService {
 	 */
 	int getListeningPort(final String protocol);
 
+	/**
+	 * get the state of the worker threads that process incoming messages. The
+	 * workers are shared by all channel endpoints. The map contains
+	 * <code>Integer</code> values for the keys <code>workers.max</code>,
+	 * <code>workers.active</code> and <code>tasks.queued</code>, plus
+	 * <code>tasks.queued.&lt;channel URI&gt;</code> for each channel with
+	 * queued tasks. Implementations that do not report metrics return an
+	 * empty map.
+	 * 
+	 * @return the metrics.
+	 * @since 1.1
+	 */
+	default Map getWorkQueueMetrics() {
+		return Collections.EMPTY_MAP;
+	}
+
 }
@@ -35,6 +35,7 @@ import java.io.NotSerializableException;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -174,6 +175,27 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 */
 	private final HashMap streams = new HashMap(0);
 
+	/**
+	 * map of stream id -&gt; pump for local streams that are accessed through a
+	 * window.
+	 */
+	private final HashMap streamPumps = new HashMap(0);
+
+	/**
+	 * map of stream id -&gt; proxy for remote streams that are accessed
+	 * through a window.
+	 */
+	private final HashMap streamProxies = new HashMap(0);
+
+	/**
+	 * the window for streams passed to or received from the remote peer. Data
+	 * up to the window size is pushed ahead of reads and written ahead of
+	 * acknowledgements. 0 disables windows and performs one request per
+	 * stream operation.
+	 */
+	private static final int STREAM_WINDOW = Integer.parseInt(System
+			.getProperty("ch.ethz.iks.r_osgi.streamWindow", "262144")); //$NON-NLS-1$ //$NON-NLS-2$
+
 	/**
 	 * next stream id.
 	 */
@@ -196,7 +218,11 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 							+ "=org/osgi/service/remoteserviceadmin/*))" //$NON-NLS-1$
 					+ ")"; //$NON-NLS-1$
 
-	private ArrayList workQueue = new ArrayList();
+	/**
+	 * the lane for the work of this endpoint in the shared worker pool.
+	 */
+	private final WorkerPool.Lane lane = new WorkerPool.Lane(
+			RemoteOSGiServiceImpl.MAX_THREADS_PER_ENDPOINT);
 
 	/**
 	 * used by the multiplexer and serves as a marker whether or not the channel
@@ -240,7 +266,6 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 			RemoteOSGiServiceImpl.log.log(LogService.LOG_DEBUG,
 					"opening new channel " + getRemoteAddress()); //$NON-NLS-1$
 		}
-		initThreadPool();
 		RemoteOSGiServiceImpl.registerChannelEndpoint(this);
 	}
 
@@ -254,41 +279,9 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		trace("<init>(channel="+channel+";remoteAddress="+channel.getRemoteAddress()+";localAddress="+channel.getLocalAddress()+")");
 		networkChannel = channel;
 		channel.bind(this);
-		initThreadPool();
 		RemoteOSGiServiceImpl.registerChannelEndpoint(this);
 	}
 
-	/**
-	 * initialize the thread pool
-	 */
-	private void initThreadPool() {
-		// TODO: tradeoff, could as well be central for all endpoints...
-		final ThreadGroup threadPool = new ThreadGroup("WorkerThreads"
-				+ toString());
-		for (int i = 0; i < RemoteOSGiServiceImpl.MAX_THREADS_PER_ENDPOINT; i++) {
-			final Thread t = new Thread(threadPool, "r-OSGi ChannelWorkerThread" + i) {
-				public void run() {
-					try {
-						while (!isInterrupted()) {
-							final Runnable r;
-							synchronized (workQueue) {
-								while (workQueue.isEmpty()) {
-									workQueue.wait();
-								}
-								r = (Runnable) workQueue.remove(0);
-							}
-							r.run();
-						}
-					} catch (InterruptedException ie) {
-						ie.printStackTrace();
-					}
-				}
-			};
-			t.setDaemon(true);
-			t.start();
-		}
-	}
-
 	/**
 	 * process a recieved message. Called by the channel.
 	 * 
@@ -302,6 +295,13 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 			dispose();
 			return;
 		}
+		// windowed stream operations are not answered and must be
+		// processed in order
+		if (msg instanceof StreamRequestMessage
+				&& ((StreamRequestMessage) msg).isWindowed()) {
+			handleWindowedStreamOp((StreamRequestMessage) msg);
+			return;
+		}
 		final Integer xid = Integer.valueOf(msg.getXID());
 		final WaitingCallback callback;
 		synchronized (callbacks) {
@@ -330,13 +330,56 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 					}
 				}
 			};
-			synchronized (workQueue) {
-				workQueue.add(r);
-				workQueue.notify();
+			// calls to services with a concurrency limit wait in the lane of
+			// the service instead of the lane of the endpoint
+			final WorkerPool.Lane serviceLane = msg instanceof RemoteCallMessage ? getServiceLane(((RemoteCallMessage) msg)
+					.getServiceID())
+					: null;
+			if (serviceLane != null) {
+				serviceLane.execute(r);
+			} else {
+				execute(r);
 			}
 		}
 	}
 
+	/**
+	 * run a task on a worker thread, within the concurrency limit of this
+	 * endpoint.
+	 * 
+	 * @param r
+	 *            the task.
+	 */
+	void execute(final Runnable r) {
+		lane.execute(r);
+	}
+
+	/**
+	 * get the number of tasks of this endpoint waiting for a worker.
+	 * 
+	 * @return the number of tasks.
+	 */
+	int getQueuedTasks() {
+		return lane.getQueuedTasks();
+	}
+
+	/**
+	 * get the lane of a service with a concurrency limit.
+	 * 
+	 * @param serviceID
+	 *            the service ID.
+	 * @return the lane, or <code>null</code> if the service has no limit.
+	 */
+	private WorkerPool.Lane getServiceLane(final String serviceID) {
+		RemoteServiceRegistration reg = (RemoteServiceRegistration) localServices
+				.get(serviceID);
+		if (reg == null) {
+			// first call on this channel
+			reg = getServiceRegistration(serviceID);
+		}
+		return reg == null ? null : reg.getLane();
+	}
+
 	/**
 	 * invoke a method on the remote host. This function is used by all proxy
 	 * bundles.
@@ -565,6 +608,7 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 
 		final NetworkChannel oldchannel = networkChannel;
 		networkChannel = null;
+		lane.clear();
 
 		try {
 			oldchannel.close();
@@ -605,7 +649,7 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		localServices.clear();
 		proxiedServices.clear();
 		closeStreams();
-		streams.clear();
+		failStreamProxies();
 		handlerReg = null;
 		synchronized (callbacks) {
 			callbacks.notifyAll();
@@ -737,6 +781,131 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		doStreamOp(requestMsg);
 	}
 
+	/**
+	 * open the push window of the input stream on the peer identified by id.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @param window
+	 *            the window size in bytes.
+	 * @throws IOException
+	 *             when the channel is closed.
+	 */
+	public void openStreamWindow(final short streamID, final int window)
+			throws IOException {
+		sendStreamProxyOp(streamID, StreamRequestMessage.OPEN_WINDOW, window,
+				null);
+	}
+
+	/**
+	 * return credit for the push window of the input stream on the peer
+	 * identified by id.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @param credit
+	 *            the number of bytes consumed since the last update.
+	 * @throws IOException
+	 *             when the channel is closed.
+	 */
+	public void updateStreamWindow(final short streamID, final int credit)
+			throws IOException {
+		sendStreamProxyOp(streamID, StreamRequestMessage.WINDOW_UPDATE,
+				credit, null);
+	}
+
+	/**
+	 * write bytes from array to the output stream on the peer identified by
+	 * id, without waiting for the write to complete.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @param b
+	 *            the source array.
+	 * @param off
+	 *            offset into the source array.
+	 * @param len
+	 *            number of bytes to copy.
+	 * @throws IOException
+	 *             when the channel is closed.
+	 */
+	public void writeStreamData(final short streamID, final byte[] b,
+			final int off, final int len) throws IOException {
+		final byte[] data = new byte[len];
+		System.arraycopy(b, off, data, 0, len);
+		sendStreamProxyOp(streamID, StreamRequestMessage.WRITE_DATA, len, data);
+	}
+
+	/**
+	 * close the windowed stream on the peer identified by id.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @throws IOException
+	 *             when the channel is closed.
+	 */
+	public void closeStreamProxy(final short streamID) throws IOException {
+		synchronized (streamProxies) {
+			streamProxies.remove(Integer.valueOf(streamID));
+		}
+		if (networkChannel != null) {
+			sendStreamProxyOp(streamID, StreamRequestMessage.CLOSE, 0, null);
+		}
+	}
+
+	/**
+	 * send a windowed stream operation from a proxy.
+	 */
+	private void sendStreamProxyOp(final short streamID, final byte op,
+			final int lenOrVal, final byte[] data) throws IOException {
+		try {
+			sendStreamOp(streamID, op, lenOrVal, data);
+		} catch (final RemoteOSGiException e) {
+			final IOException ioe = new IOException("Operation " + op //$NON-NLS-1$
+					+ " on stream " + streamID + " failed."); //$NON-NLS-1$ //$NON-NLS-2$
+			ioe.initCause(e);
+			throw ioe;
+		}
+	}
+
+	/**
+	 * send a windowed stream operation. These operations are not answered.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @param op
+	 *            the operation code.
+	 * @param lenOrVal
+	 *            the length or value.
+	 * @param data
+	 *            the data, or <code>null</code>.
+	 */
+	void sendStreamOp(final short streamID, final byte op,
+			final int lenOrVal, final byte[] data) {
+		final StreamRequestMessage msg = new StreamRequestMessage();
+		msg.setStreamID(streamID);
+		msg.setOp(op);
+		msg.setLenOrVal(lenOrVal);
+		msg.setData(data);
+		send(msg);
+	}
+
+	/**
+	 * send a windowed stream error operation.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @param op
+	 *            the error operation code.
+	 * @param message
+	 *            the exception message.
+	 */
+	void sendStreamError(final short streamID, final byte op,
+			final String message) {
+		final byte[] b = message.getBytes(StandardCharsets.UTF_8);
+		sendStreamOp(streamID, op, b.length, b);
+	}
+
 	/**
 	 * get the channel URI.
 	 * 
@@ -1331,8 +1500,10 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 			final StreamRequestMessage reqMsg = (StreamRequestMessage) msg;
 			try {
 				// fetch stream object
-				final Object stream = streams.get(Integer.valueOf(reqMsg
-						.getStreamID()));
+				final Object stream;
+				synchronized (streams) {
+					stream = streams.get(Integer.valueOf(reqMsg.getStreamID()));
+				}
 				if (stream == null) {
 					throw new IllegalStateException(
 							"Could not get stream with ID " //$NON-NLS-1$
@@ -1556,6 +1727,152 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		properties.remove("org.eclipse.ecf.serviceRegistrationRemote"); //$NON-NLS-1$
 	}
 
+	/**
+	 * handle a windowed stream operation. Called on the thread that receives
+	 * the messages, so operations on local streams are handed to a
+	 * {@link StreamPump}.
+	 * 
+	 * @param msg
+	 *            the stream request message.
+	 */
+	private void handleWindowedStreamOp(final StreamRequestMessage msg) {
+		final Integer id = Integer.valueOf(msg.getStreamID());
+		try {
+			switch (msg.getOp()) {
+			// operations on local streams
+			case StreamRequestMessage.OPEN_WINDOW: {
+				final Object stream;
+				synchronized (streams) {
+					stream = streams.get(id);
+				}
+				if (!(stream instanceof InputStream)) {
+					sendStreamError(msg.getStreamID(),
+							StreamRequestMessage.PUSH_ERROR,
+							"Could not get stream with ID " + id); //$NON-NLS-1$
+					return;
+				}
+				final StreamPump.Reader reader = new StreamPump.Reader(this, msg
+						.getStreamID(), (InputStream) stream, msg.getLenOrVal());
+				synchronized (streamPumps) {
+					streamPumps.put(id, reader);
+				}
+				reader.schedule();
+				return;
+			}
+			case StreamRequestMessage.WINDOW_UPDATE: {
+				final Object pump;
+				synchronized (streamPumps) {
+					pump = streamPumps.get(id);
+				}
+				if (pump instanceof StreamPump.Reader) {
+					((StreamPump.Reader) pump).addCredit(msg.getLenOrVal());
+				}
+				return;
+			}
+			case StreamRequestMessage.WRITE_DATA: {
+				StreamPump.Writer writer;
+				synchronized (streamPumps) {
+					writer = (StreamPump.Writer) streamPumps.get(id);
+					if (writer == null) {
+						final Object stream;
+						synchronized (streams) {
+							stream = streams.get(id);
+						}
+						if (stream instanceof OutputStream) {
+							writer = new StreamPump.Writer(this, msg
+									.getStreamID(), (OutputStream) stream);
+							streamPumps.put(id, writer);
+						}
+					}
+				}
+				if (writer == null) {
+					sendStreamError(msg.getStreamID(),
+							StreamRequestMessage.WRITE_ERROR,
+							"Could not get stream with ID " + id); //$NON-NLS-1$
+					return;
+				}
+				writer.enqueue(msg.getData());
+				return;
+			}
+			case StreamRequestMessage.CLOSE: {
+				final StreamPump pump;
+				synchronized (streamPumps) {
+					pump = (StreamPump) streamPumps.remove(id);
+				}
+				final Object stream;
+				synchronized (streams) {
+					stream = streams.remove(id);
+				}
+				if (pump != null) {
+					pump.close();
+				} else if (stream != null) {
+					// never read or written through the window
+					execute(new Runnable() {
+						public void run() {
+							try {
+								if (stream instanceof InputStream) {
+									((InputStream) stream).close();
+								} else {
+									((OutputStream) stream).close();
+								}
+							} catch (final IOException e) {
+								// ignore
+							}
+						}
+					});
+				}
+				return;
+			}
+			// operations on proxies for remote streams
+			case StreamRequestMessage.PUSH_DATA:
+			case StreamRequestMessage.PUSH_EOF:
+			case StreamRequestMessage.PUSH_ERROR: {
+				final Object proxy;
+				synchronized (streamProxies) {
+					proxy = streamProxies.get(id);
+				}
+				if (proxy instanceof InputStreamProxy) {
+					final InputStreamProxy in = (InputStreamProxy) proxy;
+					if (msg.getOp() == StreamRequestMessage.PUSH_DATA) {
+						in.received(msg.getData(), msg.getLenOrVal());
+					} else if (msg.getOp() == StreamRequestMessage.PUSH_EOF) {
+						in.receivedEOF();
+					} else {
+						in.failed(decodeStreamError(msg));
+					}
+				}
+				return;
+			}
+			case StreamRequestMessage.WRITE_ACK:
+			case StreamRequestMessage.WRITE_ERROR: {
+				final Object proxy;
+				synchronized (streamProxies) {
+					proxy = streamProxies.get(id);
+				}
+				if (proxy instanceof OutputStreamProxy) {
+					final OutputStreamProxy out = (OutputStreamProxy) proxy;
+					if (msg.getOp() == StreamRequestMessage.WRITE_ACK) {
+						out.acknowledged(msg.getLenOrVal());
+					} else {
+						out.failed(decodeStreamError(msg));
+					}
+				}
+				return;
+			}
+			}
+		} catch (final RemoteOSGiException e) {
+			// channel is closed
+		}
+	}
+
+	/**
+	 * get the exception reported by a windowed stream error operation.
+	 */
+	private static IOException decodeStreamError(final StreamRequestMessage msg) {
+		return new IOException(new String(msg.getData(), 0,
+				msg.getLenOrVal(), StandardCharsets.UTF_8));
+	}
+
 	/**
 	 * perform a stream operation.
 	 * 
@@ -1650,9 +1967,12 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 *            the instance of InputStream that needs to be remoted
 	 * @return the placeholder object that is sent to the actual client
 	 */
-	private InputStreamHandle getInputStreamPlaceholder(final InputStream origIS) {
-		final InputStreamHandle sp = new InputStreamHandle(nextStreamID());
-		streams.put(Integer.valueOf(sp.getStreamID()), origIS);
+	InputStreamHandle getInputStreamPlaceholder(final InputStream origIS) {
+		final InputStreamHandle sp = new InputStreamHandle(nextStreamID(),
+				STREAM_WINDOW);
+		synchronized (streams) {
+			streams.put(Integer.valueOf(sp.getStreamID()), origIS);
+		}
 		return sp;
 	}
 
@@ -1663,7 +1983,17 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 *            the placeholder for the remote input stream
 	 * @return the proxy for the input stream
 	 */
-	private InputStream getInputStreamProxy(final InputStreamHandle placeholder) {
+	InputStream getInputStreamProxy(final InputStreamHandle placeholder) {
+		// the remote peer supports push windows if it sent a window size
+		if (STREAM_WINDOW > 0 && placeholder.getWindow() > 0) {
+			final InputStreamProxy proxy = new InputStreamProxy(placeholder
+					.getStreamID(), this, STREAM_WINDOW);
+			synchronized (streamProxies) {
+				streamProxies.put(Integer.valueOf(placeholder.getStreamID()),
+						proxy);
+			}
+			return proxy;
+		}
 		return new InputStreamProxy(placeholder.getStreamID(), this);
 	}
 
@@ -1675,10 +2005,13 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 *            the instance of OutputStream that needs to be remoted
 	 * @return the placeholder object that is sent to the actual client
 	 */
-	private OutputStreamHandle getOutputStreamPlaceholder(
+	OutputStreamHandle getOutputStreamPlaceholder(
 			final OutputStream origOS) {
-		final OutputStreamHandle sp = new OutputStreamHandle(nextStreamID());
-		streams.put(Integer.valueOf(sp.getStreamID()), origOS);
+		final OutputStreamHandle sp = new OutputStreamHandle(nextStreamID(),
+				STREAM_WINDOW);
+		synchronized (streams) {
+			streams.put(Integer.valueOf(sp.getStreamID()), origOS);
+		}
 		return sp;
 	}
 
@@ -1690,8 +2023,19 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 *            the placeholder for the remote output stream
 	 * @return the proxy for the output stream
 	 */
-	private OutputStream getOutputStreamProxy(
+	OutputStream getOutputStreamProxy(
 			final OutputStreamHandle placeholder) {
+		// the window is the amount of data the remote peer accepts ahead of
+		// the acknowledgements
+		if (STREAM_WINDOW > 0 && placeholder.getWindow() > 0) {
+			final OutputStreamProxy proxy = new OutputStreamProxy(placeholder
+					.getStreamID(), this, placeholder.getWindow());
+			synchronized (streamProxies) {
+				streamProxies.put(Integer.valueOf(placeholder.getStreamID()),
+						proxy);
+			}
+			return proxy;
+		}
 		return new OutputStreamProxy(placeholder.getStreamID(), this);
 	}
 
@@ -1707,13 +2051,48 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		return (++nextStreamID);
 	}
 
+	/**
+	 * forget a local stream whose pump has closed it.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @param pump
+	 *            the pump of the stream.
+	 */
+	void removeStream(final short streamID, final StreamPump pump) {
+		final Integer id = Integer.valueOf(streamID);
+		synchronized (streamPumps) {
+			if (streamPumps.get(id) != pump) {
+				return;
+			}
+			streamPumps.remove(id);
+		}
+		synchronized (streams) {
+			streams.remove(id);
+		}
+	}
+
 	/**
 	 * closes all streams that are still open.
 	 */
 	private void closeStreams() {
-		final Object[] s = streams.values().toArray();
-		try {
-			for (int i = 0; i < s.length; i++) {
+		final Object[] s;
+		final Object[] p;
+		synchronized (streamPumps) {
+			p = streamPumps.values().toArray();
+			streamPumps.clear();
+		}
+		synchronized (streams) {
+			s = streams.values().toArray();
+			streams.clear();
+		}
+		// the streams of pumps are in both maps, closing them twice does no
+		// harm
+		for (int i = 0; i < p.length; i++) {
+			((StreamPump) p[i]).dispose();
+		}
+		for (int i = 0; i < s.length; i++) {
+			try {
 				if (s[i] instanceof InputStream) {
 					((InputStream) s[i]).close();
 				} else if (s[i] instanceof OutputStream) {
@@ -1723,8 +2102,28 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 							.log(LogService.LOG_WARNING,
 									"Object in input streams map was not an instance of a stream."); //$NON-NLS-1$
 				}
+			} catch (final IOException e) {
+				// close the others anyway
+			}
+		}
+	}
+
+	/**
+	 * fails all proxies for remote streams that are accessed through a window.
+	 */
+	private void failStreamProxies() {
+		final Object[] p;
+		synchronized (streamProxies) {
+			p = streamProxies.values().toArray();
+			streamProxies.clear();
+		}
+		final IOException e = new IOException("Channel is closed"); //$NON-NLS-1$
+		for (int i = 0; i < p.length; i++) {
+			if (p[i] instanceof InputStreamProxy) {
+				((InputStreamProxy) p[i]).failed(e);
+			} else {
+				((OutputStreamProxy) p[i]).failed(e);
 			}
-		} catch (final IOException e) {
 		}
 	}
 
@@ -0,0 +1,708 @@
+/* Copyright (c) 2006-2009 Jan S. Rellermeyer
+ * Systems Group,
+ * Department of Computer Science, ETH Zurich.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    - Redistributions of source code must retain the above copyright notice,
+ *      this list of conditions and the following disclaimer.
+ *    - Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    - Neither the name of ETH Zurich nor the names of its contributors may be
+ *      used to endorse or promote products derived from this software without
+ *      specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectOutputStream;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.osgi.service.log.LogService;
+
+import ch.ethz.iks.r_osgi.Remoting;
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
+import ch.ethz.iks.r_osgi.channels.NetworkChannel;
+import ch.ethz.iks.r_osgi.channels.NetworkChannelFactory;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+
+/**
+ * channel factory for TCP transport with non-blocking IO. All channels of the
+ * factory are served by a single selector thread, instead of one receiver
+ * thread per channel. The selector thread only reads and writes frames, the
+ * received frames are decoded and delivered by the shared receiver threads of
+ * the {@link WorkerPool}. Each message is sent as a length-prefixed frame, so the
+ * protocol is not compatible with the default <code>r-osgi</code> transport
+ * and has its own scheme and port.
+ * 
+ * @since 1.4
+ */
+final class NIOChannelFactory implements NetworkChannelFactory {
+
+	static final String PROTOCOL = "r-osgi-nio"; //$NON-NLS-1$
+
+	/**
+	 * the property for the listening port.
+	 */
+	static final String PORT_PROPERTY = "ch.ethz.iks.r_osgi.nio.port"; //$NON-NLS-1$
+
+	/**
+	 * the default listening port.
+	 */
+	private static final int DEFAULT_PORT = 9279;
+
+	/**
+	 * the maximum number of bytes queued for sending on a channel before
+	 * senders block.
+	 */
+	private static final int MAX_QUEUED_BYTES = Integer.parseInt(System
+			.getProperty("ch.ethz.iks.r_osgi.nio.maxQueuedBytes", "4194304")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * the number of received bytes waiting for delivery on a channel above
+	 * which the channel stops reading.
+	 */
+	private static final int MAX_RECEIVED_BYTES = Integer.parseInt(System
+			.getProperty("ch.ethz.iks.r_osgi.nio.maxReceivedBytes", "4194304")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * the size of the read buffer of a channel. The buffer grows for larger
+	 * frames and shrinks back afterwards.
+	 */
+	private static final int READ_BUFFER_SIZE = 8192;
+
+	/**
+	 * the maximum size of a received frame.
+	 */
+	private static final int MAX_FRAME_SIZE = Integer.parseInt(System
+			.getProperty("ch.ethz.iks.r_osgi.nio.maxFrameSize", "268435456")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	Remoting remoting;
+
+	protected int listeningPort;
+
+	private Selector selector;
+
+	private ServerSocketChannel serverChannel;
+
+	private SelectorThread thread;
+
+	/**
+	 * channels waiting to be registered with the selector.
+	 */
+	private final LinkedList pendingRegistrations = new LinkedList();
+
+	/**
+	 * set when the selector thread stops. Guarded by pendingRegistrations.
+	 */
+	private boolean stopped;
+
+	private static void log(final String message, final Throwable t) {
+		if (RemoteOSGiServiceImpl.log != null) {
+			RemoteOSGiServiceImpl.log.log(LogService.LOG_ERROR, message, t);
+		}
+	}
+
+	/**
+	 * get a new connection.
+	 * 
+	 * @param endpoint
+	 *            the channel endpoint.
+	 * @param endpointURI
+	 *            the URI of the remote host.
+	 * @return the transport channel.
+	 * @throws IOException
+	 *             in case of IO errors.
+	 */
+	public NetworkChannel getConnection(final ChannelEndpoint endpoint,
+			final URI endpointURI) throws IOException {
+		int port = endpointURI.getPort();
+		if (port == -1) {
+			port = DEFAULT_PORT;
+		}
+		final SocketChannel sc = SocketChannel.open(new InetSocketAddress(
+				endpointURI.getHost(), port));
+		final NIOChannel channel = new NIOChannel(sc, endpointURI);
+		channel.bind(endpoint);
+		return channel;
+	}
+
+	/**
+	 * Activate the factory. Is called by R-OSGi when the factory is discovered.
+	 * 
+	 * @see ch.ethz.iks.r_osgi.channels.NetworkChannelFactory#activate(ch.ethz.iks.r_osgi.Remoting)
+	 */
+	public void activate(final Remoting r) throws IOException {
+		remoting = r;
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		final int basePort = Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT)
+				.intValue();
+		int e = 0;
+		while (true) {
+			try {
+				listeningPort = basePort + e;
+				serverChannel.socket().bind(new InetSocketAddress(listeningPort));
+				break;
+			} catch (final BindException b) {
+				e++;
+			}
+		}
+		if (e != 0 && RemoteOSGiServiceImpl.log != null) {
+			RemoteOSGiServiceImpl.log.log(LogService.LOG_WARNING, "Port " //$NON-NLS-1$
+					+ basePort
+					+ " already in use. This instance of R-OSGi NIO transport is running on port " //$NON-NLS-1$
+					+ listeningPort);
+		}
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		thread = new SelectorThread();
+		thread.start();
+	}
+
+	/**
+	 * Deactivate the factory. The selector thread closes all channels when it
+	 * stops.
+	 * 
+	 * @see ch.ethz.iks.r_osgi.channels.NetworkChannelFactory#deactivate(ch.ethz.iks.r_osgi.Remoting)
+	 */
+	public void deactivate(final Remoting r) throws IOException {
+		if (thread != null) {
+			thread.interrupt();
+			selector.wakeup();
+		}
+		remoting = null;
+	}
+
+	/**
+	 * get the listening port.
+	 * 
+	 * @see ch.ethz.iks.r_osgi.channels.NetworkChannelFactory#getListeningPort(java.lang.String)
+	 */
+	public int getListeningPort(final String protocol) {
+		return listeningPort;
+	}
+
+	/**
+	 * queue a channel for registration with the selector.
+	 */
+	void register(final NIOChannel channel) {
+		synchronized (pendingRegistrations) {
+			if (!stopped) {
+				pendingRegistrations.add(channel);
+				selector.wakeup();
+				return;
+			}
+		}
+		channel.disconnected();
+	}
+
+	/**
+	 * a channel with TCP transport and non-blocking IO.
+	 */
+	final class NIOChannel implements NetworkChannel {
+
+		/**
+		 * the socket channel.
+		 */
+		private final SocketChannel socketChannel;
+
+		/**
+		 * the remote endpoint address.
+		 */
+		private final URI remoteEndpointAddress;
+
+		/**
+		 * the local endpoint address.
+		 */
+		private final URI localEndpointAddress;
+
+		/**
+		 * the channel endpoint.
+		 */
+		ChannelEndpoint endpoint;
+
+		/**
+		 * the selection key, set by the selector thread.
+		 */
+		SelectionKey key;
+
+		/**
+		 * the buffer for incoming frames.
+		 */
+		ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+		/**
+		 * delivers the received frames in order.
+		 */
+		private final WorkerPool.Lane receiverLane = WorkerPool
+				.createReceiverLane();
+
+		/**
+		 * the number of received bytes waiting for delivery.
+		 */
+		private final AtomicInteger receivedBytes = new AtomicInteger();
+
+		/**
+		 * set while the channel does not read because too many received
+		 * bytes wait for delivery.
+		 */
+		volatile boolean readSuspended;
+
+		/**
+		 * the frames waiting to be written.
+		 */
+		private final LinkedList writeQueue = new LinkedList();
+
+		/**
+		 * the number of bytes in the write queue.
+		 */
+		private int queuedBytes;
+
+		/**
+		 * connected ?
+		 */
+		volatile boolean connected = true;
+
+		/**
+		 * create a new channel.
+		 * 
+		 * @param sc
+		 *            the connected socket channel.
+		 * @param remoteAddress
+		 *            the remote peer's URI, or <code>null</code> for incoming
+		 *            connections.
+		 * @throws IOException
+		 *             in case of IO errors.
+		 */
+		NIOChannel(final SocketChannel sc, final URI remoteAddress)
+				throws IOException {
+			socketChannel = sc;
+			final Socket socket = sc.socket();
+			remoteEndpointAddress = remoteAddress != null ? remoteAddress
+					: URI.create(getProtocol() + "://" //$NON-NLS-1$
+							+ socket.getInetAddress().getHostName() + ":" //$NON-NLS-1$
+							+ socket.getPort());
+			localEndpointAddress = URI.create(getProtocol() + "://" //$NON-NLS-1$
+					+ socket.getLocalAddress().getHostName() + ":" //$NON-NLS-1$
+					+ socket.getLocalPort());
+			socket.setKeepAlive(true);
+			socket.setTcpNoDelay(true);
+			sc.configureBlocking(false);
+		}
+
+		/**
+		 * bind the channel to a channel endpoint and start receiving.
+		 * 
+		 * @see ch.ethz.iks.r_osgi.channels.NetworkChannel#bind(ch.ethz.iks.r_osgi.channels.ChannelEndpoint)
+		 */
+		public void bind(final ChannelEndpoint e) {
+			endpoint = e;
+			register(this);
+		}
+
+		public String toString() {
+			return "NIOChannel (" + getRemoteAddress() + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		/**
+		 * close the channel.
+		 * 
+		 * @see ch.ethz.iks.r_osgi.channels.NetworkChannel#close()
+		 */
+		public void close() throws IOException {
+			connected = false;
+			synchronized (writeQueue) {
+				writeQueue.clear();
+				queuedBytes = 0;
+				writeQueue.notifyAll();
+			}
+			socketChannel.close();
+			selector.wakeup();
+		}
+
+		public String getProtocol() {
+			return PROTOCOL;
+		}
+
+		public URI getRemoteAddress() {
+			return remoteEndpointAddress;
+		}
+
+		public URI getLocalAddress() {
+			return localEndpointAddress;
+		}
+
+		/**
+		 * send a message through the channel. The message is written
+		 * directly if possible, otherwise it is queued and written by the
+		 * selector thread. Blocks while too much data is queued, unless called
+		 * from the selector thread itself.
+		 * 
+		 * @param message
+		 *            the message.
+		 * @throws IOException
+		 *             in case of IO errors.
+		 */
+		public void sendMessage(final RemoteOSGiMessage message)
+				throws IOException {
+			if (RemoteOSGiServiceImpl.MSG_DEBUG) {
+				RemoteOSGiServiceImpl.log.log(LogService.LOG_DEBUG,
+						"{NIO Channel} sending " + message); //$NON-NLS-1$
+			}
+			final ByteBuffer frame = encode(message);
+			synchronized (writeQueue) {
+				try {
+					while (queuedBytes > MAX_QUEUED_BYTES && connected
+							&& Thread.currentThread() != thread) {
+						writeQueue.wait();
+					}
+				} catch (final InterruptedException ie) {
+					throw new InterruptedIOException(
+							"Interrupted while sending " + message); //$NON-NLS-1$
+				}
+				if (!connected) {
+					throw new ClosedChannelException();
+				}
+				if (writeQueue.isEmpty()) {
+					socketChannel.write(frame);
+					if (!frame.hasRemaining()) {
+						return;
+					}
+				}
+				writeQueue.add(frame);
+				queuedBytes += frame.remaining();
+			}
+			// let the selector thread write the rest
+			selector.wakeup();
+		}
+
+		/**
+		 * encode a message as a frame.
+		 */
+		private ByteBuffer encode(final RemoteOSGiMessage message)
+				throws IOException {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			// placeholder for the length
+			bytes.write(new byte[4]);
+			final ObjectOutputStream out = TCPChannelFactory
+					.createObjectOutputStream(bytes);
+			message.send(out);
+			out.close();
+			final ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+			frame.putInt(0, frame.capacity() - 4);
+			return frame;
+		}
+
+		/**
+		 * write queued frames. Called by the selector thread.
+		 */
+		void writeQueued() throws IOException {
+			synchronized (writeQueue) {
+				while (!writeQueue.isEmpty()) {
+					final ByteBuffer frame = (ByteBuffer) writeQueue.getFirst();
+					final int before = frame.remaining();
+					socketChannel.write(frame);
+					queuedBytes -= before - frame.remaining();
+					if (frame.hasRemaining()) {
+						break;
+					}
+					writeQueue.removeFirst();
+				}
+				writeQueue.notifyAll();
+				key.interestOps(interestOps());
+			}
+		}
+
+		/**
+		 * @return the operations the selector should wait for.
+		 */
+		int interestOps() {
+			return (readSuspended ? 0 : SelectionKey.OP_READ)
+					| (hasQueuedFrames() ? SelectionKey.OP_WRITE : 0);
+		}
+
+		/**
+		 * @return <code>true</code> if frames are waiting to be written.
+		 */
+		boolean hasQueuedFrames() {
+			synchronized (writeQueue) {
+				return !writeQueue.isEmpty();
+			}
+		}
+
+		/**
+		 * read available data and hand complete frames to the receiver lane.
+		 * Called by the selector thread.
+		 * 
+		 * @return <code>false</code> if the connection has been closed.
+		 */
+		boolean read() throws IOException {
+			if (socketChannel.read(readBuffer) < 0) {
+				return false;
+			}
+			readBuffer.flip();
+			while (readBuffer.remaining() >= 4) {
+				final int len = readBuffer.getInt(readBuffer.position());
+				if (len < 0 || len > MAX_FRAME_SIZE) {
+					throw new IOException("Invalid frame length " + len); //$NON-NLS-1$
+				}
+				if (readBuffer.remaining() < len + 4) {
+					if (readBuffer.capacity() < len + 4) {
+						// grow to fit the frame
+						final ByteBuffer larger = ByteBuffer.allocate(len + 4);
+						larger.put(readBuffer);
+						readBuffer = larger;
+						return true;
+					}
+					break;
+				}
+				readBuffer.position(readBuffer.position() + 4);
+				final byte[] frame = new byte[len];
+				readBuffer.get(frame);
+				deliver(frame);
+			}
+			readBuffer.compact();
+			shrinkReadBuffer();
+			if (receivedBytes.get() > MAX_RECEIVED_BYTES) {
+				// stop reading until the receiver lane catches up
+				readSuspended = true;
+				key.interestOps(interestOps());
+			}
+			return true;
+		}
+
+		/**
+		 * replace a read buffer that has grown for a large frame with a
+		 * buffer of the default size, unless a large frame is being
+		 * received.
+		 */
+		private void shrinkReadBuffer() {
+			if (readBuffer.capacity() <= READ_BUFFER_SIZE
+					|| readBuffer.position() > READ_BUFFER_SIZE
+					|| (readBuffer.position() >= 4 && readBuffer.getInt(0) + 4 > READ_BUFFER_SIZE)) {
+				return;
+			}
+			final ByteBuffer smaller = ByteBuffer.allocate(READ_BUFFER_SIZE);
+			readBuffer.flip();
+			smaller.put(readBuffer);
+			readBuffer = smaller;
+		}
+
+		/**
+		 * decode a frame and pass the message to the endpoint on the receiver
+		 * lane.
+		 */
+		private void deliver(final byte[] frame) {
+			receivedBytes.addAndGet(frame.length);
+			receiverLane.execute(new Runnable() {
+				public void run() {
+					try {
+						final RemoteOSGiMessage msg = decode(frame);
+						if (RemoteOSGiServiceImpl.MSG_DEBUG) {
+							RemoteOSGiServiceImpl.log.log(LogService.LOG_DEBUG,
+									"{NIO Channel} received " + msg); //$NON-NLS-1$
+						}
+						endpoint.receivedMessage(msg);
+					} catch (final IOException ioe) {
+						log("Could not decode message from " //$NON-NLS-1$
+								+ getRemoteAddress(), ioe);
+						disconnected();
+					} finally {
+						if (receivedBytes.addAndGet(-frame.length) <= MAX_RECEIVED_BYTES / 2
+								&& readSuspended) {
+							readSuspended = false;
+							// the selector thread updates the interest ops
+							selector.wakeup();
+						}
+					}
+				}
+			});
+		}
+
+		private RemoteOSGiMessage decode(final byte[] frame) throws IOException {
+			try {
+				return RemoteOSGiMessage.parse(TCPChannelFactory
+						.createObjectInputStream(new ByteArrayInputStream(frame)));
+			} catch (final ClassNotFoundException e) {
+				final IOException ioe = new IOException(
+						"Could not decode message"); //$NON-NLS-1$
+				ioe.initCause(e);
+				throw ioe;
+			}
+		}
+
+		/**
+		 * the connection is gone. Closes the channel and notifies the
+		 * endpoint after the frames received before.
+		 */
+		synchronized void disconnected() {
+			if (!connected) {
+				return;
+			}
+			try {
+				close();
+			} catch (final IOException e) {
+				// ignore
+			}
+			receiverLane.execute(new Runnable() {
+				public void run() {
+					endpoint.receivedMessage(null);
+				}
+			});
+		}
+	}
+
+	/**
+	 * the selector thread accepts incoming connections and reads and writes
+	 * for all channels.
+	 */
+	final class SelectorThread extends Thread {
+
+		SelectorThread() {
+			setName("NIOChannel:SelectorThread"); //$NON-NLS-1$
+			setDaemon(true);
+		}
+
+		public void run() {
+			try {
+				while (!isInterrupted()) {
+					selector.select();
+					registerPending();
+					final Iterator it = selector.selectedKeys().iterator();
+					while (it.hasNext()) {
+						final SelectionKey k = (SelectionKey) it.next();
+						it.remove();
+						handle(k);
+					}
+				}
+			} catch (final IOException ioe) {
+				log("NIO selector thread failed", ioe); //$NON-NLS-1$
+			} finally {
+				closeChannels();
+				try {
+					selector.close();
+					serverChannel.close();
+				} catch (final IOException e) {
+					// ignore
+				}
+			}
+		}
+
+		/**
+		 * close all channels when the thread stops.
+		 */
+		private void closeChannels() {
+			synchronized (pendingRegistrations) {
+				stopped = true;
+				while (!pendingRegistrations.isEmpty()) {
+					((NIOChannel) pendingRegistrations.removeFirst())
+							.disconnected();
+				}
+			}
+			final Iterator it = selector.keys().iterator();
+			while (it.hasNext()) {
+				final Object attachment = ((SelectionKey) it.next())
+						.attachment();
+				if (attachment instanceof NIOChannel) {
+					((NIOChannel) attachment).disconnected();
+				}
+			}
+		}
+
+		private void registerPending() {
+			synchronized (pendingRegistrations) {
+				while (!pendingRegistrations.isEmpty()) {
+					final NIOChannel channel = (NIOChannel) pendingRegistrations
+							.removeFirst();
+					try {
+						channel.key = channel.socketChannel.register(selector,
+								channel.interestOps(), channel);
+					} catch (final ClosedChannelException e) {
+						channel.disconnected();
+					}
+				}
+			}
+			// channels with frames queued or reading resumed since the last
+			// select
+			final Iterator it = selector.keys().iterator();
+			while (it.hasNext()) {
+				final SelectionKey k = (SelectionKey) it.next();
+				if (k.isValid() && k.attachment() instanceof NIOChannel) {
+					final int ops = ((NIOChannel) k.attachment()).interestOps();
+					if (k.interestOps() != ops) {
+						k.interestOps(ops);
+					}
+				}
+			}
+		}
+
+		private void handle(final SelectionKey k) {
+			if (!k.isValid()) {
+				return;
+			}
+			if (k.isAcceptable()) {
+				try {
+					final SocketChannel sc = serverChannel.accept();
+					if (sc != null) {
+						final NIOChannel channel = new NIOChannel(sc, null);
+						final Remoting r = remoting;
+						// the endpoint is created on the receiver lane, before
+						// the channel delivers its first message
+						channel.receiverLane.execute(new Runnable() {
+							public void run() {
+								r.createEndpoint(channel);
+							}
+						});
+					}
+				} catch (final IOException ioe) {
+					log("Could not accept connection", ioe); //$NON-NLS-1$
+				}
+				return;
+			}
+			final NIOChannel channel = (NIOChannel) k.attachment();
+			try {
+				if (k.isWritable()) {
+					channel.writeQueued();
+				}
+				if (k.isReadable() && !channel.read()) {
+					channel.disconnected();
+				}
+			} catch (final IOException ioe) {
+				channel.disconnected();
+			} catch (final Throwable t) {
+				log("Error on " + channel, t); //$NON-NLS-1$
+			}
+		}
+	}
+
+}
@@ -48,6 +48,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
@@ -149,6 +150,12 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 	 */
 	static final String REGISTER_DEFAULT_TCP_CHANNEL = "ch.ethz.iks.r_osgi.registerDefaultChannel"; //$NON-NLS-1$
 
+	/**
+	 * register the non-blocking tcp channel (protocol r-osgi-nio)? Only
+	 * registered if set to "true".
+	 */
+	static final String REGISTER_NIO_CHANNEL = "ch.ethz.iks.r_osgi.registerNIOChannel"; //$NON-NLS-1$
+
 	/**
 	 * register the default tcp channel? If not set to "false", the channel gets
 	 * registered.
@@ -740,6 +747,36 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 		return factory.getListeningPort(protocol);
 	}
 
+	/**
+	 * 
+	 * @see ch.ethz.iks.r_osgi.RemoteOSGiService#getWorkQueueMetrics()
+	 * @category RemoteOSGiService
+	 */
+	public Map getWorkQueueMetrics() {
+		final Map metrics = new TreeMap();
+		metrics.put("workers.max", Integer.valueOf(WorkerPool.getMaxWorkers())); //$NON-NLS-1$
+		metrics.put("workers.active", Integer.valueOf(WorkerPool //$NON-NLS-1$
+				.getActiveWorkers()));
+		metrics.put("tasks.queued", Integer.valueOf(WorkerPool.getQueuedTasks())); //$NON-NLS-1$
+		final Object[] endpoints;
+		synchronized (channels) {
+			endpoints = channels.values().toArray();
+		}
+		for (int i = 0; i < endpoints.length; i++) {
+			final ChannelEndpointImpl endpoint = (ChannelEndpointImpl) endpoints[i];
+			final int queued = endpoint.getQueuedTasks();
+			if (queued > 0) {
+				try {
+					metrics.put("tasks.queued." + endpoint.getRemoteAddress(), //$NON-NLS-1$
+							Integer.valueOf(queued));
+				} catch (final RemoteOSGiException e) {
+					// channel closed in the meantime
+				}
+			}
+		}
+		return metrics;
+	}
+
 	/**
 	 * @param endpoint
 	 * @throws RemoteOSGiException
@@ -83,6 +83,11 @@ final class RemoteServiceRegistration {
 	 */
 	private DeliverServiceMessage deliverServiceMessage;
 
+	/**
+	 * the lane for invocations, if the service has a concurrency limit.
+	 */
+	private final WorkerPool.Lane lane;
+
 	/**
 	 * creates a new RemoteService object.
 	 * 
@@ -102,6 +107,9 @@ final class RemoteServiceRegistration {
 		serviceID = ((Long) service.getProperty(Constants.SERVICE_ID))
 				.longValue();
 		interfaceNames = (String[]) service.getProperty(Constants.OBJECTCLASS);
+		final int concurrency = getConcurrency(service
+				.getProperty(RemoteOSGiService.CONCURRENCY));
+		lane = concurrency > 0 ? new WorkerPool.Lane(concurrency) : null;
 
 		// get the service object
 		serviceObject = RemoteOSGiActivator.getActivator().getContext().getService(service);
@@ -146,6 +154,33 @@ final class RemoteServiceRegistration {
 		}
 	}
 
+	private static int getConcurrency(final Object value) {
+		if (value instanceof Number) {
+			return ((Number) value).intValue();
+		} else if (value instanceof String) {
+			try {
+				return Integer.parseInt(((String) value).trim());
+			} catch (final NumberFormatException e) {
+				if (RemoteOSGiServiceImpl.log != null) {
+					RemoteOSGiServiceImpl.log.log(LogService.LOG_WARNING,
+							"Invalid " + RemoteOSGiService.CONCURRENCY + ": " //$NON-NLS-1$ //$NON-NLS-2$
+									+ value);
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * get the lane for invocations of the service.
+	 * 
+	 * @return the lane, or <code>null</code> if the service has no
+	 *         concurrency limit.
+	 */
+	WorkerPool.Lane getLane() {
+		return lane;
+	}
+
 	/**
 	 * get the service id.
 	 * 
@@ -0,0 +1,417 @@
+/* Copyright (c) 2006-2009 Jan S. Rellermeyer
+ * Systems Group,
+ * Department of Computer Science, ETH Zurich.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    - Redistributions of source code must retain the above copyright notice,
+ *      this list of conditions and the following disclaimer.
+ *    - Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    - Neither the name of ETH Zurich nor the names of its contributors may be
+ *      used to endorse or promote products derived from this software without
+ *      specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedList;
+
+import org.osgi.service.log.LogService;
+
+import ch.ethz.iks.r_osgi.RemoteOSGiException;
+import ch.ethz.iks.r_osgi.messages.StreamRequestMessage;
+
+/**
+ * The owner's side of a windowed stream. Operations on the local stream run
+ * on the worker threads of the channel endpoint, one step at a time and never
+ * concurrently, so that data is read and written in order without blocking
+ * the thread that receives the messages.
+ * <p>
+ * The local stream is closed when the proxy closes the stream, when the owner
+ * has sent the end of an input stream or an error, when an operation fails
+ * unexpectedly, and at the latest when the channel endpoint is disposed.
+ */
+abstract class StreamPump implements Runnable {
+
+	/**
+	 * the channel endpoint.
+	 */
+	protected final ChannelEndpointImpl endpoint;
+
+	/**
+	 * the stream id.
+	 */
+	protected final short streamID;
+
+	/**
+	 * the operation code that reports an error to the proxy.
+	 */
+	private final byte errorOp;
+
+	/**
+	 * the pump is queued or running on a worker thread.
+	 */
+	private boolean scheduled;
+
+	/**
+	 * the proxy has closed the stream.
+	 */
+	protected boolean closed;
+
+	/**
+	 * the local stream has been closed.
+	 */
+	private boolean streamClosed;
+
+	StreamPump(final ChannelEndpointImpl endpoint, final short streamID,
+			final byte errorOp) {
+		this.endpoint = endpoint;
+		this.streamID = streamID;
+		this.errorOp = errorOp;
+	}
+
+	/**
+	 * queue the pump on a worker thread, unless it is already queued or
+	 * running.
+	 */
+	final void schedule() {
+		synchronized (this) {
+			if (scheduled || !hasWork()) {
+				return;
+			}
+			scheduled = true;
+		}
+		endpoint.execute(this);
+	}
+
+	/**
+	 * run one step, then queue the pump again if there is more work.
+	 * 
+	 * @see java.lang.Runnable#run()
+	 */
+	public final void run() {
+		try {
+			final boolean close;
+			synchronized (this) {
+				// pending data is written before the stream is closed
+				close = closed && !streamClosed && !hasData();
+			}
+			if (close) {
+				closeStream();
+			} else {
+				step();
+			}
+		} catch (final RemoteOSGiException e) {
+			// channel is closed, the endpoint closes the streams
+			synchronized (this) {
+				closed = true;
+				streamClosed = true;
+			}
+		} catch (final RuntimeException e) {
+			// the step would most likely fail again, so give up the stream
+			// rather than scheduling it again
+			failed(e);
+		} finally {
+			synchronized (this) {
+				scheduled = false;
+			}
+			schedule();
+		}
+	}
+
+	/**
+	 * close the stream after the pending operations.
+	 */
+	final void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		schedule();
+	}
+
+	/**
+	 * close the local stream now, without waiting for pending operations.
+	 * Called when the channel endpoint is disposed.
+	 */
+	final void dispose() {
+		synchronized (this) {
+			closed = true;
+			if (streamClosed) {
+				return;
+			}
+		}
+		closeStream();
+	}
+
+	private void closeStream() {
+		synchronized (this) {
+			if (streamClosed) {
+				return;
+			}
+			streamClosed = true;
+		}
+		try {
+			closeLocalStream();
+		} catch (final IOException e) {
+			// ignore
+		} catch (final RuntimeException e) {
+			// ignore
+		}
+	}
+
+	/**
+	 * an operation has failed with an unexpected exception. Close the local
+	 * stream, forget it and report the failure to the proxy.
+	 * 
+	 * @param e
+	 *            the exception.
+	 */
+	private void failed(final RuntimeException e) {
+		if (RemoteOSGiServiceImpl.log != null) {
+			RemoteOSGiServiceImpl.log.log(LogService.LOG_ERROR,
+					"Operation on stream " + streamID + " failed", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		synchronized (this) {
+			closed = true;
+		}
+		endpoint.removeStream(streamID, this);
+		closeStream();
+		try {
+			endpoint.sendStreamError(streamID, errorOp,
+					e.getMessage() == null ? e.getClass().getName() : e
+							.getMessage());
+		} catch (final RemoteOSGiException e1) {
+			// channel is closed
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the pump has work to do.
+	 */
+	private boolean hasWork() {
+		if (closed) {
+			return !streamClosed;
+		}
+		return hasData();
+	}
+
+	/**
+	 * @return <code>true</code> if the next step can make progress.
+	 */
+	protected abstract boolean hasData();
+
+	/**
+	 * perform one operation on the local stream.
+	 */
+	protected abstract void step();
+
+	/**
+	 * close the local stream.
+	 * 
+	 * @throws IOException
+	 *             in case of IO failures.
+	 */
+	protected abstract void closeLocalStream() throws IOException;
+
+	/**
+	 * report a failed operation on the local stream to the proxy.
+	 * 
+	 * @param e
+	 *            the exception.
+	 */
+	protected final void sendError(final IOException e) {
+		endpoint.sendStreamError(streamID, errorOp, e.getMessage() == null ? e
+				.getClass().getName() : e.getMessage());
+	}
+
+	/**
+	 * Pushes data from a local input stream to the proxy, as long as the
+	 * proxy has granted credit.
+	 */
+	static final class Reader extends StreamPump {
+
+		/**
+		 * the maximum size of a pushed chunk.
+		 */
+		private static final int CHUNK_SIZE = 65536;
+
+		private final InputStream in;
+
+		/**
+		 * the number of bytes the proxy can accept.
+		 */
+		private int credit;
+
+		/**
+		 * the end of the stream or an exception has been sent.
+		 */
+		private boolean done;
+
+		Reader(final ChannelEndpointImpl endpoint, final short streamID,
+				final InputStream in, final int window) {
+			super(endpoint, streamID, StreamRequestMessage.PUSH_ERROR);
+			this.in = in;
+			this.credit = window;
+		}
+
+		/**
+		 * add credit returned by the proxy.
+		 * 
+		 * @param len
+		 *            the number of bytes consumed by the proxy.
+		 */
+		void addCredit(final int len) {
+			synchronized (this) {
+				credit += len;
+			}
+			schedule();
+		}
+
+		protected synchronized boolean hasData() {
+			return credit > 0 && !done && !closed;
+		}
+
+		protected void closeLocalStream() throws IOException {
+			in.close();
+		}
+
+		protected void step() {
+			final int len;
+			synchronized (this) {
+				if (!hasData()) {
+					return;
+				}
+				len = Math.min(credit, CHUNK_SIZE);
+			}
+			final byte[] b = new byte[len];
+			try {
+				final int read = in.read(b, 0, len);
+				if (read < 0) {
+					synchronized (this) {
+						done = true;
+					}
+					endpoint.sendStreamOp(streamID,
+							StreamRequestMessage.PUSH_EOF, 0, null);
+					finish();
+					return;
+				}
+				synchronized (this) {
+					credit -= read;
+				}
+				if (read > 0) {
+					endpoint.sendStreamOp(streamID,
+							StreamRequestMessage.PUSH_DATA, read, b);
+				}
+			} catch (final IOException e) {
+				synchronized (this) {
+					done = true;
+				}
+				sendError(e);
+				finish();
+			}
+		}
+
+		/**
+		 * nothing more is read, so close the local stream without waiting
+		 * for the proxy to close it.
+		 */
+		private void finish() {
+			endpoint.removeStream(streamID, this);
+			close();
+		}
+	}
+
+	/**
+	 * Writes data sent by the proxy to a local output stream and acknowledges
+	 * it, so that the proxy can send more.
+	 */
+	static final class Writer extends StreamPump {
+
+		private final OutputStream out;
+
+		/**
+		 * the data waiting to be written.
+		 */
+		private final LinkedList queue = new LinkedList();
+
+		/**
+		 * a write has failed, further data is discarded.
+		 */
+		private boolean failed;
+
+		Writer(final ChannelEndpointImpl endpoint, final short streamID,
+				final OutputStream out) {
+			super(endpoint, streamID, StreamRequestMessage.WRITE_ERROR);
+			this.out = out;
+		}
+
+		/**
+		 * queue data for writing.
+		 * 
+		 * @param b
+		 *            the data.
+		 */
+		void enqueue(final byte[] b) {
+			synchronized (this) {
+				queue.add(b);
+			}
+			schedule();
+		}
+
+		protected synchronized boolean hasData() {
+			return !queue.isEmpty();
+		}
+
+		protected void closeLocalStream() throws IOException {
+			out.close();
+		}
+
+		protected void step() {
+			final byte[] b;
+			final boolean drained;
+			final boolean discard;
+			synchronized (this) {
+				if (queue.isEmpty()) {
+					return;
+				}
+				b = (byte[]) queue.removeFirst();
+				drained = queue.isEmpty();
+				discard = failed;
+			}
+			if (discard) {
+				return;
+			}
+			try {
+				out.write(b);
+				if (drained) {
+					out.flush();
+				}
+				endpoint.sendStreamOp(streamID,
+						StreamRequestMessage.WRITE_ACK, b.length, null);
+			} catch (final IOException e) {
+				synchronized (this) {
+					failed = true;
+				}
+				sendError(e);
+			}
+		}
+	}
+
+}
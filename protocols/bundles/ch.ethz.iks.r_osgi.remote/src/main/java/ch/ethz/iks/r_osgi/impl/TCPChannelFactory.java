@@ -30,8 +30,10 @@ package ch.ethz.iks.r_osgi.impl;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.IOException;
 import java.net.BindException;
 import java.net.ServerSocket;
@@ -65,6 +67,34 @@ final class TCPChannelFactory implements NetworkChannelFactory {
 
 	private static final String OSGI_SERIALIZATION = "osgi.basic";
 	private static final String SERIALIZATION_DEFAULT = System.getProperty("ch.ethz.iks.r_osgi.remote.serialization",OSGI_SERIALIZATION);
+
+	/**
+	 * create the object output stream for messages, according to the
+	 * configured serialization.
+	 * 
+	 * @param out
+	 *            the underlying stream.
+	 * @return the object output stream.
+	 * @throws IOException
+	 *             in case of IO failures.
+	 */
+	static ObjectOutputStream createObjectOutputStream(final OutputStream out) throws IOException {
+		return SERIALIZATION_DEFAULT.equals(OSGI_SERIALIZATION)?new OSGIObjectOutputStream(out,true):new SmartObjectOutputStream(out);
+	}
+
+	/**
+	 * create the object input stream for messages, according to the
+	 * configured serialization.
+	 * 
+	 * @param in
+	 *            the underlying stream.
+	 * @return the object input stream.
+	 * @throws IOException
+	 *             in case of IO failures.
+	 */
+	static ObjectInputStream createObjectInputStream(final InputStream in) throws IOException {
+		return SERIALIZATION_DEFAULT.equals(OSGI_SERIALIZATION)?new OSGIObjectInputStream(RemoteOSGiActivator.getActivator().getContext().getBundle(),in):new SmartObjectInputStream(in);
+	}
 	
 	/**
 	 * get a new connection.
@@ -224,11 +254,9 @@ final class TCPChannelFactory implements NetworkChannelFactory {
 				// for 1.2 VMs that do not support the setKeepAlive
 			}
 			socket.setTcpNoDelay(true);
-			BufferedOutputStream bos = new BufferedOutputStream(socket.getOutputStream());
-			output = SERIALIZATION_DEFAULT.equals(OSGI_SERIALIZATION)?new OSGIObjectOutputStream(bos,true):new SmartObjectOutputStream(bos);
+			output = createObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
 			output.flush();
-			BufferedInputStream bins = new BufferedInputStream(socket.getInputStream());
-			input = SERIALIZATION_DEFAULT.equals(OSGI_SERIALIZATION)?new OSGIObjectInputStream(RemoteOSGiActivator.getActivator().getContext().getBundle(),bins):new SmartObjectInputStream(bins);
+			input = createObjectInputStream(new BufferedInputStream(socket.getInputStream()));
 		}
 
 		/**
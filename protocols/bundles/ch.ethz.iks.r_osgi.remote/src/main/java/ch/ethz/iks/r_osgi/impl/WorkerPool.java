@@ -0,0 +1,238 @@
+/* Copyright (c) 2006-2009 Jan S. Rellermeyer
+ * Systems Group,
+ * Department of Computer Science, ETH Zurich.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    - Redistributions of source code must retain the above copyright notice,
+ *      this list of conditions and the following disclaimer.
+ *    - Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    - Neither the name of ETH Zurich nor the names of its contributors may be
+ *      used to endorse or promote products derived from this software without
+ *      specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package ch.ethz.iks.r_osgi.impl;
+
+import java.util.LinkedList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.osgi.service.log.LogService;
+
+/**
+ * The worker threads shared by all channel endpoints. Work is submitted
+ * through lanes. A lane runs at most a given number of its tasks at the same
+ * time, in submission order, so one endpoint or service cannot occupy all
+ * workers and a lane with a limit of one processes its tasks strictly in
+ * order.
+ */
+final class WorkerPool {
+
+	/**
+	 * the property for the number of shared worker threads.
+	 */
+	static final String WORKER_THREADS = "ch.ethz.iks.r_osgi.workerThreads"; //$NON-NLS-1$
+
+	private static final int MAX_THREADS = Integer.getInteger(WORKER_THREADS,
+			Math.max(16, 4 * Runtime.getRuntime().availableProcessors()))
+			.intValue();
+
+	/**
+	 * Workers block in service invocations, so this is a plain bounded pool
+	 * and not a work stealing pool. Idle workers time out.
+	 */
+	private static final ThreadPoolExecutor executor = createExecutor("r-OSGi Worker "); //$NON-NLS-1$
+
+	/**
+	 * delivers the messages received by channels without a receiver thread of
+	 * their own. Separate from the workers, so that replies are delivered
+	 * while all workers wait for them.
+	 */
+	private static final ThreadPoolExecutor receiver = createExecutor("r-OSGi Receiver "); //$NON-NLS-1$
+
+	/**
+	 * the number of tasks queued in all lanes, not yet handed to a worker.
+	 */
+	private static final AtomicInteger queued = new AtomicInteger();
+
+	private WorkerPool() {
+	}
+
+	private static ThreadPoolExecutor createExecutor(final String name) {
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ThreadPoolExecutor result = new ThreadPoolExecutor(MAX_THREADS,
+				MAX_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue(),
+				new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r, name
+								+ threadCount.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		result.allowCoreThreadTimeOut(true);
+		return result;
+	}
+
+	/**
+	 * create a lane for the messages received by a channel. The lane runs on
+	 * the receiver threads and delivers the messages one at a time, in the
+	 * order they were received.
+	 * 
+	 * @return the lane.
+	 */
+	static Lane createReceiverLane() {
+		return new Lane(1, receiver);
+	}
+
+	/**
+	 * get the number of tasks waiting in lanes.
+	 * 
+	 * @return the number of tasks.
+	 */
+	static int getQueuedTasks() {
+		return queued.get() + executor.getQueue().size();
+	}
+
+	/**
+	 * get the number of workers currently running a task.
+	 * 
+	 * @return the number of workers.
+	 */
+	static int getActiveWorkers() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * get the maximum number of workers.
+	 * 
+	 * @return the number of workers.
+	 */
+	static int getMaxWorkers() {
+		return MAX_THREADS;
+	}
+
+	/**
+	 * A queue of tasks with a concurrency limit.
+	 */
+	static final class Lane {
+
+		/**
+		 * the maximum number of tasks running at the same time.
+		 */
+		private final int limit;
+
+		/**
+		 * the executor running the tasks.
+		 */
+		private final ThreadPoolExecutor pool;
+
+		/**
+		 * the tasks waiting for a worker.
+		 */
+		private final LinkedList tasks = new LinkedList();
+
+		/**
+		 * the number of tasks handed to the executor.
+		 */
+		private int running;
+
+		/**
+		 * create a new lane.
+		 * 
+		 * @param limit
+		 *            the maximum number of tasks running at the same time.
+		 */
+		Lane(final int limit) {
+			this(limit, executor);
+		}
+
+		private Lane(final int limit, final ThreadPoolExecutor pool) {
+			this.limit = Math.max(1, limit);
+			this.pool = pool;
+		}
+
+		/**
+		 * queue a task.
+		 * 
+		 * @param r
+		 *            the task.
+		 */
+		void execute(final Runnable r) {
+			synchronized (this) {
+				if (running >= limit) {
+					tasks.add(r);
+					queued.incrementAndGet();
+					return;
+				}
+				running++;
+			}
+			submit(r);
+		}
+
+		/**
+		 * get the number of tasks waiting in this lane.
+		 * 
+		 * @return the number of tasks.
+		 */
+		synchronized int getQueuedTasks() {
+			return tasks.size();
+		}
+
+		/**
+		 * drop all waiting tasks.
+		 */
+		synchronized void clear() {
+			queued.addAndGet(-tasks.size());
+			tasks.clear();
+		}
+
+		private void submit(final Runnable r) {
+			pool.execute(new Runnable() {
+				public void run() {
+					Runnable next = r;
+					while (next != null) {
+						try {
+							next.run();
+						} catch (final Throwable t) {
+							if (RemoteOSGiServiceImpl.log != null) {
+								RemoteOSGiServiceImpl.log.log(
+										LogService.LOG_ERROR,
+										"Error in r-OSGi task", t); //$NON-NLS-1$
+							}
+						}
+						// keep the worker for this lane while it has work
+						synchronized (Lane.this) {
+							if (tasks.isEmpty()) {
+								running--;
+								next = null;
+							} else {
+								next = (Runnable) tasks.removeFirst();
+								queued.decrementAndGet();
+							}
+						}
+					}
+				}
+			});
+		}
+	}
+
+}
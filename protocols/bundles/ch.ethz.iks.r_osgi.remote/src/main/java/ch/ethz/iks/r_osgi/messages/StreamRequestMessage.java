@@ -62,6 +62,58 @@ public final class StreamRequestMessage extends RemoteOSGiMessage {
 	 */
 	public static final byte WRITE_ARRAY = 3;
 
+	/**
+	 * operation identifier for opening a push window on an input stream. The
+	 * owner of the stream starts sending <code>PUSH_DATA</code> messages
+	 * ahead of reads, up to lenOrVal bytes of credit.
+	 */
+	public static final byte OPEN_WINDOW = 4;
+
+	/**
+	 * operation identifier for returning lenOrVal bytes of credit for a push
+	 * window.
+	 */
+	public static final byte WINDOW_UPDATE = 5;
+
+	/**
+	 * operation identifier for data pushed from an input stream.
+	 */
+	public static final byte PUSH_DATA = 6;
+
+	/**
+	 * operation identifier for the end of a pushed input stream.
+	 */
+	public static final byte PUSH_EOF = 7;
+
+	/**
+	 * operation identifier for a failed read on a pushed input stream. The
+	 * data array contains the UTF-8 encoded exception message.
+	 */
+	public static final byte PUSH_ERROR = 8;
+
+	/**
+	 * operation identifier for closing a windowed stream.
+	 */
+	public static final byte CLOSE = 9;
+
+	/**
+	 * operation identifier for writing to an output stream without waiting
+	 * for a result.
+	 */
+	public static final byte WRITE_DATA = 10;
+
+	/**
+	 * operation identifier for returning lenOrVal bytes of credit for
+	 * <code>WRITE_DATA</code> that has been written to the output stream.
+	 */
+	public static final byte WRITE_ACK = 11;
+
+	/**
+	 * operation identifier for a failed write on an output stream. The data
+	 * array contains the UTF-8 encoded exception message.
+	 */
+	public static final byte WRITE_ERROR = 12;
+
 	/**
 	 * stream ID of the target stream.
 	 */
@@ -123,10 +175,19 @@ public final class StreamRequestMessage extends RemoteOSGiMessage {
 			break;
 		case READ_ARRAY:
 		case WRITE:
+		case OPEN_WINDOW:
+		case WINDOW_UPDATE:
+		case PUSH_EOF:
+		case CLOSE:
+		case WRITE_ACK:
 			lenOrVal = input.readInt();
 			b = null;
 			break;
 		case WRITE_ARRAY:
+		case PUSH_DATA:
+		case PUSH_ERROR:
+		case WRITE_DATA:
+		case WRITE_ERROR:
 			lenOrVal = input.readInt();
 			b = new byte[lenOrVal];
 			int rem = lenOrVal;
@@ -158,12 +219,35 @@ public final class StreamRequestMessage extends RemoteOSGiMessage {
 		out.writeByte(op);
 		if (op != READ) {
 			out.writeInt(lenOrVal);
-			if (op == WRITE_ARRAY) {
-				out.write(b);
+			if (hasData(op)) {
+				out.write(b, 0, lenOrVal);
 			}
 		}
 	}
 
+	/**
+	 * check if messages with the given operation carry a data array.
+	 * 
+	 * @param op
+	 *            the operation code.
+	 * @return <code>true</code> if the message body contains lenOrVal bytes
+	 *         of data.
+	 */
+	private static boolean hasData(final byte op) {
+		return op == WRITE_ARRAY || op == PUSH_DATA || op == PUSH_ERROR
+				|| op == WRITE_DATA || op == WRITE_ERROR;
+	}
+
+	/**
+	 * check if the operation belongs to a windowed stream. These operations
+	 * are not answered with a <code>StreamResultMessage</code>.
+	 * 
+	 * @return <code>true</code> for windowed stream operations.
+	 */
+	public boolean isWindowed() {
+		return op >= OPEN_WINDOW && op <= WRITE_ERROR;
+	}
+
 	/**
 	 * get the ID of the stream.
 	 * 
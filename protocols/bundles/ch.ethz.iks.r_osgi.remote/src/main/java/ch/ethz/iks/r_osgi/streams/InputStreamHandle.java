@@ -48,6 +48,13 @@ public class InputStreamHandle implements Serializable {
 	 */
 	private final short streamID;
 
+	/**
+	 * the maximum push window supported by the owner of the stream, 0 if the
+	 * owner only supports one request per read. Peers with older versions do
+	 * not send this field and it deserializes as 0.
+	 */
+	private final int window;
+
 	/**
 	 * Create a new stream handle.
 	 * 
@@ -55,7 +62,21 @@ public class InputStreamHandle implements Serializable {
 	 *            the stream id.
 	 */
 	public InputStreamHandle(final short streamID) {
+		this(streamID, 0);
+	}
+
+	/**
+	 * Create a new stream handle for a stream that can be read through a push
+	 * window.
+	 * 
+	 * @param streamID
+	 *            the stream id.
+	 * @param window
+	 *            the maximum window size in bytes, or 0.
+	 */
+	public InputStreamHandle(final short streamID, final int window) {
 		this.streamID = streamID;
+		this.window = window;
 	}
 
 	/**
@@ -67,4 +88,13 @@ public class InputStreamHandle implements Serializable {
 		return streamID;
 	}
 
+	/**
+	 * Get the maximum push window.
+	 * 
+	 * @return the window size in bytes, or 0 if not supported.
+	 */
+	public int getWindow() {
+		return window;
+	}
+
 }
@@ -30,11 +30,15 @@ package ch.ethz.iks.r_osgi.streams;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 
 import ch.ethz.iks.r_osgi.impl.ChannelEndpointImpl;
 
 /**
- * Proxy object for input streams.
+ * Proxy object for input streams. If the owner of the stream supports it, the
+ * stream is read through a push window: the owner sends data ahead of the
+ * reads up to the window size, the proxy buffers it and returns credit as the
+ * data is consumed. Otherwise, each read is a request to the owner.
  * 
  * @author Michael Duller, ETH Zurich
  */
@@ -50,6 +54,46 @@ public class InputStreamProxy extends InputStream {
 	 */
 	private final ChannelEndpointImpl endpoint;
 
+	/**
+	 * the window size, 0 if every read is a request to the owner.
+	 */
+	private final int window;
+
+	/**
+	 * the ring buffer for pushed data, allocated when the window is opened.
+	 */
+	private byte[] buffer;
+
+	/**
+	 * the position of the first unread byte in the buffer.
+	 */
+	private int head;
+
+	/**
+	 * the number of unread bytes in the buffer.
+	 */
+	private int count;
+
+	/**
+	 * the number of bytes consumed but not yet returned as credit.
+	 */
+	private int consumed;
+
+	/**
+	 * the owner has signalled the end of the stream.
+	 */
+	private boolean eof;
+
+	/**
+	 * the proxy has been closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * the exception reported by the owner or the endpoint, if any.
+	 */
+	private IOException failure;
+
 	/**
 	 * Create a new input stream proxy.
 	 * 
@@ -60,8 +104,24 @@ public class InputStreamProxy extends InputStream {
 	 */
 	public InputStreamProxy(final short streamID,
 			final ChannelEndpointImpl endpoint) {
+		this(streamID, endpoint, 0);
+	}
+
+	/**
+	 * Create a new input stream proxy that reads through a push window.
+	 * 
+	 * @param streamID
+	 *            the stream id.
+	 * @param endpoint
+	 *            the channel endpoint.
+	 * @param window
+	 *            the window size in bytes, or 0 to send a request per read.
+	 */
+	public InputStreamProxy(final short streamID,
+			final ChannelEndpointImpl endpoint, final int window) {
 		this.streamID = streamID;
 		this.endpoint = endpoint;
+		this.window = window;
 	}
 
 	/**
@@ -70,7 +130,20 @@ public class InputStreamProxy extends InputStream {
 	 * @see java.io.InputStream#read()
 	 */
 	public int read() throws IOException {
-		return endpoint.readStream(streamID);
+		if (window == 0) {
+			return endpoint.readStream(streamID);
+		}
+		final int result;
+		final int credit;
+		synchronized (this) {
+			if (!awaitData()) {
+				return -1;
+			}
+			result = buffer[head] & 0xff;
+			credit = consume(1);
+		}
+		returnCredit(credit);
+		return result;
 	}
 
 	/**
@@ -80,7 +153,177 @@ public class InputStreamProxy extends InputStream {
 	 */
 	public int read(final byte[] b, final int off, final int len)
 			throws IOException {
-		return endpoint.readStream(streamID, b, off, len);
+		if (window == 0) {
+			return endpoint.readStream(streamID, b, off, len);
+		}
+		if (b == null) {
+			throw new NullPointerException();
+		}
+		if ((off < 0) || (len < 0) || (len + off > b.length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		final int n;
+		final int credit;
+		synchronized (this) {
+			if (!awaitData()) {
+				return -1;
+			}
+			n = Math.min(len, count);
+			final int first = Math.min(n, buffer.length - head);
+			System.arraycopy(buffer, head, b, off, first);
+			if (first < n) {
+				System.arraycopy(buffer, 0, b, off + first, n - first);
+			}
+			credit = consume(n);
+		}
+		returnCredit(credit);
+		return n;
+	}
+
+	/**
+	 * Get the number of pushed bytes that can be read without blocking.
+	 * 
+	 * @see java.io.InputStream#available()
+	 */
+	public synchronized int available() throws IOException {
+		return count;
+	}
+
+	/**
+	 * Close the stream. With a push window, the owner stops sending data and
+	 * closes the stream on its side.
+	 * 
+	 * @see java.io.InputStream#close()
+	 */
+	public void close() throws IOException {
+		if (window == 0) {
+			return;
+		}
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			buffer = null;
+			count = 0;
+			notifyAll();
+		}
+		endpoint.closeStreamProxy(streamID);
+	}
+
+	/**
+	 * Wait until pushed data is available. Opens the window on the first call.
+	 * 
+	 * @return <code>false</code> if the end of the stream has been reached.
+	 * @throws IOException
+	 *             if the stream is closed or has failed.
+	 */
+	private boolean awaitData() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed"); //$NON-NLS-1$
+		}
+		if (buffer == null) {
+			// pushed data is only accepted once the buffer exists, and it
+			// cannot arrive before this method releases the lock
+			endpoint.openStreamWindow(streamID, window);
+			buffer = new byte[window];
+		}
+		try {
+			while (count == 0 && !eof && failure == null && !closed) {
+				wait();
+			}
+		} catch (final InterruptedException ie) {
+			throw new InterruptedIOException(
+					"Interrupted while reading from stream " + streamID); //$NON-NLS-1$
+		}
+		if (closed) {
+			throw new IOException("Stream closed"); //$NON-NLS-1$
+		}
+		if (count > 0) {
+			return true;
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return false;
+	}
+
+	/**
+	 * Remove consumed bytes from the buffer.
+	 * 
+	 * @return the credit to return to the owner, or 0.
+	 */
+	private int consume(final int n) {
+		head = (head + n) % buffer.length;
+		count -= n;
+		consumed += n;
+		// return credit in batches of half a window
+		if (consumed >= window / 2 && !eof) {
+			final int credit = consumed;
+			consumed = 0;
+			return credit;
+		}
+		return 0;
+	}
+
+	private void returnCredit(final int credit) throws IOException {
+		if (credit > 0) {
+			endpoint.updateStreamWindow(streamID, credit);
+		}
+	}
+
+	/**
+	 * Called by the endpoint when data has been pushed.
+	 * 
+	 * @param b
+	 *            the data.
+	 * @param len
+	 *            the number of bytes.
+	 */
+	public synchronized void received(final byte[] b, final int len) {
+		if (closed || buffer == null) {
+			return;
+		}
+		if (len > buffer.length - count) {
+			failure = new IOException("Push window of stream " + streamID //$NON-NLS-1$
+					+ " exceeded"); //$NON-NLS-1$
+			notifyAll();
+			return;
+		}
+		final int tail = (head + count) % buffer.length;
+		final int first = Math.min(len, buffer.length - tail);
+		System.arraycopy(b, 0, buffer, tail, first);
+		if (first < len) {
+			System.arraycopy(b, first, buffer, 0, len - first);
+		}
+		count += len;
+		notifyAll();
+	}
+
+	/**
+	 * Called by the endpoint when the owner has reached the end of the
+	 * stream.
+	 */
+	public synchronized void receivedEOF() {
+		eof = true;
+		notifyAll();
+	}
+
+	/**
+	 * Called by the endpoint when the stream has failed on the owner's side
+	 * or the channel has been closed.
+	 * 
+	 * @param e
+	 *            the exception to throw from subsequent reads.
+	 */
+	public synchronized void failed(final IOException e) {
+		if (failure == null) {
+			failure = e;
+		}
+		notifyAll();
 	}
 
 }
@@ -47,6 +47,13 @@ public final class OutputStreamHandle implements Serializable {
 	 */
 	private final short streamID;
 
+	/**
+	 * the number of bytes the owner of the stream accepts ahead of the
+	 * writes, 0 if the owner only supports one request per write. Peers with
+	 * older versions do not send this field and it deserializes as 0.
+	 */
+	private final int window;
+
 	/**
 	 * create a new output stream handle.
 	 * 
@@ -54,7 +61,21 @@ public final class OutputStreamHandle implements Serializable {
 	 *            the stream ID.
 	 */
 	public OutputStreamHandle(final short streamID) {
+		this(streamID, 0);
+	}
+
+	/**
+	 * create a new output stream handle for a stream that accepts writes
+	 * ahead of the acknowledgements.
+	 * 
+	 * @param streamID
+	 *            the stream ID.
+	 * @param window
+	 *            the window size in bytes, or 0.
+	 */
+	public OutputStreamHandle(final short streamID, final int window) {
 		this.streamID = streamID;
+		this.window = window;
 	}
 
 	/**
@@ -66,4 +87,13 @@ public final class OutputStreamHandle implements Serializable {
 		return streamID;
 	}
 
+	/**
+	 * get the window size.
+	 * 
+	 * @return the window size in bytes, or 0 if not supported.
+	 */
+	public int getWindow() {
+		return window;
+	}
+
 }
@@ -29,12 +29,15 @@
 package ch.ethz.iks.r_osgi.streams;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 
 import ch.ethz.iks.r_osgi.impl.ChannelEndpointImpl;
 
 /**
- * Output stream proxy.
+ * Output stream proxy. If the owner of the stream supports it, writes are
+ * sent without waiting for a result, as long as the owner has acknowledged
+ * all but a window of bytes. Otherwise, each write is a request to the owner.
  * 
  * @author Michael Duller, ETH Zurich.
  */
@@ -50,6 +53,26 @@ public class OutputStreamProxy extends OutputStream {
 	 */
 	private final ChannelEndpointImpl endpoint;
 
+	/**
+	 * the window size, 0 if every write is a request to the owner.
+	 */
+	private final int window;
+
+	/**
+	 * the number of bytes that can be sent before the next acknowledgement.
+	 */
+	private int credit;
+
+	/**
+	 * the proxy has been closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * the exception reported by the owner or the endpoint, if any.
+	 */
+	private IOException failure;
+
 	/**
 	 * create a new output stream proxy.
 	 * 
@@ -60,8 +83,26 @@ public class OutputStreamProxy extends OutputStream {
 	 */
 	public OutputStreamProxy(final short streamID,
 			final ChannelEndpointImpl endpoint) {
+		this(streamID, endpoint, 0);
+	}
+
+	/**
+	 * create a new output stream proxy that writes ahead of the
+	 * acknowledgements.
+	 * 
+	 * @param streamID
+	 *            the stream ID.
+	 * @param endpoint
+	 *            the endpoint.
+	 * @param window
+	 *            the window size in bytes, or 0 to send a request per write.
+	 */
+	public OutputStreamProxy(final short streamID,
+			final ChannelEndpointImpl endpoint, final int window) {
 		this.streamID = streamID;
 		this.endpoint = endpoint;
+		this.window = window;
+		this.credit = window;
 	}
 
 	/**
@@ -73,7 +114,11 @@ public class OutputStreamProxy extends OutputStream {
 	 *             in case of IO failures.
 	 */
 	public void write(final int b) throws IOException {
-		endpoint.writeStream(streamID, b);
+		if (window == 0) {
+			endpoint.writeStream(streamID, b);
+			return;
+		}
+		write(new byte[] { (byte) b }, 0, 1);
 	}
 
 	/**
@@ -88,7 +133,122 @@ public class OutputStreamProxy extends OutputStream {
 	 */
 	public void write(final byte[] b, final int off, final int len)
 			throws IOException {
-		endpoint.writeStream(streamID, b, off, len);
+		if (window == 0) {
+			endpoint.writeStream(streamID, b, off, len);
+			return;
+		}
+		if (b == null) {
+			throw new NullPointerException();
+		}
+		if ((off < 0) || (len < 0) || (len + off > b.length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		int pos = off;
+		int rem = len;
+		while (rem > 0) {
+			final int n;
+			synchronized (this) {
+				try {
+					while (credit == 0 && failure == null && !closed) {
+						wait();
+					}
+				} catch (final InterruptedException ie) {
+					throw new InterruptedIOException(
+							"Interrupted while writing to stream " + streamID); //$NON-NLS-1$
+				}
+				checkState();
+				n = Math.min(rem, credit);
+				credit -= n;
+			}
+			endpoint.writeStreamData(streamID, b, pos, n);
+			pos += n;
+			rem -= n;
+		}
+	}
+
+	/**
+	 * flush the stream. With a window, waits until the owner has written all
+	 * data to the stream.
+	 * 
+	 * @throws IOException
+	 *             in case of IO failures.
+	 */
+	public void flush() throws IOException {
+		if (window == 0) {
+			return;
+		}
+		synchronized (this) {
+			try {
+				while (credit < window && failure == null && !closed) {
+					wait();
+				}
+			} catch (final InterruptedException ie) {
+				throw new InterruptedIOException(
+						"Interrupted while flushing stream " + streamID); //$NON-NLS-1$
+			}
+			checkState();
+		}
+	}
+
+	/**
+	 * close the stream. With a window, flushes the stream and closes it on the
+	 * owner's side.
+	 * 
+	 * @throws IOException
+	 *             in case of IO failures.
+	 */
+	public void close() throws IOException {
+		if (window == 0) {
+			return;
+		}
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+		}
+		try {
+			flush();
+		} finally {
+			synchronized (this) {
+				closed = true;
+				notifyAll();
+			}
+			endpoint.closeStreamProxy(streamID);
+		}
+	}
+
+	private void checkState() throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+		if (closed) {
+			throw new IOException("Stream closed"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Called by the endpoint when the owner has written data to the stream.
+	 * 
+	 * @param len
+	 *            the number of bytes written.
+	 */
+	public synchronized void acknowledged(final int len) {
+		credit += len;
+		notifyAll();
+	}
+
+	/**
+	 * Called by the endpoint when the stream has failed on the owner's side
+	 * or the channel has been closed.
+	 * 
+	 * @param e
+	 *            the exception to throw from subsequent operations.
+	 */
+	public synchronized void failed(final IOException e) {
+		if (failure == null) {
+			failure = e;
+		}
+		notifyAll();
 	}
 
 }
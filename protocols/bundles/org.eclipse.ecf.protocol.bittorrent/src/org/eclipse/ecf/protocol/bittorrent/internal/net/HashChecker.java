@@ -0,0 +1,271 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.protocol.bittorrent.internal.net;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.eclipse.ecf.protocol.bittorrent.internal.torrent.DataFile;
+
+/**
+ * A <code>HashChecker</code> verifies the pieces of a torrent against the
+ * SHA-1 hashes of its metainfo. The pieces are split into runs of consecutive
+ * pieces that are verified by a number of worker threads, each with its own
+ * <code>MessageDigest</code>. The files are read through memory-mapped
+ * regions of their <code>FileChannel</code>s.
+ */
+class HashChecker {
+
+	/**
+	 * The largest number of bytes of a run of pieces, and so of the regions
+	 * that are mapped at a time, unless a single piece is larger. There is no
+	 * way to unmap a region, it is released once it has been garbage
+	 * collected. Until then the file stays in use, which on Windows means it
+	 * cannot be deleted or truncated.
+	 */
+	private static final int MAX_RUN_LENGTH = 64 * 1024 * 1024;
+
+	/**
+	 * The number of bytes that are copied out of a mapped region and passed to
+	 * the digest at a time.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * This listener is notified of the result of each piece's hash check. It
+	 * is called by the worker threads, so pieces may be reported out of order
+	 * and concurrently.
+	 */
+	interface IPieceCheckListener {
+
+		/**
+		 * @param number
+		 *            the number of the piece that has been checked
+		 * @param valid
+		 *            <code>true</code> if the piece's data matches its hash
+		 */
+		public void pieceChecked(int number, boolean valid);
+	}
+
+	private final DataFile[] files;
+
+	/**
+	 * The position of the first byte of each file within the torrent's data.
+	 */
+	private final long[] offsets;
+
+	private final byte[][] hashes;
+
+	private final int pieceLength;
+
+	private final long total;
+
+	private final IPieceCheckListener listener;
+
+	private int piecesPerRun;
+
+	/**
+	 * The first piece of the next run to be verified.
+	 */
+	private int nextPiece = 0;
+
+	private volatile boolean cancelled = false;
+
+	private IOException failure;
+
+	static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Creates a new <code>HashChecker</code> for the given files.
+	 *
+	 * @param files
+	 *            the files of the torrent in the order of the metainfo
+	 * @param hashes
+	 *            the SHA-1 hash of each piece
+	 * @param pieceLength
+	 *            the length of a piece
+	 * @param listener
+	 *            the listener to notify of each piece's result
+	 */
+	HashChecker(DataFile[] files, byte[][] hashes, int pieceLength,
+			IPieceCheckListener listener) {
+		this.files = files;
+		this.hashes = hashes;
+		this.pieceLength = pieceLength;
+		this.listener = listener;
+		offsets = new long[files.length];
+		long length = 0;
+		for (int i = 0; i < files.length; i++) {
+			offsets[i] = length;
+			length += files[i].length();
+		}
+		total = length;
+	}
+
+	/**
+	 * Verifies all pieces and returns when they have been checked, the check
+	 * failed, or the calling thread has been interrupted.
+	 *
+	 * @param name
+	 *            the name prefix of the worker threads
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted, the workers are stopped
+	 *             after the pieces they are checking
+	 * @throws IOException
+	 *             If an I/O error occurs while reading from one of the files
+	 */
+	void run(String name) throws InterruptedException, IOException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		// give each thread several runs so that they finish at about the same
+		// time
+		piecesPerRun = Math.max(1, Math.min(MAX_RUN_LENGTH / pieceLength,
+				hashes.length / (threads * 4)));
+		int runs = (hashes.length + piecesPerRun - 1) / piecesPerRun;
+		threads = Math.max(1, Math.min(threads, runs));
+
+		Worker[] workers = new Worker[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Worker(name + " #" + i); //$NON-NLS-1$
+			workers[i].start();
+		}
+		try {
+			for (int i = 0; i < threads; i++) {
+				workers[i].join();
+			}
+		} catch (InterruptedException e) {
+			// the workers are not interrupted, an interrupt while mapping or
+			// reading would close the channels that are shared with the
+			// peer connections
+			cancelled = true;
+			for (int i = 0; i < threads; i++) {
+				joinUninterruptibly(workers[i]);
+			}
+			throw e;
+		}
+		synchronized (this) {
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	private static void joinUninterruptibly(Thread thread) {
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Claims the next run of pieces to verify.
+	 *
+	 * @return the number of the first piece of the run, or <code>-1</code> if
+	 *         there are no more pieces to check or the check has been stopped
+	 */
+	private synchronized int claim() {
+		if (cancelled || nextPiece >= hashes.length) {
+			return -1;
+		}
+		int first = nextPiece;
+		nextPiece += piecesPerRun;
+		return first;
+	}
+
+	private synchronized void fail(IOException e) {
+		if (failure == null) {
+			failure = e;
+		}
+		cancelled = true;
+	}
+
+	private class Worker extends Thread {
+
+		private final MessageDigest digest = createDigest();
+
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+
+		private Worker(String name) {
+			super(name);
+		}
+
+		public void run() {
+			try {
+				int first = claim();
+				while (first != -1) {
+					check(first, Math.min(first + piecesPerRun, hashes.length));
+					first = claim();
+				}
+			} catch (IOException e) {
+				fail(e);
+			}
+		}
+
+		/**
+		 * Verifies the pieces from <code>first</code> up to but excluding
+		 * <code>last</code>, which are read one file region at a time. A
+		 * piece that spans several files is digested across their regions.
+		 */
+		private void check(int first, int last) throws IOException {
+			long start = (long) first * pieceLength;
+			long end = Math.min(total, (long) last * pieceLength);
+			int piece = first;
+			long pieceEnd = Math.min(total, start + pieceLength);
+			long position = start;
+			digest.reset();
+			for (int i = 0; i < files.length && offsets[i] < end; i++) {
+				long fileEnd = offsets[i] + files[i].length();
+				if (fileEnd <= start) {
+					continue;
+				}
+				long from = Math.max(start, offsets[i]);
+				long to = Math.min(end, fileEnd);
+				MappedByteBuffer region = files[i].getChannel().map(
+						FileChannel.MapMode.READ_ONLY, from - offsets[i],
+						to - from);
+				while (region.hasRemaining()) {
+					if (cancelled) {
+						return;
+					}
+					int count = (int) Math.min(region.remaining(), Math.min(
+							pieceEnd - position, buffer.length));
+					region.get(buffer, 0, count);
+					digest.update(buffer, 0, count);
+					position += count;
+					if (position == pieceEnd) {
+						listener.pieceChecked(piece, MessageDigest.isEqual(
+								digest.digest(), hashes[piece]));
+						piece++;
+						pieceEnd = Math.min(total, pieceEnd + pieceLength);
+					}
+				}
+			}
+		}
+	}
+
+}
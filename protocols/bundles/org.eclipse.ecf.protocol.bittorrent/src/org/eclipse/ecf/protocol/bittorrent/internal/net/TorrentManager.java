@@ -23,12 +23,8 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLEncoder;
-import java.nio.ByteBuffer;
-import java.nio.channels.ClosedByInterruptException;
-import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
@@ -60,8 +56,6 @@ public class TorrentManager {
 
 	private static final String UP_SPEED_KEY = "up.speed"; //$NON-NLS-1$
 
-	private static MessageDigest shaDigest;
-
 	private static File statePath;
 
 	private final ConnectionPool connectionPool;
@@ -84,6 +78,17 @@ public class TorrentManager {
 
 	private final TorrentFile torrent;
 
+	/**
+	 * The SHA-1 hash of each piece as specified by the torrent's metainfo.
+	 */
+	private final byte[][] pieceHashes;
+
+	/**
+	 * The digest used to check pieces as they complete, only used whilst
+	 * holding this manager's lock.
+	 */
+	private final MessageDigest shaDigest = HashChecker.createDigest();
+
 	private final Properties properties;
 
 	private final File propertiesFile;
@@ -269,14 +274,6 @@ public class TorrentManager {
 
 	private boolean isHashChecking = false;
 
-	static {
-		try {
-			shaDigest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
-		} catch (NoSuchAlgorithmException e) {
-			throw new RuntimeException(e);
-		}
-	}
-
 	public static void setStatePath(File path) {
 		statePath = path;
 	}
@@ -325,6 +322,11 @@ public class TorrentManager {
 		torrent.save(new File(statePath, hexHash + ".torrent")); //$NON-NLS-1$
 
 		int numPieces = torrent.getNumPieces();
+		String[] hashes = torrent.getPieces();
+		pieceHashes = new byte[hashes.length][];
+		for (int i = 0; i < hashes.length; i++) {
+			pieceHashes[i] = hashes[i].getBytes("ISO-8859-1"); //$NON-NLS-1$
+		}
 		pieces = new Vector(numPieces);
 		trackerThread = new TrackerThread();
 		states = PieceState.createStates(numPieces);
@@ -805,8 +807,8 @@ public class TorrentManager {
 	private boolean hashCheck(int piece) throws IllegalArgumentException,
 			IOException {
 		byte[] data = getPiece(piece);
-		return data == null ? false : torrent.getPieces()[piece]
-				.equals(new String(shaDigest.digest(data), "ISO-8859-1")); //$NON-NLS-1$
+		return data == null ? false : MessageDigest.isEqual(shaDigest
+				.digest(data), pieceHashes[piece]);
 	}
 
 	private void saveState() throws IOException {
@@ -1504,6 +1506,40 @@ public class TorrentManager {
 		isCompleted = true;
 	}
 
+	/**
+	 * Updates the state of a piece after its hash has been checked by the
+	 * {@link HashCheckThread}.
+	 * 
+	 * @param number
+	 *            the number of the piece
+	 * @param valid
+	 *            <code>true</code> if the piece's data matches its hash
+	 */
+	private void setHashChecked(int number, boolean valid) {
+		synchronized (this) {
+			Piece piece = (Piece) pieces.get(number);
+			if (piece.isComplete()) {
+				completedPieces--;
+				hasPiece[number] = false;
+			}
+			remaining += piece.getWritten();
+			if (valid) {
+				piece.setAsCompleted();
+				hasPiece[number] = true;
+				completedPieces++;
+				remaining -= piece.getLength();
+			} else {
+				piece.reset();
+			}
+			incompletePieces.remove(piece);
+		}
+		fireHashCheckedEvent(number);
+	}
+
+	/**
+	 * Checks all pieces with a {@link HashChecker}, which spreads the work
+	 * across several threads.
+	 */
 	private class HashCheckThread extends Thread {
 
 		private HashCheckThread() {
@@ -1517,65 +1553,12 @@ public class TorrentManager {
 
 		public void run() {
 			try {
-				int read = 0;
-				int count = 0;
-				ByteBuffer buffer = ByteBuffer.allocate(pieceLength);
-				for (int i = 0; i < files.length; i++) {
-					FileChannel channel = files[i].getChannel();
-					while ((read += channel.read(buffer)) == pieceLength) {
-						if (isInterrupted()) {
-							cleanup();
-							return;
-						}
-						Piece piece = (Piece) pieces.get(count);
-						if (piece.isComplete()) {
-							completedPieces--;
-							hasPiece[i] = false;
-						}
-						remaining += piece.getWritten();
-						buffer.rewind();
-						if (torrent.getPieces()[count]
-								.equals(new String(shaDigest.digest(buffer
-										.array()), "ISO-8859-1"))) { //$NON-NLS-1$
-							piece.setAsCompleted();
-							hasPiece[count] = true;
-							completedPieces++;
-							remaining -= piece.getLength();
-						} else {
-							piece.reset();
-						}
-						incompletePieces.remove(piece);
-						fireHashCheckedEvent(count);
-						count++;
-						read = 0;
-					}
-				}
-
-				if (read > 0) {
-					if (isInterrupted()) {
-						cleanup();
-						return;
-					}
-					Piece piece = (Piece) pieces.get(count);
-					if (piece.isComplete()) {
-						completedPieces--;
-						hasPiece[count] = false;
-					}
-					remaining += piece.getWritten();
-					buffer.rewind();
-					shaDigest.update(buffer.array(), 0, read);
-					if (torrent.getPieces()[count].equals(new String(shaDigest
-							.digest(), "ISO-8859-1"))) { //$NON-NLS-1$
-						hasPiece[count] = true;
-						piece.setAsCompleted();
-						completedPieces++;
-						remaining -= piece.getLength();
-					} else {
-						piece.reset();
-					}
-					incompletePieces.remove(piece);
-					fireHashCheckedEvent(count);
-				}
+				new HashChecker(files, pieceHashes, pieceLength,
+						new HashChecker.IPieceCheckListener() {
+							public void pieceChecked(int number, boolean valid) {
+								setHashChecked(number, valid);
+							}
+						}).run(getName());
 
 				updateBitfield();
 				saveState();
@@ -1591,9 +1574,10 @@ public class TorrentManager {
 						throw new RuntimeException(e);
 					}
 				}
-			} catch (ClosedByInterruptException e) {
+			} catch (InterruptedException e) {
 				cleanup();
 				try {
+					updateBitfield();
 					saveState();
 				} catch (IOException ex) {
 					throw new RuntimeException(ex);
@@ -0,0 +1,65 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.datashare.nio;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+
+/**
+ * A pool of equally sized read buffers shared by all connections.
+ */
+final class BufferPool {
+
+	private final int bufferSize;
+
+	private final boolean direct;
+
+	private final int maxPooled;
+
+	private final LinkedList buffers = new LinkedList();
+
+	BufferPool(int bufferSize, boolean direct, int maxPooled) {
+		this.bufferSize = bufferSize;
+		this.direct = direct;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * Retrieves a cleared buffer from the pool, allocating a new one if the
+	 * pool is empty.
+	 *
+	 * @return a cleared buffer, will not be <code>null</code>
+	 */
+	synchronized ByteBuffer acquire() {
+		if (!buffers.isEmpty()) {
+			return (ByteBuffer) buffers.removeFirst();
+		}
+		return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer
+				.allocate(bufferSize);
+	}
+
+	/**
+	 * Returns a buffer to the pool. The buffer must not be used by the caller
+	 * afterwards.
+	 *
+	 * @param buffer
+	 *            the buffer to return
+	 */
+	synchronized void release(ByteBuffer buffer) {
+		if (buffers.size() < maxPooled && buffer.capacity() == bufferSize) {
+			buffer.clear();
+			buffers.addFirst(buffer);
+		}
+	}
+
+}
@@ -0,0 +1,458 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.datashare.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+
+/**
+ * A non-blocking socket connection that is driven by a {@link SelectorLoop}.
+ * <p>
+ * Data is exchanged in frames, each of which is a four byte length followed by
+ * that many bytes of payload. Incoming data is read into a pooled buffer and
+ * split into frames which are passed on to the connection's
+ * {@link FrameHandler}. Outgoing frames are queued and written with a single
+ * gathering write whenever the socket is writable.
+ * </p>
+ * <p>
+ * All methods other than {@link #send(byte[])} and {@link #close()} must only
+ * be invoked from the selector loop's thread.
+ * </p>
+ */
+final class Connection {
+
+	/**
+	 * The maximum number of buffers handed to a single gathering write.
+	 */
+	private static final int MAX_GATHER = 128;
+
+	/**
+	 * Receives the frames that have been read from a connection.
+	 */
+	static abstract class FrameHandler {
+
+		/**
+		 * Returns the buffers that the payload of an incoming frame should be
+		 * read into. If <code>null</code> is returned or the buffers cannot
+		 * hold the whole payload, the payload is delivered to
+		 * {@link #frameReceived(Connection, byte[])} instead.
+		 *
+		 * @param connection
+		 *            the connection the frame is being read from
+		 * @param length
+		 *            the length of the frame's payload
+		 * @return the buffers to read the payload into, may be
+		 *         <code>null</code>
+		 */
+		ByteBuffer[] getBuffers(Connection connection, int length) {
+			return null;
+		}
+
+		abstract void frameReceived(Connection connection, byte[] data)
+				throws IOException;
+
+		/**
+		 * Notifies that the payload of a frame has been read into the buffers
+		 * returned by {@link #getBuffers(Connection, int)}.
+		 *
+		 * @param connection
+		 *            the connection the frame was read from
+		 * @param buffers
+		 *            the buffers, positioned after the payload
+		 */
+		void buffersReceived(Connection connection, ByteBuffer[] buffers) {
+			// nothing to do
+		}
+
+		void closed(Connection connection) {
+			// nothing to do
+		}
+	}
+
+	private final SelectorLoop loop;
+
+	private final SocketChannel socket;
+
+	private SelectionKey key;
+
+	private FrameHandler handler;
+
+	/**
+	 * The pooled buffer that incoming data is read into.
+	 */
+	private ByteBuffer readBuffer;
+
+	/**
+	 * The buffers that the payload of the current frame is being read into, or
+	 * <code>null</code> if the next frame's header is expected.
+	 */
+	private ByteBuffer[] target;
+
+	/**
+	 * The original limits of the handler supplied target buffers, or
+	 * <code>null</code> if the payload is read into {@link #frame}.
+	 */
+	private int[] targetLimits;
+
+	private long targetRemaining;
+
+	private byte[] frame;
+
+	/**
+	 * Whether we are within {@link #read()}, the read buffer is only returned
+	 * to the pool once reading has completed.
+	 */
+	private boolean reading;
+
+	/**
+	 * A queue of buffers that still need to be written.
+	 */
+	private final LinkedList writeQueue = new LinkedList();
+
+	/**
+	 * Whether a write has been requested from the selector loop and not yet
+	 * completed, guarded by {@link #writeQueue}.
+	 */
+	private boolean writeScheduled;
+
+	/**
+	 * Guarded by {@link #writeQueue}.
+	 */
+	private boolean closed;
+
+	private final Runnable flushTask = new Runnable() {
+		public void run() {
+			flush();
+		}
+	};
+
+	private final Runnable closeTask = new Runnable() {
+		public void run() {
+			doClose();
+		}
+	};
+
+	Connection(SelectorLoop loop, SocketChannel socket, FrameHandler handler) {
+		this.loop = loop;
+		this.socket = socket;
+		this.handler = handler;
+		this.readBuffer = SelectorLoop.BUFFERS.acquire();
+	}
+
+	void setHandler(FrameHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Registers this connection with the selector. If the socket is still
+	 * connecting, it will be registered for connection completion first.
+	 *
+	 * @param selector
+	 *            the selector to register with
+	 * @throws ClosedChannelException
+	 *             if the socket has been closed
+	 */
+	void register(Selector selector) throws ClosedChannelException {
+		int ops = socket.isConnectionPending() ? SelectionKey.OP_CONNECT
+				: getReadyOps();
+		key = socket.register(selector, ops, this);
+	}
+
+	private int getReadyOps() {
+		synchronized (writeQueue) {
+			return writeQueue.isEmpty() ? SelectionKey.OP_READ
+					: SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+		}
+	}
+
+	void finishConnect() throws IOException {
+		if (socket.finishConnect()) {
+			key.interestOps(getReadyOps());
+		}
+	}
+
+	/**
+	 * Queues the specified data to be sent as a single frame. The array is
+	 * written as is and must not be modified afterwards.
+	 *
+	 * @param data
+	 *            the frame's payload
+	 * @throws IOException
+	 *             if this connection has been closed
+	 */
+	void send(byte[] data) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(4);
+		header.putInt(data.length);
+		header.flip();
+
+		synchronized (writeQueue) {
+			if (closed) {
+				throw new IOException("Connection has been closed"); //$NON-NLS-1$
+			}
+			writeQueue.add(header);
+			writeQueue.add(ByteBuffer.wrap(data));
+			if (writeScheduled) {
+				return;
+			}
+			writeScheduled = true;
+		}
+		loop.execute(flushTask);
+	}
+
+	private void flush() {
+		if (key == null || !key.isValid() || !socket.isConnected()) {
+			// not connected yet, finishConnect() picks up the queue
+			return;
+		}
+
+		try {
+			write();
+		} catch (IOException e) {
+			loop.log("Error occurred while sending message", e); //$NON-NLS-1$
+			doClose();
+		}
+	}
+
+	/**
+	 * Writes as much of the queued data as the socket accepts and updates the
+	 * interest in write readiness accordingly.
+	 *
+	 * @throws IOException
+	 *             if an IO error occurs while writing
+	 */
+	void write() throws IOException {
+		ByteBuffer[] buffers;
+		synchronized (writeQueue) {
+			int count = Math.min(writeQueue.size(), MAX_GATHER);
+			buffers = new ByteBuffer[count];
+			for (int i = 0; i < count; i++) {
+				buffers[i] = (ByteBuffer) writeQueue.get(i);
+			}
+		}
+
+		if (buffers.length != 0) {
+			socket.write(buffers);
+		}
+
+		synchronized (writeQueue) {
+			while (!writeQueue.isEmpty()
+					&& !((ByteBuffer) writeQueue.getFirst()).hasRemaining()) {
+				writeQueue.removeFirst();
+			}
+
+			if (writeQueue.isEmpty()) {
+				writeScheduled = false;
+				key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+			} else {
+				key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+			}
+		}
+	}
+
+	/**
+	 * Reads the available data from the socket and passes any complete frames
+	 * to the frame handler.
+	 *
+	 * @throws IOException
+	 *             if an IO error occurs or an invalid frame has been received
+	 */
+	void read() throws IOException {
+		reading = true;
+		try {
+			if (target != null && readBuffer.position() == 0
+					&& targetRemaining >= readBuffer.capacity()) {
+				// large payload, read it straight into its destination
+				long read = socket.read(target);
+				if (read == -1) {
+					doClose();
+				} else {
+					targetRemaining -= read;
+					if (targetRemaining == 0) {
+						completeFrame();
+					}
+				}
+				return;
+			}
+
+			int read = socket.read(readBuffer);
+			if (read == -1) {
+				doClose();
+				return;
+			}
+
+			readBuffer.flip();
+			while (!isClosed() && processBuffer()) {
+				// keep going while there are complete headers or payloads
+			}
+			if (!isClosed()) {
+				readBuffer.compact();
+			}
+		} finally {
+			reading = false;
+			if (isClosed()) {
+				releaseBuffer();
+			}
+		}
+	}
+
+	/**
+	 * Consumes data from the read buffer.
+	 *
+	 * @return <code>true</code> if a header or a complete payload has been
+	 *         consumed, <code>false</code> if more data is needed
+	 * @throws IOException
+	 *             if an invalid frame length has been read
+	 */
+	private boolean processBuffer() throws IOException {
+		if (target == null) {
+			if (readBuffer.remaining() < 4) {
+				return false;
+			}
+
+			int length = readBuffer.getInt();
+			if (length < 0 || length > SelectorLoop.MAX_FRAME_SIZE) {
+				throw new IOException("Invalid frame length: " + length); //$NON-NLS-1$
+			}
+			beginFrame(length);
+			return true;
+		}
+
+		for (int i = 0; i < target.length && readBuffer.hasRemaining(); i++) {
+			int count = Math.min(target[i].remaining(), readBuffer.remaining());
+			if (count != 0) {
+				ByteBuffer source = readBuffer.duplicate();
+				source.limit(source.position() + count);
+				target[i].put(source);
+				readBuffer.position(readBuffer.position() + count);
+				targetRemaining -= count;
+			}
+		}
+
+		if (targetRemaining != 0) {
+			return false;
+		}
+		completeFrame();
+		return true;
+	}
+
+	private void beginFrame(int length) throws IOException {
+		ByteBuffer[] buffers = length == 0 ? null : handler.getBuffers(this,
+				length);
+		if (buffers != null && limit(buffers, length)) {
+			target = buffers;
+		} else {
+			frame = new byte[length];
+			target = new ByteBuffer[] { ByteBuffer.wrap(frame) };
+		}
+		targetRemaining = length;
+
+		if (length == 0) {
+			completeFrame();
+		}
+	}
+
+	/**
+	 * Limits the specified buffers so that they hold exactly
+	 * <code>length</code> more bytes, remembering their original limits.
+	 *
+	 * @return <code>false</code> if the buffers cannot hold that many bytes
+	 */
+	private boolean limit(ByteBuffer[] buffers, int length) {
+		long available = 0;
+		for (int i = 0; i < buffers.length; i++) {
+			available += buffers[i].remaining();
+		}
+		if (available < length) {
+			return false;
+		}
+
+		targetLimits = new int[buffers.length];
+		int left = length;
+		for (int i = 0; i < buffers.length; i++) {
+			targetLimits[i] = buffers[i].limit();
+			int count = Math.min(buffers[i].remaining(), left);
+			buffers[i].limit(buffers[i].position() + count);
+			left -= count;
+		}
+		return true;
+	}
+
+	private void completeFrame() throws IOException {
+		ByteBuffer[] buffers = target;
+		int[] limits = targetLimits;
+		byte[] data = frame;
+
+		target = null;
+		targetLimits = null;
+		frame = null;
+
+		if (limits == null) {
+			handler.frameReceived(this, data);
+		} else {
+			for (int i = 0; i < buffers.length; i++) {
+				buffers[i].limit(limits[i]);
+			}
+			handler.buffersReceived(this, buffers);
+		}
+	}
+
+	private boolean isClosed() {
+		synchronized (writeQueue) {
+			return closed;
+		}
+	}
+
+	/**
+	 * Closes this connection. Queued data that has not been written yet is
+	 * discarded.
+	 */
+	void close() {
+		if (loop.isLoopThread()) {
+			doClose();
+		} else {
+			loop.execute(closeTask);
+		}
+	}
+
+	private void doClose() {
+		synchronized (writeQueue) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			writeQueue.clear();
+		}
+
+		if (key != null) {
+			key.cancel();
+		}
+		Util.closeChannel(socket);
+		if (!reading) {
+			releaseBuffer();
+		}
+		handler.closed(this);
+	}
+
+	private void releaseBuffer() {
+		if (readBuffer != null) {
+			SelectorLoop.BUFFERS.release(readBuffer);
+			readBuffer = null;
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.datashare.nio;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.datashare.IChannelListener;
+
+/**
+ * A channel listener that supplies its own buffers for incoming messages. The
+ * content of a message is read straight from the socket into the supplied
+ * buffers instead of being copied into a new <code>byte[]</code> for an
+ * {@link org.eclipse.ecf.datashare.events.IChannelMessageEvent}.
+ * <p>
+ * Both methods are invoked from the thread that services the channel's
+ * sockets and should return quickly.
+ * </p>
+ * <p>
+ * <b>Note:</b> This class/interface is part of an interim API that is still
+ * under development and expected to change significantly before reaching
+ * stability. It is being made available at this early stage to solicit feedback
+ * from pioneering adopters on the understanding that any code that uses this
+ * API will almost certainly be broken (repeatedly) as the API evolves.
+ * </p>
+ */
+public interface IScatteringChannelListener extends IChannelListener {
+
+	/**
+	 * Returns the buffers that an incoming message should be read into. The
+	 * message is written to the buffers in order, starting at their current
+	 * positions.
+	 *
+	 * @param channelId
+	 *            the id of the channel that is receiving the message
+	 * @param fromContainerId
+	 *            the id of the container that sent the message
+	 * @param length
+	 *            the length of the message in bytes
+	 * @return the buffers to read the message into, or <code>null</code> if
+	 *         the message should be delivered as a regular message event. A
+	 *         regular event is also fired if the buffers' combined remaining
+	 *         space is less than <code>length</code>
+	 */
+	public ByteBuffer[] getReceiveBuffers(ID channelId, ID fromContainerId,
+			int length);
+
+	/**
+	 * Notifies this listener that a message has been read into the buffers
+	 * returned by {@link #getReceiveBuffers(ID, ID, int)}. The buffers'
+	 * positions have been advanced past the message, their limits are
+	 * unchanged.
+	 *
+	 * @param channelId
+	 *            the id of the channel that received the message
+	 * @param fromContainerId
+	 *            the id of the container that sent the message
+	 * @param buffers
+	 *            the buffers holding the message
+	 */
+	public void handleMessageBuffers(ID channelId, ID fromContainerId,
+			ByteBuffer[] buffers);
+
+}
@@ -12,20 +12,14 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.datashare.nio;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.ServerSocket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -49,6 +43,12 @@ import org.eclipse.ecf.datashare.events.IChannelMessageEvent;
  * An abstract implementation of <code>IChannel</code> that uses Java 1.4 NIO
  * APIs for sending and retrieving data.
  * <p>
+ * The sockets of all channels of a {@link NIODatashareContainer} are serviced
+ * by a single selector thread owned by that container. Listeners that
+ * implement {@link IScatteringChannelListener} may supply their own buffers for
+ * incoming messages.
+ * </p>
+ * <p>
  * This channel will inherently spawn multiple socket connections as messages
  * are sent to different remote clients via {@link #sendMessage(ID, byte[])}.
  * Please note that the current implementation does not handle repeated
@@ -109,19 +109,15 @@ public abstract class NIOChannel implements IChannel {
 
 	/**
 	 * A map of <code>ID</code>s to their corresponding
-	 * <code>SocketChannel</code>s.
-	 */
-	private Map connectedSockets;
-
-	/**
-	 * A list of sockets that is waiting to handshake with remote peers.
+	 * <code>Connection</code>s.
 	 */
-	private List pendingSockets;
+	private Map connections;
 
 	/**
-	 * A queue of messages that needs to be sent to remote clients.
+	 * A map of <code>ID</code>s to the list of messages that are waiting for a
+	 * connection to that remote client, guarded by {@link #connections}.
 	 */
-	private LinkedList messages;
+	private Map pendingMessages;
 
 	/**
 	 * This channel's listener. May be <code>null</code>.
@@ -129,10 +125,10 @@ public abstract class NIOChannel implements IChannel {
 	private IChannelListener listener;
 
 	/**
-	 * The thread responsible for processing incoming messages and sending
-	 * messages to remote peers.
+	 * The selector loop of the datashare container that services this
+	 * channel's sockets.
 	 */
-	private Thread processingThread;
+	private final SelectorLoop loop;
 
 	/**
 	 * Instantiates a new channel for sending and receiving messages in a
@@ -186,14 +182,22 @@ public abstract class NIOChannel implements IChannel {
 
 		localPort = serverSocketChannel.socket().getLocalPort();
 
-		connectedSockets = new HashMap();
-		pendingSockets = new ArrayList();
-		messages = new LinkedList();
+		connections = new HashMap();
+		pendingMessages = new HashMap();
 
-		processingThread = new Thread(new ProcessingRunnable(), getClass()
-				.getName()
-				+ "Thread-" + id.toString()); //$NON-NLS-1$
-		processingThread.start();
+		try {
+			loop = datashareContainer.getSelectorLoop();
+		} catch (IOException e) {
+			Util.closeChannel(serverSocketChannel);
+			throw new ECFException(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+					"Could not open selector", e)); //$NON-NLS-1$
+		}
+		loop.register(serverSocketChannel, new SelectorLoop.Acceptor() {
+			public void accepted(SocketChannel socketChannel) {
+				loop.register(new Connection(loop, socketChannel,
+						new HandshakeHandler()));
+			}
+		});
 	}
 
 	/**
@@ -280,207 +284,18 @@ public abstract class NIOChannel implements IChannel {
 	}
 
 	/**
-	 * Sends any pending messages we may have queued up.
-	 */
-	private void sendPendingMessages() {
-		Collection deadSockets = null;
-		Collection processedMessages = null;
-
-		for (Iterator it = messages.iterator(); it.hasNext();) {
-			ChannelMessage message = (ChannelMessage) it.next();
-			ID id = message.getId();
-			SocketChannel channel = (SocketChannel) connectedSockets.get(id);
-			// check if we have a socket for the target of this message
-			if (channel != null) {
-				byte[] data = message.getData();
-
-				try {
-					// flush the data directly with regular IO, this method
-					// saves us the extra work of having to constantly flip and
-					// clear a ByteBuffer and in a way ensures the message is
-					// sent in one piece instead of chunks
-					channel.configureBlocking(true);
-					channel.socket().getOutputStream().write(data);
-					channel.socket().getOutputStream().flush();
-					// turn off blocking
-					channel.configureBlocking(false);
-				} catch (IOException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"Error occurred while sending message", e)); //$NON-NLS-1$
-					if (deadSockets == null) {
-						deadSockets = new HashSet();
-					}
-					deadSockets.add(id);
-				}
-
-				if (processedMessages == null) {
-					processedMessages = new LinkedList();
-				}
-				// store the processed message
-				processedMessages.add(message);
-			}
-		}
-
-		// remove all messages that have been processed
-		if (processedMessages != null) {
-			messages.removeAll(processedMessages);
-		}
-
-		if (deadSockets != null) {
-			for (Iterator it = deadSockets.iterator(); it.hasNext();) {
-				ID id = (ID) it.next();
-				SocketChannel channel = (SocketChannel) connectedSockets
-						.remove(id);
-				Util.closeChannel(channel);
-			}
-		}
-	}
-
-	/**
-	 * Reads in any incoming messages from remote clients.
-	 * 
-	 * @param buffer
-	 *            the buffer to use for reading the socket
-	 * @throws IOException
-	 *             if an error occurs while reading from the socket
-	 */
-	private void processIncomingMessages(ByteBuffer buffer) throws IOException {
-		Collection deadSockets = null;
-
-		for (Iterator it = connectedSockets.entrySet().iterator(); it.hasNext();) {
-			Map.Entry entry = (Map.Entry) it.next();
-			SocketChannel socketChannel = (SocketChannel) entry.getValue();
-
-			try {
-				if (!processIncomingMessages(socketChannel, buffer)) {
-					if (deadSockets == null) {
-						deadSockets = new HashSet();
-					}
-					deadSockets.add(entry.getKey());
-				}
-			} catch (IOException e) {
-				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-						"Error occurred while sending message", e)); //$NON-NLS-1$
-				if (deadSockets == null) {
-					deadSockets = new HashSet();
-				}
-				deadSockets.add(entry.getKey());
-			}
-		}
-
-		if (deadSockets != null) {
-			for (Iterator it = deadSockets.iterator(); it.hasNext();) {
-				ID id = (ID) it.next();
-				SocketChannel channel = (SocketChannel) connectedSockets
-						.remove(id);
-				Util.closeChannel(channel);
-			}
-		}
-	}
-
-	/**
-	 * Processes any incoming messages from the specified channel by reading it
-	 * into the specified buffer and returns whether the channel has reached
-	 * end-of-stream.
-	 * 
-	 * @param socketChannel
-	 *            the channel to read messages from
-	 * @param buffer
-	 *            the buffer to use to read the messages into
-	 * @return <code>true</code> if the channel is still active,
-	 *         <code>false</code> has reached end-of-stream
-	 * @throws IOException
-	 *             if an error occurred while trying to read from the channel
-	 */
-	private boolean processIncomingMessages(SocketChannel socketChannel,
-			ByteBuffer buffer) throws IOException {
-		ChannelData channelData = Util.read(socketChannel, buffer);
-		byte[] message = channelData.getData();
-
-		if (message != null) {
-			processIncomingMessage(socketChannel, message);
-		}
-		return channelData.isOpen();
-	}
-
-	/**
-	 * Processes the message that has been received from the specified channel.
+	 * Processes the message that has been received from the specified peer.
 	 * 
-	 * @param socketChannel
-	 *            the channel that the message was from
+	 * @param fromId
+	 *            the id of the peer that the message was from
 	 * @param message
 	 *            the message that was received
 	 */
-	void processIncomingMessage(SocketChannel socketChannel, byte[] message) {
+	private void processIncomingMessage(ID fromId, byte[] message) {
 		// we read something, need to notify
 		IChannelListener listener = getListener();
 		if (listener != null) {
-			// we have a listener, convert our data and then notify
-			byte[][] messages = convert(message);
-			if (messages != null) {
-				fireMessageEvents(listener, socketChannel, messages);
-			}
-		}
-	}
-
-	/**
-	 * Converts the data that has been read from the socket into separate byte[]
-	 * instances.
-	 * 
-	 * @param message
-	 *            the data read from the socket
-	 * @return a byte[][] containing the individual messages
-	 */
-	private byte[][] convert(byte[] message) {
-		try {
-			// back the read in data with a ByteArrayInputStream
-			ByteArrayInputStream bais = new ByteArrayInputStream(message);
-			// instantiate an ObjectInputStream and read the individual
-			// byte[]
-			byte[] bytes = (byte[]) new ObjectInputStream(bais).readObject();
-
-			if (bais.available() == 0) {
-				return new byte[][] { bytes };
-			}
-
-			Collection c = new ArrayList();
-			c.add(bytes);
-
-			while (bais.available() != 0) {
-				// instantiate an ObjectInputStream and read the individual
-				// byte[]
-				bytes = (byte[]) new ObjectInputStream(bais).readObject();
-				// store it
-				c.add(bytes);
-			}
-
-			// return all the individual byte[]s
-			return (byte[][]) c.toArray(new byte[c.size()][]);
-		} catch (IOException e) {
-			return null;
-		} catch (ClassNotFoundException e) {
-			return null;
-		}
-	}
-
-	/**
-	 * Fires message events to the specified listener for each of the message
-	 * that was received.
-	 * 
-	 * @param listener
-	 *            the listener to notify
-	 * @param socketChannel
-	 *            the socket that the message was read from
-	 * @param messages
-	 *            the messages that have been received
-	 */
-	private void fireMessageEvents(IChannelListener listener,
-			SocketChannel socketChannel, byte[][] messages) {
-		for (int i = 0; i < messages.length; i++) {
-			IChannelEvent event = createMessageEvent(socketChannel, messages[i]);
-			if (event != null) {
-				fireChannelEvent(listener, event);
-			}
+			fireChannelEvent(listener, createMessageEvent(fromId, message));
 		}
 	}
 
@@ -511,158 +326,69 @@ public abstract class NIOChannel implements IChannel {
 	}
 
 	/**
-	 * Creates and returns a message event corresponding to the specified
-	 * channel and the data that was read.
+	 * Creates and returns a message event corresponding to the specified peer
+	 * and the data that was read.
 	 * 
-	 * @param channel
-	 *            the socket channel that the message was from
+	 * @param fromId
+	 *            the id of the peer that the message was from
 	 * @param data
 	 *            the message from the remote peer
-	 * @return a message event describing the received message, may be
-	 *         <code>null</code> if the channel could not be identified
+	 * @return a message event describing the received message
 	 */
-	private IChannelEvent createMessageEvent(SocketChannel channel,
-			final byte[] data) {
-		// search for the id of the corresponding channel
-		for (Iterator it = connectedSockets.entrySet().iterator(); it.hasNext();) {
-			Map.Entry entry = (Map.Entry) it.next();
-			if (channel == entry.getValue()) {
-				final ID fromId = (ID) entry.getKey();
-
-				return new IChannelMessageEvent() {
-					public byte[] getData() {
-						return data;
-					}
-
-					public ID getFromContainerID() {
-						return fromId;
-					}
+	private IChannelEvent createMessageEvent(final ID fromId, final byte[] data) {
+		return new IChannelMessageEvent() {
+			public byte[] getData() {
+				return data;
+			}
 
-					public ID getChannelID() {
-						return id;
-					}
+			public ID getFromContainerID() {
+				return fromId;
+			}
 
-					public String toString() {
-						StringBuffer buffer = new StringBuffer();
-						buffer.append("IChannelMessageEvent["); //$NON-NLS-1$
-						buffer.append("container=").append(fromId); //$NON-NLS-1$
-						buffer.append(",channel=").append(id); //$NON-NLS-1$
-						buffer.append(",data=").append(data).append(']'); //$NON-NLS-1$
-						return buffer.toString();
-					}
-				};
+			public ID getChannelID() {
+				return id;
 			}
-		}
-		return null;
-	}
 
-	/**
-	 * Stores the specified ID with its corresponding socket into this channel.
-	 * The socket will now be actively used for reading and sending messages.
-	 * 
-	 * @param id
-	 *            the target that the socket is connected with
-	 * @param socketChannel
-	 *            the socket channel to be stored
-	 */
-	void put(ID id, SocketChannel socketChannel) {
-		connectedSockets.put(id, socketChannel);
+			public String toString() {
+				StringBuffer buffer = new StringBuffer();
+				buffer.append("IChannelMessageEvent["); //$NON-NLS-1$
+				buffer.append("container=").append(fromId); //$NON-NLS-1$
+				buffer.append(",channel=").append(id); //$NON-NLS-1$
+				buffer.append(",data=").append(data).append(']'); //$NON-NLS-1$
+				return buffer.toString();
+			}
+		};
 	}
 
 	/**
-	 * Accept the socket as a potential client and attempt to handshake with it.
-	 * 
-	 * @param socketChannel
-	 *            the socket to establish a connection with
-	 * @throws ClassNotFoundException
-	 *             if the class of an object being deserialized could not be
-	 *             found
-	 * @throws IOException
-	 *             if a networking error occurs with the socket while
-	 *             reading/sending messages
-	 */
-	// private boolean accept2(SocketChannel socketChannel, ByteBuffer buffer)
-	// throws ClassNotFoundException, IOException {
-	// int read = socketChannel.read(buffer);
-	// buffer.flip();
-	// byte[] bytes = new byte[read];
-	// buffer.get(bytes);
-	// buffer.clear();
-	//
-	// ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(
-	// bytes));
-	// Object object = ois.readObject();
-	//
-	// if (object instanceof ID) {
-	// bytes = serialize(id);
-	// socketChannel.socket().getOutputStream().write(bytes);
-	//
-	// bytes = serialize(containerId);
-	// socketChannel.socket().getOutputStream().write(bytes);
-	// socketChannel.socket().getOutputStream().flush();
-	//
-	// socketChannel.configureBlocking(false);
-	// put((ID) object, socketChannel);
-	// }
-	// return true;
-	// }
-
-	/**
-	 * Performs a handshake with a remote peer via the provided socket channel
-	 * and returns whether <code>true</code> if no further attempts are
-	 * required. Note that <code>true</code> does not indicate that the
-	 * handshake has been successful.
-	 * <p>
-	 * For example, if the remote peer has closed this channel then
-	 * <code>true</code> would be returned as no further attempts should be
-	 * attempted.
-	 * </p>
+	 * Stores the specified ID with its corresponding connection into this
+	 * channel. The connection will now be actively used for reading and
+	 * sending messages, and any messages that have been waiting for it are
+	 * queued for sending.
 	 * 
-	 * @param socketChannel
-	 *            the channel to use to handshake with the remote peer
-	 * @param buffer
-	 *            the buffer to use for reading and writing data from the
-	 *            channel
-	 * @return <code>true</code> if no further handshake attempts are required,
-	 *         <code>false</code> otherwise
-	 * @throws ClassNotFoundException
-	 *             if deserialization failed during the handshake
-	 * @throws IOException
-	 *             if an IO error occurred while performing the handshake
+	 * @param peerId
+	 *            the target that the connection is established with
+	 * @param connection
+	 *            the connection to be stored
 	 */
-	private boolean handshake(SocketChannel socketChannel, ByteBuffer buffer)
-			throws ClassNotFoundException, IOException {
-		ChannelData data = Util.read(socketChannel, buffer);
-		if (!data.isOpen()) {
-			// this channel is dead, close it
-			Util.closeChannel(socketChannel);
-			return true;
-		}
-
-		byte[] bytes = data.getData();
-		if (bytes == null) {
-			return false;
-		}
-
-		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(
-				bytes));
-		Object object = ois.readObject();
-
-		if (object instanceof ID) {
-			socketChannel.configureBlocking(true);
-			byte[] one = Util.serialize(id);
-			byte[] two = Util.serialize(containerId);
-			bytes = new byte[one.length + two.length];
-			System.arraycopy(one, 0, bytes, 0, one.length);
-			System.arraycopy(two, 0, bytes, one.length, two.length);
+	void put(ID peerId, Connection connection) {
+		connection.setHandler(new MessageHandler(peerId));
 
-			socketChannel.socket().getOutputStream().write(bytes);
-			socketChannel.socket().getOutputStream().flush();
+		synchronized (connections) {
+			connections.put(peerId, connection);
 
-			socketChannel.configureBlocking(false);
-			put((ID) object, socketChannel);
+			List messages = (List) pendingMessages.remove(peerId);
+			if (messages != null) {
+				try {
+					for (Iterator it = messages.iterator(); it.hasNext();) {
+						connection.send((byte[]) it.next());
+					}
+				} catch (IOException e) {
+					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+							"Error occurred while sending message", e)); //$NON-NLS-1$
+				}
+			}
 		}
-		return true;
 	}
 
 	/**
@@ -718,22 +444,45 @@ public abstract class NIOChannel implements IChannel {
 	 *            the receiver to send the message to, must not be
 	 *            <code>null</code>
 	 * @param message
-	 *            the message to send, must not be <code>null</code>
+	 *            the message to send, must not be <code>null</code>. The array
+	 *            is sent as is and must not be modified afterwards
 	 */
 	public void sendMessage(ID receiver, byte[] message) throws ECFException {
 		Assert.isNotNull(receiver, "A receiver must be specified"); //$NON-NLS-1$
 		Assert.isNotNull(message, "Message cannot be null"); //$NON-NLS-1$
 
+		boolean connected;
+		synchronized (connections) {
+			connected = connections.containsKey(receiver);
+		}
+
 		// check if we already have a socket for this receiver
-		if (!connectedSockets.containsKey(receiver)) {
+		if (!connected) {
 			// send a request to the receiver for establishing a socket
 			// connection
 			sendRequest(receiver);
 		}
 
-		synchronized (messages) {
-			// enqueue the message for processing
-			messages.add(new ChannelMessage(receiver, message));
+		Connection connection;
+		synchronized (connections) {
+			connection = (Connection) connections.get(receiver);
+			if (connection == null) {
+				// hold on to the message until the connection is established
+				List messages = (List) pendingMessages.get(receiver);
+				if (messages == null) {
+					messages = new LinkedList();
+					pendingMessages.put(receiver, messages);
+				}
+				messages.add(message);
+				return;
+			}
+		}
+
+		try {
+			connection.send(message);
+		} catch (IOException e) {
+			throw new ECFException(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+					"Error occurred while sending message", e)); //$NON-NLS-1$
 		}
 	}
 
@@ -743,8 +492,6 @@ public abstract class NIOChannel implements IChannel {
 	 * method returns.
 	 */
 	public void dispose() {
-		processingThread.interrupt();
-
 		try {
 			// turn off the server to prevent and deny incoming connections
 			if (serverSocketChannel != null) {
@@ -756,15 +503,16 @@ public abstract class NIOChannel implements IChannel {
 			serverSocketChannel = null;
 		}
 
-		synchronized (connectedSockets) {
-			// close all connections
-			for (Iterator it = connectedSockets.values().iterator(); it
-					.hasNext();) {
-				SocketChannel socket = (SocketChannel) it.next();
-				Util.closeChannel(socket);
-			}
+		List closing;
+		synchronized (connections) {
+			closing = new ArrayList(connections.values());
+			connections.clear();
+			pendingMessages.clear();
+		}
 
-			connectedSockets.clear();
+		// close all connections
+		for (Iterator it = closing.iterator(); it.hasNext();) {
+			((Connection) it.next()).close();
 		}
 
 		datashareContainer.fireChannelContainerDeactivatedEvent(id);
@@ -791,89 +539,87 @@ public abstract class NIOChannel implements IChannel {
 		return id;
 	}
 
-	private final class ProcessingRunnable implements Runnable {
+	/**
+	 * Handles the first frame of an accepted connection, which carries the id
+	 * of the remote peer. The reply identifies this channel and its container.
+	 */
+	private final class HandshakeHandler extends Connection.FrameHandler {
 
-		public void run() {
-			ByteBuffer buffer = ByteBuffer.allocate(1024);
-			while (true) {
-				try {
-					Thread.sleep(50);
+		void frameReceived(Connection connection, byte[] data)
+				throws IOException {
+			ID[] ids = Util.deserialize(data);
+			if (ids.length != 1) {
+				throw new IOException("Unexpected handshake data"); //$NON-NLS-1$
+			}
 
-					if (Thread.currentThread().isInterrupted()) {
-						return;
-					}
+			connection.send(Util.serialize(new ID[] { id, containerId }));
+			put(ids[0], connection);
+		}
+	}
 
-					// perform handshaking for any pending sockets
-					for (int i = 0; i < pendingSockets.size(); i++) {
-						SocketChannel channel = (SocketChannel) pendingSockets
-								.get(i);
-						if (handshake(channel, buffer)) {
-							// remove if handled
-							pendingSockets.remove(i);
-							i--;
-						}
-					}
+	/**
+	 * Handles the messages of an established connection.
+	 */
+	private final class MessageHandler extends Connection.FrameHandler {
 
-					processIncomingMessages(buffer);
+		private final ID peerId;
 
-					// check if we have pending messages to send
-					synchronized (messages) {
-						if (!messages.isEmpty()) {
-							sendPendingMessages();
-						}
-					}
+		MessageHandler(ID peerId) {
+			this.peerId = peerId;
+		}
 
-					SocketChannel socketChannel = serverSocketChannel.accept();
-					if (socketChannel != null) {
-						socketChannel.configureBlocking(false);
-						pendingSockets.add(socketChannel);
-					}
-				} catch (InterruptedException e) {
-					Thread.interrupted();
-					return;
-				} catch (ClassNotFoundException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"Could not deserialize", e)); //$NON-NLS-1$
-				} catch (IOException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"An IO error occurred", e)); //$NON-NLS-1$
-				} catch (RuntimeException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"A runtime error occurred", e)); //$NON-NLS-1$
-				}
+		ByteBuffer[] getBuffers(Connection connection, final int length) {
+			IChannelListener listener = getListener();
+			if (!(listener instanceof IScatteringChannelListener)) {
+				return null;
 			}
-		}
-	}
 
-	private final class ChannelMessage {
+			final IScatteringChannelListener scattering = (IScatteringChannelListener) listener;
+			final ByteBuffer[][] buffers = new ByteBuffer[1][];
+			SafeRunner.run(new ISafeRunnable() {
+				public void run() throws Exception {
+					buffers[0] = scattering.getReceiveBuffers(id, peerId,
+							length);
+				}
 
-		private ID fromId;
-		private byte[] data;
+				public void handleException(Throwable t) {
+					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+							"Error retrieving receive buffers", t)); //$NON-NLS-1$
+				}
+			});
+			return buffers[0];
+		}
 
-		ChannelMessage(ID fromId, byte[] data) throws ECFException {
-			this.fromId = fromId;
-			this.data = convert(data);
+		void frameReceived(Connection connection, byte[] data) {
+			processIncomingMessage(peerId, data);
 		}
 
-		private byte[] convert(byte[] data) throws ECFException {
-			try {
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				ObjectOutputStream oos = new ObjectOutputStream(baos);
-				oos.writeObject(data);
-				return baos.toByteArray();
-			} catch (IOException e) {
-				throw new ECFException(e);
+		void buffersReceived(Connection connection, final ByteBuffer[] buffers) {
+			IChannelListener listener = getListener();
+			if (!(listener instanceof IScatteringChannelListener)) {
+				return;
 			}
-		}
 
-		public ID getId() {
-			return fromId;
-		}
+			final IScatteringChannelListener scattering = (IScatteringChannelListener) listener;
+			SafeRunner.run(new ISafeRunnable() {
+				public void run() throws Exception {
+					scattering.handleMessageBuffers(id, peerId, buffers);
+				}
 
-		public byte[] getData() {
-			return data;
+				public void handleException(Throwable t) {
+					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+							"Error handling channel event", t)); //$NON-NLS-1$
+				}
+			});
 		}
 
+		void closed(Connection connection) {
+			synchronized (connections) {
+				if (connections.get(peerId) == connection) {
+					connections.remove(peerId);
+				}
+			}
+		}
 	}
 
 }
@@ -12,17 +12,11 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.datashare.nio;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.net.SocketAddress;
-import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.Assert;
@@ -59,6 +53,11 @@ import org.eclipse.ecf.datashare.events.IChannelContainerEvent;
  * corresponding socket address as the parameter.
  * </p>
  * <p>
+ * All sockets of the container and its channels are serviced by a single
+ * selector thread that is started on demand and stopped when the parent
+ * container disconnects.
+ * </p>
+ * <p>
  * Subclasses must implement the following:
  * <ul>
  * <li>For channel creation:
@@ -87,20 +86,10 @@ import org.eclipse.ecf.datashare.events.IChannelContainerEvent;
 public abstract class NIODatashareContainer implements IChannelContainerAdapter {
 
 	/**
-	 * A thread for establishing a connection to remote clients.
-	 */
-	private Thread connectionThread;
-
-	/**
-	 * A list of IP addresses that should be connected to.
+	 * The selector loop servicing the sockets of this container's channels,
+	 * <code>null</code> until it is first needed.
 	 */
-	private LinkedList pendingConnections;
-
-	/**
-	 * A list of socket channels that needs to be processed for handshaking with
-	 * the remote peer.
-	 */
-	private List pendingSockets;
+	private SelectorLoop selectorLoop;
 
 	/**
 	 * A map of datashare channels owned by this container mapped by their ids.
@@ -148,8 +137,6 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 		});
 
 		channels = new HashMap();
-		pendingConnections = new LinkedList();
-		pendingSockets = new ArrayList();
 		listenerList = new ListenerList();
 	}
 
@@ -277,28 +264,28 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 	 *            the channel to store
 	 */
 	private void storeChannel(IChannel channel) {
-		channels.put(channel.getID(), channel);
+		synchronized (channels) {
+			channels.put(channel.getID(), channel);
+		}
 	}
 
-	private void disconnect() {
-		if (connectionThread != null) {
-			connectionThread.interrupt();
-			connectionThread = null;
-		}
-		
-		synchronized (pendingConnections) {
-			pendingConnections.clear();
-		}
-		
-		synchronized (pendingSockets) {
-			for (int i = 0; i < pendingSockets.size(); i++) {
-				SocketChannel channel = (SocketChannel) pendingSockets.get(i);
-				Util.closeChannel(channel);
-			}
-			
-			pendingSockets.clear();
+	/**
+	 * Returns the selector loop that services the sockets of this container's
+	 * channels, starting it if necessary.
+	 * 
+	 * @return the selector loop, will not be <code>null</code>
+	 * @throws IOException
+	 *             if the selector could not be opened
+	 */
+	synchronized SelectorLoop getSelectorLoop() throws IOException {
+		if (selectorLoop == null) {
+			selectorLoop = new SelectorLoop(this, getClass().getName()
+					+ "Thread-" + container.getID().toString()); //$NON-NLS-1$
 		}
+		return selectorLoop;
+	}
 
+	private void disconnect() {
 		synchronized (channels) {
 			for (Iterator it = channels.values().iterator(); it.hasNext();) {
 				final IChannel channel = (IChannel) it.next();
@@ -318,38 +305,47 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 
 			channels.clear();
 		}
+
+		synchronized (this) {
+			if (selectorLoop != null) {
+				// closes any connections that are still being established
+				selectorLoop.close();
+				selectorLoop = null;
+			}
+		}
 	}
 
 	/**
-	 * Attempts to connect to a remote address that has been enqueued to this
-	 * channel container for processing via the {@link #enqueue(SocketAddress)}
-	 * method.
+	 * Opens a connection to the specified remote address and sends the id of
+	 * the parent container to the channel listening on the other end. Must be
+	 * invoked from the selector loop's thread.
 	 * 
-	 * @param buffer
-	 *            the buffer to use for reading and writing data
-	 * @throws IOException
-	 *             if an IO error occurs while attempting to contact the peer
+	 * @param loop
+	 *            the selector loop to register the connection with
+	 * @param remote
+	 *            the address to connect to
 	 */
-	private void connect(ByteBuffer buffer) throws IOException {
-		while (!pendingConnections.isEmpty()) {
-			// retrieve an IP address to connect to
-			SocketAddress remote = (SocketAddress) pendingConnections
-					.removeFirst();
+	private void connect(SelectorLoop loop, SocketAddress remote) {
+		SocketChannel socketChannel = null;
+		try {
+			byte[] bytes = Util.serialize(new ID[] { container
+					.getConnectedID() });
 
 			// open a socket channel to the remote address
-			SocketChannel socketChannel = SocketChannel.open(remote);
-
-			byte[] bytes = Util.serialize(container.getConnectedID());
-			if (bytes == null) {
-				// serialization failed, close the socket
+			socketChannel = SocketChannel.open();
+			socketChannel.configureBlocking(false);
+			socketChannel.connect(remote);
+
+			Connection connection = new Connection(loop, socketChannel,
+					new HandshakeHandler());
+			connection.send(bytes);
+			loop.register(connection);
+		} catch (IOException e) {
+			log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+					"Could not connect to " + remote, e)); //$NON-NLS-1$
+			if (socketChannel != null) {
 				Util.closeChannel(socketChannel);
-				return;
 			}
-
-			socketChannel.configureBlocking(false);
-			Util.write(socketChannel, buffer, bytes);
-
-			pendingSockets.add(socketChannel);
 		}
 	}
 
@@ -361,116 +357,23 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 	 *            the address to connect to, cannot be <code>null</code>
 	 * @see NIOChannel#sendRequest(ID)
 	 */
-	public void enqueue(SocketAddress address) {
+	public void enqueue(final SocketAddress address) {
 		Assert.isNotNull(address, "Socket address cannot be null"); //$NON-NLS-1$
 
-		if (connectionThread == null) {
-			connectionThread = new Thread(new ConnectionRunnable(), getClass()
-					.getName()
-					+ "Thread-" + container.getID().toString()); //$NON-NLS-1$
-			connectionThread.start();
+		final SelectorLoop loop;
+		try {
+			loop = getSelectorLoop();
+		} catch (IOException e) {
+			log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+					"Could not open selector", e)); //$NON-NLS-1$
+			return;
 		}
 
-		pendingConnections.add(address);
-	}
-
-	/**
-	 * Performs a handshake operation with the remote peer.
-	 * 
-	 * @param socketChannel
-	 *            the socket channel to handshake with
-	 * @param data
-	 *            the data sent from the channel thus far
-	 * @throws ClassNotFoundException
-	 *             if a deserialization error occurs
-	 * @throws IOException
-	 *             if an IO error occurs while reading or writing data
-	 */
-	private void handshake(SocketChannel socketChannel, ChannelData data)
-			throws ClassNotFoundException, IOException {
-		// retrieve the data that was sent
-		byte[] message = data.getData();
-
-		// read in the response
-		ByteArrayInputStream bais = new ByteArrayInputStream(message);
-		ObjectInputStream ois = new ObjectInputStream(bais);
-
-		// first response should be the channel id
-		ID channelId = (ID) ois.readObject();
-
-		synchronized (channels) {
-			// retrieve the channel that corresponds to that id
-			IChannel channel = getChannel(channelId);
-			if (channel == null) {
-				// can't find a channel that corresponds to the id, close the
-				// socket
-				Util.closeChannel(socketChannel);
-			} else {
-				// open another ObjectInputStream because each object is
-				// serialized separately
-				ois = new ObjectInputStream(bais);
-
-				// next id is the id of the remote user
-				ID peerId = (ID) ois.readObject();
-
-				// store the peer id and the corresponding socket in the
-				// retrieved NIO channel
-				NIOChannel datashare = (NIOChannel) channel;
-				datashare.put(peerId, socketChannel);
-
-				// check if we have any bytes left to read
-				int available = bais.available();
-				if (available != 0) {
-					// if there are extra bytes that means this is data that
-					// the sender has sent to us, we must process these messages
-					byte[] received = new byte[available];
-					// copy the remaining information
-					System.arraycopy(message, message.length - available,
-							received, 0, available);
-					// process the received data
-					datashare.processIncomingMessage(socketChannel, received);
-				}
+		loop.execute(new Runnable() {
+			public void run() {
+				connect(loop, address);
 			}
-		}
-	}
-
-	/**
-	 * Processes any pending sockets that are currently queued up in this
-	 * channel container and is waiting to initiate the handshake process with
-	 * the remote peer.
-	 * 
-	 * @param buffer
-	 *            the buffer to use for reading and writing data
-	 * @throws ClassNotFoundException
-	 *             if a serialization or deserialization operation encountered
-	 *             errors
-	 * @throws IOException
-	 *             if an IO error occurs while reading or writing data
-	 */
-	private void processPendingSockets(ByteBuffer buffer)
-			throws ClassNotFoundException, IOException {
-		for (int i = 0; i < pendingSockets.size(); i++) {
-			SocketChannel socketChannel = (SocketChannel) pendingSockets.get(i);
-
-			buffer.clear();
-			// read in the response
-			ChannelData data = Util.read(socketChannel, buffer);
-			if (!data.isOpen()) {
-				// the channel isn't open, we should close it on our end also
-				Util.closeChannel(socketChannel);
-				// remove this channel
-				pendingSockets.remove(i);
-				i--;
-			} else if (data.getData() != null) {
-				try {
-					handshake(socketChannel, data);
-				} finally {
-					// this socket has been processed, remove it
-					pendingSockets.remove(i);
-					i--;
-				}
-			}
-		}
+		});
 	}
 
 	/**
@@ -575,40 +478,34 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 		return buffer.toString();
 	}
 
-	private class ConnectionRunnable implements Runnable {
-
-		public void run() {
-			ByteBuffer buffer = ByteBuffer.allocate(1024);
-			while (true) {
-				try {
-					buffer.clear();
+	/**
+	 * Handles the reply of the remote channel, which carries the id of the
+	 * channel followed by the id of the remote peer's container.
+	 */
+	private class HandshakeHandler extends Connection.FrameHandler {
 
-					if (Thread.currentThread().isInterrupted()) {
-						return;
-					}
+		void frameReceived(Connection connection, byte[] data)
+				throws IOException {
+			ID[] ids = Util.deserialize(data);
+			if (ids.length != 2) {
+				throw new IOException("Unexpected handshake data"); //$NON-NLS-1$
+			}
 
-					synchronized (pendingConnections) {
-						if (!pendingConnections.isEmpty()) {
-							connect(buffer);
-						}	
-					}
+			NIOChannel channel;
+			synchronized (channels) {
+				// retrieve the channel that corresponds to that id
+				channel = (NIOChannel) channels.get(ids[0]);
+			}
 
-					processPendingSockets(buffer);
-
-					Thread.sleep(50);
-				} catch (InterruptedException e) {
-					Thread.interrupted();
-					return;
-				} catch (ClassNotFoundException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"Could not deserialize", e)); //$NON-NLS-1$
-				} catch (IOException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"An IO error occurred", e)); //$NON-NLS-1$
-				} catch (RuntimeException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"A runtime error occurred", e)); //$NON-NLS-1$
-				}
+			if (channel == null) {
+				// can't find a channel that corresponds to the id, close the
+				// socket
+				connection.close();
+			} else {
+				// store the peer id and the corresponding connection in the
+				// retrieved NIO channel, any messages that follow are
+				// processed by the channel
+				channel.put(ids[1], connection);
 			}
 		}
 	}
@@ -0,0 +1,274 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.datashare.nio;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * A single thread that multiplexes the server sockets and connections of all
+ * channels of one {@link NIODatashareContainer} over a {@link Selector}.
+ * <p>
+ * Selector registrations and interest changes must happen on the loop's
+ * thread, other threads hand them over with {@link #execute(Runnable)}.
+ * </p>
+ */
+final class SelectorLoop implements Runnable {
+
+	/**
+	 * The largest frame payload that will be accepted from a remote peer.
+	 */
+	static final int MAX_FRAME_SIZE = Integer.getInteger(
+			"org.eclipse.ecf.provider.datashare.nio.maxFrameSize", //$NON-NLS-1$
+			16 * 1024 * 1024).intValue();
+
+	/**
+	 * The read buffers of all connections. Set the
+	 * <code>org.eclipse.ecf.provider.datashare.nio.directBuffers</code> system
+	 * property to <code>true</code> to use direct buffers.
+	 */
+	static final BufferPool BUFFERS = new BufferPool(Integer.getInteger(
+			"org.eclipse.ecf.provider.datashare.nio.bufferSize", 64 * 1024) //$NON-NLS-1$
+			.intValue(), Boolean
+			.getBoolean("org.eclipse.ecf.provider.datashare.nio.directBuffers"), //$NON-NLS-1$
+			32);
+
+	/**
+	 * Handles connections that have been accepted by a registered server
+	 * socket.
+	 */
+	interface Acceptor {
+		void accepted(SocketChannel socketChannel) throws IOException;
+	}
+
+	private final NIODatashareContainer container;
+
+	private final Selector selector;
+
+	private final Thread thread;
+
+	/**
+	 * Tasks to be run on the loop's thread before the next select.
+	 */
+	private final LinkedList tasks = new LinkedList();
+
+	/**
+	 * Whether the loop has been asked to stop, guarded by {@link #tasks}.
+	 */
+	private boolean stopping;
+
+	/**
+	 * Whether the loop has stopped, guarded by {@link #tasks}.
+	 */
+	private boolean stopped;
+
+	SelectorLoop(NIODatashareContainer container, String name)
+			throws IOException {
+		this.container = container;
+		this.selector = Selector.open();
+		this.thread = new Thread(this, name);
+		thread.start();
+	}
+
+	boolean isLoopThread() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Runs the specified task on the loop's thread. If the loop has already
+	 * stopped, the task is run by the calling thread instead.
+	 *
+	 * @param task
+	 *            the task to run
+	 */
+	void execute(Runnable task) {
+		synchronized (tasks) {
+			if (!stopped) {
+				tasks.add(task);
+				selector.wakeup();
+				return;
+			}
+		}
+		task.run();
+	}
+
+	/**
+	 * Registers the specified server socket for accepting incoming
+	 * connections.
+	 *
+	 * @param serverSocketChannel
+	 *            the non-blocking server socket to register
+	 * @param acceptor
+	 *            the handler for accepted connections
+	 */
+	void register(final ServerSocketChannel serverSocketChannel,
+			final Acceptor acceptor) {
+		execute(new Runnable() {
+			public void run() {
+				try {
+					serverSocketChannel.register(selector,
+							SelectionKey.OP_ACCEPT, acceptor);
+				} catch (IOException e) {
+					log("Could not register server socket", e); //$NON-NLS-1$
+				} catch (ClosedSelectorException e) {
+					// the container has been disconnected
+				}
+			}
+		});
+	}
+
+	/**
+	 * Registers the specified connection. Must be invoked from the loop's
+	 * thread.
+	 *
+	 * @param connection
+	 *            the connection to register
+	 */
+	void register(Connection connection) {
+		try {
+			connection.register(selector);
+		} catch (IOException e) {
+			log("Could not register socket", e); //$NON-NLS-1$
+			connection.close();
+		} catch (ClosedSelectorException e) {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Stops the loop and closes all of the connections that are still
+	 * registered with it.
+	 */
+	void close() {
+		synchronized (tasks) {
+			stopping = true;
+		}
+		selector.wakeup();
+	}
+
+	void log(String message, Throwable t) {
+		container.log(new Status(IStatus.ERROR, Util.PLUGIN_ID, message, t));
+	}
+
+	private boolean runTasks() {
+		while (true) {
+			Runnable task;
+			synchronized (tasks) {
+				if (tasks.isEmpty()) {
+					return !stopping;
+				}
+				task = (Runnable) tasks.removeFirst();
+			}
+
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				log("A runtime error occurred", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	public void run() {
+		try {
+			while (runTasks()) {
+				selector.select();
+
+				for (Iterator it = selector.selectedKeys().iterator(); it
+						.hasNext();) {
+					SelectionKey key = (SelectionKey) it.next();
+					it.remove();
+					process(key);
+				}
+			}
+		} catch (IOException e) {
+			log("An IO error occurred", e); //$NON-NLS-1$
+		} finally {
+			synchronized (tasks) {
+				stopped = true;
+			}
+			runTasks();
+
+			for (Iterator it = selector.keys().iterator(); it.hasNext();) {
+				Object attachment = ((SelectionKey) it.next()).attachment();
+				if (attachment instanceof Connection) {
+					((Connection) attachment).close();
+				}
+			}
+
+			try {
+				selector.close();
+			} catch (IOException e) {
+				// ignored
+			}
+		}
+	}
+
+	private void process(SelectionKey key) {
+		Object attachment = key.attachment();
+		if (attachment instanceof Connection) {
+			Connection connection = (Connection) attachment;
+			try {
+				if (key.isConnectable()) {
+					connection.finishConnect();
+				}
+				if (key.isValid() && key.isReadable()) {
+					connection.read();
+				}
+				if (key.isValid() && key.isWritable()) {
+					connection.write();
+				}
+			} catch (CancelledKeyException e) {
+				// closed while being processed
+				connection.close();
+			} catch (IOException e) {
+				log("An IO error occurred", e); //$NON-NLS-1$
+				connection.close();
+			} catch (RuntimeException e) {
+				log("A runtime error occurred", e); //$NON-NLS-1$
+				connection.close();
+			}
+		} else if (key.isValid() && key.isAcceptable()) {
+			SocketChannel socketChannel = null;
+			try {
+				socketChannel = ((ServerSocketChannel) key.channel()).accept();
+				if (socketChannel != null) {
+					socketChannel.configureBlocking(false);
+					((Acceptor) attachment).accepted(socketChannel);
+				}
+			} catch (CancelledKeyException e) {
+				// the server socket has been closed
+			} catch (IOException e) {
+				log("An IO error occurred", e); //$NON-NLS-1$
+				if (socketChannel != null) {
+					Util.closeChannel(socketChannel);
+				}
+			} catch (RuntimeException e) {
+				log("A runtime error occurred", e); //$NON-NLS-1$
+				if (socketChannel != null) {
+					Util.closeChannel(socketChannel);
+				}
+			}
+		}
+	}
+
+}
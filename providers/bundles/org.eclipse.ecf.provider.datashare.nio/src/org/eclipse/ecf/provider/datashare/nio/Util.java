@@ -12,13 +12,12 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.datashare.nio;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
 
 import org.eclipse.ecf.core.identity.ID;
 
@@ -34,95 +33,40 @@ final class Util {
 		}
 	}
 
-	static byte[] serialize(ID id) throws IOException {
+	static byte[] serialize(ID[] ids) throws IOException {
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(id);
+		oos.writeObject(ids);
 		oos.flush();
 		return baos.toByteArray();
 	}
 
 	/**
-	 * Reads messages from the channel and returns the data, if any.
+	 * Deserializes the ids that have been serialized with
+	 * {@link #serialize(ID[])}.
 	 * 
-	 * @param channel
-	 *            the channel to read the messages from
-	 * @param buffer
-	 *            the buffer to use for reading the data into
-	 * @return the data from the channel and information about the channel, will
-	 *         not be <code>null</code>
+	 * @param data
+	 *            the serialized ids
+	 * @return the deserialized ids, will not be <code>null</code>
 	 * @throws IOException
+	 *             if the data could not be deserialized or does not contain
+	 *             ids
 	 */
-	static ChannelData read(ReadableByteChannel channel, ByteBuffer buffer)
-			throws IOException {
-		// check how much data has been read
-		int read = channel.read(buffer);
-		if (read == -1) {
-			return new ChannelData(null, false);
-		} else if (read == 0) {
-			return new ChannelData(null, true);
-		}
-
-		// the read data
-		byte[] message = new byte[read];
-
-		// retrieve the contents from the buffer
-		buffer.flip();
-		buffer.get(message, 0, read);
-		buffer.clear();
-
-		// try reading more data
-		read = channel.read(buffer);
-
-		while (read > 0) {
-			// create a temporary array, copy what's been read so far
-			byte[] temp = new byte[read + message.length];
-			System.arraycopy(message, 0, temp, 0, message.length);
-
-			// retrieve the contents from the buffer
-			buffer.flip();
-			buffer.get(temp, message.length, read);
-			buffer.clear();
-
-			// assign the temporary array back to the primary
-			message = temp;
-
-			// try reading more data
-			read = channel.read(buffer);
-		}
-		// if we didn't read zero bytes that'd imply we've reached end-of-stream
-		return new ChannelData(message, read == 0);
-	}
-
-	static void write(WritableByteChannel channel, ByteBuffer buffer,
-			byte[] data) throws IOException {
-		buffer.clear();
-
-		int remaining = data.length;
-		int limit = buffer.limit();
-		if (remaining < limit) {
-			buffer.put(data);
-			buffer.flip();
-			channel.write(buffer);
-			buffer.clear();
-			return;
+	static ID[] deserialize(byte[] data) throws IOException {
+		Object object;
+		try {
+			object = new ObjectInputStream(new ByteArrayInputStream(data))
+					.readObject();
+		} catch (ClassNotFoundException e) {
+			IOException exception = new IOException("Could not deserialize"); //$NON-NLS-1$
+			exception.initCause(e);
+			throw exception;
 		}
 
-		int offset = 0;
-		while (remaining > limit) {
-			buffer.put(data, offset, limit);
-			buffer.flip();
-			channel.write(buffer);
-			buffer.clear();
-
-			offset += limit;
-			remaining -= limit;
+		if (!(object instanceof ID[])) {
+			throw new IOException("Unexpected handshake data: " + object); //$NON-NLS-1$
 		}
-
-		buffer.put(data, offset, remaining);
-		buffer.flip();
-		channel.write(buffer);
-		buffer.clear();
+		return (ID[]) object;
 	}
 
 }
@@ -14,6 +14,7 @@ package org.eclipse.ecf.provider.discovery;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.ecf.core.ContainerConnectException;
 import org.eclipse.ecf.core.IContainer;
@@ -38,6 +39,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		 * @see org.eclipse.ecf.discovery.IServiceListener#serviceDiscovered(org.eclipse.ecf.discovery.IServiceEvent)
 		 */
 		public void serviceDiscovered(final IServiceEvent event) {
+			updateServiceCache(event.getServiceInfo(), event.getLocalContainerID(), true);
 			final Collection col = getListeners(event.getServiceInfo().getServiceID().getServiceTypeID());
 			if (!col.isEmpty()) {
 				for (final Iterator itr = col.iterator(); itr.hasNext();) {
@@ -58,6 +60,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		 * @see org.eclipse.ecf.discovery.IServiceListener#serviceUndiscovered(org.eclipse.ecf.discovery.IServiceEvent)
 		 */
 		public void serviceUndiscovered(final IServiceEvent event) {
+			updateServiceCache(event.getServiceInfo(), event.getLocalContainerID(), false);
 			final Collection col = getListeners(event.getServiceInfo().getServiceID().getServiceTypeID());
 			if (!col.isEmpty()) {
 				for (final Iterator itr = col.iterator(); itr.hasNext();) {
@@ -103,14 +106,12 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 			// add ourself as a listener to the underlying providers. This might
 			// trigger a serviceAdded alread
 			final IServiceTypeID istid = event.getServiceTypeID();
-			synchronized (containers) {
-				for (final Iterator itr = containers.iterator(); itr.hasNext();) {
-					// TODO ccstl doesn't have to be a listener for a non
-					// matching (namespace) container, but it doesn't hurt
-					// either
-					final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
-					idca.addServiceListener(istid, ccsl);
-				}
+			final IDiscoveryLocator[] locators = getDiscoveryLocators();
+			for (int i = 0; i < locators.length; i++) {
+				// TODO ccstl doesn't have to be a listener for a non
+				// matching (namespace) container, but it doesn't hurt
+				// either
+				locators[i].addServiceListener(istid, ccsl);
 			}
 		}
 	}
@@ -119,6 +120,54 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 
 	protected static final String METHODS_TRACING = Activator.PLUGIN_ID + "/debug/methods/tracing"; //$NON-NLS-1$
 
+	/**
+	 * How long, in milliseconds, a query waits for each child container to
+	 * answer. Children that have not answered by then are left out of the
+	 * result.
+	 */
+	private static final long QUERY_TIMEOUT = Long.getLong("org.eclipse.ecf.provider.discovery.composite.queryTimeout", 10000).longValue(); //$NON-NLS-1$
+
+	/**
+	 * How long, in milliseconds, the merged result of {@link #getServices()}
+	 * is served from the cache before the children are queried again. The
+	 * cache is kept up to date by the children's discovery events in between,
+	 * this only catches up with providers that do not fire events.
+	 */
+	private static final long CACHE_TIMEOUT = Long.getLong("org.eclipse.ecf.provider.discovery.composite.cacheTimeout", 30000).longValue(); //$NON-NLS-1$
+
+	/**
+	 * Runs the queries of all composite containers' children.
+	 */
+	private static final ExecutorService queryExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+		private int count;
+
+		public synchronized Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "CompositeDiscoveryContainer query-" + ++count); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * A query of a single child container.
+	 */
+	private interface ContainerQuery {
+		Object query(IDiscoveryLocator idca);
+	}
+
+	/**
+	 * The merged services of all children, keyed by their {@link IServiceID}.
+	 */
+	private static final class ServiceCache {
+		final Map services;
+		final long expires;
+
+		ServiceCache(Map services, long expires) {
+			this.services = Collections.unmodifiableMap(services);
+			this.expires = expires;
+		}
+	}
+
 	protected final CompositeContainerServiceListener ccsl = new CompositeContainerServiceListener();
 	protected final CompositeContainerServiceTypeListener ccstl = new CompositeContainerServiceTypeListener();
 
@@ -133,6 +182,21 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 
 	private ID targetID;
 
+	/**
+	 * The current service cache, <code>null</code> if it has to be reloaded.
+	 * Replaced as a whole on every change so that lookups do not need a lock.
+	 */
+	private volatile ServiceCache serviceCache;
+
+	/**
+	 * Incremented on every change to the children's services, guarded by
+	 * {@link #serviceCacheLock}. A reload is discarded if this changed while
+	 * the children were queried.
+	 */
+	private long serviceCacheVersion;
+
+	private final Object serviceCacheLock = new Object();
+
 	/**
 	 * @param containers
 	 */
@@ -172,6 +236,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 			// remove all containers that failed to connect and thus are unusable subsequently
 			containers.removeAll(containersFailedToConnect);
 		}
+		invalidateServiceCache();
 		fireContainerEvent(new ContainerConnectedEvent(this.getID(), targetID));
 	}
 
@@ -188,6 +253,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 			}
 			containers.clear();
 		}
+		invalidateServiceCache();
 		synchronized (registeredServices) {
 			registeredServices.clear();
 		}
@@ -290,14 +356,26 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 */
 	public IServiceInfo getServiceInfo(final IServiceID aService) {
 		Assert.isNotNull(aService);
-		synchronized (containers) {
-			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
-				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
-				final IServiceID isi = getServiceIDForDiscoveryContainer(aService, idca);
-				final IServiceInfo service = idca.getServiceInfo(isi);
-				if (service != null) {
-					return service;
-				}
+		final IDiscoveryLocator[] locators = getDiscoveryLocators();
+		final ServiceCache cache = serviceCache;
+		if (cache != null) {
+			CompositeServiceInfoWrapper service = (CompositeServiceInfoWrapper) cache.services.get(aService);
+			for (int i = 0; service == null && i < locators.length; i++) {
+				service = (CompositeServiceInfoWrapper) cache.services.get(getServiceIDForDiscoveryContainer(aService, locators[i]));
+			}
+			if (service != null) {
+				return service.anInfo;
+			}
+		}
+		final Object[] results = queryContainers(locators, new ContainerQuery() {
+			public Object query(IDiscoveryLocator idca) {
+				return idca.getServiceInfo(getServiceIDForDiscoveryContainer(aService, idca));
+			}
+		}, "getServiceInfo"); //$NON-NLS-1$
+		// prefer the answer of the first container as before
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] != null) {
+				return (IServiceInfo) results[i];
 			}
 		}
 		return null;
@@ -314,20 +392,8 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 * @see org.eclipse.ecf.discovery.IDiscoveryContainerAdapter#getServices()
 	 */
 	public IServiceInfo[] getServices() {
-		final Set set = new HashSet();
-		synchronized (containers) {
-			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
-				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
-				final ID containerId = ((IContainer) idca).getID();
-				final IServiceInfo[] services = idca.getServices();
-				for (int i = 0; i < services.length; i++) {
-					IServiceInfo iServiceInfo = services[i];
-					services[i] = new CompositeServiceInfoWrapper(iServiceInfo, containerId);
-				}
-				set.addAll(Arrays.asList(services));
-			}
-		}
-		return (IServiceInfo[]) set.toArray(new IServiceInfo[set.size()]);
+		final Collection services = getCachedServices().values();
+		return (IServiceInfo[]) services.toArray(new IServiceInfo[services.size()]);
 	}
 
 	/* (non-Javadoc)
@@ -335,13 +401,16 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 */
 	public IServiceInfo[] getServices(final IServiceTypeID type) {
 		Assert.isNotNull(type);
+		// type matching is up to each provider, so this is not answered from the cache
+		final Object[] results = queryContainers(getDiscoveryLocators(), new ContainerQuery() {
+			public Object query(IDiscoveryLocator idca) {
+				return idca.getServices(getServiceTypeIDForDiscoveryContainer(type, idca));
+			}
+		}, "getServices(IServiceTypeID)"); //$NON-NLS-1$
 		final Set set = new HashSet();
-		synchronized (containers) {
-			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
-				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
-				final IServiceTypeID isti = getServiceTypeIDForDiscoveryContainer(type, idca);
-				final IServiceInfo[] services = idca.getServices(isti);
-				set.addAll(Arrays.asList(services));
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] != null) {
+				set.addAll(Arrays.asList((IServiceInfo[]) results[i]));
 			}
 		}
 		return (IServiceInfo[]) set.toArray(new IServiceInfo[set.size()]);
@@ -359,17 +428,151 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 * @see org.eclipse.ecf.discovery.IDiscoveryContainerAdapter#getServiceTypes()
 	 */
 	public IServiceTypeID[] getServiceTypes() {
+		final Object[] results = queryContainers(getDiscoveryLocators(), new ContainerQuery() {
+			public Object query(IDiscoveryLocator idca) {
+				return idca.getServiceTypes();
+			}
+		}, "getServiceTypes"); //$NON-NLS-1$
 		final Set set = new HashSet();
-		synchronized (containers) {
-			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
-				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
-				final IServiceTypeID[] services = idca.getServiceTypes();
-				set.addAll(Arrays.asList(services));
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] != null) {
+				set.addAll(Arrays.asList((IServiceTypeID[]) results[i]));
 			}
 		}
 		return (IServiceTypeID[]) set.toArray(new IServiceTypeID[set.size()]);
 	}
 
+	/**
+	 * @return a snapshot of the child containers, queried without holding the
+	 *         lock on {@link #containers}
+	 */
+	private IDiscoveryLocator[] getDiscoveryLocators() {
+		synchronized (containers) {
+			return (IDiscoveryLocator[]) containers.toArray(new IDiscoveryLocator[containers.size()]);
+		}
+	}
+
+	/**
+	 * Runs a query on all of the given child containers in parallel and waits
+	 * up to {@link #QUERY_TIMEOUT} for their answers.
+	 * 
+	 * @return the answers in the order of the given containers, with
+	 *         <code>null</code> for a container that failed or did not answer
+	 *         in time
+	 */
+	private Object[] queryContainers(final IDiscoveryLocator[] locators, final ContainerQuery query, final String methodName) {
+		final Object[] results = new Object[locators.length];
+		if (locators.length == 1) {
+			// nothing to wait for in parallel
+			try {
+				results[0] = query.query(locators[0]);
+			} catch (final RuntimeException e) {
+				Trace.catching(Activator.PLUGIN_ID, METHODS_CATCHING, this.getClass(), methodName, e);
+			}
+			return results;
+		}
+		final Future[] futures = new Future[locators.length];
+		for (int i = 0; i < locators.length; i++) {
+			final IDiscoveryLocator idca = locators[i];
+			futures[i] = queryExecutor.submit(new Callable() {
+				public Object call() {
+					return query.query(idca);
+				}
+			});
+		}
+		final long deadline = System.currentTimeMillis() + QUERY_TIMEOUT;
+		for (int i = 0; i < futures.length; i++) {
+			try {
+				results[i] = futures[i].get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			} catch (final TimeoutException e) {
+				futures[i].cancel(true);
+				Trace.trace(Activator.PLUGIN_ID, METHODS_TRACING, this.getClass(), methodName, locators[i] + " did not answer within " + QUERY_TIMEOUT + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+			} catch (final ExecutionException e) {
+				Trace.catching(Activator.PLUGIN_ID, METHODS_CATCHING, this.getClass(), methodName, e.getCause());
+			} catch (final InterruptedException e) {
+				for (int j = i; j < futures.length; j++) {
+					futures[j].cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * @return the merged services of all children, keyed by their
+	 *         {@link IServiceID}, from the cache if possible
+	 */
+	private Map getCachedServices() {
+		final ServiceCache cache = serviceCache;
+		if (cache != null && cache.expires > System.currentTimeMillis()) {
+			return cache.services;
+		}
+		final long version;
+		synchronized (serviceCacheLock) {
+			version = serviceCacheVersion;
+		}
+		final IDiscoveryLocator[] locators = getDiscoveryLocators();
+		final Object[] results = queryContainers(locators, new ContainerQuery() {
+			public Object query(IDiscoveryLocator idca) {
+				return idca.getServices();
+			}
+		}, "getServices"); //$NON-NLS-1$
+		final Map services = new HashMap();
+		boolean complete = true;
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] == null) {
+				complete = false;
+				continue;
+			}
+			final ID containerId = ((IContainer) locators[i]).getID();
+			final IServiceInfo[] infos = (IServiceInfo[]) results[i];
+			for (int j = 0; j < infos.length; j++) {
+				services.put(infos[j].getServiceID(), new CompositeServiceInfoWrapper(infos[j], containerId));
+			}
+		}
+		if (complete) {
+			synchronized (serviceCacheLock) {
+				// a child changed while we were waiting, our result may be stale already
+				if (version == serviceCacheVersion) {
+					serviceCache = new ServiceCache(services, System.currentTimeMillis() + CACHE_TIMEOUT);
+				}
+			}
+		}
+		return services;
+	}
+
+	/**
+	 * Applies a discovery event of a child container to the service cache.
+	 */
+	private void updateServiceCache(final IServiceInfo serviceInfo, final ID containerId, final boolean discovered) {
+		synchronized (serviceCacheLock) {
+			serviceCacheVersion++;
+			final ServiceCache cache = serviceCache;
+			if (cache == null) {
+				return;
+			}
+			final Map services = new HashMap(cache.services);
+			if (discovered) {
+				services.put(serviceInfo.getServiceID(), new CompositeServiceInfoWrapper(serviceInfo, containerId));
+			} else {
+				services.remove(serviceInfo.getServiceID());
+			}
+			serviceCache = new ServiceCache(services, cache.expires);
+		}
+	}
+
+	/**
+	 * Forces the next lookup to query the children again.
+	 */
+	private void invalidateServiceCache() {
+		synchronized (serviceCacheLock) {
+			serviceCacheVersion++;
+			serviceCache = null;
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.ecf.discovery.IDiscoveryContainerAdapter#registerService(org.eclipse.ecf.discovery.IServiceInfo)
 	 */
@@ -387,6 +590,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 						+ serviceInfo.toString());
 			}
 		}
+		invalidateServiceCache();
 	}
 
 	/* (non-Javadoc)
@@ -405,6 +609,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 				idca.unregisterService(isi);
 			}
 		}
+		invalidateServiceCache();
 	}
 
 	/* (non-Javadoc)
@@ -423,6 +628,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 				}
 			}
 		}
+		invalidateServiceCache();
 	}
 
 	/* (non-Javadoc)
@@ -437,6 +643,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 				set.addAll(Arrays.asList(services));
 			}
 		}
+		invalidateServiceCache();
 		return (IServiceInfo[]) set.toArray(new IServiceInfo[set.size()]);
 	}
 
@@ -473,11 +680,14 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 				}
 			}
 		}
+		final boolean added;
 		synchronized (containers) {
 			Trace.trace(Activator.PLUGIN_ID, METHODS_TRACING, this.getClass(), "addContainer(Object)", "addContainer " //$NON-NLS-1$ //$NON-NLS-2$
 					+ object.toString());
-			return containers.add(object);
+			added = containers.add(object);
 		}
+		invalidateServiceCache();
+		return added;
 	}
 
 	/**
@@ -489,11 +699,14 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		final IDiscoveryLocator idca = (IDiscoveryLocator) object;
 		idca.removeServiceListener(ccsl);
 		idca.removeServiceTypeListener(ccstl);
+		final boolean removed;
 		synchronized (containers) {
 			Trace.trace(Activator.PLUGIN_ID, METHODS_TRACING, this.getClass(), "removeContainer(Object)", "removeContainer " //$NON-NLS-1$ //$NON-NLS-2$
 					+ object.toString());
-			return containers.remove(object);
+			removed = containers.remove(object);
 		}
+		invalidateServiceCache();
+		return removed;
 	}
 
 	/**
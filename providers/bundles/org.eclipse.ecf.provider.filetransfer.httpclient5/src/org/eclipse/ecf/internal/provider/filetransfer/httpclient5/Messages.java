@@ -37,6 +37,7 @@ public class Messages extends NLS {
 	public static String HttpClientRetrieveFileTransfer_INVALID_LAST_MODIFIED_TIME;
 	public static String HttpClientRetrieveFileTransfer_INVALID_SERVER_RESPONSE_TO_PARTIAL_RANGE_REQUEST;
 	public static String HttpClientRetrieveFileTransfer_RESUME_START_ERROR;
+	public static String HttpClientRetrieveFileTransfer_INVALID_SEGMENT_RESPONSE;
 
 	static {
 		// initialize resource bundle
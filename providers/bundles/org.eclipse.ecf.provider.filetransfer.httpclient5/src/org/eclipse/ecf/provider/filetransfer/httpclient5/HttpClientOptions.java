@@ -25,9 +25,23 @@ public interface HttpClientOptions {
 	// version supports setting the TTL
 	String RETRIEVE_CONNECTION_TTL = "org.eclipse.ecf.provider.filetransfer.httpclient5.retrieve.connectionTTL"; //$NON-NLS-1$
 
+	// Segmented retrieve, only available for the httpclient5 provider.  If the number of segments is greater
+	// than 1 and the server accepts byte ranges, a file received into a local File is downloaded through up to
+	// that many parallel range requests.  Segments are at least the minimum segment size, and each failed
+	// segment is retried on its own up to the given number of times.  Segments of all transfers share a pool of
+	// at most segmentThreads threads; further segments wait for a free thread
+	String RETRIEVE_SEGMENTS_PROP = "org.eclipse.ecf.provider.filetransfer.httpclient5.retrieve.segments"; //$NON-NLS-1$
+	String RETRIEVE_SEGMENT_MIN_SIZE_PROP = "org.eclipse.ecf.provider.filetransfer.httpclient5.retrieve.segmentMinSize"; //$NON-NLS-1$
+	String RETRIEVE_SEGMENT_RETRIES_PROP = "org.eclipse.ecf.provider.filetransfer.httpclient5.retrieve.segmentRetries"; //$NON-NLS-1$
+	String RETRIEVE_SEGMENT_THREADS_PROP = "org.eclipse.ecf.provider.filetransfer.httpclient5.retrieve.segmentThreads"; //$NON-NLS-1$
+
 	int RETRIEVE_DEFAULT_CONNECTION_TIMEOUT = Integer.parseInt(System.getProperty(RETRIEVE_CONNECTION_TIMEOUT_PROP, "120000")); //$NON-NLS-1$
 	int RETRIEVE_DEFAULT_CONNECTION_TTL = Integer.parseInt(System.getProperty(RETRIEVE_CONNECTION_TTL, "1000")); //$NON-NLS-1$
 	int RETRIEVE_DEFAULT_READ_TIMEOUT = Integer.parseInt(System.getProperty(RETRIEVE_READ_TIMEOUT_PROP, "120000")); //$NON-NLS-1$
+	int RETRIEVE_DEFAULT_SEGMENTS = Integer.parseInt(System.getProperty(RETRIEVE_SEGMENTS_PROP, "1")); //$NON-NLS-1$
+	int RETRIEVE_DEFAULT_SEGMENT_MIN_SIZE = Integer.parseInt(System.getProperty(RETRIEVE_SEGMENT_MIN_SIZE_PROP, "1048576")); //$NON-NLS-1$
+	int RETRIEVE_DEFAULT_SEGMENT_RETRIES = Integer.parseInt(System.getProperty(RETRIEVE_SEGMENT_RETRIES_PROP, "3")); //$NON-NLS-1$
+	int RETRIEVE_DEFAULT_SEGMENT_THREADS = Integer.parseInt(System.getProperty(RETRIEVE_SEGMENT_THREADS_PROP, "16")); //$NON-NLS-1$
 	int BROWSE_DEFAULT_CONNECTION_TIMEOUT = Integer.parseInt(System.getProperty(BROWSE_CONNECTION_TIMEOUT_PROP, "120000")); //$NON-NLS-1$
 
 	int NTLM_PROXY_RESPONSE_CODE = 477;
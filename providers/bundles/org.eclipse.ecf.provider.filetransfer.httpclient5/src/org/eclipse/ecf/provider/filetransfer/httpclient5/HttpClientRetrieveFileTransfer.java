@@ -21,10 +21,21 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
@@ -102,6 +113,30 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 
 	private static final String LAST_MODIFIED_HEADER = "Last-Modified"; //$NON-NLS-1$
 
+	private static final int SEGMENT_BUFFER_SIZE = 65536;
+
+	// interval for progress reporting of segmented transfers
+	private static final long SEGMENT_PROGRESS_INTERVAL = 100;
+
+	// Shared by all segmented transfers.  Segments beyond the thread limit are queued, and idle threads exit
+	private static final ExecutorService segmentExecutor = createSegmentExecutor();
+
+	private static ExecutorService createSegmentExecutor() {
+		final int threads = Math.max(1, HttpClientOptions.RETRIEVE_DEFAULT_SEGMENT_THREADS);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ECF httpclient5 segment " + count.incrementAndGet()); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
 	private HttpGet getMethod = null;
 
 	private CloseableHttpResponse httpResponse = null;
@@ -131,6 +166,15 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 
 	private FileTransferJob connectJob;
 
+	// If-Range validator of the initial response, set if the file can be retrieved in segments
+	private String segmentValidator;
+
+	private volatile List<Segment> segments;
+
+	private final AtomicLong segmentBytesReceived = new AtomicLong();
+
+	private final Object segmentLock = new Object();
+
 	public HttpClientRetrieveFileTransfer(CloseableHttpClient client) {
 		Assert.isNotNull(client);
 		this.httpClient = client;
@@ -192,6 +236,11 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 			getMethod.abort();
 			getMethod = null;
 		}
+		List<Segment> currentSegments = segments;
+		if (currentSegments != null) {
+			for (Segment segment : currentSegments)
+				segment.abort();
+		}
 
 		if (httpResponse != null) {
 			try {
@@ -267,6 +316,9 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 		clearProxy();
 		getMethod = null;
 		requestConfigBuilder = null;
+		segmentValidator = null;
+		segments = null;
+		segmentBytesReceived.set(0);
 
 		super.resetDoneAndException();
 	}
@@ -303,7 +355,7 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 		} else if (maxAge > 0) {
 			getMethod.addHeader(HttpHeaders.CACHE_CONTROL, "max-age=" + maxAge); //$NON-NLS-1$
 		}
-		setRequestHeaderValuesFromOptions();
+		setRequestHeaderValuesFromOptions(getMethod);
 	}
 
 	private void setRangeHeader(final IFileRangeSpecification rangeSpec, final long resumePosition) throws InvalidFileRangeSpecificationException {
@@ -330,7 +382,7 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 		setRangeHeader(rangeHeader);
 	}
 
-	private void setRequestHeaderValuesFromOptions() {
+	private void setRequestHeaderValuesFromOptions(HttpGet method) {
 		Map<?, ?> localOptions = getOptions();
 		if (localOptions != null) {
 			Object o = localOptions.get(IRetrieveFileTransferOptions.REQUEST_HEADERS);
@@ -339,7 +391,7 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 				for (Object n : requestHeaders.keySet()) {
 					Object v = requestHeaders.get(n);
 					if (n != null && n instanceof String && v != null && v instanceof String) {
-						getMethod.addHeader((String) n, (String) v);
+						method.addHeader((String) n, (String) v);
 					}
 				}
 			}
@@ -600,6 +652,8 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 
 			if (code == HttpStatus.SC_PARTIAL_CONTENT || code == HttpStatus.SC_OK) {
 				getResponseHeaderValues();
+				if (code == HttpStatus.SC_OK)
+					segmentValidator = getSegmentValidator();
 				setInputStream(httpResponse.getEntity().getContent());
 				fireReceiveStartEvent();
 			} else if (code == HttpStatus.SC_NOT_FOUND) {
@@ -764,7 +818,8 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 	 */
 	@Override
 	protected boolean doPause() {
-		if (isPaused() || !isConnected() || isDone())
+		// Segmented transfers cannot be resumed from bytesReceived
+		if (isPaused() || !isConnected() || isDone() || segments != null)
 			return false;
 		this.paused = true;
 		return this.paused;
@@ -797,7 +852,7 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 		} else if (maxAge > 0) {
 			getMethod.addHeader(HttpHeaders.CACHE_CONTROL, "max-age=" + maxAge); //$NON-NLS-1$
 		}
-		setRequestHeaderValuesFromOptions();
+		setRequestHeaderValuesFromOptions(getMethod);
 	}
 
 	private boolean openStreamsForResume() {
@@ -805,6 +860,7 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 		Trace.entering(Activator.PLUGIN_ID, DebugOptions.METHODS_ENTERING, this.getClass(), "openStreamsForResume"); //$NON-NLS-1$
 		final String urlString = getRemoteFileURL().toString();
 		this.doneFired = false;
+		this.segmentValidator = null;
 
 		int code = -1;
 
@@ -1021,6 +1077,282 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 
 	}
 
+	private int getIntOption(String name, int defaultValue) {
+		Map<?, ?> localOptions = getOptions();
+		if (localOptions != null) {
+			Object o = localOptions.get(name);
+			if (o instanceof Integer) {
+				return ((Integer) o).intValue();
+			} else if (o instanceof String) {
+				return Integer.parseInt((String) o);
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * @return the If-Range validator for segment requests, or <code>null</code>
+	 * if the file of the current response cannot be retrieved in segments
+	 */
+	private String getSegmentValidator() {
+		if (getFileRangeSpecification() != null || getIntOption(HttpClientOptions.RETRIEVE_SEGMENTS_PROP, HttpClientOptions.RETRIEVE_DEFAULT_SEGMENTS) < 2)
+			return null;
+		if (fileLength < 2L * getIntOption(HttpClientOptions.RETRIEVE_SEGMENT_MIN_SIZE_PROP, HttpClientOptions.RETRIEVE_DEFAULT_SEGMENT_MIN_SIZE))
+			return null;
+		// Ranges are byte positions of the unencoded entity
+		if (httpResponse.getEntity().getContentEncoding() != null)
+			return null;
+		Header acceptRanges = httpResponse.getLastHeader(HttpHeaders.ACCEPT_RANGES);
+		if (acceptRanges == null || !"bytes".equalsIgnoreCase(acceptRanges.getValue().trim())) //$NON-NLS-1$
+			return null;
+		// If-Range only accepts a strong entity tag
+		Header etag = httpResponse.getLastHeader(HttpHeaders.ETAG);
+		if (etag != null && !etag.getValue().startsWith("W/")) //$NON-NLS-1$
+			return etag.getValue();
+		Header lastModified = httpResponse.getLastHeader(LAST_MODIFIED_HEADER);
+		return (lastModified == null) ? null : lastModified.getValue();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.ecf.provider.filetransfer.retrieve.AbstractRetrieveFileTransfer#setupAndScheduleJob(org.eclipse.ecf.filetransfer.FileTransferJob)
+	 */
+	@Override
+	protected void setupAndScheduleJob(FileTransferJob fileTransferJob) {
+		// Segments are written positionally, so the receiver must have given us a file
+		if (segmentValidator == null || localFile == null) {
+			super.setupAndScheduleJob(fileTransferJob);
+			return;
+		}
+		if (fileTransferJob == null) {
+			fileTransferJob = new FileTransferJob(createJobName());
+		}
+		fileTransferJob.setFileTransferRunnable(segmentedTransferRunnable);
+		fileTransferJob.setFileTransfer(this);
+		if (isDone()) {
+			return;
+		}
+		synchronized (jobLock) {
+			job = fileTransferJob;
+			job.schedule();
+		}
+	}
+
+	private IFileTransferRunnable segmentedTransferRunnable = new IFileTransferRunnable() {
+		@Override
+		public IStatus performFileTransfer(IProgressMonitor monitor) {
+			return performSegmentedTransfer(monitor);
+		}
+	};
+
+	/**
+	 * Retrieve the file through parallel range requests.  The first segment
+	 * continues to read the initial response.  Segments are written into the
+	 * local file at their position and report to this job, which fires the
+	 * receive data events.
+	 */
+	private IStatus performSegmentedTransfer(IProgressMonitor monitor) {
+		Trace.entering(Activator.PLUGIN_ID, DebugOptions.METHODS_ENTERING, this.getClass(), "performSegmentedTransfer"); //$NON-NLS-1$
+		transferStartTime = System.currentTimeMillis();
+		final double factor = (fileLength > Integer.MAX_VALUE) ? (((double) Integer.MAX_VALUE) / ((double) fileLength)) : 1.0;
+		monitor.beginTask(getRemoteFileURL().toString() + org.eclipse.ecf.internal.provider.filetransfer.Messages.AbstractRetrieveFileTransfer_Progress_Data, (int) Math.min(fileLength, Integer.MAX_VALUE));
+		FileChannel channel = null;
+		try {
+			// The start event has opened the file as a stream, which is not used
+			localFileContents.close();
+			localFileContents = null;
+			channel = FileChannel.open(localFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+			segments = createSegments(channel);
+			for (Segment segment : segments)
+				segmentExecutor.execute(segment);
+			long reported = 0;
+			while (!isDone()) {
+				if (monitor.isCanceled())
+					throw newUserCancelledException();
+				boolean complete = true;
+				Exception failure = null;
+				for (Segment segment : segments) {
+					complete &= segment.complete;
+					if (failure == null)
+						failure = segment.failure;
+				}
+				long received = segmentBytesReceived.get();
+				if (received > reported) {
+					handleSegmentData(received - reported, factor, monitor);
+					reported = received;
+				}
+				if (failure != null)
+					throw failure;
+				if (complete) {
+					setDone(true);
+					break;
+				}
+				synchronized (segmentLock) {
+					segmentLock.wait(SEGMENT_PROGRESS_INTERVAL);
+				}
+			}
+		} catch (final Exception e) {
+			Trace.catching(Activator.PLUGIN_ID, DebugOptions.EXCEPTIONS_CATCHING, this.getClass(), "performSegmentedTransfer", e); //$NON-NLS-1$
+			if (!isDone()) {
+				setDoneException(e);
+			}
+		} finally {
+			hardClose();
+			try {
+				if (channel != null)
+					channel.close();
+			} catch (final IOException e) {
+				Activator.getDefault().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, IStatus.ERROR, String.format("performSegmentedTransfer channel.close() exception. url=%s", remoteFileURL), e)); //$NON-NLS-1$
+			}
+			monitor.done();
+			fireTransferReceiveDoneEvent();
+		}
+		Trace.exiting(Activator.PLUGIN_ID, DebugOptions.METHODS_EXITING, this.getClass(), "performSegmentedTransfer"); //$NON-NLS-1$
+		return getFinalStatus(exception);
+	}
+
+	private List<Segment> createSegments(FileChannel channel) {
+		int count = getIntOption(HttpClientOptions.RETRIEVE_SEGMENTS_PROP, HttpClientOptions.RETRIEVE_DEFAULT_SEGMENTS);
+		count = (int) Math.max(1, Math.min(count, fileLength / getIntOption(HttpClientOptions.RETRIEVE_SEGMENT_MIN_SIZE_PROP, HttpClientOptions.RETRIEVE_DEFAULT_SEGMENT_MIN_SIZE)));
+		final RequestConfig config = RequestConfig.copy(getRequestConfigBuilder().build()).setContentCompressionEnabled(false).build();
+		final long size = fileLength / count;
+		List<Segment> result = new ArrayList<Segment>(count);
+		for (int i = 0; i < count; i++) {
+			long start = i * size;
+			long end = (i == count - 1) ? fileLength - 1 : start + size - 1;
+			result.add(new Segment(channel, config, start, end, (i == 0) ? remoteFileContents : null));
+		}
+		Trace.trace(Activator.PLUGIN_ID, "retrieve segments=" + count + ";length=" + fileLength); //$NON-NLS-1$ //$NON-NLS-2$
+		return result;
+	}
+
+	private synchronized void handleSegmentData(long bytes, double factor, IProgressMonitor monitor) {
+		bytesReceived += bytes;
+		downloadRateBytesPerSecond = (bytesReceived / ((System.currentTimeMillis() + 1 - transferStartTime) / 1000.0));
+		monitor.setTaskName(createJobName() + org.eclipse.ecf.internal.provider.filetransfer.Messages.AbstractRetrieveFileTransfer_Progress_Data + NLS.bind(org.eclipse.ecf.internal.provider.filetransfer.Messages.AbstractRetrieveFileTransfer_InfoTransferRate, toHumanReadableBytes(downloadRateBytesPerSecond)));
+		monitor.worked((int) Math.round(factor * bytes));
+		fireTransferReceiveDataEvent();
+	}
+
+	/**
+	 * One byte range of a segmented transfer.  A failed segment is requested
+	 * again from its current position, up to the configured number of retries.
+	 */
+	private final class Segment implements Runnable {
+
+		private final FileChannel channel;
+
+		private final RequestConfig config;
+
+		private final long end;
+
+		private long position;
+
+		private InputStream in;
+
+		private CloseableHttpResponse response;
+
+		private volatile HttpGet request;
+
+		volatile boolean complete;
+
+		volatile Exception failure;
+
+		Segment(FileChannel channel, RequestConfig config, long start, long end, InputStream in) {
+			this.channel = channel;
+			this.config = config;
+			this.position = start;
+			this.end = end;
+			this.in = in;
+		}
+
+		@Override
+		public void run() {
+			final int retries = getIntOption(HttpClientOptions.RETRIEVE_SEGMENT_RETRIES_PROP, HttpClientOptions.RETRIEVE_DEFAULT_SEGMENT_RETRIES);
+			final byte[] buf = new byte[SEGMENT_BUFFER_SIZE];
+			int attempts = 0;
+			try {
+				while (!complete && !isDone()) {
+					try {
+						if (in == null)
+							in = open();
+						read(buf);
+						complete = position > end;
+					} catch (final IOException e) {
+						if (isDone() || ++attempts > retries)
+							throw e;
+						Trace.catching(Activator.PLUGIN_ID, DebugOptions.EXCEPTIONS_CATCHING, this.getClass(), "retry segment at " + position, e); //$NON-NLS-1$
+					} finally {
+						close();
+					}
+				}
+			} catch (final Exception e) {
+				failure = e;
+			} finally {
+				synchronized (segmentLock) {
+					segmentLock.notifyAll();
+				}
+			}
+		}
+
+		private InputStream open() throws IOException {
+			final String range = "bytes=" + position + "-" + end; //$NON-NLS-1$ //$NON-NLS-2$
+			HttpGet get = new HttpGet(getRemoteFileURL().toString());
+			get.setConfig(config);
+			get.setHeader(HttpHeaders.RANGE, range);
+			get.setHeader(HttpHeaders.IF_RANGE, segmentValidator);
+			int maxAge = Integer.getInteger("org.eclipse.ecf.http.cache.max-age", 0); //$NON-NLS-1$
+			if (maxAge >= 0)
+				get.addHeader(HttpHeaders.CACHE_CONTROL, "max-age=" + maxAge); //$NON-NLS-1$
+			setRequestHeaderValuesFromOptions(get);
+			request = get;
+			HttpClientContext context = Activator.getDefault().getHttpClientFactory().newClientContext();
+			context.setCredentialsProvider(ECFHttpClientFactory.modifyCredentialsProvider(credentialsProvider));
+			response = httpClient.execute(get, context);
+			int code = response.getCode();
+			Header contentRange = response.getLastHeader(HttpHeaders.CONTENT_RANGE);
+			// A 200 means the file has changed and the whole file is sent
+			if (code != HttpStatus.SC_PARTIAL_CONTENT || contentRange == null || !contentRange.getValue().startsWith("bytes " + position + "-")) //$NON-NLS-1$ //$NON-NLS-2$
+				throw new IOException(NLS.bind(Messages.HttpClientRetrieveFileTransfer_INVALID_SEGMENT_RESPONSE, range, Integer.valueOf(code)));
+			return response.getEntity().getContent();
+		}
+
+		private void read(byte[] buf) throws IOException {
+			while (position <= end && !isDone()) {
+				int bytes = in.read(buf, 0, (int) Math.min(buf.length, end - position + 1));
+				if (bytes == -1)
+					throw new IOException(NLS.bind(Messages.HttpClientRetrieveFileTransfer_INVALID_SEGMENT_RESPONSE, "bytes=" + position + "-" + end, "EOF")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				ByteBuffer src = ByteBuffer.wrap(buf, 0, bytes);
+				while (src.hasRemaining())
+					channel.write(src, position + src.position());
+				position += bytes;
+				segmentBytesReceived.addAndGet(bytes);
+			}
+		}
+
+		private void close() {
+			// Abort rather than consume the rest of the initial response or a failed segment response
+			if (response == null || !complete)
+				abort();
+			try {
+				if (response != null)
+					response.close();
+				else if (in != null)
+					in.close();
+			} catch (final IOException e) {
+				// ignore
+			}
+			in = null;
+			response = null;
+			request = null;
+		}
+
+		void abort() {
+			HttpGet r = (request == null && response == null) ? getMethod : request;
+			if (r != null)
+				r.abort();
+		}
+	}
+
 	@Override
 	protected void fireReceiveResumedEvent() {
 		Trace.entering(Activator.PLUGIN_ID, DebugOptions.METHODS_ENTERING, this.getClass(), "fireReceiveResumedEvent len=" + fileLength + ";rcvd=" + bytesReceived); //$NON-NLS-1$ //$NON-NLS-2$
@@ -16,12 +16,16 @@ package org.eclipse.ecf.provider.filetransfer.retrieve;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.DecimalFormat;
 import java.util.Date;
 import java.util.Map;
@@ -59,9 +63,9 @@ import org.eclipse.ecf.filetransfer.service.IRetrieveFileTransfer;
 import org.eclipse.ecf.internal.provider.filetransfer.Activator;
 import org.eclipse.ecf.internal.provider.filetransfer.Messages;
 import org.eclipse.ecf.provider.filetransfer.identity.FileTransferNamespace;
+import org.eclipse.ecf.provider.filetransfer.util.DeadlineInputStream;
 import org.eclipse.ecf.provider.filetransfer.util.PollingInputStream;
 import org.eclipse.ecf.provider.filetransfer.util.ProxySetupHelper;
-import org.eclipse.ecf.provider.filetransfer.util.TimeoutInputStream;
 import org.eclipse.osgi.util.NLS;
 
 public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTransfer, IRetrieveFileTransfer, IFileTransferPausable {
@@ -76,6 +80,15 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 
 	protected static final int CLOSE_TIMEOUT = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.filetransfer.retrieve.closeTimeout", "1000")); //$NON-NLS-1$ //$NON-NLS-2$;
 
+	// minimum interval between receive data events
+	private static final long PROGRESS_INTERVAL = Long.parseLong(System.getProperty("org.eclipse.ecf.provider.filetransfer.retrieve.progressInterval", "100")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	// read buffer length when writing to a local file channel
+	private static final int CHANNEL_BUF_LENGTH = 65536;
+
+	// bytes per transferFrom call when the source is a file channel
+	private static final long CHANNEL_TRANSFER_LENGTH = 8 * 1024 * 1024;
+
 	private static final String readTimeoutMessage = "Timeout while reading input stream.\n" + //$NON-NLS-1$
 			"The following system properties can be used to adjust the readTimeout, retryAttempts, and closeTimeout\n" + //$NON-NLS-1$
 			"\torg.eclipse.ecf.provider.filetransfer.retrieve.readTimeout=<default:1000>\n" + //$NON-NLS-1$
@@ -109,6 +122,32 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 
 	protected boolean closeOutputStream = true;
 
+	/**
+	 * The local file the transfer is written to, if the receiver passed a
+	 * {@link File} to the receive start event.  <code>null</code> otherwise.
+	 * @since 3.4
+	 */
+	protected File localFile;
+
+	/**
+	 * Output stream for a local file that the transfer may write to through
+	 * the file's channel.  The channel is derived from the current output
+	 * stream, so replacing the output stream (e.g. on resume) also replaces
+	 * the channel.
+	 */
+	private static class ChannelOutputStream extends BufferedOutputStream {
+		final FileChannel channel;
+
+		ChannelOutputStream(FileChannel channel) {
+			super(Channels.newOutputStream(channel));
+			this.channel = channel;
+		}
+	}
+
+	private long lastProgressTime;
+
+	private long unreportedBytes;
+
 	protected Exception exception;
 
 	protected long fileLength = -1;
@@ -139,6 +178,8 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 	}
 
 	protected InputStream wrapTransferReadInputStream(InputStream inputStream, IProgressMonitor monitor) {
+		if (inputStream instanceof DeadlineInputStream)
+			((DeadlineInputStream) inputStream).setProgressMonitor(monitor);
 		return new PollingInputStream(inputStream, getRetryAttempts(), monitor, readTimeoutMessage, closeTimeoutMessage);
 	}
 
@@ -162,7 +203,8 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 	private IFileTransferRunnable fileTransferRunnable = new IFileTransferRunnable() {
 		public IStatus performFileTransfer(IProgressMonitor monitor) {
 			transferStartTime = System.currentTimeMillis();
-			final byte[] buf = new byte[buff_length];
+			lastProgressTime = 0;
+			unreportedBytes = 0;
 			final long totalWork = ((fileLength == -1) ? 100 : fileLength);
 			double factor = (totalWork > Integer.MAX_VALUE) ? (((double) Integer.MAX_VALUE) / ((double) totalWork)) : 1.0;
 			int work = (totalWork > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) totalWork;
@@ -173,16 +215,32 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 				// See bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=425868
 				if (remoteFileContents == null)
 					throw new IOException("input stream cannot be null"); //$NON-NLS-1$
-				// Create read input stream
-				readInputStream = wrapTransferReadInputStream(remoteFileContents, monitor);
-				while (!isDone() && !isPaused()) {
-					try {
-						final int bytes = readInputStream.read(buf);
-						handleReceivedData(buf, bytes, factor, monitor);
-					} catch (OperationCanceledException e) {
-						throw new UserCancelledException(Messages.AbstractRetrieveFileTransfer_Exception_User_Cancelled);
+				final FileChannel localFileChannel = getLocalFileChannel();
+				if (localFileChannel != null)
+					// Write anything buffered by subclasses before writing to the channel
+					localFileContents.flush();
+				if (localFileChannel != null && remoteFileContents instanceof FileInputStream) {
+					// Local to local, let the file system copy
+					transferFromChannel(((FileInputStream) remoteFileContents).getChannel(), localFileChannel, factor, monitor);
+				} else {
+					// Create read input stream
+					readInputStream = wrapTransferReadInputStream(remoteFileContents, monitor);
+					if (localFileChannel != null)
+						transferToChannel(readInputStream, localFileChannel, factor, monitor);
+					else {
+						final byte[] buf = new byte[buff_length];
+						while (!isDone() && !isPaused()) {
+							try {
+								final int bytes = readInputStream.read(buf);
+								handleReceivedData(buf, bytes, factor, monitor);
+							} catch (OperationCanceledException e) {
+								throw new UserCancelledException(Messages.AbstractRetrieveFileTransfer_Exception_User_Cancelled);
+							}
+						}
 					}
 				}
+				// Report the data received since the last event
+				reportProgress(0, factor, monitor, true);
 			} catch (final Exception e) {
 				if (!isDone()) {
 					setDoneException(e);
@@ -263,13 +321,57 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 	}
 
 	protected void setInputStream(InputStream ins) {
-		remoteFileContents = new TimeoutInputStream(ins, TIMEOUT_INPUTSTREAM_BUFFER_SIZE, getSocketReadTimeout(), getSocketCloseTimeout());
+		// Local files do not stall, and are copied through their channel
+		if (ins instanceof FileInputStream) {
+			remoteFileContents = ins;
+			return;
+		}
+		// A stalled read is aborted once all retries of the polling stream would have timed out
+		int attempts = getRetryAttempts();
+		long readTimeout = (attempts > 0) ? (long) getSocketReadTimeout() * attempts : 0;
+		remoteFileContents = new DeadlineInputStream(ins, readTimeout, getSocketCloseTimeout(), createAbortAction(ins));
+	}
+
+	/**
+	 * Create the action that aborts a read of the given remote file contents
+	 * that has stalled for longer than the read timeout, or that continues
+	 * after the transfer has been canceled.  The action is run on a background
+	 * thread while the read is blocked, and the stream is closed after it.
+	 * This implementation returns <code>null</code>, so only the stream is
+	 * closed.  Subclasses should return an action that aborts the connection
+	 * if closing the stream does not interrupt a blocked read, e.g. because it
+	 * reads the rest of the content to reuse the connection.
+	 * 
+	 * @param ins the remote file contents.  Will not be <code>null</code>.
+	 * @return the abort action, or <code>null</code>
+	 * @since 3.4
+	 */
+	protected Runnable createAbortAction(InputStream ins) {
+		return null;
 	}
 
 	protected void setOutputStream(OutputStream outs) {
 		localFileContents = outs;
 	}
 
+	private static FileChannel openLocalFile(File file, boolean append) throws IOException {
+		if (!append)
+			return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		// Not opened in append mode, so that transferFrom writes at the channel position
+		final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		channel.position(channel.size());
+		return channel;
+	}
+
+	private FileChannel getLocalFileChannel() {
+		if (localFileContents instanceof ChannelOutputStream) {
+			final FileChannel channel = ((ChannelOutputStream) localFileContents).channel;
+			if (channel.isOpen())
+				return channel;
+		}
+		return null;
+	}
+
 	protected void setCloseOutputStream(boolean close) {
 		closeOutputStream = close;
 	}
@@ -290,14 +392,75 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 		if (bytes != -1) {
 			bytesReceived += bytes;
 			localFileContents.write(buf, 0, bytes);
-			downloadRateBytesPerSecond = (bytesReceived / ((System.currentTimeMillis() + 1 - transferStartTime) / 1000.0));
-			monitor.setTaskName(createJobName() + Messages.AbstractRetrieveFileTransfer_Progress_Data + NLS.bind(Messages.AbstractRetrieveFileTransfer_InfoTransferRate, toHumanReadableBytes(downloadRateBytesPerSecond)));
-			monitor.worked((int) Math.round(factor * bytes));
-			fireTransferReceiveDataEvent();
+			reportProgress(bytes, factor, monitor, false);
 		} else
 			setDone(true);
 	}
 
+	private synchronized void handleReceivedChannelData(long bytes, double factor, IProgressMonitor monitor) {
+		if (bytes != -1) {
+			bytesReceived += bytes;
+			reportProgress(bytes, factor, monitor, false);
+		} else
+			setDone(true);
+	}
+
+	/**
+	 * Update the monitor and fire a receive data event, at most every
+	 * PROGRESS_INTERVAL milliseconds unless flushed.
+	 */
+	private synchronized void reportProgress(long bytes, double factor, IProgressMonitor monitor, boolean flush) {
+		unreportedBytes += bytes;
+		final long now = System.currentTimeMillis();
+		if (unreportedBytes == 0 || (!flush && now - lastProgressTime < PROGRESS_INTERVAL))
+			return;
+		downloadRateBytesPerSecond = (bytesReceived / ((now + 1 - transferStartTime) / 1000.0));
+		monitor.setTaskName(createJobName() + Messages.AbstractRetrieveFileTransfer_Progress_Data + NLS.bind(Messages.AbstractRetrieveFileTransfer_InfoTransferRate, toHumanReadableBytes(downloadRateBytesPerSecond)));
+		monitor.worked((int) Math.round(factor * unreportedBytes));
+		unreportedBytes = 0;
+		lastProgressTime = now;
+		fireTransferReceiveDataEvent();
+	}
+
+	/**
+	 * Read from the (wrapped) remote stream and write to the local file
+	 * channel, without an intermediate output stream buffer.
+	 */
+	private void transferToChannel(InputStream readInputStream, FileChannel localFileChannel, double factor, IProgressMonitor monitor) throws IOException {
+		final byte[] buf = new byte[Math.max(buff_length, CHANNEL_BUF_LENGTH)];
+		final ByteBuffer buffer = ByteBuffer.wrap(buf);
+		while (!isDone() && !isPaused()) {
+			try {
+				final int bytes = readInputStream.read(buf);
+				if (bytes > 0) {
+					buffer.clear();
+					buffer.limit(bytes);
+					while (buffer.hasRemaining())
+						localFileChannel.write(buffer);
+				}
+				handleReceivedChannelData(bytes, factor, monitor);
+			} catch (OperationCanceledException e) {
+				throw new UserCancelledException(Messages.AbstractRetrieveFileTransfer_Exception_User_Cancelled);
+			}
+		}
+	}
+
+	/**
+	 * Transfer from a file channel source to the local file channel.
+	 */
+	private void transferFromChannel(FileChannel source, FileChannel localFileChannel, double factor, IProgressMonitor monitor) throws IOException {
+		while (!isDone() && !isPaused()) {
+			if (monitor.isCanceled())
+				throw new UserCancelledException(Messages.AbstractRetrieveFileTransfer_Exception_User_Cancelled);
+			final long position = localFileChannel.position();
+			final long bytes = localFileChannel.transferFrom(source, position, CHANNEL_TRANSFER_LENGTH);
+			// Nothing transferred from a file channel means end of file
+			if (bytes > 0)
+				localFileChannel.position(position + bytes);
+			handleReceivedChannelData((bytes > 0) ? bytes : -1, factor, monitor);
+		}
+	}
+
 	public static String toHumanReadableBytes(double size) {
 		double convertedSize;
 		String unit;
@@ -711,7 +874,9 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 			 * org.eclipse.ecf.filetransfer.FileTransferJob)
 			 */
 			public IIncomingFileTransfer receive(File localFileToSave, FileTransferJob fileTransferJob) throws IOException {
-				setOutputStream(new BufferedOutputStream(new FileOutputStream(localFileToSave)));
+				localFile = localFileToSave;
+				// The transfer writes to the channel, the stream is kept for subclasses
+				setOutputStream(new ChannelOutputStream(openLocalFile(localFileToSave, false)));
 				setupAndScheduleJob(fileTransferJob);
 				return AbstractRetrieveFileTransfer.this;
 			}
@@ -731,6 +896,7 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 			 *             not actually thrown by this implementation.
 			 */
 			public IIncomingFileTransfer receive(OutputStream streamToStore, FileTransferJob fileTransferJob) throws IOException {
+				localFile = null;
 				setOutputStream(streamToStore);
 				setCloseOutputStream(false);
 				setupAndScheduleJob(fileTransferJob);
@@ -783,7 +949,7 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 			}
 
 			public IIncomingFileTransfer receive(File localFileToSave, FileTransferJob fileTransferJob, boolean append) throws IOException {
-				setOutputStream(new BufferedOutputStream(new FileOutputStream(localFileToSave.getName(), append)));
+				setOutputStream(new ChannelOutputStream(openLocalFile(localFileToSave, append)));
 				setupAndScheduleJob(fileTransferJob);
 				return AbstractRetrieveFileTransfer.this;
 			}
@@ -398,6 +398,26 @@ public class UrlConnectionRetrieveFileTransfer extends AbstractRetrieveFileTrans
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.ecf.provider.filetransfer.retrieve.AbstractRetrieveFileTransfer
+	 * #createAbortAction(java.io.InputStream)
+	 */
+	protected Runnable createAbortAction(InputStream ins) {
+		final URLConnection connection = urlConnection;
+		if (!(connection instanceof HttpURLConnection))
+			return super.createAbortAction(ins);
+		// Closing the stream of a keep-alive connection reads the rest of the
+		// content, disconnecting closes the socket
+		return new Runnable() {
+			public void run() {
+				((HttpURLConnection) connection).disconnect();
+			}
+		};
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
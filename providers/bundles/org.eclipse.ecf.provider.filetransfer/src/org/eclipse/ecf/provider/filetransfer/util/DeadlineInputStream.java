@@ -0,0 +1,374 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.filetransfer.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Wraps an input stream that may block indefinitely and enforces timeouts on
+ * read(), skip() and close() without a thread per stream.  Reads go directly
+ * to the underlying stream, into the caller's buffer.
+ * <p>
+ * The deadlines of all blocked calls are checked by one shared scheduler
+ * thread, which only runs while calls are blocked.  Streams are only known to
+ * the scheduler during a call, so a stream that is never closed is not
+ * retained.  A read or skip that has been blocked for longer than the read
+ * timeout, or while the progress monitor is canceled, is aborted by running
+ * the abort action, if any, and closing the underlying stream.  The blocked
+ * call and every later call then throw an InterruptedIOException.  The abort
+ * action should abort the underlying connection if closing the stream does
+ * not interrupt a blocked read, as for streams that read the rest of the
+ * content on close to reuse the connection.  Unlike {@link TimeoutInputStream}, an aborted
+ * stream cannot be resumed, so the read timeout should cover the whole time a
+ * transfer may stall.
+ * <p>
+ * Timeouts of the underlying stream itself, such as a socket read timeout,
+ * are passed through unchanged, and the stream may be read again after them.
+ *
+ * @since 3.4
+ */
+public class DeadlineInputStream extends FilterInputStream {
+
+	// interval of the deadline check
+	private static final long CHECK_INTERVAL = Long.getLong("org.eclipse.ecf.provider.filetransfer.util.deadlineCheckInterval", 250).longValue(); //$NON-NLS-1$
+
+	// streams with a blocked call that may be aborted
+	private static final Set<DeadlineInputStream> blockedStreams = Collections.newSetFromMap(new ConcurrentHashMap<DeadlineInputStream, Boolean>());
+
+	private static ScheduledThreadPoolExecutor scheduler;
+
+	private static ScheduledFuture<?> checkTask;
+
+	// whether the check task is scheduled, changed with the class lock held
+	private static volatile boolean checking = false;
+
+	// closes aborted streams and streams with a close timeout
+	private static final ExecutorService closer = Executors.newCachedThreadPool(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "DeadlineInputStream Closer"); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private final long readTimeout; // read() timeout in millis, or 0
+	private final long closeTimeout; // close() timeout in millis, 0, or -1
+
+	private final Runnable abortAction;
+
+	private volatile IProgressMonitor monitor;
+
+	// start of the current blocking call in nanos, or 0 if not blocked
+	private volatile long blockedSince = 0;
+
+	private volatile boolean aborted = false;
+
+	private boolean closed = false;
+
+	/**
+	 * Creates a timeout wrapper for an input stream.
+	 *
+	 * @param in
+	 *            the underlying input stream
+	 * @param readTimeout
+	 *            the number of milliseconds a read() or skip() may block
+	 *            before the stream is aborted; 0 blocks indefinitely
+	 * @param closeTimeout
+	 *            the number of milliseconds to block for a close() before
+	 *            throwing an InterruptedIOException; 0 blocks indefinitely, -1
+	 *            closes the stream in the background
+	 */
+	public DeadlineInputStream(InputStream in, long readTimeout, long closeTimeout) {
+		this(in, readTimeout, closeTimeout, null);
+	}
+
+	/**
+	 * Creates a timeout wrapper for an input stream with an action that aborts
+	 * a blocked call.
+	 *
+	 * @param in
+	 *            the underlying input stream
+	 * @param readTimeout
+	 *            the number of milliseconds a read() or skip() may block
+	 *            before the stream is aborted; 0 blocks indefinitely
+	 * @param closeTimeout
+	 *            the number of milliseconds to block for a close() before
+	 *            throwing an InterruptedIOException; 0 blocks indefinitely, -1
+	 *            closes the stream in the background
+	 * @param abortAction
+	 *            run on a background thread to abort a blocked call, before
+	 *            the underlying stream is closed; may be <code>null</code>
+	 */
+	public DeadlineInputStream(InputStream in, long readTimeout, long closeTimeout, Runnable abortAction) {
+		super(in);
+		this.readTimeout = readTimeout;
+		this.closeTimeout = closeTimeout;
+		this.abortAction = abortAction;
+	}
+
+	/**
+	 * Abort a blocked read() or skip() when the given monitor is canceled.
+	 *
+	 * @param monitor
+	 *            the monitor to check, may be <code>null</code>
+	 */
+	public void setProgressMonitor(IProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	private static void startChecking() {
+		synchronized (DeadlineInputStream.class) {
+			if (checking)
+				return;
+			if (scheduler == null) {
+				scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "DeadlineInputStream Scheduler"); //$NON-NLS-1$
+						t.setDaemon(true);
+						return t;
+					}
+				});
+				// Let the thread end while no calls are blocked
+				scheduler.setKeepAliveTime(CHECK_INTERVAL * 4, TimeUnit.MILLISECONDS);
+				scheduler.allowCoreThreadTimeOut(true);
+			}
+			checkTask = scheduler.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					checkDeadlines();
+				}
+			}, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+			checking = true;
+		}
+	}
+
+	static void checkDeadlines() {
+		final long now = System.nanoTime();
+		for (Iterator<DeadlineInputStream> i = blockedStreams.iterator(); i.hasNext();) {
+			DeadlineInputStream stream = i.next();
+			long since = stream.blockedSince;
+			if (since == 0)
+				continue;
+			IProgressMonitor m = stream.monitor;
+			if ((m != null && m.isCanceled()) || (stream.readTimeout > 0 && now - since >= TimeUnit.MILLISECONDS.toNanos(stream.readTimeout)))
+				stream.abort();
+		}
+		synchronized (DeadlineInputStream.class) {
+			// No need to run the check without blocked calls.  A call that
+			// blocks after checking is cleared, but before it is seen
+			// here, starts the check again.
+			checking = false;
+			if (!blockedStreams.isEmpty()) {
+				checking = true;
+			} else if (checkTask != null) {
+				checkTask.cancel(false);
+				checkTask = null;
+			}
+		}
+	}
+
+	/**
+	 * Called before a call that may block.
+	 */
+	private void begin() throws InterruptedIOException {
+		checkAborted();
+		if (readTimeout <= 0 && monitor == null)
+			return;
+		blockedSince = System.nanoTime();
+		blockedStreams.add(this);
+		if (!checking)
+			startChecking();
+	}
+
+	/**
+	 * Called after a call that may block.
+	 */
+	private void end() {
+		if (blockedSince != 0) {
+			blockedSince = 0;
+			blockedStreams.remove(this);
+		}
+	}
+
+	/**
+	 * Abort a blocked call by running the abort action and closing the
+	 * underlying stream.
+	 */
+	private void abort() {
+		if (aborted)
+			return;
+		aborted = true;
+		blockedStreams.remove(this);
+		// Aborting and closing may block as well, keep the scheduler free
+		closer.execute(new Runnable() {
+			public void run() {
+				try {
+					if (abortAction != null)
+						abortAction.run();
+				} finally {
+					try {
+						in.close();
+					} catch (IOException e) {
+						// ignore, the blocked call fails anyway
+					}
+				}
+			}
+		});
+	}
+
+	private void checkAborted() throws InterruptedIOException {
+		if (aborted)
+			throw new InterruptedIOException();
+	}
+
+	/**
+	 * Closes the underlying stream.  It may be important to wait for a stream
+	 * to actually be closed because it holds an implicit lock on a system
+	 * resource (such as a file) while it is open.
+	 *
+	 * @throws InterruptedIOException
+	 *             if the timeout expired
+	 * @throws IOException
+	 *             if an i/o error occurs
+	 */
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+		}
+		if (aborted)
+			return;
+		if (closeTimeout == 0) {
+			in.close();
+			return;
+		}
+		Future<Object> result = closer.submit(new Callable<Object>() {
+			public Object call() throws IOException {
+				in.close();
+				return null;
+			}
+		});
+		if (closeTimeout == -1)
+			return;
+		try {
+			result.get(closeTimeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new InterruptedIOException();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt(); // we weren't expecting to be
+			// interrupted
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Reads a byte from the stream.
+	 *
+	 * @throws InterruptedIOException
+	 *             if the stream has been aborted
+	 * @throws IOException
+	 *             if an i/o error occurs
+	 */
+	public int read() throws IOException {
+		begin();
+		try {
+			return in.read();
+		} catch (IOException e) {
+			checkAborted();
+			throw e;
+		} finally {
+			end();
+		}
+	}
+
+	/**
+	 * Reads multiple bytes from the stream.
+	 *
+	 * @throws InterruptedIOException
+	 *             if the stream has been aborted
+	 * @throws IOException
+	 *             if an i/o error occurs
+	 */
+	public int read(byte[] buffer, int off, int len) throws IOException {
+		begin();
+		try {
+			return in.read(buffer, off, len);
+		} catch (IOException e) {
+			checkAborted();
+			throw e;
+		} finally {
+			end();
+		}
+	}
+
+	/**
+	 * Skips multiple bytes in the stream.
+	 *
+	 * @throws InterruptedIOException
+	 *             if the stream has been aborted
+	 * @throws IOException
+	 *             if an i/o error occurs
+	 */
+	public long skip(long count) throws IOException {
+		begin();
+		try {
+			return in.skip(count);
+		} catch (IOException e) {
+			checkAborted();
+			throw e;
+		} finally {
+			end();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes that can be read without blocking.
+	 *
+	 * @throws IOException
+	 *             if an i/o error occurs
+	 */
+	public int available() throws IOException {
+		checkAborted();
+		return in.available();
+	}
+
+	/**
+	 * Mark is not supported by the wrapper even if the underlying stream does,
+	 * returns false.
+	 */
+	public boolean markSupported() {
+		return false;
+	}
+}
@@ -0,0 +1,269 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors: Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.remoteservice.generic;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.remoteservice.Activator;
+import org.eclipse.ecf.internal.provider.remoteservice.IRemoteServiceProviderDebugOptions;
+
+/**
+ * Hashed timer wheel used to expire pending remote call requests.  Scheduling
+ * and cancelling are O(1) and done without locking; a single daemon thread
+ * advances the wheel once per tick and runs the tasks of expired timeouts.
+ * Timeouts are accurate to within one tick.  The thread is started when a
+ * timeout is scheduled and exits again once the wheel has been empty for a
+ * while, so an idle timer holds no thread.
+ * <p>
+ * Tasks are run on the timer thread, so they should be short and must not
+ * block.
+ */
+final class HashedWheelTimer implements Runnable {
+
+	static final long DEFAULT_TICK_MILLIS = Long.getLong("org.eclipse.ecf.provider.remoteservice.timerTick", 100).longValue(); //$NON-NLS-1$
+
+	static final int DEFAULT_WHEEL_SIZE = 512;
+
+	static final long DEFAULT_IDLE_MILLIS = 10000;
+
+	private static HashedWheelTimer defaultTimer;
+
+	private static final int INIT = 0;
+	private static final int CANCELLED = 1;
+	private static final int EXPIRED = 2;
+
+	final class Timeout {
+		final Runnable task;
+		// nanos since startTime
+		final long deadline;
+		long remainingRounds;
+		Timeout next;
+		Timeout prev;
+		Bucket bucket;
+		private final AtomicInteger state = new AtomicInteger(INIT);
+
+		Timeout(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * @return boolean true if cancelled, false if already expired or cancelled
+		 */
+		boolean cancel() {
+			if (!state.compareAndSet(INIT, CANCELLED))
+				return false;
+			cancelledTimeouts.add(this);
+			return true;
+		}
+
+		boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+
+		void expire() {
+			if (!state.compareAndSet(INIT, EXPIRED))
+				return;
+			try {
+				task.run();
+			} catch (Throwable t) {
+				Trace.catching(Activator.PLUGIN_ID, IRemoteServiceProviderDebugOptions.EXCEPTIONS_CATCHING, HashedWheelTimer.class, "expire", t); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Doubly linked list of timeouts.  Only accessed by the timer thread.
+	 */
+	final class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+			if (head == null)
+				head = tail = timeout;
+			else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+			timeoutCount++;
+		}
+
+		Timeout remove(Timeout timeout) {
+			final Timeout next = timeout.next;
+			if (timeout.prev != null)
+				timeout.prev.next = next;
+			if (next != null)
+				next.prev = timeout.prev;
+			if (timeout == head)
+				head = next;
+			if (timeout == tail)
+				tail = timeout.prev;
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+			timeoutCount--;
+			return next;
+		}
+
+		void expire(long deadline) {
+			Timeout timeout = head;
+			while (timeout != null) {
+				if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+					final Timeout next = remove(timeout);
+					timeout.expire();
+					timeout = next;
+				} else if (timeout.isCancelled())
+					timeout = remove(timeout);
+				else {
+					if (timeout.remainingRounds > 0)
+						timeout.remainingRounds--;
+					timeout = timeout.next;
+				}
+			}
+		}
+	}
+
+	private final String name;
+	private final long tickNanos;
+	private final long idleNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final long startTime = System.nanoTime();
+	private final ConcurrentLinkedQueue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<Timeout>();
+	final ConcurrentLinkedQueue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+	// Number of timeouts in the wheel.  Only accessed by the timer thread.
+	int timeoutCount;
+	private Thread thread;
+
+	HashedWheelTimer(String name, long tickMillis, int wheelSize) {
+		this(name, tickMillis, wheelSize, DEFAULT_IDLE_MILLIS);
+	}
+
+	/**
+	 * @param name name of the timer thread
+	 * @param tickMillis duration of a tick in milliseconds.  Must be positive.
+	 * @param wheelSize number of buckets, rounded up to a power of two
+	 * @param idleMillis how long the thread keeps running with an empty wheel
+	 */
+	HashedWheelTimer(String name, long tickMillis, int wheelSize, long idleMillis) {
+		if (tickMillis <= 0)
+			throw new IllegalArgumentException("tickMillis must be positive"); //$NON-NLS-1$
+		this.name = name;
+		this.tickNanos = tickMillis * 1000000L;
+		this.idleNanos = idleMillis * 1000000L;
+		// round wheel size up to a power of two
+		int size = 1;
+		while (size < wheelSize)
+			size <<= 1;
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < size; i++)
+			wheel[i] = new Bucket();
+		this.mask = size - 1;
+	}
+
+	static synchronized HashedWheelTimer getDefault() {
+		if (defaultTimer == null)
+			defaultTimer = new HashedWheelTimer("ECF remote call timer", DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE); //$NON-NLS-1$
+		return defaultTimer;
+	}
+
+	/**
+	 * @param task the task to run when the delay has elapsed.  Must not be <code>null</code>.
+	 * @param delayMillis delay in milliseconds
+	 * @return Timeout the timeout, which may be cancelled
+	 */
+	Timeout schedule(Runnable task, long delayMillis) {
+		long deadline = System.nanoTime() - startTime + Math.max(0, delayMillis) * 1000000L;
+		// guard against overflow for very long delays
+		if (deadline < 0)
+			deadline = Long.MAX_VALUE;
+		final Timeout timeout = new Timeout(task, deadline);
+		pendingTimeouts.add(timeout);
+		synchronized (this) {
+			if (thread == null) {
+				thread = new Thread(this, name);
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+		return timeout;
+	}
+
+	public void run() {
+		long tick = (System.nanoTime() - startTime) / tickNanos;
+		long idleSince = -1;
+		while (true) {
+			final long deadline = waitForNextTick(tick);
+			removeCancelled();
+			transferPending(tick);
+			wheel[(int) (tick & mask)].expire(deadline);
+			tick++;
+			if (timeoutCount > 0)
+				idleSince = -1;
+			else if (idleSince < 0)
+				idleSince = deadline;
+			else if (deadline - idleSince > idleNanos) {
+				synchronized (this) {
+					// anything scheduled after this will start a new thread
+					if (pendingTimeouts.isEmpty()) {
+						thread = null;
+						cancelledTimeouts.clear();
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = cancelledTimeouts.poll()) != null) {
+			final Bucket bucket = timeout.bucket;
+			if (bucket != null)
+				bucket.remove(timeout);
+		}
+	}
+
+	private void transferPending(long tick) {
+		Timeout timeout;
+		while ((timeout = pendingTimeouts.poll()) != null) {
+			if (timeout.isCancelled())
+				continue;
+			final long expireTick = timeout.deadline / tickNanos;
+			timeout.remainingRounds = (expireTick - tick) / wheel.length;
+			// If already due, put in current bucket so it expires this tick
+			wheel[(int) (Math.max(expireTick, tick) & mask)].add(timeout);
+		}
+	}
+
+	/**
+	 * @return long current time in nanos since startTime
+	 */
+	private long waitForNextTick(long tick) {
+		final long deadline = tickNanos * (tick + 1);
+		while (true) {
+			final long current = System.nanoTime() - startTime;
+			final long sleepMillis = (deadline - current + 999999) / 1000000;
+			if (sleepMillis <= 0)
+				return current;
+			try {
+				Thread.sleep(sleepMillis);
+			} catch (InterruptedException e) {
+				// keep ticking
+			}
+		}
+	}
+}
@@ -13,9 +13,12 @@ package org.eclipse.ecf.provider.remoteservice.generic;
 
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.ContainerConnectException;
 import org.eclipse.ecf.core.events.*;
@@ -24,11 +27,13 @@ import org.eclipse.ecf.core.jobs.JobsExecutor;
 import org.eclipse.ecf.core.security.IConnectContext;
 import org.eclipse.ecf.core.sharedobject.*;
 import org.eclipse.ecf.core.sharedobject.events.ISharedObjectActivatedEvent;
+import org.eclipse.ecf.core.sharedobject.events.ISharedObjectMessageEvent;
+import org.eclipse.ecf.core.sharedobject.util.QueueException;
 import org.eclipse.ecf.core.status.SerializableStatus;
 import org.eclipse.ecf.core.util.*;
-import org.eclipse.ecf.core.util.reflection.ClassUtil;
 import org.eclipse.ecf.internal.provider.remoteservice.Activator;
 import org.eclipse.ecf.internal.provider.remoteservice.IRemoteServiceProviderDebugOptions;
+import org.eclipse.ecf.provider.generic.RawSharedObjectMessage;
 import org.eclipse.ecf.remoteservice.*;
 import org.eclipse.ecf.remoteservice.asyncproxy.AsyncReturnUtil;
 import org.eclipse.ecf.remoteservice.events.*;
@@ -50,6 +55,14 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 */
 	protected static final boolean PROPAGATE_RESPONSE_ERROR = new Boolean(System.getProperty("org.eclipse.ecf.provider.remoteservice.propagateResponseError", "true")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
 
+	/**
+	 * Whether call requests and responses are sent as bytes (rather than
+	 * wrapped in a {@link SharedObjectMsg}) to remote registries that have
+	 * indicated that they support it.
+	 * @since 4.7
+	 */
+	protected static final boolean DIRECT_CALL_BYTES = Boolean.valueOf(System.getProperty("org.eclipse.ecf.provider.remoteservice.directCallBytes", "true")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+
 	private static int uniqueRequestId = 0;
 
 	private static synchronized Integer createNextRequestId() {
@@ -65,7 +78,52 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * map of registry impls for remote registrys  key:  ID (identifier of remote container), value: RemoteServiceRegistryImpl (copy of remote service registry for remote container
 	 */
 	@SuppressWarnings("unchecked")
-	protected final Map remoteRegistrys = Collections.synchronizedMap(new HashMap());
+	protected final Map remoteRegistrys = Collections.synchronizedMap(new HashMap() {
+		private static final long serialVersionUID = 8297254150361254395L;
+
+		public Object put(Object key, Object value) {
+			remoteRegistrysSnapshot = null;
+			return super.put(key, value);
+		}
+
+		public void putAll(Map m) {
+			remoteRegistrysSnapshot = null;
+			super.putAll(m);
+		}
+
+		public Object remove(Object key) {
+			remoteRegistrysSnapshot = null;
+			return super.remove(key);
+		}
+
+		public void clear() {
+			remoteRegistrysSnapshot = null;
+			super.clear();
+		}
+	});
+	/**
+	 * Copy of the values of remoteRegistrys, so that lookups across all remote
+	 * registries do not have to hold the remoteRegistrys lock.  Set to null
+	 * whenever remoteRegistrys is changed, and recreated on next use.
+	 */
+	volatile RemoteServiceRegistryImpl[] remoteRegistrysSnapshot;
+
+	/**
+	 * Maximum number of parsed filters kept by {@link #createRemoteFilter(String)}.
+	 * Set to 0 to disable the cache.
+	 */
+	private static final int REMOTE_FILTER_CACHE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.remoteservice.filterCacheSize", "256")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Parsed remote filters by filter string, in least recently used order.
+	 */
+	private final Map<String, IRemoteFilter> remoteFilterCache = new LinkedHashMap<String, IRemoteFilter>(16, 0.75f, true) {
+		private static final long serialVersionUID = -2624738474126407781L;
+
+		protected boolean removeEldestEntry(Map.Entry<String, IRemoteFilter> eldest) {
+			return size() > REMOTE_FILTER_CACHE_SIZE;
+		}
+	};
 	/**
 	 * List of remote service listeners (added to/removed from by addRemoteServiceListener/removeRemoteServiceListener
 	 */
@@ -81,10 +139,18 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	protected int addRegistrationRequestTimeout = ADD_REGISTRATION_REQUEST_TIMEOUT;
 	/**
 	 * List of invocation requests...instances of Request
+	 * @deprecated no longer used.  Pending requests are kept in a map keyed by
+	 * request id, accessed via {@link #addRequest(Request)}, {@link #getRequest(long)}
+	 * and {@link #removeRequest(Request)}.
 	 */
 	@SuppressWarnings("unchecked")
 	protected List requests = Collections.synchronizedList(new ArrayList());
 
+	/**
+	 * Pending invocation requests.  key:  Long (request id), value: Request
+	 */
+	private final ConcurrentMap<Long, Request> pendingRequests = new ConcurrentHashMap<Long, Request>();
+
 	/**
 	 * Connect context to be used for connect.
 	 * @since 3.0
@@ -138,6 +204,11 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	private Object remoteServiceCallPolicyLock = new Object();
 	private IRemoteServiceCallPolicy remoteServiceCallPolicy;
 
+	/**
+	 * Remote containers that accept call requests and responses as bytes
+	 */
+	private final Set<ID> directCallPeers = new HashSet<ID>();
+
 	public RegistrySharedObject() {
 		//
 	}
@@ -148,7 +219,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 */
 	public IRemoteServiceReference[] getRemoteServiceReferences(ID target, ID[] idFilter, String clazz, String filter) throws InvalidSyntaxException, ContainerConnectException {
 		Trace.entering(Activator.PLUGIN_ID, IRemoteServiceProviderDebugOptions.METHODS_ENTERING, this.getClass(), "getRemoteServiceReferences", new Object[] {target, idFilter, clazz, filter}); //$NON-NLS-1$
-		final IRemoteFilter remoteFilter = (filter == null) ? null : new RemoteFilterImpl(filter);
+		final IRemoteFilter remoteFilter = (filter == null) ? null : createRemoteFilter(filter);
 		// First, if we need to connect, then do so
 		if (target != null)
 			connectToRemoteServiceTarget(target);
@@ -368,7 +439,41 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 3.0
 	 */
 	public IRemoteFilter createRemoteFilter(String filter) throws InvalidSyntaxException {
-		return new RemoteFilterImpl(filter);
+		if (filter == null || REMOTE_FILTER_CACHE_SIZE <= 0)
+			return new RemoteFilterImpl(filter);
+		IRemoteFilter result;
+		synchronized (remoteFilterCache) {
+			result = remoteFilterCache.get(filter);
+		}
+		if (result == null) {
+			// Parse outside the lock.  Filters are immutable, so if another
+			// thread parses the same string at the same time either result is fine
+			result = new RemoteFilterImpl(filter);
+			synchronized (remoteFilterCache) {
+				remoteFilterCache.put(filter, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return RemoteServiceRegistryImpl[] the current remote registries.  The
+	 *         returned array must not be modified
+	 */
+	private RemoteServiceRegistryImpl[] getRemoteRegistrysSnapshot() {
+		RemoteServiceRegistryImpl[] result = remoteRegistrysSnapshot;
+		if (result == null) {
+			synchronized (remoteRegistrys) {
+				result = remoteRegistrysSnapshot;
+				if (result == null) {
+					@SuppressWarnings("unchecked")
+					final Collection<RemoteServiceRegistryImpl> values = remoteRegistrys.values();
+					result = values.toArray(new RemoteServiceRegistryImpl[values.size()]);
+					remoteRegistrysSnapshot = result;
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -389,13 +494,9 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 					return registration.getReference();
 			}
 		} else {
-			synchronized (remoteRegistrys) {
-				final ArrayList registrys = new ArrayList(remoteRegistrys.values());
-				for (final Iterator i = registrys.iterator(); i.hasNext();) {
-					final RemoteServiceRegistryImpl registry = (RemoteServiceRegistryImpl) i.next();
-					registration = registry.findRegistrationForServiceId(serviceId.getContainerRelativeID());
-				}
-			}
+			final RemoteServiceRegistryImpl registry = getRemoteRegistry(containerID);
+			if (registry != null)
+				registration = registry.findRegistrationForServiceId(serviceId.getContainerRelativeID());
 		}
 		return (registration == null) ? null : registration.getReference();
 	}
@@ -414,15 +515,11 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 					return reg.getID();
 			}
 		} else {
-			synchronized (remoteRegistrys) {
-				@SuppressWarnings("unchecked")
-				final ArrayList registrys = new ArrayList(remoteRegistrys.values());
-				for (final Iterator i = registrys.iterator(); i.hasNext();) {
-					final RemoteServiceRegistryImpl registry = (RemoteServiceRegistryImpl) i.next();
-					RemoteServiceRegistrationImpl reg = registry.findRegistrationForServiceId(containerRelativeId);
-					if (reg != null)
-						return reg.getID();
-				}
+			final RemoteServiceRegistryImpl[] registrys = getRemoteRegistrysSnapshot();
+			for (int i = 0; i < registrys.length; i++) {
+				RemoteServiceRegistrationImpl reg = registrys[i].findRegistrationForServiceId(containerRelativeId);
+				if (reg != null)
+					return reg.getID();
 			}
 		}
 		return null;
@@ -459,6 +556,9 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 					// If it's us that's being activated, then we do something about it
 					if (getID().equals(((ISharedObjectActivatedEvent) arg0).getActivatedID()))
 						handleRegistryActivatedEvent();
+				} else if (arg0 instanceof RequestTimeoutEvent) {
+					fireRequestTimeout(((RequestTimeoutEvent) arg0).request);
+					return true;
 				}
 				return false;
 			}
@@ -489,8 +589,11 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		synchronized (addRegistrationRequests) {
 			addRegistrationRequests.clear();
 		}
-		synchronized (requests) {
-			requests.clear();
+		for (Iterator<Request> i = pendingRequests.values().iterator(); i.hasNext();) {
+			final Request request = i.next();
+			i.remove();
+			if (request.timeout != null)
+				request.timeout.cancel();
 		}
 		synchronized (pendingUpdateContainers) {
 			pendingUpdateContainers.clear();
@@ -553,14 +656,10 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	private void addReferencesFromRemoteRegistrys(ID[] idFilter, String clazz, IRemoteFilter remoteFilter, List referencesFound) {
 		// If no idFilter, then we add all known references from all remote registrys
 		if (idFilter == null) {
-			synchronized (remoteRegistrys) {
-				@SuppressWarnings("unchecked")
-				final ArrayList registrys = new ArrayList(remoteRegistrys.values());
-				for (final Iterator i = registrys.iterator(); i.hasNext();) {
-					final RemoteServiceRegistryImpl registry = (RemoteServiceRegistryImpl) i.next();
-					// Add IRemoteServiceReferences from each remote registry
-					addReferencesFromRegistry(clazz, remoteFilter, registry, referencesFound);
-				}
+			final RemoteServiceRegistryImpl[] registrys = getRemoteRegistrysSnapshot();
+			for (int i = 0; i < registrys.length; i++) {
+				// Add IRemoteServiceReferences from each remote registry
+				addReferencesFromRegistry(clazz, remoteFilter, registrys[i], referencesFound);
 			}
 			// Otherwise there is a filter
 		} else {
@@ -570,11 +669,9 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 				if (targetContainerID == null)
 					continue;
 				sendRegistryUpdateRequestAndWait(targetContainerID);
-				synchronized (remoteRegistrys) {
-					RemoteServiceRegistryImpl remoteRegistryForContainer = (RemoteServiceRegistryImpl) remoteRegistrys.get(targetContainerID);
-					if (remoteRegistryForContainer != null)
-						addReferencesFromRegistry(clazz, remoteFilter, remoteRegistryForContainer, referencesFound);
-				}
+				RemoteServiceRegistryImpl remoteRegistryForContainer = getRemoteRegistry(targetContainerID);
+				if (remoteRegistryForContainer != null)
+					addReferencesFromRegistry(clazz, remoteFilter, remoteRegistryForContainer, referencesFound);
 			}
 		}
 	}
@@ -754,6 +851,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 		// remove from localRegistryUnregistrationTargets
 		removeUnregistrationTarget(targetID);
+		removeDirectCallPeer(targetID);
 		// Remove from pending updates
 		removePendingContainers(targetID);
 
@@ -879,7 +977,9 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	// generic
 	private Request createRequest(RemoteServiceRegistrationImpl remoteRegistration, IRemoteCall call, IRemoteCallListener listener) {
-		return new Request(this.getLocalContainerID(), remoteRegistration.getServiceId(), RemoteCallImpl.createRemoteCall(null, call.getMethod(), call.getParameters(), call.getTimeout()), listener);
+		final Request request = new Request(this.getLocalContainerID(), remoteRegistration.getServiceId(), RemoteCallImpl.createRemoteCall(null, call.getMethod(), call.getParameters(), call.getTimeout()), listener);
+		request.acceptsCallBytes = DIRECT_CALL_BYTES;
+		return request;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -939,36 +1039,29 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	}
 
 	protected Object callSynch(RemoteServiceRegistrationImpl registration, IRemoteCall call) throws ECFException {
-		boolean doneWaiting = false;
 		Response response = null;
+		Request request = null;
 		try {
 			// First send request
-			final Request request = sendCallRequest(registration, call);
-			long requestId = request.getRequestId();
-			// Then get the specified timeout and calculate when we should
-			// timeout in real time
-			final long timeout = call.getTimeout() + System.currentTimeMillis();
-			// Now loop until timeout time has elapsed
-			while ((timeout - System.currentTimeMillis()) > 0 && !doneWaiting) {
-				synchronized (request) {
-					if (request.isDone()) {
-						doneWaiting = true;
-						response = request.getResponse();
-						if (response == null)
-							throw new ECFException("Invalid response for requestId=" + requestId); //$NON-NLS-1$
-					} else {
-						request.wait(RESPONSE_WAIT_INTERVAL);
-					}
-				}
-			}
-			if (!doneWaiting)
-				throw new ServiceException("Request timed out after " + Long.toString(call.getTimeout()) + "ms", ServiceException.REMOTE, new TimeoutException(call.getTimeout())); //$NON-NLS-1$ //$NON-NLS-2$
+			request = sendCallRequest(registration, call);
+			// Then wait for the response future to be completed by handleCallResponse (or
+			// exceptionally by handleRequestTimeout)
+			response = request.getResponseFuture().get(call.getTimeout(), TimeUnit.MILLISECONDS);
+			if (response == null)
+				throw new ECFException("Invalid response for requestId=" + request.getRequestId()); //$NON-NLS-1$
 		} catch (final IOException e) {
 			log(CALL_REQUEST_ERROR_CODE, CALL_REQUEST_ERROR_MESSAGE, e);
 			throw new ECFException("Error sending request", e); //$NON-NLS-1$
 		} catch (final InterruptedException e) {
+			removeRequest(request);
 			log(CALL_REQUEST_TIMEOUT_ERROR_CODE, CALL_REQUEST_TIMEOUT_ERROR_MESSAGE, e);
 			throw new ECFException("Wait for response interrupted", e); //$NON-NLS-1$
+		} catch (final java.util.concurrent.TimeoutException e) {
+			removeRequest(request);
+			throw createRequestTimeoutException(call.getTimeout());
+		} catch (final ExecutionException e) {
+			// only completed exceptionally when timed out
+			throw createRequestTimeoutException(call.getTimeout());
 		}
 		// Success...now get values and return
 		if (response.hadException())
@@ -1106,8 +1199,6 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	private static final int REQUEST_NOT_FOUND_ERROR_CODE = 211;
 
-	private static final long RESPONSE_WAIT_INTERVAL = 500;
-
 	private static final String ADD_REGISTRATION = "handleAddRegistration"; //$NON-NLS-1$
 
 	private static final String ADD_REGISTRATIONS = "handleAddRegistrations"; //$NON-NLS-1$
@@ -1134,6 +1225,16 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	private static final String CALL_RESPONSE_BYTES = "handleCallResponseBytes"; //$NON-NLS-1$
 
+	/**
+	 * First byte of a call request sent as bytes
+	 */
+	private static final byte CALL_REQUEST_BYTES_TYPE = 1;
+
+	/**
+	 * First byte of a call response sent as bytes
+	 */
+	private static final byte CALL_RESPONSE_BYTES_TYPE = 2;
+
 	/**
 	 * @param receiver receiver
 	 * @param requestId requestId
@@ -1215,7 +1316,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			return;
 		IRemoteFilter rf = null;
 		try {
-			rf = (request.getFilter() == null) ? null : new RemoteFilterImpl(request.getFilter());
+			rf = (request.getFilter() == null) ? null : createRemoteFilter(request.getFilter());
 		} catch (InvalidSyntaxException e) {
 			// log and set rf to null and ignore
 			log("handleRequestService invalid syntax exception for filter", e); //$NON-NLS-1$
@@ -1412,7 +1513,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		final Request request = createRequest(remoteRegistration, call, null);
 		addRequest(request);
 		try {
-			sendSharedObjectMsgTo(remoteRegistration.getContainerID(), SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, serializeCallRequest(request)));
+			sendCallRequestMessage(remoteRegistration.getContainerID(), request);
 		} catch (final IOException e) {
 			removeRequest(request);
 			throw e;
@@ -1424,11 +1525,17 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 4.6
 	 */
 	protected byte[] serializeCallRequest(Request request) throws IOException {
+		return serializeCallRequest(request, false);
+	}
+
+	private byte[] serializeCallRequest(final Request request, final boolean direct) throws IOException {
 		try {
 			return AccessController.doPrivileged(new PrivilegedExceptionAction<byte[]>() {
 				@Override
 				public byte[] run() throws Exception {
 					ByteArrayOutputStream bos = new ByteArrayOutputStream(DEFAULT_REMOTE_REQUEST_SIZE);
+					if (direct)
+						bos.write(CALL_REQUEST_BYTES_TYPE);
 					OSGIObjectOutputStream outs = new OSGIObjectOutputStream(bos);
 					outs.writeLong(request.getServiceId());
 					outs.writeObject(request);
@@ -1451,11 +1558,15 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 4.6
 	 */
 	protected Request deserializeCallRequest(byte[] requestBytes) throws IOException {
+		return deserializeCallRequest(requestBytes, 0, requestBytes.length);
+	}
+
+	private Request deserializeCallRequest(final byte[] requestBytes, final int offset, final int length) throws IOException {
 		try {
 			return AccessController.doPrivileged(new PrivilegedExceptionAction<Request>() {
 				@Override
 				public Request run() throws Exception {
-					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), new ByteArrayInputStream(requestBytes));
+					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), new ByteArrayInputStream(requestBytes, offset, length));
 					long svcId = oins.readLong();
 					RemoteServiceRegistrationImpl reg = null;
 					// Find registration for this call request
@@ -1489,11 +1600,17 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 4.6
 	 */
 	protected byte[] serializeCallResponse(Response response) throws IOException {
+		return serializeCallResponse(response, false);
+	}
+
+	private byte[] serializeCallResponse(final Response response, final boolean direct) throws IOException {
 		try {
 			return AccessController.doPrivileged(new PrivilegedExceptionAction<byte[]>() {
 				@Override
 				public byte[] run() throws Exception {
 					ByteArrayOutputStream bos = new ByteArrayOutputStream(DEFAULT_REMOTE_REQUEST_SIZE);
+					if (direct)
+						bos.write(CALL_RESPONSE_BYTES_TYPE);
 					OSGIObjectOutputStream outs = new OSGIObjectOutputStream(bos);
 					outs.writeObject(getLocalContainerID());
 					outs.writeLong(response.getRequestId());
@@ -1517,12 +1634,15 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 4.6
 	 */
 	protected Response deserializeCallResponse(byte[] responseBytes) throws IOException {
+		return deserializeCallResponse(responseBytes, 0, responseBytes.length);
+	}
 
+	private Response deserializeCallResponse(final byte[] responseBytes, final int offset, final int length) throws IOException {
 		try {
 			return AccessController.doPrivileged(new PrivilegedExceptionAction<Response>() {
 				@Override
 				public Response run() throws Exception {
-					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), new ByteArrayInputStream(responseBytes));
+					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), new ByteArrayInputStream(responseBytes, offset, length));
 
 					ID targetContainerID;
 					try {
@@ -1602,12 +1722,12 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		Object[] callArgs = call.getParameters();
 		Object[] args = (callArgs == null) ? SharedObjectMsg.nullArgs : callArgs;
 		Object service = reg.getService();
-		// Find appropriate method on service
-		final Method method = ClassUtil.getMethod(service.getClass(), call.getMethod(), SharedObjectMsg.getTypesForParameters(args));
+		// Find appropriate method on service via the registration's dispatch table
+		RemoteServiceDispatchTable.Target target = reg.resolveTarget(call.getMethod(), args);
 		// Actually invoke method on service object
-		Object result = method.invoke(service, args);
+		Object result = target.invoke(service, args);
 		if (result != null) {
-			Class returnType = method.getReturnType();
+			Class returnType = target.method.getReturnType();
 			// provider must expose osgi.async property and must be async return type
 			if (AsyncUtil.isOSGIAsync(reg.getReference()) && AsyncReturnUtil.isAsyncType(returnType))
 				return AsyncReturnUtil.convertAsyncToReturn(result, returnType, call.getTimeout());
@@ -1685,6 +1805,9 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			log("handleCallRequestBytes", e); //$NON-NLS-1$
 			return;
 		}
+		// The requester can take the response as bytes
+		if (request.acceptsCallBytes)
+			addDirectCallPeer(request.getRequestContainerID());
 
 		final ID responseTarget = request.getRequestContainerID();
 		// If response target is null then the request is bogus and we give up/do not respond
@@ -1763,7 +1886,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		fireCallStartEvent(listener, request.getRequestId(), remoteRegistration.getReference(), call);
 		try {
 			addRequest(request);
-			sendSharedObjectMsgTo(remoteRegistration.getContainerID(), SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, serializeCallRequest(request)));
+			sendCallRequestMessage(remoteRegistration.getContainerID(), request);
 		} catch (final IOException e) {
 			log(CALL_REQUEST_ERROR_CODE, CALL_REQUEST_ERROR_MESSAGE, e);
 			removeRequest(request);
@@ -1775,9 +1898,114 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		Activator.getDefault().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, code, method, e));
 	}
 
+	/**
+	 * @param containerID the remote container ID.  May be <code>null</code>.
+	 * @return boolean true if call requests and responses are sent to the given container as bytes
+	 * @since 4.7
+	 */
+	protected boolean isDirectCallPeer(ID containerID) {
+		if (!DIRECT_CALL_BYTES || containerID == null)
+			return false;
+		synchronized (directCallPeers) {
+			return directCallPeers.contains(containerID);
+		}
+	}
+
+	private void addDirectCallPeer(ID containerID) {
+		if (DIRECT_CALL_BYTES && containerID != null) {
+			synchronized (directCallPeers) {
+				directCallPeers.add(containerID);
+			}
+		}
+	}
+
+	private void removeDirectCallPeer(ID containerID) {
+		synchronized (directCallPeers) {
+			directCallPeers.remove(containerID);
+		}
+	}
+
+	private void sendCallRequestMessage(ID target, Request request) throws IOException {
+		if (isDirectCallPeer(target))
+			sendCallBytes(target, serializeCallRequest(request, true));
+		else
+			sendSharedObjectMsgTo(target, SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, serializeCallRequest(request)));
+	}
+
+	private void sendCallResponseMessage(ID target, Response response) throws IOException {
+		if (isDirectCallPeer(target))
+			sendCallBytes(target, serializeCallResponse(response, true));
+		else
+			sendSharedObjectMsgTo(target, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, serializeCallResponse(response)));
+	}
+
+	private void sendCallBytes(ID target, byte[] bytes) throws IOException {
+		final ISharedObjectContext context = getContext();
+		if (context == null)
+			throw new IOException("No shared object context available, so no message sent"); //$NON-NLS-1$
+		// The bytes are the message, so the container sends them as they are
+		// rather than serializing them again
+		context.sendMessage(target, new RawSharedObjectMessage(bytes));
+	}
+
+	/**
+	 * Call requests and responses sent to us as bytes arrive as a
+	 * {@link RawSharedObjectMessage}, all other messages are SharedObjectMsgs
+	 * and handled as usual.
+	 * @since 4.7
+	 */
+	protected boolean handleSharedObjectMsgEvent(ISharedObjectMessageEvent event) {
+		final Object data = event.getData();
+		if (data instanceof RawSharedObjectMessage) {
+			handleCallBytes(event.getRemoteContainerID(), (RawSharedObjectMessage) data);
+			return true;
+		}
+		return super.handleSharedObjectMsgEvent(event);
+	}
+
+	private void handleCallBytes(ID fromID, RawSharedObjectMessage message) {
+		if (message.getLength() == 0) {
+			log("handleCallBytes", new IOException("Call bytes cannot be empty")); //$NON-NLS-1$ //$NON-NLS-2$
+			return;
+		}
+		final byte[] bytes = message.getBytes();
+		final int offset = message.getOffset() + 1;
+		final int length = message.getLength() - 1;
+		switch (bytes[message.getOffset()]) {
+			case CALL_REQUEST_BYTES_TYPE :
+				Request request = null;
+				try {
+					request = deserializeCallRequest(bytes, offset, length);
+				} catch (IOException e) {
+					log("handleCallBytes", e); //$NON-NLS-1$
+					return;
+				}
+				if (request.acceptsCallBytes)
+					addDirectCallPeer(request.getRequestContainerID());
+				handleCallRequest(request);
+				break;
+			case CALL_RESPONSE_BYTES_TYPE :
+				// Responses are only sent to us as bytes if our requests accepted them
+				addDirectCallPeer(fromID);
+				Response response = null;
+				try {
+					response = deserializeCallResponse(bytes, offset, length);
+				} catch (IOException e) {
+					log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, e);
+					return;
+				}
+				// null if request not found, which has already been logged
+				if (response != null)
+					handleCallResponse(response);
+				break;
+			default :
+				log("handleCallBytes", new IOException("Unknown call bytes type=" + bytes[message.getOffset()])); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
 	protected void sendCallResponse(ID responseTarget, Response response) {
 		try {
-			sendSharedObjectMsgTo(responseTarget, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, serializeCallResponse(response)));
+			sendCallResponseMessage(responseTarget, response);
 		} catch (final IOException e) {
 			log(CALL_RESPONSE_ERROR_CODE, CALL_RESPONSE_ERROR_MESSAGE, e);
 			// Also print to standard error, just in case
@@ -1785,7 +2013,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			// added to address bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=470245
 			if (PROPAGATE_RESPONSE_ERROR)
 				try {
-					sendSharedObjectMsgTo(responseTarget, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, serializeCallResponse(new Response(response.getRequestId(), getSerializableException(e)))));
+					sendCallResponseMessage(responseTarget, new Response(response.getRequestId(), getSerializableException(e)));
 				} catch (final IOException e1) {
 					log(CALL_RESPONSE_ERROR_CODE, "Exception propagating response error", e1); //$NON-NLS-1$
 					e1.printStackTrace(System.err);
@@ -1795,21 +2023,17 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	protected void handleCallResponse(Response response) {
 		final Request request = getRequest(response.getRequestId());
-		if (request == null) {
+		// If not removed by us, the request has just timed out
+		if (request == null || !removeRequest(request)) {
 			log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, new NullPointerException());
 			return;
 		}
-		removeRequest(request);
 		final IRemoteCallListener listener = request.getListener();
 		if (listener != null) {
 			fireCallCompleteEvent(listener, request.getRequestId(), response.getResponse(), response.hadException(), response.getException());
 			return;
 		}
-		synchronized (request) {
-			request.setResponse(response);
-			request.setDone(true);
-			request.notify();
-		}
+		request.complete(response);
 	}
 
 	/**
@@ -1824,23 +2048,61 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, e);
 			return;
 		}
+		// null if request not found, which has already been logged
+		if (response != null)
+			handleCallResponse(response);
+	}
 
-		final Request request = getRequest(response.getRequestId());
-		if (request == null) {
-			log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, new NullPointerException());
-			return;
+	private ServiceException createRequestTimeoutException(long timeout) {
+		return new ServiceException("Request timed out after " + Long.toString(timeout) + "ms", ServiceException.REMOTE, new TimeoutException(timeout)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Event put on the queue of this registry when a request with a listener
+	 * has timed out.
+	 */
+	static class RequestTimeoutEvent implements Event {
+		final Request request;
+
+		RequestTimeoutEvent(Request request) {
+			this.request = request;
 		}
-		removeRequest(request);
-		final IRemoteCallListener listener = request.getListener();
-		if (listener != null) {
-			fireCallCompleteEvent(listener, request.getRequestId(), response.getResponse(), response.hadException(), response.getException());
-			return;
+
+		public String toString() {
+			return "RequestTimeoutEvent[" + request.getRequestId() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
 		}
-		synchronized (request) {
-			request.setResponse(response);
-			request.setDone(true);
-			request.notify();
+	}
+
+	/**
+	 * Called by the timer when a pending request has timed out.
+	 */
+	void handleRequestTimeout(final Request request) {
+		// If not removed by us, the response has just arrived
+		if (!removeRequest(request))
+			return;
+		if (request.getListener() != null) {
+			// Listeners may block, so they are not notified on the timer thread
+			// but on the shared object thread, like for responses
+			final ISharedObjectContext context = getContext();
+			if (context != null)
+				try {
+					context.getQueue().enqueue(new RequestTimeoutEvent(request));
+					return;
+				} catch (final QueueException e) {
+					// Queue closed, so notify the listener here
+					Trace.catching(Activator.PLUGIN_ID, IRemoteServiceProviderDebugOptions.EXCEPTIONS_CATCHING, this.getClass(), "handleRequestTimeout", e); //$NON-NLS-1$
+				}
 		}
+		fireRequestTimeout(request);
+	}
+
+	private void fireRequestTimeout(Request request) {
+		final long timeout = request.getCall().getTimeout();
+		final IRemoteCallListener listener = request.getListener();
+		if (listener != null)
+			fireCallCompleteEvent(listener, request.getRequestId(), null, true, createRequestTimeoutException(timeout));
+		else if (request.getResponseFuture() != null)
+			request.getResponseFuture().completeExceptionally(new TimeoutException(timeout));
 	}
 
 	protected Request sendFireRequest(RemoteServiceRegistrationImpl remoteRegistration, IRemoteCall call) throws ECFException {
@@ -2071,11 +2333,19 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @return true if added, false if not added
 	 * @since 3.2
 	 */
-	@SuppressWarnings("unchecked")
-	protected boolean addRequest(Request request) {
-		synchronized (requests) {
-			return requests.add(request);
-		}
+	protected boolean addRequest(final Request request) {
+		if (pendingRequests.putIfAbsent(Long.valueOf(request.getRequestId()), request) != null)
+			return false;
+		final RemoteCallImpl call = request.getCall();
+		final long timeout = (call == null) ? 0 : call.getTimeout();
+		// Expire the request if no response arrives in time
+		if (timeout > 0)
+			request.timeout = HashedWheelTimer.getDefault().schedule(new Runnable() {
+				public void run() {
+					handleRequestTimeout(request);
+				}
+			}, timeout);
+		return true;
 	}
 
 	/**
@@ -2084,16 +2354,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 3.2
 	 */
 	protected Request getRequest(long requestId) {
-		synchronized (requests) {
-			for (final Iterator i = requests.iterator(); i.hasNext();) {
-				final Request req = (Request) i.next();
-				final long reqId = req.getRequestId();
-				if (reqId == requestId) {
-					return req;
-				}
-			}
-		}
-		return null;
+		return pendingRequests.get(Long.valueOf(requestId));
 	}
 
 	/**
@@ -2102,9 +2363,11 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 3.2
 	 */
 	protected boolean removeRequest(Request request) {
-		synchronized (requests) {
-			return requests.remove(request);
-		}
+		if (request == null || !pendingRequests.remove(Long.valueOf(request.getRequestId()), request))
+			return false;
+		if (request.timeout != null)
+			request.timeout.cancel();
+		return true;
 	}
 
 	protected void logException(int code, String message, Throwable e) {
@@ -0,0 +1,206 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors: Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.remoteservice.generic;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.ecf.core.sharedobject.SharedObjectMsg;
+import org.eclipse.ecf.core.util.reflection.ClassUtil;
+
+/**
+ * Method dispatch table for one registered service object.  It is built when
+ * the service is published and maps a method name and the classes of the call
+ * arguments to a {@link Target}, which invokes the method through a
+ * pre-resolved {@link MethodHandle}.
+ * <p>
+ * Each method name has a small inline cache keyed by the argument classes.  On
+ * a miss the method is resolved with {@link ClassUtil#getMethod(Class, String, Class[])},
+ * exactly as before, and the result is cached.  Overloaded methods are
+ * therefore resolved the same way as without the table.
+ */
+final class RemoteServiceDispatchTable {
+
+	private static final int INLINE_CACHE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.remoteservice.dispatchCacheSize", "8")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+	static final class Target {
+
+		final Method method;
+
+		final MethodHandle handle;
+
+		final LongAdder invocations = new LongAdder();
+
+		private final boolean[] primitiveParameters;
+
+		Target(Method method, MethodHandle handle) {
+			this.method = method;
+			this.handle = handle;
+			Class[] types = method.getParameterTypes();
+			this.primitiveParameters = new boolean[types.length];
+			for (int i = 0; i < types.length; i++)
+				primitiveParameters[i] = types[i].isPrimitive();
+		}
+
+		/**
+		 * Invoke the method on the given service.  As with
+		 * {@link Method#invoke(Object, Object...)}, anything thrown by the
+		 * method itself is wrapped in an {@link InvocationTargetException}.
+		 */
+		Object invoke(Object service, Object[] args) throws Exception {
+			invocations.increment();
+			if (handle == null || hasNullPrimitive(args))
+				return method.invoke(service, args);
+			try {
+				return handle.invokeExact(service, args);
+			} catch (Throwable t) {
+				throw new InvocationTargetException(t);
+			}
+		}
+
+		// Method.invoke reports a null primitive argument with IllegalArgumentException
+		private boolean hasNullPrimitive(Object[] args) {
+			for (int i = 0; i < primitiveParameters.length; i++)
+				if (primitiveParameters[i] && args[i] == null)
+					return true;
+			return false;
+		}
+
+		String getSignature() {
+			StringBuffer buf = new StringBuffer(method.getName()).append('(');
+			Class[] types = method.getParameterTypes();
+			for (int i = 0; i < types.length; i++) {
+				if (i > 0)
+					buf.append(',');
+				buf.append(types[i].getName());
+			}
+			return buf.append(')').toString();
+		}
+	}
+
+	private static final class CacheEntry {
+		final Class[] argTypes;
+		final Target target;
+
+		CacheEntry(Class[] argTypes, Target target) {
+			this.argTypes = argTypes;
+			this.target = target;
+		}
+
+		boolean matches(Object[] args) {
+			if (argTypes.length != args.length)
+				return false;
+			for (int i = 0; i < args.length; i++) {
+				Object arg = args[i];
+				if (argTypes[i] != ((arg == null) ? null : arg.getClass()))
+					return false;
+			}
+			return true;
+		}
+	}
+
+	private static final class CallSite {
+		volatile CacheEntry[] entries = new CacheEntry[0];
+		int next;
+	}
+
+	private final Class serviceClass;
+
+	private final Map<Method, Target> targets;
+
+	private final Map<String, CallSite> callSites;
+
+	RemoteServiceDispatchTable(Class serviceClass) {
+		this.serviceClass = serviceClass;
+		Method[] methods = serviceClass.getMethods();
+		Map<Method, Target> ts = new HashMap<Method, Target>(methods.length);
+		Map<String, CallSite> sites = new HashMap<String, CallSite>();
+		for (int i = 0; i < methods.length; i++) {
+			ts.put(methods[i], new Target(methods[i], createHandle(methods[i])));
+			if (!sites.containsKey(methods[i].getName()))
+				sites.put(methods[i].getName(), new CallSite());
+		}
+		this.targets = ts;
+		this.callSites = sites;
+	}
+
+	private static MethodHandle createHandle(Method method) {
+		try {
+			MethodHandle mh = MethodHandles.publicLookup().unreflect(method).asFixedArity();
+			if (Modifier.isStatic(method.getModifiers()))
+				mh = MethodHandles.dropArguments(mh, 0, Object.class);
+			return mh.asSpreader(Object[].class, method.getParameterTypes().length).asType(INVOKER_TYPE);
+		} catch (IllegalAccessException e) {
+			// Not publicly accessible (e.g. non-public service class), use reflection
+			return null;
+		}
+	}
+
+	/**
+	 * Find the target for a call of the given method with the given arguments.
+	 *
+	 * @param methodName the method name
+	 * @param args the call arguments.  Must not be <code>null</code>
+	 * @return the target.  Will not be <code>null</code>
+	 * @throws NoSuchMethodException if the service has no matching method
+	 */
+	Target resolve(String methodName, Object[] args) throws NoSuchMethodException {
+		CallSite site = callSites.get(methodName);
+		if (site == null)
+			throw new NoSuchMethodException("No such method: " + methodName + "(" + Arrays.asList(SharedObjectMsg.getTypesForParameters(args)) + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		CacheEntry[] entries = site.entries;
+		for (int i = 0; i < entries.length; i++)
+			if (entries[i].matches(args))
+				return entries[i].target;
+		return resolveAndCache(site, methodName, args);
+	}
+
+	private Target resolveAndCache(CallSite site, String methodName, Object[] args) throws NoSuchMethodException {
+		Class[] argTypes = SharedObjectMsg.getTypesForParameters(args);
+		Method method = ClassUtil.getMethod(serviceClass, methodName, argTypes);
+		Target target = targets.get(method);
+		if (target == null)
+			target = new Target(method, createHandle(method));
+		if (INLINE_CACHE_SIZE > 0) {
+			synchronized (site) {
+				CacheEntry[] entries = site.entries;
+				CacheEntry entry = new CacheEntry(argTypes, target);
+				if (entries.length < INLINE_CACHE_SIZE) {
+					CacheEntry[] newEntries = new CacheEntry[entries.length + 1];
+					System.arraycopy(entries, 0, newEntries, 0, entries.length);
+					newEntries[entries.length] = entry;
+					site.entries = newEntries;
+				} else {
+					// Full, replace entries round robin
+					CacheEntry[] newEntries = entries.clone();
+					newEntries[site.next] = entry;
+					site.next = (site.next + 1) % newEntries.length;
+					site.entries = newEntries;
+				}
+			}
+		}
+		return target;
+	}
+
+	Map<String, Long> getInvocationCounts() {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for (Target target : targets.values()) {
+			long count = target.invocations.sum();
+			if (count > 0)
+				result.put(target.getSignature(), Long.valueOf(count));
+		}
+		return result;
+	}
+}
@@ -11,14 +11,13 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.remoteservice.generic;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.ecf.core.util.ECFException;
 import org.eclipse.ecf.remoteservice.*;
+import org.eclipse.ecf.remoteservice.asyncproxy.IAsyncProxyCompletable;
 import org.eclipse.ecf.remoteservice.events.IRemoteCallCompleteEvent;
 import org.eclipse.ecf.remoteservice.events.IRemoteCallEvent;
 
-public class RemoteServiceImpl extends AbstractRemoteService {
+public class RemoteServiceImpl extends AbstractRemoteService implements ICompletableRemoteService {
 
 	protected static final long DEFAULT_TIMEOUT = new Long(System.getProperty("ecf.remotecall.timeout", "30000")).longValue(); //$NON-NLS-1$ //$NON-NLS-2$
 
@@ -47,28 +46,36 @@ public class RemoteServiceImpl extends AbstractRemoteService {
 	 * @see org.eclipse.ecf.remoteservice.IRemoteService#callAsync(org.eclipse.ecf.remoteservice.IRemoteCall, org.eclipse.ecf.remoteservice.IRemoteCallListener)
 	 */
 	public void callAsync(final IRemoteCall call, final IRemoteCallListener listener) {
-		callAsyncWithTimeout(call, new Callable<IRemoteCallCompleteEvent>() {
-			public IRemoteCallCompleteEvent call() throws Exception {
-				final AtomicReference<IRemoteCallCompleteEvent> ar = new AtomicReference<IRemoteCallCompleteEvent>();
-				sharedObject.sendCallRequestWithListener(registration, call, new IRemoteCallListener() {
-					public void handleEvent(IRemoteCallEvent event) {
-						if (event instanceof IRemoteCallCompleteEvent)
-							synchronized (ar) {
-								ar.set((IRemoteCallCompleteEvent) event);
-								ar.notify();
-							}
-					}
-				});
-				synchronized (ar) {
-					while (true) {
-						IRemoteCallCompleteEvent result = ar.get();
-						if (result != null)
-							return result;
-						ar.wait(call.getTimeout());
-					}
+		// The registry completes the call (with a timeout exception if no response arrives
+		// in time), so no thread needs to wait for the response.  Only the complete event
+		// is passed on to the listener, and not on the thread delivering the response, so
+		// the listener may make further remote calls
+		sharedObject.sendCallRequestWithListener(registration, call, new IRemoteCallListener() {
+			public void handleEvent(final IRemoteCallEvent event) {
+				if (event instanceof IRemoteCallCompleteEvent)
+					getFutureExecutorService(call).execute(new Runnable() {
+						public void run() {
+							listener.handleEvent(event);
+						}
+					});
+			}
+		});
+	}
+
+	/**
+	 * @since 4.7
+	 * @see org.eclipse.ecf.remoteservice.ICompletableRemoteService#callCompletable(org.eclipse.ecf.remoteservice.IRemoteCall, org.eclipse.ecf.remoteservice.asyncproxy.IAsyncProxyCompletable)
+	 */
+	public void callCompletable(IRemoteCall call, final IAsyncProxyCompletable completable) {
+		// Completed directly on the thread that delivers the response (or the timeout)
+		sharedObject.sendCallRequestWithListener(registration, call, new IRemoteCallListener() {
+			public void handleEvent(IRemoteCallEvent event) {
+				if (event instanceof IRemoteCallCompleteEvent) {
+					IRemoteCallCompleteEvent cce = (IRemoteCallCompleteEvent) event;
+					completable.handleComplete(cce.getResponse(), cce.hadException(), cce.getException());
 				}
 			}
-		}, listener);
+		});
 	}
 
 	/**
@@ -19,7 +19,6 @@ import java.security.PrivilegedExceptionAction;
 import java.util.*;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.sharedobject.SharedObjectMsg;
-import org.eclipse.ecf.core.util.reflection.ClassUtil;
 import org.eclipse.ecf.remoteservice.*;
 
 /**
@@ -56,6 +55,8 @@ public class RemoteServiceRegistrationImpl implements IRemoteServiceRegistration
 
 	protected transient RegistrySharedObject sharedObject = null;
 
+	private transient volatile RemoteServiceDispatchTable dispatchTable;
+
 	/**
 	 * @since 3.0
 	 */
@@ -86,6 +87,7 @@ public class RemoteServiceRegistrationImpl implements IRemoteServiceRegistration
 		this.clazzes = clzzes;
 		this.reference = new RemoteServiceReferenceImpl(this);
 		setClassLoader(svc.getClass().getClassLoader());
+		this.dispatchTable = new RemoteServiceDispatchTable(svc.getClass());
 		synchronized (registry) {
 			ID containerID = registry.getContainerID();
 			if (containerID == null)
@@ -416,18 +418,45 @@ public class RemoteServiceRegistrationImpl implements IRemoteServiceRegistration
 		return rsID.getContainerRelativeID();
 	}
 
+	RemoteServiceDispatchTable.Target resolveTarget(String methodName, Object[] args) throws NoSuchMethodException {
+		RemoteServiceDispatchTable table = dispatchTable;
+		if (table == null) {
+			table = new RemoteServiceDispatchTable(service.getClass());
+			dispatchTable = table;
+		}
+		return table.resolve(methodName, args);
+	}
+
+	/**
+	 * Get the number of remote invocations of each method of the service
+	 * object.  Methods that have not been invoked are not included.
+	 * 
+	 * @return map of method signature (e.g. <code>concat(java.lang.String,java.lang.String)</code>)
+	 *         to invocation count.  Will not be <code>null</code>.
+	 * @since 4.7
+	 */
+	public Map<String, Long> getInvocationCounts() {
+		RemoteServiceDispatchTable table = dispatchTable;
+		if (table == null)
+			return Collections.emptyMap();
+		return table.getInvocationCounts();
+	}
+
 	@SuppressWarnings("unchecked")
 	public Object callService(RemoteCallImpl call) throws Exception {
 		Object[] args = (call.getParameters() == null) ? SharedObjectMsg.nullArgs : call.getParameters();
-		final Method method = ClassUtil.getMethod(service.getClass(), call.getMethod(), SharedObjectMsg.getTypesForParameters(args));
-		AccessController.doPrivileged(new PrivilegedExceptionAction() {
-			public Object run() throws Exception {
-				if (!method.isAccessible())
-					method.setAccessible(true);
-				return null;
-			}
-		});
-		return method.invoke(service, args);
+		RemoteServiceDispatchTable.Target target = resolveTarget(call.getMethod(), args);
+		if (target.handle == null) {
+			final Method method = target.method;
+			AccessController.doPrivileged(new PrivilegedExceptionAction() {
+				public Object run() throws Exception {
+					if (!method.isAccessible())
+						method.setAccessible(true);
+					return null;
+				}
+			});
+		}
+		return target.invoke(service, args);
 	}
 
 	public String toString() {
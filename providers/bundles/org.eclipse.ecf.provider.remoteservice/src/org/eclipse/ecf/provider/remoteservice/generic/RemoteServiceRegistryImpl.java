@@ -16,6 +16,7 @@ import java.util.*;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.identity.IDFactory;
 import org.eclipse.ecf.remoteservice.*;
+import org.eclipse.ecf.remoteservice.util.RemoteFilterImpl;
 
 public class RemoteServiceRegistryImpl implements Serializable {
 
@@ -65,8 +66,64 @@ public class RemoteServiceRegistryImpl implements Serializable {
 		this.containerID = containerID;
 	}
 
+	/**
+	 * Immutable snapshot of the published services, indexed by class name and
+	 * by service id.  Rebuilt lazily after publish/unpublish, so that lookups
+	 * neither scan nor need to hold the registry lock.
+	 */
+	private static final class Index {
+		static final RemoteServiceRegistrationImpl[] EMPTY = new RemoteServiceRegistrationImpl[0];
+
+		final RemoteServiceRegistrationImpl[] all;
+		final Map<String, RemoteServiceRegistrationImpl[]> byClass;
+		final Map<Long, RemoteServiceRegistrationImpl> byServiceId;
+
+		@SuppressWarnings("unchecked")
+		Index(List allServices, Map servicesByClass) {
+			this.all = (RemoteServiceRegistrationImpl[]) allServices.toArray(new RemoteServiceRegistrationImpl[allServices.size()]);
+			this.byClass = new HashMap<String, RemoteServiceRegistrationImpl[]>(servicesByClass.size() * 2);
+			for (final Iterator i = servicesByClass.entrySet().iterator(); i.hasNext();) {
+				final Map.Entry entry = (Map.Entry) i.next();
+				final List services = (List) entry.getValue();
+				if (services != null && services.size() > 0)
+					byClass.put((String) entry.getKey(), (RemoteServiceRegistrationImpl[]) services.toArray(new RemoteServiceRegistrationImpl[services.size()]));
+			}
+			this.byServiceId = new HashMap<Long, RemoteServiceRegistrationImpl>(all.length * 2);
+			for (int i = 0; i < all.length; i++)
+				byServiceId.put(Long.valueOf(all[i].getServiceId()), all[i]);
+		}
+
+		RemoteServiceRegistrationImpl[] get(String clazz) {
+			if (clazz == null)
+				return all;
+			final RemoteServiceRegistrationImpl[] result = byClass.get(clazz);
+			return (result == null) ? EMPTY : result;
+		}
+	}
+
+	/**
+	 * Not serialized.  Set to null by any change to
+	 * {@link #publishedServicesByClass} or {@link #allPublishedServices} made
+	 * through this class, and rebuilt on the next lookup.
+	 */
+	private transient volatile Index index;
+
+	private Index getIndex() {
+		Index result = index;
+		if (result == null) {
+			synchronized (this) {
+				result = index;
+				if (result == null) {
+					result = new Index(allPublishedServices, publishedServicesByClass);
+					index = result;
+				}
+			}
+		}
+		return result;
+	}
+
 	@SuppressWarnings("unchecked")
-	public void publishService(RemoteServiceRegistrationImpl serviceReg) {
+	public synchronized void publishService(RemoteServiceRegistrationImpl serviceReg) {
 
 		// Add the ServiceRegistration to the list of Services published by
 		// Class Name.
@@ -88,9 +145,10 @@ public class RemoteServiceRegistryImpl implements Serializable {
 
 		// Add the ServiceRegistration to the list of all published Services.
 		allPublishedServices.add(serviceReg);
+		index = null;
 	}
 
-	public void unpublishService(RemoteServiceRegistrationImpl serviceReg) {
+	public synchronized void unpublishService(RemoteServiceRegistrationImpl serviceReg) {
 
 		// Remove the ServiceRegistration from the list of Services published by
 		// Class Name.
@@ -108,92 +166,63 @@ public class RemoteServiceRegistryImpl implements Serializable {
 		// Remove the ServiceRegistration from the list of all published
 		// Services.
 		allPublishedServices.remove(serviceReg);
-
+		index = null;
 	}
 
-	public void unpublishServices() {
+	public synchronized void unpublishServices() {
 		publishedServicesByClass.clear();
 		allPublishedServices.clear();
+		index = null;
 	}
 
-	@SuppressWarnings("unchecked")
 	public IRemoteServiceReference[] lookupServiceReferences(String clazz, IRemoteFilter filter) {
-		int size;
-		ArrayList references;
-		ArrayList serviceRegs;
-		if (clazz == null) {
-			serviceRegs = allPublishedServices;
-		} else {
-			/* services registered under the class name */
-			serviceRegs = (ArrayList) publishedServicesByClass.get(clazz);
-		}
-
-		if (serviceRegs == null) {
-			return (null);
-		}
-
-		size = serviceRegs.size();
+		final Index idx = getIndex();
+		RemoteServiceRegistrationImpl[] serviceRegs;
+		// A filter on the service id (as created for a remote service id) needs
+		// at most one registration to be matched
+		final long rsId = (filter instanceof RemoteFilterImpl) ? ((RemoteFilterImpl) filter).getRsId() : 0;
+		if (rsId > 0) {
+			final RemoteServiceRegistrationImpl reg = idx.byServiceId.get(Long.valueOf(rsId));
+			serviceRegs = (reg == null || (clazz != null && !Arrays.asList(idx.get(clazz)).contains(reg))) ? Index.EMPTY : new RemoteServiceRegistrationImpl[] {reg};
+		} else
+			serviceRegs = idx.get(clazz);
+
+		final int size = serviceRegs.length;
 
 		if (size == 0) {
 			return (null);
 		}
 
-		references = new ArrayList(size);
+		final IRemoteServiceReference[] references = new RemoteServiceReferenceImpl[size];
+		int count = 0;
 		for (int i = 0; i < size; i++) {
-			final IRemoteServiceRegistration registration = (IRemoteServiceRegistration) serviceRegs.get(i);
-
-			final IRemoteServiceReference reference = registration.getReference();
+			final IRemoteServiceReference reference = serviceRegs[i].getReference();
 			if ((filter == null) || filter.match(reference)) {
-				references.add(reference);
+				references[count++] = reference;
 			}
 		}
 
-		if (references.size() == 0) {
+		if (count == 0) {
 			return null;
 		}
 
-		return (IRemoteServiceReference[]) references.toArray(new RemoteServiceReferenceImpl[references.size()]);
-
+		if (count == size)
+			return references;
+		final IRemoteServiceReference[] result = new RemoteServiceReferenceImpl[count];
+		System.arraycopy(references, 0, result, 0, count);
+		return result;
 	}
 
-	@SuppressWarnings("unchecked")
 	public IRemoteServiceReference[] lookupServiceReferences() {
-		int size;
-		ArrayList references;
-		size = allPublishedServices.size();
-
-		if (size == 0) {
-			return (null);
-		}
-
-		references = new ArrayList(size);
-		for (int i = 0; i < size; i++) {
-			final IRemoteServiceRegistration registration = (IRemoteServiceRegistration) allPublishedServices.get(i);
-
-			final IRemoteServiceReference reference = registration.getReference();
-			references.add(reference);
-		}
-
-		if (references.size() == 0) {
-			return null;
-		}
-
-		return (IRemoteServiceReference[]) references.toArray(new RemoteServiceReferenceImpl[references.size()]);
+		return lookupServiceReferences(null, null);
 	}
 
-	@SuppressWarnings("unchecked")
 	protected RemoteServiceRegistrationImpl[] getRegistrations() {
-		return (RemoteServiceRegistrationImpl[]) allPublishedServices.toArray(new RemoteServiceRegistrationImpl[allPublishedServices.size()]);
+		return getIndex().all.clone();
 	}
 
 	protected RemoteServiceRegistrationImpl findRegistrationForServiceId(long serviceId) {
-		for (final Iterator i = allPublishedServices.iterator(); i.hasNext();) {
-			final RemoteServiceRegistrationImpl reg = (RemoteServiceRegistrationImpl) i.next();
-			if (serviceId == reg.getServiceId()) {
-				return reg;
-			}
-		}
-		return null;
+		return getIndex().byServiceId.get(Long.valueOf(serviceId));
 	}
 
 	/**
@@ -202,12 +231,8 @@ public class RemoteServiceRegistryImpl implements Serializable {
 	 * @since 3.0
 	 */
 	protected RemoteServiceRegistrationImpl findRegistrationForRemoteServiceId(IRemoteServiceID remoteServiceID) {
-		for (final Iterator i = allPublishedServices.iterator(); i.hasNext();) {
-			final RemoteServiceRegistrationImpl reg = (RemoteServiceRegistrationImpl) i.next();
-			if (remoteServiceID.equals(reg.getID()))
-				return reg;
-		}
-		return null;
+		final RemoteServiceRegistrationImpl reg = findRegistrationForServiceId(remoteServiceID.getContainerRelativeID());
+		return (reg != null && remoteServiceID.equals(reg.getID())) ? reg : null;
 	}
 
 	public String toString() {
@@ -12,6 +12,7 @@
 package org.eclipse.ecf.provider.remoteservice.generic;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.remoteservice.IRemoteCallListener;
 
@@ -33,8 +34,24 @@ public class Request implements Serializable {
 
 	boolean done = false;
 
+	/**
+	 * Set by requesters that can receive call responses sent as raw bytes
+	 * rather than as a SharedObjectMsg.  Ignored by older receivers.
+	 */
+	boolean acceptsCallBytes = false;
+
 	transient IRemoteCallListener listener = null;
 
+	/**
+	 * Completed with the response.  Only present on the requesting side.
+	 */
+	transient CompletableFuture<Response> responseFuture;
+
+	/**
+	 * Timeout for this pending request, if any.  Only present on the requesting side.
+	 */
+	transient HashedWheelTimer.Timeout timeout;
+
 	private synchronized static long getNextRequestId() {
 		long result = nextRequestId;
 		nextRequestId = (nextRequestId == Long.MAX_VALUE) ? 0L : nextRequestId + 1;
@@ -51,6 +68,7 @@ public class Request implements Serializable {
 		this.call = call;
 		this.requestId = getNextRequestId();
 		this.listener = listener;
+		this.responseFuture = new CompletableFuture<Response>();
 	}
 
 	public long getRequestId() {
@@ -89,6 +107,25 @@ public class Request implements Serializable {
 		return listener;
 	}
 
+	CompletableFuture<Response> getResponseFuture() {
+		return responseFuture;
+	}
+
+	/**
+	 * Set the response, mark this request done and complete the response future.
+	 * 
+	 * @param resp the response.  Must not be <code>null</code>.
+	 */
+	void complete(Response resp) {
+		synchronized (this) {
+			setResponse(resp);
+			setDone(true);
+			notifyAll();
+		}
+		if (responseFuture != null)
+			responseFuture.complete(resp);
+	}
+
 	public String toString() {
 		final StringBuffer buf = new StringBuffer("Request["); //$NON-NLS-1$
 		buf.append("requestId=").append(requestId).append(";cont=").append( //$NON-NLS-1$ //$NON-NLS-2$
@@ -15,8 +15,10 @@ package org.eclipse.ecf.internal.remoteservice.eventadmin;
 
 import java.security.Permission;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -50,25 +52,31 @@ public class EventHandlerTracker extends ServiceTracker implements EventDispatch
 	public Object addingService(ServiceReference reference) {
 		EventHandlerWrapper wrapper = new EventHandlerWrapper(reference,
 				context, log);
+		boolean added;
 		synchronized (this) {
-			if (wrapper.init()) {
+			added = wrapper.init();
+			if (added) {
 				bucket(wrapper);
 			}
 		}
+		if (added)
+			topicsChanged();
 		return wrapper;
 	}
 
 	public void modifiedService(ServiceReference reference, Object service) {
 		EventHandlerWrapper wrapper = (EventHandlerWrapper) service;
+		boolean added = false;
 		synchronized (this) {
 			unbucket(wrapper);
 			if (wrapper.init()) {
 				bucket(wrapper);
-				return;
+				added = true;
 			}
 		}
-
-		wrapper.flush(); // needs to be called outside sync region
+		topicsChanged();
+		if (!added)
+			wrapper.flush(); // needs to be called outside sync region
 	}
 
 	public void removedService(ServiceReference reference, Object service) {
@@ -76,9 +84,18 @@ public class EventHandlerTracker extends ServiceTracker implements EventDispatch
 		synchronized (this) {
 			unbucket(wrapper);
 		}
+		topicsChanged();
 		wrapper.flush(); // needs to be called outside sync region
 	}
 
+	/**
+	 * Called, outside of any sync region, after an event handler has been
+	 * added, modified or removed. The default implementation does nothing.
+	 */
+	protected void topicsChanged() {
+		// nop
+	}
+
 	/**
 	 * Place the wrapper into the appropriate buckets. This is a performance
 	 * optimization for event delivery.
@@ -211,6 +228,26 @@ public class EventHandlerTracker extends ServiceTracker implements EventDispatch
 		return handlers;
 	}
 
+	/**
+	 * Return the topics that handlers are currently subscribed to.
+	 * 
+	 * @return the subscribed topics, in the form of
+	 *         {@link org.osgi.service.event.EventConstants#EVENT_TOPIC} values.
+	 *         Only "*" is returned if a handler subscribed to all topics
+	 */
+	public synchronized String[] getTopics() {
+		if (globalWildcard.size() > 0) {
+			return new String[] {"*"}; //$NON-NLS-1$
+		}
+		List topics = new ArrayList(partialWildcard.size() + topicName.size());
+		for (Iterator i = partialWildcard.keySet().iterator(); i.hasNext();) {
+			topics.add(i.next() + "/*"); //$NON-NLS-1$
+		}
+		topics.addAll(topicName.keySet());
+		Collections.sort(topics);
+		return (String[]) topics.toArray(new String[topics.size()]);
+	}
+
 	public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, Object eventObject) {
 		((EventHandlerWrapper) eventListener).handleEvent((Event) eventObject, (Permission) listenerObject);
 	}
@@ -0,0 +1,82 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.internal.remoteservice.eventadmin;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The event topics that a remote distributed event admin has
+ * {@link org.osgi.service.event.EventHandler}s for. Topics are matched the way
+ * {@link EventHandlerTracker#getHandlers(String)} matches them.
+ */
+public class TopicSubscriptions {
+
+	private final String[] topics;
+	private boolean globalWildcard;
+	// topic prefixes of partial wildcards, with the "/*" stripped off
+	private final Set partialWildcard = new HashSet();
+	private final Set topicName = new HashSet();
+
+	public TopicSubscriptions(String[] topics) {
+		this.topics = (topics == null) ? new String[0] : topics;
+		for (int i = 0; i < this.topics.length; i++) {
+			String topic = this.topics[i];
+			if (topic == null)
+				continue;
+			if (topic.equals("*")) //$NON-NLS-1$
+				globalWildcard = true;
+			else if (topic.endsWith("/*")) //$NON-NLS-1$
+				partialWildcard.add(topic.substring(0, topic.length() - 2));
+			else
+				topicName.add(topic);
+		}
+	}
+
+	/**
+	 * @param topic
+	 *            the topic of an event
+	 * @return <code>true</code> if a handler for the given topic has been
+	 *         subscribed
+	 */
+	public boolean matches(String topic) {
+		if (globalWildcard || topicName.contains(topic))
+			return true;
+		if (partialWildcard.size() > 0) {
+			int index = topic.length();
+			while (index >= 0) {
+				String subTopic = topic.substring(0, index);
+				if (partialWildcard.contains(subTopic))
+					return true;
+				index = subTopic.lastIndexOf('/');
+			}
+		}
+		return false;
+	}
+
+	public String[] getTopics() {
+		return topics;
+	}
+
+	public String toString() {
+		StringBuffer buffer = new StringBuffer("TopicSubscriptions["); //$NON-NLS-1$
+		for (int i = 0; i < topics.length; i++) {
+			if (i > 0)
+				buffer.append(',');
+			buffer.append(topics[i]);
+		}
+		buffer.append(']');
+		return buffer.toString();
+	}
+}
@@ -17,27 +17,42 @@ package org.eclipse.ecf.remoteservice.eventadmin;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.security.Permission;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.ecf.core.IContainer;
+import org.eclipse.ecf.core.events.IContainerConnectedEvent;
+import org.eclipse.ecf.core.events.IContainerDisconnectedEvent;
+import org.eclipse.ecf.core.events.IContainerEjectedEvent;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.sharedobject.BaseSharedObject;
+import org.eclipse.ecf.core.sharedobject.SharedObjectInitException;
 import org.eclipse.ecf.core.sharedobject.SharedObjectMsg;
+import org.eclipse.ecf.core.sharedobject.events.ISharedObjectActivatedEvent;
 import org.eclipse.ecf.core.sharedobject.events.ISharedObjectCreateResponseEvent;
 import org.eclipse.ecf.core.sharedobject.events.ISharedObjectMessageEvent;
+import org.eclipse.ecf.core.util.IEventProcessor;
 import org.eclipse.ecf.internal.remoteservice.eventadmin.DefaultSerializationHandler;
 import org.eclipse.ecf.internal.remoteservice.eventadmin.EventHandlerTracker;
 import org.eclipse.ecf.internal.remoteservice.eventadmin.EventHandlerWrapper;
 import org.eclipse.ecf.internal.remoteservice.eventadmin.LogTracker;
+import org.eclipse.ecf.internal.remoteservice.eventadmin.TopicSubscriptions;
 import org.eclipse.ecf.remoteservice.eventadmin.serialization.SerializationHandler;
 import org.eclipse.osgi.framework.eventmgr.CopyOnWriteIdentityMap;
+import org.eclipse.osgi.framework.eventmgr.EventDispatcher;
 import org.eclipse.osgi.framework.eventmgr.EventManager;
 import org.eclipse.osgi.framework.eventmgr.ListenerQueue;
 import org.osgi.framework.BundleContext;
@@ -73,6 +88,49 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	private final Map topic2serializationHandler = new HashMap();
 
 	private static final String SHARED_OBJECT_MESSAGE_METHOD = "__handlePostEventSharedObjectMsg";
+	private static final String SHARED_OBJECT_BATCH_MESSAGE_METHOD = "__handlePostEventsSharedObjectMsg";
+	private static final String SHARED_OBJECT_SUBSCRIPTIONS_METHOD = "__handleSubscriptionsSharedObjectMsg";
+
+	/**
+	 * Whether group members advertise the topics of their local
+	 * {@link EventHandler}s, so that posted events are only sent to members
+	 * that subscribe to them, in batches. Members that have not advertised
+	 * their topics (e.g. older versions) are sent every event as before.
+	 */
+	private static final boolean topicRouting = !Boolean
+			.getBoolean(DistributedEventAdmin.class.getName()
+					+ ".DisableTopicRouting");
+	/**
+	 * The maximum number of events sent to a destination in one message. 1
+	 * disables batching.
+	 */
+	private static final int batchSize = Integer.getInteger(
+			DistributedEventAdmin.class.getName() + ".BatchSize", 64)
+			.intValue();
+	/**
+	 * The time, in microseconds, an event waits for more events to the same
+	 * destination before its batch is sent.
+	 */
+	private static final long batchDelay = Long.getLong(
+			DistributedEventAdmin.class.getName() + ".BatchDelay", 1000)
+			.longValue();
+
+	// Map<ID,TopicSubscriptions> of the members that have advertised their
+	// topics. Replaced rather than modified, under subscriptionsLock
+	private volatile Map remoteSubscriptions = Collections.EMPTY_MAP;
+	private final Object subscriptionsLock = new Object();
+	private String[] advertisedTopics;
+
+	// Map<ID,EventBatch> of the batches waiting to be sent. The null key is
+	// the batch for the whole group
+	private final Map batches = new HashMap();
+	private final Object batchLock = new Object();
+	// List<OutgoingMessage> of the messages collected under batchLock, in
+	// posting order. They are sent by sendPending() outside of the lock
+	private final List outgoing = new ArrayList();
+	// whether a thread is in sendPending(). @GuardedBy batchLock
+	private boolean sending;
+	private ScheduledExecutorService batchScheduler;
 
 	/**
 	 * @since 1.2
@@ -115,7 +173,11 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 			this.log = log;
 		}
 		// Now create eventHandler tracker
-		this.eventHandlerTracker = new EventHandlerTracker(context, log);
+		this.eventHandlerTracker = new EventHandlerTracker(context, log) {
+			protected void topicsChanged() {
+				handleLocalTopicsChanged();
+			}
+		};
 	}
 
 	/**
@@ -197,6 +259,7 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	 * registration with the OSGi service registry.
 	 */
 	public void stop() {
+		clearBatches(true);
 		eventHandlerTracker.close();
 		if (eventManager != null) {
 			eventManager.close();
@@ -284,6 +347,14 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	 * Subclasses may override this method to customize or replace this
 	 * sendMessage behavior.
 	 * <p>
+	 * If {@link #getTarget(Event)} returns <code>null</code>, the message is
+	 * only sent to the group members that have advertised an
+	 * {@link EventHandler} for the event's topic, and to the members that have
+	 * not advertised their topics. Messages to members that advertised their
+	 * topics are batched: they are sent once a number of events for the same
+	 * destination has been collected, or once the first of them has waited
+	 * for a short time.
+	 * <p>
 	 * If an exception occurs on serialization or sending, the
 	 * {@link #handleSendMessageException(String, Event, Object[], IOException)}
 	 * method will be called to handle it.
@@ -298,14 +369,290 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 		try {
 			target = getTarget(eventToSend);
 			messageData = createMessageDataFromEvent(target, eventToSend);
-			sendSharedObjectMsgTo(target, SharedObjectMsg.createMsg(
-					SHARED_OBJECT_MESSAGE_METHOD, messageData));
+			if (target == null && topicRouting)
+				sendToSubscribers(eventToSend, messageData);
+			else
+				sendMessageData(target, isBatchReceiver(target), eventToSend,
+						messageData);
 		} catch (IOException e) {
 			handleSendMessageException("send exception to target=" + target,
 					eventToSend, messageData, e);
 		}
 	}
 
+	private boolean isBatchReceiver(ID target) {
+		return topicRouting && batchSize > 1 && target != null
+				&& remoteSubscriptions.containsKey(target);
+	}
+
+	private void sendToSubscribers(Event eventToSend, Object[] messageData)
+			throws IOException {
+		final ID localContainerID = getLocalContainerID();
+		final ID[] members = getGroupMemberIDs();
+		final Map subscriptions = remoteSubscriptions;
+		final String topic = eventToSend.getTopic();
+		final List subscribers = new ArrayList(members.length);
+		final List unknown = new ArrayList(members.length);
+		int remoteMembers = 0;
+		for (int i = 0; i < members.length; i++) {
+			if (members[i].equals(localContainerID))
+				continue;
+			remoteMembers++;
+			final TopicSubscriptions s = (TopicSubscriptions) subscriptions
+					.get(members[i]);
+			if (s == null)
+				unknown.add(members[i]);
+			else if (s.matches(topic))
+				subscribers.add(members[i]);
+		}
+		final boolean batch = batchSize > 1;
+		if (unknown.size() == remoteMembers) {
+			// nobody has told us what they subscribe to
+			sendMessageData(null, false, eventToSend, messageData);
+		} else if (subscribers.size() == remoteMembers) {
+			sendMessageData(null, batch, eventToSend, messageData);
+		} else {
+			for (Iterator i = subscribers.iterator(); i.hasNext();)
+				sendMessageData((ID) i.next(), batch, eventToSend, messageData);
+			for (Iterator i = unknown.iterator(); i.hasNext();)
+				sendMessageData((ID) i.next(), false, eventToSend, messageData);
+		}
+	}
+
+	private void sendMessageData(ID target, boolean batch, Event eventToSend,
+			Object[] messageData) throws IOException {
+		if (!topicRouting) {
+			sendSharedObjectMsgTo(target, SharedObjectMsg.createMsg(
+					SHARED_OBJECT_MESSAGE_METHOD, messageData));
+			return;
+		}
+		synchronized (batchLock) {
+			flushOverlappingBatches(target, batch);
+			if (!batch)
+				outgoing.add(new OutgoingMessage(target,
+						SHARED_OBJECT_MESSAGE_METHOD, eventToSend, messageData));
+			else {
+				EventBatch eventBatch = (EventBatch) batches.get(target);
+				if (eventBatch == null) {
+					eventBatch = new EventBatch(target);
+					batches.put(target, eventBatch);
+				}
+				eventBatch.events.add(eventToSend);
+				eventBatch.messageData.add(messageData);
+				if (eventBatch.events.size() >= batchSize) {
+					batches.remove(target);
+					flushBatch(eventBatch);
+				} else if (eventBatch.flushFuture == null)
+					eventBatch.flushFuture = getBatchScheduler().schedule(
+							eventBatch, batchDelay, TimeUnit.MICROSECONDS);
+			}
+		}
+		sendPending();
+	}
+
+	/**
+	 * Send the messages collected in {@link #outgoing}. Sending can block
+	 * when the connection's send queue is full, so it is done without holding
+	 * batchLock. Only one thread sends at a time, which keeps the posting
+	 * order. A thread that finds another one sending leaves its messages to
+	 * that thread and returns.
+	 * <p>
+	 * A failure to send a message posted by the calling thread is thrown
+	 * after the remaining messages have been sent. Failures of messages
+	 * posted by other threads have been logged by
+	 * {@link #handleSendMessageException(String, Event, Object[], IOException)}.
+	 */
+	private void sendPending() {
+		synchronized (batchLock) {
+			if (sending)
+				return;
+			sending = true;
+		}
+		final Thread current = Thread.currentThread();
+		RuntimeException failure = null;
+		boolean done = false;
+		try {
+			for (;;) {
+				final Object[] toSend;
+				synchronized (batchLock) {
+					if (outgoing.isEmpty()) {
+						// in the same block as the check, so that messages
+						// added after it are sent by their own poster
+						sending = false;
+						done = true;
+						break;
+					}
+					toSend = outgoing.toArray();
+					outgoing.clear();
+				}
+				for (int i = 0; i < toSend.length; i++) {
+					final OutgoingMessage m = (OutgoingMessage) toSend[i];
+					try {
+						m.send();
+					} catch (RuntimeException e) {
+						if (m.poster == current && failure == null)
+							failure = e;
+					}
+				}
+			}
+		} finally {
+			if (!done) {
+				synchronized (batchLock) {
+					sending = false;
+				}
+			}
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * Send the pending batches that reach a member that the given message is
+	 * also sent to, so that every member receives events in the order they
+	 * were posted.
+	 * 
+	 * @GuardedBy batchLock
+	 */
+	private void flushOverlappingBatches(ID target, boolean batch) {
+		if (batches.isEmpty())
+			return;
+		final List flush = new ArrayList();
+		for (Iterator i = batches.entrySet().iterator(); i.hasNext();) {
+			final Map.Entry entry = (Map.Entry) i.next();
+			final ID key = (ID) entry.getKey();
+			final boolean same = (target == null) ? key == null : target
+					.equals(key);
+			if ((target == null || key == null || same) && !(batch && same)) {
+				flush.add(entry.getValue());
+				i.remove();
+			}
+		}
+		for (Iterator i = flush.iterator(); i.hasNext();)
+			flushBatch((EventBatch) i.next());
+	}
+
+	/**
+	 * Queue the given batch for sending by {@link #sendPending()}.
+	 * 
+	 * @GuardedBy batchLock
+	 */
+	private void flushBatch(EventBatch eventBatch) {
+		if (eventBatch.flushFuture != null)
+			eventBatch.flushFuture.cancel(false);
+		outgoing.add(new OutgoingMessage(eventBatch.target,
+				SHARED_OBJECT_BATCH_MESSAGE_METHOD, (Event) eventBatch.events
+						.get(0), eventBatch.messageData.toArray()));
+	}
+
+	/**
+	 * @param send
+	 *            <code>true</code> to send the pending batches,
+	 *            <code>false</code> to discard them
+	 */
+	private void clearBatches(boolean send) {
+		synchronized (batchLock) {
+			final List pending = new ArrayList(batches.values());
+			batches.clear();
+			for (Iterator i = pending.iterator(); i.hasNext();) {
+				final EventBatch eventBatch = (EventBatch) i.next();
+				if (send)
+					flushBatch(eventBatch);
+				else if (eventBatch.flushFuture != null)
+					eventBatch.flushFuture.cancel(false);
+			}
+			if (!send)
+				outgoing.clear();
+			if (batchScheduler != null) {
+				batchScheduler.shutdown();
+				batchScheduler = null;
+			}
+		}
+		if (send) {
+			try {
+				sendPending();
+			} catch (ServiceException e) {
+				// already logged by handleSendMessageException
+			}
+		}
+	}
+
+	/**
+	 * @GuardedBy batchLock
+	 */
+	private ScheduledExecutorService getBatchScheduler() {
+		if (batchScheduler == null) {
+			batchScheduler = Executors
+					.newSingleThreadScheduledExecutor(new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							final Thread t = new Thread(r,
+									"Distributed EventAdmin Batch Sender"); //$NON-NLS-1$
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		}
+		return batchScheduler;
+	}
+
+	/**
+	 * Events waiting to be sent to the same destination.
+	 */
+	private class EventBatch implements Runnable {
+		final ID target;
+		final List events = new ArrayList();
+		final List messageData = new ArrayList();
+		ScheduledFuture flushFuture;
+
+		EventBatch(ID target) {
+			this.target = target;
+		}
+
+		public void run() {
+			synchronized (batchLock) {
+				// the batch may have been sent when it filled up
+				if (batches.get(target) != this)
+					return;
+				batches.remove(target);
+				flushBatch(this);
+			}
+			try {
+				sendPending();
+			} catch (ServiceException e) {
+				// already logged by handleSendMessageException
+			}
+		}
+	}
+
+	/**
+	 * A message waiting to be sent by {@link #sendPending()}.
+	 */
+	private class OutgoingMessage {
+		final ID target;
+		final String method;
+		// the (first) event of the message, for handleSendMessageException
+		final Event event;
+		final Object[] messageData;
+		final Thread poster = Thread.currentThread();
+
+		OutgoingMessage(ID target, String method, Event event,
+				Object[] messageData) {
+			this.target = target;
+			this.method = method;
+			this.event = event;
+			this.messageData = messageData;
+		}
+
+		void send() {
+			try {
+				sendSharedObjectMsgTo(target,
+						SharedObjectMsg.createMsg(method, messageData));
+			} catch (IOException e) {
+				handleSendMessageException("send exception to target="
+						+ target, event, messageData, e);
+			}
+		}
+	}
+
 /**
 	 * Create message data for deliver to a target (which could be
 	 * <code>null</code> to designate multiple target receivers), The resulting
@@ -579,6 +926,124 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 		}
 	}
 
+	/**
+	 * Locally dispatch a batch of Events, such as the events received in one
+	 * message. The events are delivered in order, each to its matching
+	 * {@link EventHandler}s, by a single dispatch for the whole batch rather
+	 * than one per event. Matching handlers are looked up once per topic.
+	 * {@link #notifyPreLocalDispatch(Event)} and
+	 * {@link #notifyPostLocalDispatch(Event)} are called for every event, as
+	 * by {@link #localDispatch(Event, boolean)}.
+	 * 
+	 * @param dispatchedEvents
+	 *            the Events to dispatch. Will not be <code>null</code>.
+	 * @param isAsync
+	 *            <code>true</code> if the dispatch should be done
+	 *            asynchronously (non-blocking), <code>false</code> if the
+	 *            dispatch should be done synchronously.
+	 * @since 1.4
+	 */
+	protected void localDispatch(Event[] dispatchedEvents, boolean isAsync) {
+		EventManager currentManager = eventManager;
+		if (currentManager == null) {
+			return;
+		}
+
+		SecurityManager sm = System.getSecurityManager();
+		Map handlersByTopic = new HashMap();
+		List events = new ArrayList(dispatchedEvents.length);
+		List handlers = new ArrayList(dispatchedEvents.length);
+		for (int i = 0; i < dispatchedEvents.length; i++) {
+			if (dispatchedEvents[i] == null) {
+				log.log(LogService.LOG_ERROR,
+						"Null event passed to EventAdmin was ignored.");
+				continue;
+			}
+			Event event = notifyPreLocalDispatch(dispatchedEvents[i]);
+			if (event == null)
+				continue;
+
+			String eventTopic = event.getTopic();
+			TopicHandlers topicHandlers = (TopicHandlers) handlersByTopic
+					.get(eventTopic);
+			if (topicHandlers == null) {
+				try {
+					if (sm != null)
+						sm.checkPermission(new TopicPermission(eventTopic,
+								TopicPermission.PUBLISH));
+				} catch (SecurityException e) {
+					logError(
+							"Caller bundle does not have TopicPermission to publish topic "
+									+ eventTopic, e);
+					throw e;
+				}
+				topicHandlers = new TopicHandlers(
+						eventHandlerTracker.getHandlers(eventTopic),
+						(sm == null) ? null : new TopicPermission(eventTopic,
+								TopicPermission.SUBSCRIBE));
+				handlersByTopic.put(eventTopic, topicHandlers);
+			}
+			events.add(event);
+			handlers.add(topicHandlers);
+		}
+		if (events.isEmpty())
+			return;
+
+		EventDispatchBatch batch = new EventDispatchBatch(
+				(Event[]) events.toArray(new Event[events.size()]),
+				(TopicHandlers[]) handlers.toArray(new TopicHandlers[handlers
+						.size()]));
+		CopyOnWriteIdentityMap listeners = new CopyOnWriteIdentityMap();
+		listeners.put(batch, null);
+		ListenerQueue listenerQueue = new ListenerQueue(currentManager);
+		listenerQueue.queueListeners(listeners.entrySet(), batch);
+		if (isAsync) {
+			listenerQueue.dispatchEventAsynchronous(0, batch);
+		} else {
+			listenerQueue.dispatchEventSynchronous(0, batch);
+		}
+
+		for (Iterator i = events.iterator(); i.hasNext();)
+			notifyPostLocalDispatch((Event) i.next());
+	}
+
+	/**
+	 * The handlers of one topic, and the permission they need to receive it.
+	 */
+	private static final class TopicHandlers {
+		final EventHandlerWrapper[] wrappers;
+		final Permission perm;
+
+		TopicHandlers(Set wrappers, Permission perm) {
+			this.wrappers = (EventHandlerWrapper[]) wrappers
+					.toArray(new EventHandlerWrapper[wrappers.size()]);
+			this.perm = perm;
+		}
+	}
+
+	/**
+	 * A batch of events that is dispatched as one event by the
+	 * {@link EventManager}, and delivers each event to its handlers.
+	 */
+	private static final class EventDispatchBatch implements EventDispatcher {
+		private final Event[] events;
+		private final TopicHandlers[] handlers;
+
+		EventDispatchBatch(Event[] events, TopicHandlers[] handlers) {
+			this.events = events;
+			this.handlers = handlers;
+		}
+
+		public void dispatchEvent(Object eventListener, Object listenerObject,
+				int eventAction, Object eventObject) {
+			for (int i = 0; i < events.length; i++) {
+				EventHandlerWrapper[] wrappers = handlers[i].wrappers;
+				for (int j = 0; j < wrappers.length; j++)
+					wrappers[j].handleEvent(events[i], handlers[i].perm);
+			}
+		}
+	}
+
 /**
 	 * Handle the shared object message.  This method is called on receiver implementations of 
 	 * the DistributedEventAdmin, so that they can deliver to locally registered {@link EventHandler}s.
@@ -595,6 +1060,8 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	 * </ol></li>
 	 * <li>
 	 * </ol>
+	 * Batches of events are handled the same way, except that all events of a batch are passed
+	 * to {@link #localDispatch(Event[], boolean)} together.
 	 * @since 1.1
 	 */
 	protected boolean handleSharedObjectMsg(ID fromID, SharedObjectMsg msg) {
@@ -614,6 +1081,37 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 								+ msg, e);
 			}
 			return true;
+		} else if (SHARED_OBJECT_BATCH_MESSAGE_METHOD.equals(soMethod)) {
+			Object[] batchData = msg.getParameters();
+			List receivedEvents = new ArrayList(batchData.length);
+			for (int i = 0; i < batchData.length; i++) {
+				try {
+					Event receivedEvent = createEventFromMessageData(fromID,
+							(Object[]) batchData[i]);
+					if (receivedEvent != null) {
+						notifyReceivedEvent(fromID, receivedEvent);
+						receivedEvents.add(receivedEvent);
+					}
+				} catch (Exception e) {
+					logError(
+							"DistributedEventAdmin handleSharedObjectMsg error receiving event="
+									+ batchData[i] + " from=" + fromID, e);
+				}
+			}
+			try {
+				localDispatch((Event[]) receivedEvents
+						.toArray(new Event[receivedEvents.size()]), true);
+			} catch (Exception e) {
+				logError(
+						"DistributedEventAdmin handleSharedObjectMsg error dispatching msg="
+								+ msg, e);
+			}
+			return true;
+		} else if (SHARED_OBJECT_SUBSCRIPTIONS_METHOD.equals(soMethod)) {
+			if (topicRouting)
+				handleRemoteSubscriptions(fromID,
+						(String[]) msg.getParameters()[0]);
+			return true;
 		} else {
 			logError("DistributedEventAdmin received bad shared object msg="
 					+ msg + " from=" + fromID);
@@ -621,6 +1119,141 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 		return false;
 	}
 
+	/**
+	 * Get the topics to advertise to the other group members. Posted events
+	 * are only sent to members that advertised a matching topic. The default
+	 * implementation returns the topics of the {@link EventHandler}s
+	 * registered in the local OSGi service registry.
+	 * <p>
+	 * Subclasses that handle received events other than by
+	 * {@link #localDispatch(Event, boolean)} should override this method, e.g.
+	 * to return "*" to receive all events.
+	 * 
+	 * @return the topics to advertise, in the form of
+	 *         {@link org.osgi.service.event.EventConstants#EVENT_TOPIC} values.
+	 *         Must not be <code>null</code>.
+	 * @since 1.4
+	 */
+	protected String[] getSubscribedTopics() {
+		if (eventHandlerTracker == null)
+			// without a tracker we can't tell, so receive everything
+			return new String[] { "*" };
+		return eventHandlerTracker.getTopics();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.ecf.core.sharedobject.BaseSharedObject#initialize()
+	 */
+	protected void initialize() throws SharedObjectInitException {
+		super.initialize();
+		addEventProcessor(new IEventProcessor() {
+			public boolean processEvent(org.eclipse.ecf.core.util.Event event) {
+				if (event instanceof IContainerConnectedEvent)
+					handleMemberConnected(((IContainerConnectedEvent) event)
+							.getTargetID());
+				else if (event instanceof IContainerDisconnectedEvent)
+					handleMemberDisconnected(((IContainerDisconnectedEvent) event)
+							.getTargetID());
+				else if (event instanceof IContainerEjectedEvent)
+					handleMemberDisconnected(((IContainerEjectedEvent) event)
+							.getTargetID());
+				else if (event instanceof ISharedObjectActivatedEvent
+						&& getID().equals(
+								((ISharedObjectActivatedEvent) event)
+										.getActivatedID()))
+					sendSubscriptions(null);
+				return false;
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.ecf.core.sharedobject.BaseSharedObject#dispose(org.eclipse.ecf.core.identity.ID)
+	 */
+	public void dispose(ID containerID) {
+		clearBatches(false);
+		synchronized (subscriptionsLock) {
+			remoteSubscriptions = Collections.EMPTY_MAP;
+			advertisedTopics = null;
+		}
+		super.dispose(containerID);
+	}
+
+	private void handleMemberConnected(ID memberID) {
+		if (memberID != null && !memberID.equals(getLocalContainerID()))
+			sendSubscriptions(memberID);
+	}
+
+	private void handleMemberDisconnected(ID memberID) {
+		synchronized (subscriptionsLock) {
+			Map subscriptions = new HashMap(remoteSubscriptions);
+			subscriptions.remove(memberID);
+			// once disconnected from the group, the other members are gone
+			// too
+			subscriptions.keySet().retainAll(
+					Arrays.asList(getGroupMemberIDs()));
+			remoteSubscriptions = subscriptions;
+		}
+		synchronized (batchLock) {
+			EventBatch eventBatch = (EventBatch) batches.remove(memberID);
+			if (eventBatch != null && eventBatch.flushFuture != null)
+				eventBatch.flushFuture.cancel(false);
+		}
+	}
+
+	private void handleRemoteSubscriptions(ID fromID, String[] topics) {
+		boolean known;
+		synchronized (subscriptionsLock) {
+			Map subscriptions = new HashMap(remoteSubscriptions);
+			known = subscriptions.put(fromID, new TopicSubscriptions(topics)) != null;
+			remoteSubscriptions = subscriptions;
+		}
+		// our own topics may have reached fromID before its distributed event
+		// admin was there to receive them
+		if (!known)
+			sendSubscriptions(fromID);
+	}
+
+	private void handleLocalTopicsChanged() {
+		if (!topicRouting || !isGroupConnected())
+			return;
+		synchronized (subscriptionsLock) {
+			if (Arrays.equals(getSubscribedTopics(), advertisedTopics))
+				return;
+		}
+		sendSubscriptions(null);
+	}
+
+	private boolean isGroupConnected() {
+		// not connected before this shared object has been added to a
+		// container
+		return getConfig() != null && isConnected();
+	}
+
+	/**
+	 * Advertise the local topics.
+	 * 
+	 * @param target
+	 *            the member to send the topics to, or <code>null</code> for
+	 *            the whole group
+	 */
+	private void sendSubscriptions(ID target) {
+		if (!topicRouting || !isGroupConnected())
+			return;
+		String[] topics = getSubscribedTopics();
+		if (target == null) {
+			synchronized (subscriptionsLock) {
+				advertisedTopics = topics;
+			}
+		}
+		try {
+			sendSharedObjectMsgTo(target, SharedObjectMsg.createMsg(
+					SHARED_OBJECT_SUBSCRIPTIONS_METHOD, new Object[] { topics }));
+		} catch (IOException e) {
+			logWarning("Could not send event topics to target=" + target, e);
+		}
+	}
+
 	/**
 	 * @param fromID fromID
 	 * @param receivedEvent received event
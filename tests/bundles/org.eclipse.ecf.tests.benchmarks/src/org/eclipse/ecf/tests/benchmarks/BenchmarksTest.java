@@ -0,0 +1,47 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.benchmarks;
+
+import java.io.File;
+import junit.framework.TestCase;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks in this bundle inside the OSGi test runtime and writes
+ * the results as JSON.  The benchmarks are not forked, as the containers and
+ * the remote service registry need the running framework.
+ * <p>
+ * The <code>ecf.benchmarks.include</code> system property selects benchmarks
+ * by regular expression (default: all).  The <code>ecf.benchmarks.result</code>
+ * system property sets the result file (default:
+ * <code>target/jmh-result.json</code>).
+ */
+public class BenchmarksTest extends TestCase {
+
+	public static final String INCLUDE_PROP = "ecf.benchmarks.include"; //$NON-NLS-1$
+
+	public static final String RESULT_PROP = "ecf.benchmarks.result"; //$NON-NLS-1$
+
+	public void testRunBenchmarks() throws Exception {
+		File result = new File(System.getProperty(RESULT_PROP, "target/jmh-result.json")); //$NON-NLS-1$
+		File parent = result.getAbsoluteFile().getParentFile();
+		if (parent != null)
+			parent.mkdirs();
+		Options options = new OptionsBuilder().include(System.getProperty(INCLUDE_PROP, ".*")) //$NON-NLS-1$
+				.forks(0).shouldFailOnError(true).resultFormat(ResultFormatType.JSON).result(result.getAbsolutePath()).build();
+		assertFalse(new Runner(options).run().isEmpty());
+	}
+}
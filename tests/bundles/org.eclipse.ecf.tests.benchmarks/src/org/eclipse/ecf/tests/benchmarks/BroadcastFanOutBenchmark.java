@@ -0,0 +1,77 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.ecf.provider.generic.ServerSOContainer;
+import org.eclipse.ecf.provider.generic.TCPClientSOContainer;
+import org.eclipse.ecf.provider.generic.TCPServerSOContainer;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Latency of one group broadcast through {@link ServerSOContainer}.  A client
+ * sends a message to the whole group, and the invocation completes when the
+ * server and every other client have received it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BroadcastFanOutBenchmark {
+
+	@Param({"2", "8", "32"})
+	public int groupSize;
+
+	@Param({"1024"})
+	public int payloadSize;
+
+	private TCPServerSOContainer server;
+	private TCPClientSOContainer[] clients;
+	private MessageSink[] sinks;
+	private byte[] payload;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		int port = Loopback.freePort();
+		server = Loopback.createServer(port, TCPServerSOContainer.DEFAULT_TRANSPORT);
+		// sinks[0] is the server, sinks[1] belongs to the sending client
+		sinks = new MessageSink[groupSize + 1];
+		sinks[0] = new MessageSink();
+		Loopback.addSharedObject(server, MessageSink.SINK_ID, sinks[0]);
+		clients = new TCPClientSOContainer[groupSize];
+		for (int i = 0; i < groupSize; i++) {
+			clients[i] = Loopback.createClient(TCPServerSOContainer.DEFAULT_TRANSPORT);
+			sinks[i + 1] = new MessageSink();
+			Loopback.addSharedObject(clients[i], MessageSink.SINK_ID, sinks[i + 1]);
+			clients[i].connect(Loopback.serverID(port), null);
+		}
+		payload = new byte[payloadSize];
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (clients != null)
+			for (int i = 0; i < clients.length; i++)
+				Loopback.dispose(clients[i]);
+		Loopback.dispose(server);
+	}
+
+	@Benchmark
+	public void broadcast() throws Exception {
+		sinks[1].send(null, payload);
+		sinks[0].await(1);
+		for (int i = 2; i < sinks.length; i++)
+			sinks[i].await(1);
+	}
+}
@@ -0,0 +1,72 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.ecf.provider.generic.TCPClientSOContainer;
+import org.eclipse.ecf.provider.generic.TCPServerSOContainer;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * One-way shared object message throughput from a {@link TCPClientSOContainer}
+ * to a {@link TCPServerSOContainer}.  Each invocation sends a batch of messages
+ * and waits until the server has received all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContainerThroughputBenchmark {
+
+	private static final int BATCH = 100;
+
+	@Param({TCPServerSOContainer.TRANSPORT_TCP, TCPServerSOContainer.TRANSPORT_NIO})
+	public String transport;
+
+	@Param({"64", "4096"})
+	public int payloadSize;
+
+	private TCPServerSOContainer server;
+	private TCPClientSOContainer client;
+	private MessageSink serverSink;
+	private MessageSink clientSink;
+	private byte[] payload;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		int port = Loopback.freePort();
+		server = Loopback.createServer(port, transport);
+		serverSink = new MessageSink();
+		Loopback.addSharedObject(server, MessageSink.SINK_ID, serverSink);
+		client = Loopback.createClient(transport);
+		clientSink = new MessageSink();
+		Loopback.addSharedObject(client, MessageSink.SINK_ID, clientSink);
+		client.connect(Loopback.serverID(port), null);
+		payload = new byte[payloadSize];
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Loopback.dispose(client);
+		Loopback.dispose(server);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void sendToServer() throws Exception {
+		for (int i = 0; i < BATCH; i++)
+			clientSink.send(server.getID(), payload);
+		serverSink.await(BATCH);
+	}
+}
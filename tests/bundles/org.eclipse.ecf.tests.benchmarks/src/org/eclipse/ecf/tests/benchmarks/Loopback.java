@@ -0,0 +1,67 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.benchmarks;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URISyntaxException;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.ISharedObject;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectContainer;
+import org.eclipse.ecf.provider.generic.SOContainerConfig;
+import org.eclipse.ecf.provider.generic.TCPClientSOContainer;
+import org.eclipse.ecf.provider.generic.TCPServerSOContainer;
+
+/**
+ * Creates generic server and client containers that talk over the loopback
+ * interface.
+ */
+public final class Loopback {
+
+	public static final String PATH = "/server"; //$NON-NLS-1$
+
+	private Loopback() {
+		// static only
+	}
+
+	public static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			return socket.getLocalPort();
+		}
+	}
+
+	public static ID serverID(int port) {
+		return IDFactory.getDefault().createStringID("ecftcp://localhost:" + port + PATH); //$NON-NLS-1$
+	}
+
+	public static TCPServerSOContainer createServer(int port, String transport) throws IOException, URISyntaxException {
+		return new TCPServerSOContainer(new SOContainerConfig(serverID(port)), InetAddress.getLoopbackAddress(), TCPServerSOContainer.DEFAULT_KEEPALIVE, transport);
+	}
+
+	public static TCPClientSOContainer createClient(String transport) {
+		return new TCPClientSOContainer(new SOContainerConfig(IDFactory.getDefault().createGUID()), TCPServerSOContainer.DEFAULT_KEEPALIVE, transport);
+	}
+
+	public static void addSharedObject(ISharedObjectContainer container, ID id, ISharedObject so) throws Exception {
+		container.getSharedObjectManager().addSharedObject(id, so, null);
+	}
+
+	public static void dispose(ISharedObjectContainer container) {
+		if (container != null) {
+			container.disconnect();
+			container.dispose();
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.BaseSharedObject;
+import org.eclipse.ecf.core.sharedobject.SharedObjectMsg;
+import org.eclipse.ecf.core.util.Event;
+
+/**
+ * Shared object that counts the messages it receives.  The same instance id is
+ * added to every container in a group, so messages sent by one instance are
+ * delivered to its peers.
+ */
+public class MessageSink extends BaseSharedObject {
+
+	public static final ID SINK_ID = IDFactory.getDefault().createStringID(MessageSink.class.getName());
+
+	private static final String METHOD = "message"; //$NON-NLS-1$
+
+	private final Semaphore received = new Semaphore(0);
+
+	public void send(ID toID, byte[] payload) throws IOException {
+		sendSharedObjectMsgTo(toID, SharedObjectMsg.createMsg(METHOD, payload));
+	}
+
+	public void await(int count) throws InterruptedException {
+		if (!received.tryAcquire(count, 30, TimeUnit.SECONDS))
+			throw new IllegalStateException("Timed out waiting for " + count + " messages"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	protected boolean handleSharedObjectMsg(SharedObjectMsg msg) {
+		if (METHOD.equals(msg.getMethod())) {
+			received.release();
+			return true;
+		}
+		return false;
+	}
+
+	protected void handleUnhandledEvent(Event event) {
+		// container events are not interesting here
+	}
+}
@@ -0,0 +1,108 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.ecf.core.util.OSGIObjectInputStream;
+import org.eclipse.ecf.core.util.OSGIObjectOutputStream;
+import org.openjdk.jmh.annotations.*;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Encode and decode rates of {@link OSGIObjectOutputStream} and
+ * {@link OSGIObjectInputStream} for an object graph shaped like a remote call
+ * request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ObjectStreamBenchmark {
+
+	public static class Parameter implements Serializable {
+		private static final long serialVersionUID = 1L;
+		String name;
+		long timestamp;
+		double weight;
+		int[] values;
+		Parameter next;
+	}
+
+	public static class Payload implements Serializable {
+		private static final long serialVersionUID = 1L;
+		String method;
+		long requestId;
+		boolean oneWay;
+		byte[] data;
+		Map<String, Object> properties;
+		List<Parameter> parameters;
+	}
+
+	@Param({"1", "16"})
+	public int parameterCount;
+
+	private Bundle bundle;
+	private Payload payload;
+	private byte[] encoded;
+	private ByteArrayOutputStream bos;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		bundle = FrameworkUtil.getBundle(ObjectStreamBenchmark.class);
+		payload = new Payload();
+		payload.method = "echo"; //$NON-NLS-1$
+		payload.requestId = 42;
+		payload.data = new byte[256];
+		payload.properties = new HashMap<String, Object>();
+		payload.properties.put("ecf.rsvc.id", Long.valueOf(7)); //$NON-NLS-1$
+		payload.properties.put("service.ranking", Integer.valueOf(0)); //$NON-NLS-1$
+		payload.parameters = new ArrayList<Parameter>();
+		for (int i = 0; i < parameterCount; i++) {
+			Parameter p = new Parameter();
+			p.name = "parameter" + i; //$NON-NLS-1$
+			p.timestamp = System.currentTimeMillis();
+			p.weight = i * 0.5;
+			p.values = new int[] {i, i + 1, i + 2};
+			if (i > 0)
+				p.next = payload.parameters.get(i - 1);
+			payload.parameters.add(p);
+		}
+		bos = new ByteArrayOutputStream(4096);
+		encoded = encode();
+	}
+
+	private byte[] encode() throws Exception {
+		bos.reset();
+		OSGIObjectOutputStream oos = new OSGIObjectOutputStream(bos);
+		oos.writeObject(payload);
+		oos.flush();
+		return bos.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] encodePayload() throws Exception {
+		return encode();
+	}
+
+	@Benchmark
+	public Object decodePayload() throws Exception {
+		OSGIObjectInputStream ois = new OSGIObjectInputStream(bundle, new ByteArrayInputStream(encoded));
+		return ois.readObject();
+	}
+}
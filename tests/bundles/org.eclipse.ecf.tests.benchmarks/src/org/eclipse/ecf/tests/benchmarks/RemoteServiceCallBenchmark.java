@@ -0,0 +1,92 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.generic.TCPClientSOContainer;
+import org.eclipse.ecf.provider.generic.TCPServerSOContainer;
+import org.eclipse.ecf.provider.remoteservice.generic.RegistrySharedObject;
+import org.eclipse.ecf.remoteservice.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Round trip latency of {@link IRemoteService#callSync(IRemoteCall)} and
+ * {@link IRemoteService#callAsync(IRemoteCall)} between two containers whose
+ * remote service support is provided by {@link RegistrySharedObject}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RemoteServiceCallBenchmark {
+
+	public static class EchoService implements IEchoService {
+		public byte[] echo(byte[] payload) {
+			return payload;
+		}
+	}
+
+	@Param({TCPServerSOContainer.TRANSPORT_TCP, TCPServerSOContainer.TRANSPORT_NIO})
+	public String transport;
+
+	@Param({"16", "4096"})
+	public int payloadSize;
+
+	private TCPServerSOContainer server;
+	private TCPClientSOContainer client;
+	private IRemoteServiceRegistration registration;
+	private IRemoteService remoteService;
+	private IRemoteCall call;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		int port = Loopback.freePort();
+		ID adapterID = IDFactory.getDefault().createStringID(IRemoteServiceContainerAdapter.class.getName());
+		server = Loopback.createServer(port, transport);
+		RegistrySharedObject serverRegistry = new RegistrySharedObject();
+		Loopback.addSharedObject(server, adapterID, serverRegistry);
+		registration = serverRegistry.registerRemoteService(new String[] {IEchoService.class.getName()}, new EchoService(), null);
+
+		client = Loopback.createClient(transport);
+		RegistrySharedObject clientRegistry = new RegistrySharedObject();
+		Loopback.addSharedObject(client, adapterID, clientRegistry);
+		ID serverID = Loopback.serverID(port);
+		client.connect(serverID, null);
+		IRemoteServiceReference[] refs = clientRegistry.getRemoteServiceReferences(serverID, IEchoService.class.getName(), null);
+		if (refs == null || refs.length == 0)
+			throw new IllegalStateException("No remote service reference for " + IEchoService.class.getName()); //$NON-NLS-1$
+		remoteService = clientRegistry.getRemoteService(refs[0]);
+		call = RemoteCallFactory.createRemoteCall("echo", new Object[] {new byte[payloadSize]}); //$NON-NLS-1$
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (registration != null)
+			registration.unregister();
+		Loopback.dispose(client);
+		Loopback.dispose(server);
+	}
+
+	@Benchmark
+	public Object callSync() throws Exception {
+		return remoteService.callSync(call);
+	}
+
+	@Benchmark
+	public Object callAsync() throws Exception {
+		return remoteService.callAsync(call).get();
+	}
+}
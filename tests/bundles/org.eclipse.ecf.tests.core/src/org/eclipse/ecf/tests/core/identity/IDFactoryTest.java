@@ -13,6 +13,7 @@
 
 package org.eclipse.ecf.tests.core.identity;
 
+import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.identity.IDFactory;
 
 public class IDFactoryTest extends IIDNamespaceTest {
@@ -26,4 +27,30 @@ public class IDFactoryTest extends IIDNamespaceTest {
 		fixture = IDFactory.getDefault();
 		assertNotNull(fixture);
 	}
+
+	public void testIntern() throws Exception {
+		final String name = getClass().getName() + ".testIntern";
+		final ID id1 = IDFactory.getDefault().createStringID(name);
+		final ID id2 = IDFactory.getDefault().createStringID(name);
+		assertNotSame(id1, id2);
+		final ID interned = IDFactory.getDefault().intern(id1);
+		assertSame(id1, interned);
+		assertSame(interned, IDFactory.getDefault().intern(id2));
+		assertSame(interned, IDFactory.internID(id2));
+		assertSame(interned, IDFactory.internID(IDFactory.getDefault().createStringID(name)));
+	}
+
+	public void testInternDifferentIDs() throws Exception {
+		final ID id1 = IDFactory.internID(IDFactory.getDefault().createStringID(getClass().getName() + ".1"));
+		final ID id2 = IDFactory.internID(IDFactory.getDefault().createStringID(getClass().getName() + ".2"));
+		final ID guid = IDFactory.internID(IDFactory.getDefault().createGUID());
+		assertNotSame(id1, id2);
+		assertFalse(id1.equals(id2));
+		assertSame(guid, IDFactory.internID(guid));
+	}
+
+	public void testInternNull() throws Exception {
+		assertNull(IDFactory.getDefault().intern(null));
+		assertNull(IDFactory.internID(null));
+	}
 }
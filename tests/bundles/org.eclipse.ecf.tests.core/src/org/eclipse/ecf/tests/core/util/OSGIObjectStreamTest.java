@@ -5,6 +5,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -61,6 +62,86 @@ public class OSGIObjectStreamTest extends TestCase {
 		}
 	}
 
+	/**
+	 * Fields of every primitive type, written and read by the field codecs
+	 * without boxing.
+	 */
+	public static class MyPrimitives {
+		private boolean z;
+		private byte b;
+		private char c;
+		private short s;
+		private int i;
+		private long j;
+		private float f;
+		private double d;
+		private Integer boxed;
+		private transient int notWritten;
+
+		public boolean equals(Object o) {
+			if (!(o instanceof MyPrimitives))
+				return false;
+			MyPrimitives p = (MyPrimitives) o;
+			return z == p.z && b == p.b && c == p.c && s == p.s && i == p.i && j == p.j
+					&& Float.compare(f, p.f) == 0 && Double.compare(d, p.d) == 0
+					&& (boxed == null ? p.boxed == null : boxed.equals(p.boxed));
+		}
+
+		public int hashCode() {
+			return i;
+		}
+	}
+
+	public static class MyMorePrimitives extends MyPrimitives {
+		private long more;
+
+		public boolean equals(Object o) {
+			return super.equals(o) && more == ((MyMorePrimitives) o).more;
+		}
+
+		public int hashCode() {
+			return super.hashCode();
+		}
+	}
+
+	/**
+	 * Public fields of every primitive type, written as a SerDTO.
+	 */
+	public static class MyPrimitiveDTO {
+		public boolean z;
+		public byte b;
+		public char c;
+		public short s;
+		public int i;
+		public long j;
+		public float f;
+		public double d;
+		public Long boxed;
+		public String str;
+		int notPublic;
+	}
+
+	/**
+	 * Writes {@link MyPrimitives} field by field, as a non-serializable
+	 * object, rather than as a SerDTO.
+	 */
+	static class FieldsOutputStream extends OSGIObjectOutputStream {
+
+		FieldsOutputStream(OutputStream out) throws IOException {
+			super(out);
+		}
+
+		@Override
+		protected void writeObjectOverride(Object obj) throws IOException {
+			if (obj instanceof MyPrimitives) {
+				out.writeByte(C_OBJECT);
+				out.writeUTF(obj.getClass().getName());
+				writeFields(obj, obj.getClass());
+			} else
+				super.writeObjectOverride(obj);
+		}
+	}
+
 	MyDTO dto1;
 	MyDTO dto2;
 	Version v1;
@@ -155,6 +236,92 @@ public class OSGIObjectStreamTest extends TestCase {
 		return result;
 	}
 
+	private Object writeReadFields(Object o) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		OSGIObjectOutputStream oos = new FieldsOutputStream(bos);
+		oos.writeObject(o);
+		oos.close();
+
+		ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+		OSGIObjectInputStream ois = new OSGIObjectInputStream(b, bis);
+		Object result = ois.readObject();
+		ois.close();
+		return result;
+	}
+
+	private static MyPrimitives fill(MyPrimitives p, boolean max) {
+		p.z = max;
+		p.b = max ? Byte.MAX_VALUE : Byte.MIN_VALUE;
+		p.c = max ? Character.MAX_VALUE : 'x';
+		p.s = max ? Short.MAX_VALUE : Short.MIN_VALUE;
+		p.i = max ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+		p.j = max ? Long.MAX_VALUE : Long.MIN_VALUE;
+		p.f = max ? Float.MAX_VALUE : Float.NaN;
+		p.d = max ? Double.MAX_VALUE : -0.0d;
+		p.boxed = max ? Integer.valueOf(42) : null;
+		p.notWritten = 7;
+		return p;
+	}
+
+	public void testPrimitiveFields() throws Exception {
+		MyPrimitives[] values = new MyPrimitives[] { new MyPrimitives(), fill(new MyPrimitives(), true), fill(new MyPrimitives(), false) };
+		for (int k = 0; k < values.length; k++) {
+			MyPrimitives result = (MyPrimitives) writeReadFields(values[k]);
+			assertNotSame(values[k], result);
+			assertEquals(values[k], result);
+			assertEquals(0, result.notWritten);
+		}
+	}
+
+	public void testPrimitiveFieldsOfSuperclass() throws Exception {
+		MyMorePrimitives value = (MyMorePrimitives) fill(new MyMorePrimitives(), true);
+		value.more = -5L;
+		assertEquals(value, writeReadFields(value));
+	}
+
+	public void testPrimitiveFieldsInArray() throws Exception {
+		MyPrimitives[] values = new MyPrimitives[] { fill(new MyPrimitives(), true), null, fill(new MyPrimitives(), false) };
+		assertTrue(Arrays.equals(values, (Object[]) writeReadFields(values)));
+	}
+
+	public void testPrimitiveDTO() throws Exception {
+		MyPrimitiveDTO dto = new MyPrimitiveDTO();
+		dto.z = true;
+		dto.b = Byte.MIN_VALUE;
+		dto.c = '\u20ac';
+		dto.s = Short.MIN_VALUE;
+		dto.i = Integer.MIN_VALUE;
+		dto.j = Long.MAX_VALUE;
+		dto.f = Float.MIN_VALUE;
+		dto.d = Double.NEGATIVE_INFINITY;
+		dto.boxed = Long.valueOf(-1L);
+		dto.str = "dto";
+		dto.notPublic = 3;
+		MyPrimitiveDTO result = (MyPrimitiveDTO) serializeDeserialize(dto);
+		assertNotSame(dto, result);
+		assertEquals(dto.z, result.z);
+		assertEquals(dto.b, result.b);
+		assertEquals(dto.c, result.c);
+		assertEquals(dto.s, result.s);
+		assertEquals(dto.i, result.i);
+		assertEquals(dto.j, result.j);
+		assertEquals(dto.f, result.f, 0.0f);
+		assertEquals(dto.d, result.d, 0.0d);
+		assertEquals(dto.boxed, result.boxed);
+		assertEquals(dto.str, result.str);
+		// only public fields are part of a DTO
+		assertEquals(0, result.notPublic);
+	}
+
+	public void testPrimitiveDTODefaults() throws Exception {
+		MyPrimitiveDTO result = (MyPrimitiveDTO) serializeDeserialize(new MyPrimitiveDTO());
+		assertFalse(result.z);
+		assertEquals(0, result.i);
+		assertEquals(0.0d, result.d, 0.0d);
+		assertNull(result.boxed);
+		assertNull(result.str);
+	}
+
 	public void testSerializable() throws Exception {
 		MySerializable r = (MySerializable) serializeDeserialize(ser);
 		assertEquals(r.getFirst(), ser.getFirst());
@@ -0,0 +1,285 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.filetransfer.httpclient5;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.ecf.filetransfer.IFileTransferListener;
+import org.eclipse.ecf.filetransfer.events.IFileTransferEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceiveDoneEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceiveStartEvent;
+import org.eclipse.ecf.filetransfer.identity.FileIDFactory;
+import org.eclipse.ecf.filetransfer.service.IRetrieveFileTransfer;
+import org.eclipse.ecf.provider.filetransfer.httpclient5.HttpClientOptions;
+import org.eclipse.ecf.provider.filetransfer.httpclient5.HttpClientRetrieveFileTransferFactory;
+
+import junit.framework.TestCase;
+
+/**
+ * Retrieves a file in segments from a local server that serves byte ranges.
+ */
+public class SegmentedRetrieveTest extends TestCase {
+
+	private static final int LENGTH = 1024 * 1024;
+
+	private static final int SEGMENTS = 4;
+
+	private static final int SEGMENT_SIZE = LENGTH / SEGMENTS;
+
+	private static final String ETAG = "\"v1\"";
+
+	private static final long TIMEOUT = 30000;
+
+	private final byte[] content = new byte[LENGTH];
+
+	private RangeServer server;
+
+	private File file;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		for (int i = 0; i < content.length; i++)
+			content[i] = (byte) (i * 31 + i / 4096);
+		server = new RangeServer();
+		file = File.createTempFile("segmented", ".bin");
+	}
+
+	protected void tearDown() throws Exception {
+		server.close();
+		file.delete();
+		super.tearDown();
+	}
+
+	public void testSegmentedRetrieve() throws Exception {
+		assertNull(retrieve());
+		assertTrue(Arrays.equals(content, Files.readAllBytes(file.toPath())));
+		// the probe, then a range request with the validator for each further segment
+		assertEquals(SEGMENTS, server.requests.size());
+		assertNull(server.requests.get(0).range);
+		final List<String> ranges = new ArrayList<String>();
+		for (Request request : server.requests.subList(1, SEGMENTS)) {
+			ranges.add(request.range);
+			assertEquals(ETAG, request.ifRange);
+		}
+		Collections.sort(ranges);
+		for (int i = 1; i < SEGMENTS; i++)
+			assertEquals("bytes=" + i * SEGMENT_SIZE + "-" + ((i + 1) * SEGMENT_SIZE - 1), ranges.get(i - 1));
+	}
+
+	public void testNoRangesRetrievesInOneRequest() throws Exception {
+		server.acceptRanges = false;
+		assertNull(retrieve());
+		assertTrue(Arrays.equals(content, Files.readAllBytes(file.toPath())));
+		assertEquals(1, server.requests.size());
+	}
+
+	public void testWeakValidatorRetrievesInOneRequest() throws Exception {
+		// a weak entity tag cannot be used with If-Range
+		server.etag = "W/" + ETAG;
+		assertNull(retrieve());
+		assertTrue(Arrays.equals(content, Files.readAllBytes(file.toPath())));
+		assertEquals(1, server.requests.size());
+	}
+
+	public void testChangedFileFails() throws Exception {
+		// If-Range does not match, so the server sends the whole file again
+		server.changed = true;
+		assertNotNull("transfer of a changed file did not fail", retrieve());
+	}
+
+	public void testFailedSegmentIsRetried() throws Exception {
+		server.failRangeOnce.set(true);
+		assertNull(retrieve());
+		assertTrue(Arrays.equals(content, Files.readAllBytes(file.toPath())));
+		// the failed segment is requested again from where it stopped
+		assertEquals(SEGMENTS + 1, server.requests.size());
+		boolean resumed = false;
+		for (Request request : server.requests)
+			resumed |= request.range != null && request.range.startsWith("bytes=" + server.failedAt + "-");
+		assertTrue("failed segment not resumed at " + server.failedAt, resumed);
+	}
+
+	/**
+	 * @return the exception of the done event
+	 */
+	private Exception retrieve() throws Exception {
+		final IRetrieveFileTransfer transfer = new HttpClientRetrieveFileTransferFactory().newInstance();
+		final Map<String, Object> options = new HashMap<String, Object>();
+		options.put(HttpClientOptions.RETRIEVE_SEGMENTS_PROP, String.valueOf(SEGMENTS));
+		options.put(HttpClientOptions.RETRIEVE_SEGMENT_MIN_SIZE_PROP, String.valueOf(SEGMENT_SIZE));
+		options.put(HttpClientOptions.RETRIEVE_SEGMENT_RETRIES_PROP, "1");
+		final CountDownLatch done = new CountDownLatch(1);
+		final Exception[] exception = new Exception[1];
+		transfer.sendRetrieveRequest(FileIDFactory.getDefault().createFileID(transfer.getRetrieveNamespace(), server.getURL()), new IFileTransferListener() {
+			public void handleTransferEvent(IFileTransferEvent event) {
+				try {
+					if (event instanceof IIncomingFileTransferReceiveStartEvent) {
+						((IIncomingFileTransferReceiveStartEvent) event).receive(file);
+					} else if (event instanceof IIncomingFileTransferReceiveDoneEvent) {
+						exception[0] = ((IIncomingFileTransferReceiveDoneEvent) event).getException();
+						done.countDown();
+					}
+				} catch (IOException e) {
+					exception[0] = e;
+					done.countDown();
+				}
+			}
+		}, options);
+		assertTrue("transfer not done", done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		return exception[0];
+	}
+
+	static class Request {
+		final String range;
+		final String ifRange;
+
+		Request(String range, String ifRange) {
+			this.range = range;
+			this.ifRange = ifRange;
+		}
+	}
+
+	/**
+	 * Serves the content with a 200, or a 206 for a request with a single
+	 * byte range.  One request per connection.
+	 */
+	class RangeServer implements Runnable {
+
+		final List<Request> requests = Collections.synchronizedList(new ArrayList<Request>());
+
+		volatile boolean acceptRanges = true;
+
+		volatile String etag = ETAG;
+
+		volatile boolean changed;
+
+		final AtomicBoolean failRangeOnce = new AtomicBoolean();
+
+		volatile long failedAt = -1;
+
+		private final ServerSocket serverSocket;
+
+		RangeServer() throws IOException {
+			serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+			Thread thread = new Thread(this, "RangeServer");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		String getURL() {
+			return "http://localhost:" + serverSocket.getLocalPort() + "/segmented.bin";
+		}
+
+		void close() throws IOException {
+			serverSocket.close();
+		}
+
+		public void run() {
+			while (!serverSocket.isClosed()) {
+				try {
+					final Socket socket = serverSocket.accept();
+					new Thread("RangeServer connection") {
+						public void run() {
+							try {
+								handle(socket);
+							} catch (IOException e) {
+								// client aborted the response
+							} finally {
+								try {
+									socket.close();
+								} catch (IOException e) {
+									// ignore
+								}
+							}
+						}
+					}.start();
+				} catch (IOException e) {
+					// closed
+				}
+			}
+		}
+
+		void handle(Socket socket) throws IOException {
+			final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+			if (in.readLine() == null)
+				return;
+			String range = null;
+			String ifRange = null;
+			String line;
+			while ((line = in.readLine()) != null && line.length() > 0) {
+				final int colon = line.indexOf(':');
+				final String name = line.substring(0, colon).trim();
+				final String value = line.substring(colon + 1).trim();
+				if (name.equalsIgnoreCase("Range"))
+					range = value;
+				else if (name.equalsIgnoreCase("If-Range"))
+					ifRange = value;
+			}
+			requests.add(new Request(range, ifRange));
+			final OutputStream out = socket.getOutputStream();
+			if (range == null || !acceptRanges || changed || !etag.equals(ifRange)) {
+				writeHeaders(out, "200 OK", LENGTH, null);
+				out.write(content);
+				out.flush();
+				return;
+			}
+			final String[] bounds = range.substring("bytes=".length()).split("-");
+			final int start = Integer.parseInt(bounds[0]);
+			final int end = Integer.parseInt(bounds[1]);
+			writeHeaders(out, "206 Partial Content", end - start + 1, "bytes " + start + "-" + end + "/" + LENGTH);
+			if (failRangeOnce.compareAndSet(true, false)) {
+				// send half of the range, then drop the connection
+				final int half = (end - start + 1) / 2;
+				failedAt = start + half;
+				out.write(content, start, half);
+				out.flush();
+				return;
+			}
+			out.write(content, start, end - start + 1);
+			out.flush();
+		}
+
+		private void writeHeaders(OutputStream out, String status, int length, String contentRange) throws IOException {
+			final StringBuilder headers = new StringBuilder();
+			headers.append("HTTP/1.1 ").append(status).append("\r\n");
+			headers.append("Content-Length: ").append(length).append("\r\n");
+			headers.append("Content-Type: application/octet-stream\r\n");
+			headers.append("Connection: close\r\n");
+			if (acceptRanges)
+				headers.append("Accept-Ranges: bytes\r\n");
+			headers.append("ETag: ").append(etag).append("\r\n");
+			if (contentRange != null)
+				headers.append("Content-Range: ").append(contentRange).append("\r\n");
+			headers.append("\r\n");
+			out.write(headers.toString().getBytes(StandardCharsets.ISO_8859_1));
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.filetransfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.ecf.provider.filetransfer.util.DeadlineInputStream;
+
+public class DeadlineInputStreamTest extends TestCase {
+
+	private static final long READ_TIMEOUT = 500;
+
+	/**
+	 * Blocks every read until released.  Closing releases a blocked read only
+	 * if closeReleases is set, like streams that drain the content on close.
+	 */
+	static class StallingInputStream extends InputStream {
+
+		final CountDownLatch released = new CountDownLatch(1);
+
+		final CountDownLatch closed = new CountDownLatch(1);
+
+		private final boolean closeReleases;
+
+		private final long delay;
+
+		StallingInputStream(boolean closeReleases, long delay) {
+			this.closeReleases = closeReleases;
+			this.delay = delay;
+		}
+
+		public int read() throws IOException {
+			try {
+				if (released.await(delay, TimeUnit.MILLISECONDS))
+					throw new IOException("aborted");
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+			return 0;
+		}
+
+		public void close() {
+			closed.countDown();
+			if (closeReleases)
+				released.countDown();
+		}
+	}
+
+	public void testStalledReadIsAborted() throws Exception {
+		StallingInputStream in = new StallingInputStream(true, Long.MAX_VALUE);
+		DeadlineInputStream stream = new DeadlineInputStream(in, READ_TIMEOUT, 0);
+		long start = System.currentTimeMillis();
+		try {
+			stream.read();
+			fail("read not aborted");
+		} catch (InterruptedIOException e) {
+			// expected
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		assertTrue("aborted after " + elapsed + "ms", elapsed >= READ_TIMEOUT && elapsed < READ_TIMEOUT * 10);
+		assertTrue(in.closed.await(1, TimeUnit.SECONDS));
+		// later calls fail as well
+		try {
+			stream.read();
+			fail("read after abort");
+		} catch (InterruptedIOException e) {
+			// expected
+		}
+	}
+
+	public void testAbortActionRuns() throws Exception {
+		// closing does not release the read, only the abort action does
+		final StallingInputStream in = new StallingInputStream(false, Long.MAX_VALUE);
+		DeadlineInputStream stream = new DeadlineInputStream(in, READ_TIMEOUT, 0, new Runnable() {
+			public void run() {
+				in.released.countDown();
+			}
+		});
+		try {
+			stream.read();
+			fail("read not aborted");
+		} catch (InterruptedIOException e) {
+			// expected
+		}
+		assertTrue(in.closed.await(1, TimeUnit.SECONDS));
+	}
+
+	public void testCanceledMonitorAbortsRead() throws Exception {
+		StallingInputStream in = new StallingInputStream(true, Long.MAX_VALUE);
+		// no read timeout
+		DeadlineInputStream stream = new DeadlineInputStream(in, 0, 0);
+		final NullProgressMonitor monitor = new NullProgressMonitor();
+		stream.setProgressMonitor(monitor);
+		new Thread() {
+			public void run() {
+				try {
+					Thread.sleep(READ_TIMEOUT);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+				monitor.setCanceled(true);
+			}
+		}.start();
+		try {
+			stream.read();
+			fail("read not aborted");
+		} catch (InterruptedIOException e) {
+			// expected
+		}
+	}
+
+	public void testSlowReadsAreNotAborted() throws Exception {
+		// each read takes a fifth of the timeout, together longer than it
+		StallingInputStream in = new StallingInputStream(true, READ_TIMEOUT / 5);
+		DeadlineInputStream stream = new DeadlineInputStream(in, READ_TIMEOUT, 0);
+		for (int i = 0; i < 10; i++)
+			assertEquals(0, stream.read());
+		stream.close();
+		assertTrue(in.closed.await(1, TimeUnit.SECONDS));
+	}
+
+	public void testUnclosedStreamsAreNotAborted() throws Exception {
+		// streams that are read once and never closed
+		StallingInputStream[] ins = new StallingInputStream[10];
+		for (int i = 0; i < ins.length; i++) {
+			ins[i] = new StallingInputStream(true, 1);
+			assertEquals(0, new DeadlineInputStream(ins[i], READ_TIMEOUT, 0).read());
+		}
+		Thread.sleep(READ_TIMEOUT * 2);
+		for (int i = 0; i < ins.length; i++)
+			assertEquals(1, ins[i].closed.getCount());
+	}
+
+	public void testSchedulerStopsWhenIdle() throws Exception {
+		StallingInputStream in = new StallingInputStream(true, READ_TIMEOUT / 5);
+		DeadlineInputStream stream = new DeadlineInputStream(in, READ_TIMEOUT, 0);
+		assertEquals(0, stream.read());
+		assertTrue(isSchedulerAlive());
+		// the check stops with no blocked call, and its thread times out
+		long deadline = System.currentTimeMillis() + 10000;
+		while (isSchedulerAlive() && System.currentTimeMillis() < deadline)
+			Thread.sleep(100);
+		assertFalse("scheduler still running", isSchedulerAlive());
+	}
+
+	private static boolean isSchedulerAlive() {
+		Thread[] threads = new Thread[Thread.activeCount() * 2];
+		int count = Thread.enumerate(threads);
+		for (int i = 0; i < count; i++)
+			if ("DeadlineInputStream Scheduler".equals(threads[i].getName()))
+				return true;
+		return false;
+	}
+}
@@ -0,0 +1,208 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.filetransfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.util.Proxy;
+import org.eclipse.ecf.filetransfer.IFileTransferListener;
+import org.eclipse.ecf.filetransfer.IncomingFileTransferException;
+import org.eclipse.ecf.filetransfer.events.IFileTransferEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceiveDoneEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceivePausedEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceiveResumedEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceiveStartEvent;
+import org.eclipse.ecf.filetransfer.identity.FileIDFactory;
+import org.eclipse.ecf.provider.filetransfer.retrieve.AbstractRetrieveFileTransfer;
+
+/**
+ * Pauses and resumes a transfer to a local file, with a transfer whose
+ * hardClose does not call super, like the httpclient providers.
+ */
+public class RetrieveFilePauseResumeTest extends TestCase {
+
+	private static final int LENGTH = 1024 * 1024;
+
+	private static final int PAUSE_AT = LENGTH / 3;
+
+	private static final long TIMEOUT = 10000;
+
+	private final byte[] data = new byte[LENGTH];
+
+	private File file;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) (i * 31);
+		file = File.createTempFile("pauseresume", ".bin"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	protected void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	public void testResumeToFile() throws Exception {
+		final Listener listener = new Listener(true);
+		runTransfer(listener);
+		assertNull(listener.transfer.getException());
+		assertTrue(Arrays.equals(data, Files.readAllBytes(file.toPath())));
+	}
+
+	public void testResumeToOutputStream() throws Exception {
+		final Listener listener = new Listener(false);
+		runTransfer(listener);
+		assertNull(listener.transfer.getException());
+		final byte[] received = new byte[LENGTH];
+		final byte[] first = Files.readAllBytes(file.toPath());
+		final byte[] rest = listener.resumed.toByteArray();
+		assertEquals(LENGTH, first.length + rest.length);
+		System.arraycopy(first, 0, received, 0, first.length);
+		System.arraycopy(rest, 0, received, first.length, rest.length);
+		assertTrue(Arrays.equals(data, received));
+	}
+
+	private void runTransfer(Listener listener) throws Exception {
+		final TestRetrieveFileTransfer transfer = listener.transfer;
+		transfer.sendRetrieveRequest(FileIDFactory.getDefault().createFileID(transfer.getRetrieveNamespace(), "http://localhost/pauseresume.bin"), listener, null); //$NON-NLS-1$
+		assertTrue("Transfer not paused", listener.paused.await(TIMEOUT, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+		assertTrue(transfer.isPaused());
+		assertTrue("Resume failed", transfer.resume()); //$NON-NLS-1$
+		assertTrue("Transfer not done", listener.done.await(TIMEOUT, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+		assertEquals(LENGTH, transfer.getBytesReceived());
+	}
+
+	class Listener implements IFileTransferListener {
+
+		final TestRetrieveFileTransfer transfer = new TestRetrieveFileTransfer();
+
+		final CountDownLatch paused = new CountDownLatch(1);
+
+		final CountDownLatch done = new CountDownLatch(1);
+
+		final ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+
+		private final boolean resumeToFile;
+
+		Listener(boolean resumeToFile) {
+			this.resumeToFile = resumeToFile;
+		}
+
+		public void handleTransferEvent(IFileTransferEvent event) {
+			try {
+				if (event instanceof IIncomingFileTransferReceiveStartEvent) {
+					((IIncomingFileTransferReceiveStartEvent) event).receive(file);
+				} else if (event instanceof IIncomingFileTransferReceiveResumedEvent) {
+					if (resumeToFile)
+						((IIncomingFileTransferReceiveResumedEvent) event).receive(file, true);
+					else
+						((IIncomingFileTransferReceiveResumedEvent) event).receive(resumed);
+				} else if (event instanceof IIncomingFileTransferReceivePausedEvent) {
+					paused.countDown();
+				} else if (event instanceof IIncomingFileTransferReceiveDoneEvent) {
+					done.countDown();
+				}
+			} catch (IOException e) {
+				fail(e.getLocalizedMessage());
+			}
+		}
+	}
+
+	class TestRetrieveFileTransfer extends AbstractRetrieveFileTransfer {
+
+		private boolean connected;
+
+		protected void openStreams() throws IncomingFileTransferException {
+			fileLength = LENGTH;
+			setInputStream(new DataStream(0));
+			connected = true;
+			fireReceiveStartEvent();
+		}
+
+		protected boolean doPause() {
+			if (isPaused() || !connected || isDone())
+				return false;
+			paused = true;
+			return true;
+		}
+
+		protected boolean doResume() {
+			if (!isPaused() || connected)
+				return false;
+			setInputStream(new DataStream((int) bytesReceived));
+			connected = true;
+			paused = false;
+			fireReceiveResumedEvent();
+			return true;
+		}
+
+		protected void hardClose() {
+			// Like the httpclient providers, does not call super
+			try {
+				if (remoteFileContents != null)
+					remoteFileContents.close();
+				if (localFileContents != null && closeOutputStream)
+					localFileContents.close();
+			} catch (IOException e) {
+				// ignore
+			}
+			remoteFileContents = null;
+			localFileContents = null;
+			connected = false;
+		}
+
+		protected void setupProxy(Proxy proxy) {
+			// no proxy
+		}
+
+		/**
+		 * Serves the data from the given offset, and pauses the transfer when
+		 * reaching {@link RetrieveFilePauseResumeTest#PAUSE_AT} the first time.
+		 */
+		class DataStream extends InputStream {
+
+			private int position;
+
+			DataStream(int position) {
+				this.position = position;
+			}
+
+			public int read() throws IOException {
+				final byte[] b = new byte[1];
+				return (read(b, 0, 1) == -1) ? -1 : (b[0] & 0xff);
+			}
+
+			public int read(byte[] b, int off, int len) throws IOException {
+				if (position >= LENGTH)
+					return -1;
+				final int limit = (position < PAUSE_AT) ? PAUSE_AT : LENGTH;
+				final int count = Math.min(len, limit - position);
+				System.arraycopy(data, position, b, off, count);
+				position += count;
+				if (position == PAUSE_AT)
+					pause();
+				return count;
+			}
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.osgi.services.remoteserviceadmin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.osgi.framework.Constants;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+/**
+ * Tests which terms of a scope filter {@link EndpointListenerScopeIndex}
+ * indexes a listener by. Terms the index cannot rely on must leave the
+ * listener unindexed, so that it is still matched against every endpoint.
+ */
+public class EndpointListenerScopeIndexTest extends TestCase {
+
+	private static final String FRAMEWORK_UUID = "c0ffee00-0000-0000-0000-000000000001"; //$NON-NLS-1$
+
+	private static final String OTHER_FRAMEWORK_UUID = "c0ffee00-0000-0000-0000-000000000002"; //$NON-NLS-1$
+
+	private EndpointListenerScopeIndex<String> index;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		index = new EndpointListenerScopeIndex<String>(org.osgi.service.remoteserviceadmin.EndpointEventListener.ENDPOINT_LISTENER_SCOPE);
+	}
+
+	private static ServiceReference createReference() {
+		return (ServiceReference) Proxy.newProxyInstance(EndpointListenerScopeIndexTest.class.getClassLoader(),
+				new Class[] {ServiceReference.class}, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if ("equals".equals(method.getName())) //$NON-NLS-1$
+							return Boolean.valueOf(proxy == args[0]);
+						if ("hashCode".equals(method.getName())) //$NON-NLS-1$
+							return Integer.valueOf(System.identityHashCode(proxy));
+						return null;
+					}
+				});
+	}
+
+	private static EndpointDescription createDescription(String[] interfaces, String frameworkUUID) {
+		final Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put(RemoteConstants.ENDPOINT_ID, "ecftcp://localhost:3282/server/" + interfaces[0]); //$NON-NLS-1$
+		properties.put(Constants.OBJECTCLASS, interfaces);
+		properties.put(RemoteConstants.SERVICE_IMPORTED_CONFIGS, "ecf.generic.server"); //$NON-NLS-1$
+		properties.put(RemoteConstants.ENDPOINT_FRAMEWORK_UUID, frameworkUUID);
+		properties.put("service.intents", "passByValue"); //$NON-NLS-1$ //$NON-NLS-2$
+		return new EndpointDescription(properties);
+	}
+
+	/**
+	 * @return the equality terms of the filter in the normalized form the
+	 *         index gets them in
+	 */
+	private static List<String[]> getEqualityTerms(String filter) throws Exception {
+		return EndpointListenerScopeIndex.getEqualityTerms(FrameworkUtil.createFilter(filter).toString());
+	}
+
+	private static void assertTerms(String[][] expected, List<String[]> actual) {
+		assertEquals(expected.length, actual.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i][0], actual.get(i)[0]);
+			assertEquals(expected[i][1], actual.get(i)[1]);
+		}
+	}
+
+	/**
+	 * Index a listener with the given scope and check it is a candidate for,
+	 * and matches, the given description.
+	 */
+	private EndpointListenerScopeIndex.Entry<String> assertCandidate(String scope, EndpointDescription description) {
+		final EndpointListenerScopeIndex.Entry<String> entry = index.put(createReference(), scope, Collections.singletonList(scope));
+		assertNotNull(entry);
+		final Set<EndpointListenerScopeIndex.Entry<String>> candidates = index.getCandidates(description);
+		assertTrue("listener dropped for " + scope, candidates.contains(entry)); //$NON-NLS-1$
+		assertEquals(scope, entry.match(description));
+		return entry;
+	}
+
+	public void testSingleTerm() throws Exception {
+		assertTerms(new String[][] {{"objectClass", "com.acme.Foo"}}, getEqualityTerms("(objectClass=com.acme.Foo)")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	public void testTopLevelAnd() throws Exception {
+		assertTerms(new String[][] {{"objectClass", "com.acme.Foo"}, {RemoteConstants.ENDPOINT_FRAMEWORK_UUID, FRAMEWORK_UUID}}, //$NON-NLS-1$ //$NON-NLS-2$
+				getEqualityTerms("(&(objectClass=com.acme.Foo)(" + RemoteConstants.ENDPOINT_FRAMEWORK_UUID + "=" + FRAMEWORK_UUID + ")(service.intents=*))")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	public void testNonEqualityTermsIgnored() throws Exception {
+		assertTerms(new String[0][], getEqualityTerms("(objectClass=com.acme.*)")); //$NON-NLS-1$
+		assertTerms(new String[0][], getEqualityTerms("(objectClass=*)")); //$NON-NLS-1$
+		assertTerms(new String[0][], getEqualityTerms("(objectClass~=com.acme.foo)")); //$NON-NLS-1$
+		assertTerms(new String[0][], getEqualityTerms("(objectClass>=com.acme.Foo)")); //$NON-NLS-1$
+		assertTerms(new String[0][], getEqualityTerms("(objectClass<=com.acme.Foo)")); //$NON-NLS-1$
+	}
+
+	public void testNestedAndIgnored() throws Exception {
+		assertTerms(new String[][] {{"service.intents", "passByValue"}}, //$NON-NLS-1$ //$NON-NLS-2$
+				getEqualityTerms("(&(&(objectClass=com.acme.Foo)(service.exported.configs=ecf.generic.server))(service.intents=passByValue))")); //$NON-NLS-1$
+	}
+
+	public void testNegatedIgnored() throws Exception {
+		assertTerms(new String[0][], getEqualityTerms("(!(objectClass=com.acme.Foo))")); //$NON-NLS-1$
+		assertTerms(new String[][] {{"service.intents", "passByValue"}}, //$NON-NLS-1$ //$NON-NLS-2$
+				getEqualityTerms("(&(!(objectClass=com.acme.Foo))(service.intents=passByValue))")); //$NON-NLS-1$
+	}
+
+	public void testOrIgnored() throws Exception {
+		assertTerms(new String[0][], getEqualityTerms("(|(objectClass=com.acme.Foo)(objectClass=com.acme.Bar))")); //$NON-NLS-1$
+		assertTerms(new String[][] {{"service.intents", "passByValue"}}, //$NON-NLS-1$ //$NON-NLS-2$
+				getEqualityTerms("(&(|(objectClass=com.acme.Foo)(objectClass=com.acme.Bar))(service.intents=passByValue))")); //$NON-NLS-1$
+	}
+
+	public void testEscapedValue() throws Exception {
+		assertTerms(new String[][] {{"objectClass", "com.acme.(Foo)*\\"}}, getEqualityTerms("(objectClass=com.acme.\\(Foo\\)\\*\\\\)")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		// an escaped parenthesis does not end the term
+		assertTerms(new String[][] {{"objectClass", "com.acme.Foo)"}, {"service.intents", "passByValue"}}, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				getEqualityTerms("(&(objectClass=com.acme.Foo\\))(service.intents=passByValue))")); //$NON-NLS-1$
+	}
+
+	public void testCaseVariantAttribute() throws Exception {
+		assertTerms(new String[][] {{"OBJECTCLASS", "com.acme.Foo"}}, getEqualityTerms("(OBJECTCLASS=com.acme.Foo)")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertTerms(new String[][] {{"objectclass", "com.acme.Foo"}}, getEqualityTerms("(objectclass=com.acme.Foo)")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	public void testIndexedByObjectClass() throws Exception {
+		final EndpointListenerScopeIndex.Entry<String> entry = assertCandidate("(objectClass=com.acme.Foo)", //$NON-NLS-1$
+				createDescription(new String[] {"com.acme.Bar", "com.acme.Foo"}, FRAMEWORK_UUID)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse(index.getCandidates(createDescription(new String[] {"com.acme.Bar"}, FRAMEWORK_UUID)).contains(entry)); //$NON-NLS-1$
+	}
+
+	public void testIndexedByFrameworkUUID() throws Exception {
+		final EndpointListenerScopeIndex.Entry<String> entry = assertCandidate("(" + RemoteConstants.ENDPOINT_FRAMEWORK_UUID + "=" + FRAMEWORK_UUID + ")", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				createDescription(new String[] {"com.acme.Foo"}, FRAMEWORK_UUID)); //$NON-NLS-1$
+		assertFalse(index.getCandidates(createDescription(new String[] {"com.acme.Foo"}, OTHER_FRAMEWORK_UUID)).contains(entry)); //$NON-NLS-1$
+	}
+
+	public void testCaseVariantAttributeIndexed() throws Exception {
+		final EndpointDescription description = createDescription(new String[] {"com.acme.Foo"}, FRAMEWORK_UUID); //$NON-NLS-1$
+		assertCandidate("(OBJECTCLASS=com.acme.Foo)", description); //$NON-NLS-1$
+		assertCandidate("(ENDPOINT.FRAMEWORK.UUID=" + FRAMEWORK_UUID + ")", description); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testEscapedValueIndexed() throws Exception {
+		assertCandidate("(objectClass=com.acme.Foo\\(1\\))", createDescription(new String[] {"com.acme.Foo(1)"}, FRAMEWORK_UUID)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testUnindexableFiltersNotDropped() throws Exception {
+		final String[] scopes = {"(!(objectClass=com.acme.Foo))", //$NON-NLS-1$
+				"(|(objectClass=com.acme.Foo)(objectClass=com.acme.Bar))", //$NON-NLS-1$
+				"(&(&(objectClass=com.acme.Bar)(service.intents=passByValue))(" + RemoteConstants.ENDPOINT_ID + "=*))", //$NON-NLS-1$ //$NON-NLS-2$
+				"(&(!(objectClass=com.acme.Foo))(service.intents=passByValue))", //$NON-NLS-1$
+				"(objectClass=com.acme.B*)", //$NON-NLS-1$
+				"(objectClass~=COM.ACME.BAR)", //$NON-NLS-1$
+				"(!(" + RemoteConstants.ENDPOINT_FRAMEWORK_UUID + "=" + FRAMEWORK_UUID + "))"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		final EndpointDescription description = createDescription(new String[] {"com.acme.Bar"}, OTHER_FRAMEWORK_UUID); //$NON-NLS-1$
+		for (int i = 0; i < scopes.length; i++) {
+			// none of these are indexed by an objectClass or framework
+			// UUID, so all have to be matched against every endpoint
+			assertCandidate(scopes[i], description);
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.protocol.bittorrent.internal.net;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.protocol.bittorrent.internal.torrent.DataFile;
+
+/**
+ * Tests verifying the pieces of a multi-file torrent with a
+ * {@link HashChecker}, where pieces span the boundaries between files and the
+ * last piece is shorter than the others.
+ */
+public class HashCheckerTest extends TestCase {
+
+	/**
+	 * Records the result of each piece's check.
+	 */
+	static class RecordingListener implements HashChecker.IPieceCheckListener {
+		final int[] reported;
+		final boolean[] valid;
+
+		RecordingListener(int pieces) {
+			reported = new int[pieces];
+			valid = new boolean[pieces];
+		}
+
+		public synchronized void pieceChecked(int number, boolean isValid) {
+			reported[number]++;
+			valid[number] = isValid;
+		}
+
+		synchronized void assertChecked(int[] invalid) {
+			for (int i = 0; i < reported.length; i++) {
+				assertEquals("piece " + i + " reported", 1, reported[i]); //$NON-NLS-1$ //$NON-NLS-2$
+				boolean expected = true;
+				for (int j = 0; j < invalid.length; j++) {
+					if (invalid[j] == i) {
+						expected = false;
+					}
+				}
+				assertEquals("piece " + i + " valid", expected, valid[i]); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	private File directory;
+
+	private DataFile[] files;
+
+	private byte[] data;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = File.createTempFile("hashchecker", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		directory.delete();
+		directory.mkdir();
+	}
+
+	protected void tearDown() throws Exception {
+		close();
+		File[] children = directory.listFiles();
+		for (int i = 0; i < children.length; i++) {
+			// the mapped regions are only released once they are garbage
+			// collected, so on some platforms the files remain in use
+			if (!children[i].delete()) {
+				children[i].deleteOnExit();
+			}
+		}
+		if (!directory.delete()) {
+			directory.deleteOnExit();
+		}
+		super.tearDown();
+	}
+
+	private void close() throws IOException {
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				files[i].getChannel().close();
+			}
+			files = null;
+		}
+	}
+
+	/**
+	 * Writes consecutive parts of random data to files of the given lengths.
+	 */
+	private void createFiles(int[] lengths) throws IOException {
+		int total = 0;
+		for (int i = 0; i < lengths.length; i++) {
+			total += lengths[i];
+		}
+		data = new byte[total];
+		new Random(total).nextBytes(data);
+		files = new DataFile[lengths.length];
+		int offset = 0;
+		for (int i = 0; i < lengths.length; i++) {
+			File file = new File(directory, "file" + i); //$NON-NLS-1$
+			RandomAccessFile out = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+			try {
+				out.write(data, offset, lengths[i]);
+			} finally {
+				out.close();
+			}
+			files[i] = new DataFile(file, lengths[i]);
+			offset += lengths[i];
+		}
+	}
+
+	/**
+	 * Overwrites a byte of the torrent's data on disk, without changing the
+	 * hashes computed from {@link #data}.
+	 */
+	private void corrupt(int position) throws IOException {
+		int offset = 0;
+		for (int i = 0; i < files.length; i++) {
+			if (position < offset + files[i].length()) {
+				RandomAccessFile out = new RandomAccessFile(new File(directory, "file" + i), "rw"); //$NON-NLS-1$ //$NON-NLS-2$
+				try {
+					out.seek(position - offset);
+					out.write(~data[position]);
+				} finally {
+					out.close();
+				}
+				return;
+			}
+			offset += files[i].length();
+		}
+		fail("position " + position + " out of range"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private byte[][] createHashes(int pieceLength) {
+		int pieces = (data.length + pieceLength - 1) / pieceLength;
+		byte[][] hashes = new byte[pieces][];
+		MessageDigest digest = HashChecker.createDigest();
+		for (int i = 0; i < pieces; i++) {
+			int start = i * pieceLength;
+			digest.update(data, start, Math.min(pieceLength, data.length - start));
+			hashes[i] = digest.digest();
+		}
+		return hashes;
+	}
+
+	private RecordingListener check(int pieceLength) throws Exception {
+		byte[][] hashes = createHashes(pieceLength);
+		RecordingListener listener = new RecordingListener(hashes.length);
+		new HashChecker(files, hashes, pieceLength, listener).run(getName());
+		return listener;
+	}
+
+	public void testPiecesSpanningFiles() throws Exception {
+		createFiles(new int[] {1000, 2500, 777});
+		// 9 pieces, the second and seventh span two files and the last one
+		// is 181 bytes
+		RecordingListener listener = check(512);
+		assertEquals(9, listener.reported.length);
+		listener.assertChecked(new int[0]);
+	}
+
+	public void testPieceSpanningSeveralFiles() throws Exception {
+		createFiles(new int[] {1000, 300, 5, 900, 1});
+		// the first piece spans four files, the last one 158 bytes of two
+		RecordingListener listener = check(2048);
+		assertEquals(2, listener.reported.length);
+		listener.assertChecked(new int[0]);
+	}
+
+	public void testManyRuns() throws Exception {
+		createFiles(new int[] {4096, 1, 10000, 333, 7777});
+		// small pieces, so that the pieces are split into many runs that
+		// start and end within files
+		RecordingListener listener = check(16);
+		listener.assertChecked(new int[0]);
+	}
+
+	public void testCorruptPieces() throws Exception {
+		createFiles(new int[] {1000, 2500, 777});
+		// in the part of the second piece in the first file, the part of the
+		// seventh piece in the third file, and the short last piece
+		corrupt(999);
+		corrupt(3500);
+		corrupt(4276);
+		RecordingListener listener = check(512);
+		listener.assertChecked(new int[] {1, 6, 8});
+	}
+
+	public void testSinglePieceShorterThanPieceLength() throws Exception {
+		createFiles(new int[] {100, 50});
+		RecordingListener listener = check(1024);
+		assertEquals(1, listener.reported.length);
+		listener.assertChecked(new int[0]);
+	}
+}
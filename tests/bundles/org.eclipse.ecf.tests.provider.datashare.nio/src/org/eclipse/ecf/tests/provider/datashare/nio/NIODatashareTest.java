@@ -13,6 +13,7 @@
 package org.eclipse.ecf.tests.provider.datashare.nio;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 
 import junit.framework.TestCase;
 
@@ -27,6 +28,7 @@ import org.eclipse.ecf.datashare.events.IChannelConnectEvent;
 import org.eclipse.ecf.datashare.events.IChannelDisconnectEvent;
 import org.eclipse.ecf.datashare.events.IChannelEvent;
 import org.eclipse.ecf.datashare.events.IChannelMessageEvent;
+import org.eclipse.ecf.provider.datashare.nio.IScatteringChannelListener;
 
 public class NIODatashareTest extends TestCase {
 
@@ -285,4 +287,57 @@ public class NIODatashareTest extends TestCase {
 		assertEquals(expected1, actual[0]);
 		assertEquals(expected2, actual[1]);
 	}
+
+	public void testOneWaySendScattering() throws Exception {
+		final ByteBuffer header = ByteBuffer.allocate(16);
+		final ByteBuffer body = ByteBuffer.allocateDirect(65536);
+		final ByteBuffer[][] actual = new ByteBuffer[1][];
+
+		channelA = createChannel(channelContainerA);
+
+		int targetPort = channelA.getPort();
+
+		channelB = createChannel(channelContainerB,
+				new IScatteringChannelListener() {
+					public void handleChannelEvent(IChannelEvent event) {
+						// messages are delivered to the supplied buffers
+					}
+
+					public ByteBuffer[] getReceiveBuffers(ID channelId,
+							ID fromContainerId, int length) {
+						return new ByteBuffer[] { header, body };
+					}
+
+					public void handleMessageBuffers(ID channelId,
+							ID fromContainerId, ByteBuffer[] buffers) {
+						actual[0] = buffers;
+
+						synchronized (waitObject) {
+							waitObject.notify();
+						}
+					}
+				});
+
+		byte[] expected = new byte[40000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = (byte) (i % 128);
+		}
+
+		channelA.sendMessage(containerB.getConnectedID(), expected);
+
+		channelContainerB.enqueue(new InetSocketAddress(LOCALHOST, targetPort));
+
+		waitForCompletion(10000);
+
+		assertNotNull(actual[0]);
+		assertEquals(16, header.position());
+		assertEquals(expected.length - 16, body.position());
+
+		byte[] received = new byte[expected.length];
+		header.flip();
+		header.get(received, 0, 16);
+		body.flip();
+		body.get(received, 16, expected.length - 16);
+		assertEquals(expected, received);
+	}
 }
@@ -0,0 +1,337 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.discovery;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.ContainerConnectException;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.identity.Namespace;
+import org.eclipse.ecf.core.security.IConnectContext;
+import org.eclipse.ecf.discovery.AbstractDiscoveryContainerAdapter;
+import org.eclipse.ecf.discovery.DiscoveryContainerConfig;
+import org.eclipse.ecf.discovery.IServiceInfo;
+import org.eclipse.ecf.discovery.ServiceContainerEvent;
+import org.eclipse.ecf.discovery.ServiceInfo;
+import org.eclipse.ecf.discovery.identity.IServiceID;
+import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+import org.eclipse.ecf.discovery.identity.ServiceTypeID;
+import org.eclipse.ecf.provider.discovery.CompositeDiscoveryContainer;
+import org.eclipse.ecf.tests.discovery.identity.TestNamespace;
+
+/**
+ * Tests how {@link CompositeDiscoveryContainer} queries its children and
+ * caches their merged services, against children that count their queries
+ * and can be held in the middle of one.
+ */
+public class CompositeDiscoveryContainerCacheTest extends TestCase {
+
+	private static final long WAIT = 30000;
+
+	private static final Namespace NAMESPACE = new TestNamespace();
+
+	static {
+		NAMESPACE.initialize("testnamespace", "CompositeDiscoveryContainerCacheTest"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static final IServiceTypeID SERVICE_TYPE = new ServiceTypeID(NAMESPACE, "_service._ecf._composite._tcp.ecf.eclipse.org._IANA"); //$NON-NLS-1$
+
+	/**
+	 * A child container that answers from a list of services and fires the
+	 * discovery events for changes to it.
+	 */
+	static class TestDiscoveryContainer extends AbstractDiscoveryContainerAdapter {
+		final List services = new ArrayList();
+		final AtomicInteger getServicesCalls = new AtomicInteger();
+		final AtomicInteger getServiceInfoCalls = new AtomicInteger();
+		/**
+		 * Counted down when a query of the services is entered.
+		 */
+		volatile CountDownLatch entered;
+		/**
+		 * Awaited by a query of the services before it answers.
+		 */
+		volatile CountDownLatch release;
+		private ID connectedID;
+
+		TestDiscoveryContainer(String name) {
+			super(NAMESPACE.getName(), new DiscoveryContainerConfig(IDFactory.getDefault().createStringID(name)));
+		}
+
+		public Namespace getServicesNamespace() {
+			return NAMESPACE;
+		}
+
+		public void connect(ID targetID, IConnectContext connectContext) throws ContainerConnectException {
+			connectedID = (targetID == null) ? getID() : targetID;
+		}
+
+		public ID getConnectedID() {
+			return connectedID;
+		}
+
+		public void disconnect() {
+			connectedID = null;
+		}
+
+		public String getContainerName() {
+			return getID().getName();
+		}
+
+		public IServiceInfo getServiceInfo(IServiceID aServiceID) {
+			getServiceInfoCalls.incrementAndGet();
+			synchronized (services) {
+				for (int i = 0; i < services.size(); i++) {
+					final IServiceInfo info = (IServiceInfo) services.get(i);
+					if (info.getServiceID().equals(aServiceID))
+						return info;
+				}
+			}
+			return null;
+		}
+
+		public IServiceInfo[] getServices() {
+			getServicesCalls.incrementAndGet();
+			final CountDownLatch e = entered;
+			if (e != null)
+				e.countDown();
+			final CountDownLatch r = release;
+			if (r != null) {
+				try {
+					r.await(WAIT, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException ie) {
+					// cancelled by the composite after its timeout
+					Thread.currentThread().interrupt();
+				}
+			}
+			synchronized (services) {
+				return (IServiceInfo[]) services.toArray(new IServiceInfo[services.size()]);
+			}
+		}
+
+		public IServiceInfo[] getServices(IServiceTypeID aServiceTypeID) {
+			return getServices();
+		}
+
+		public IServiceTypeID[] getServiceTypes() {
+			return new IServiceTypeID[] {SERVICE_TYPE};
+		}
+
+		public void registerService(IServiceInfo serviceInfo) {
+			// nothing is announced
+		}
+
+		public void unregisterService(IServiceInfo serviceInfo) {
+			// nothing is announced
+		}
+
+		public IServiceInfo[] purgeCache() {
+			return new IServiceInfo[0];
+		}
+
+		void discover(IServiceInfo info) {
+			synchronized (services) {
+				services.add(info);
+			}
+			fireServiceDiscovered(new ServiceContainerEvent(info, getID()));
+		}
+
+		void undiscover(IServiceInfo info) {
+			synchronized (services) {
+				services.remove(info);
+			}
+			fireServiceUndiscovered(new ServiceContainerEvent(info, getID()));
+		}
+	}
+
+	private CompositeDiscoveryContainer composite;
+
+	private TestDiscoveryContainer first;
+
+	private TestDiscoveryContainer second;
+
+	private IServiceInfo firstService;
+
+	private IServiceInfo secondService;
+
+	private static IServiceInfo createServiceInfo(String host) {
+		return new ServiceInfo(URI.create("ecftcp://" + host + ":3282/server"), host, SERVICE_TYPE); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		composite = new CompositeDiscoveryContainer(new ArrayList());
+		composite.connect(null, null);
+		first = new TestDiscoveryContainer(getName() + ".first"); //$NON-NLS-1$
+		second = new TestDiscoveryContainer(getName() + ".second"); //$NON-NLS-1$
+		firstService = createServiceInfo("first.example.org"); //$NON-NLS-1$
+		secondService = createServiceInfo("second.example.org"); //$NON-NLS-1$
+		first.services.add(firstService);
+		second.services.add(secondService);
+		assertTrue(composite.addContainer(first));
+		assertTrue(composite.addContainer(second));
+	}
+
+	protected void tearDown() throws Exception {
+		release(first);
+		release(second);
+		composite.dispose();
+		super.tearDown();
+	}
+
+	private static void release(TestDiscoveryContainer container) {
+		final CountDownLatch r = container.release;
+		if (r != null)
+			r.countDown();
+		container.release = null;
+	}
+
+	private static Set getServiceIDs(IServiceInfo[] services) {
+		final Set result = new HashSet();
+		for (int i = 0; i < services.length; i++)
+			result.add(services[i].getServiceID());
+		return result;
+	}
+
+	private static void assertServices(IServiceInfo[] expected, IServiceInfo[] actual) {
+		assertEquals(getServiceIDs(expected), getServiceIDs(actual));
+	}
+
+	public void testCacheHit() throws Exception {
+		assertServices(new IServiceInfo[] {firstService, secondService}, composite.getServices());
+		assertServices(new IServiceInfo[] {firstService, secondService}, composite.getServices());
+		assertSame(secondService, composite.getServiceInfo(secondService.getServiceID()));
+		// answered from the cache
+		assertEquals(1, first.getServicesCalls.get());
+		assertEquals(1, second.getServicesCalls.get());
+		assertEquals(0, first.getServiceInfoCalls.get());
+		assertEquals(0, second.getServiceInfoCalls.get());
+	}
+
+	public void testEventsUpdateCache() throws Exception {
+		composite.getServices();
+		final IServiceInfo thirdService = createServiceInfo("third.example.org"); //$NON-NLS-1$
+		second.discover(thirdService);
+		assertServices(new IServiceInfo[] {firstService, secondService, thirdService}, composite.getServices());
+		first.undiscover(firstService);
+		assertServices(new IServiceInfo[] {secondService, thirdService}, composite.getServices());
+		assertEquals(1, first.getServicesCalls.get());
+		assertEquals(1, second.getServicesCalls.get());
+	}
+
+	public void testAddContainerInvalidatesCache() throws Exception {
+		composite.getServices();
+		final TestDiscoveryContainer third = new TestDiscoveryContainer(getName() + ".third"); //$NON-NLS-1$
+		final IServiceInfo thirdService = createServiceInfo("third.example.org"); //$NON-NLS-1$
+		third.services.add(thirdService);
+		assertTrue(composite.addContainer(third));
+		assertServices(new IServiceInfo[] {firstService, secondService, thirdService}, composite.getServices());
+		assertEquals(2, first.getServicesCalls.get());
+		assertEquals(1, third.getServicesCalls.get());
+	}
+
+	public void testRemoveContainerInvalidatesCache() throws Exception {
+		composite.getServices();
+		assertTrue(composite.removeContainer(second));
+		assertServices(new IServiceInfo[] {firstService}, composite.getServices());
+		assertEquals(2, first.getServicesCalls.get());
+		assertEquals(1, second.getServicesCalls.get());
+		assertNull(composite.getServiceInfo(secondService.getServiceID()));
+	}
+
+	public void testSlowChildrenQueriedInParallel() throws Exception {
+		final CountDownLatch entered = new CountDownLatch(2);
+		final CountDownLatch release = new CountDownLatch(1);
+		first.entered = entered;
+		first.release = release;
+		second.entered = entered;
+		second.release = release;
+		final IServiceInfo[][] result = new IServiceInfo[1][];
+		final Thread query = new Thread(new Runnable() {
+			public void run() {
+				result[0] = composite.getServices();
+			}
+		});
+		query.start();
+		// both children are asked before either of them answered
+		assertTrue(entered.await(WAIT, TimeUnit.MILLISECONDS));
+		release.countDown();
+		query.join(WAIT);
+		assertFalse(query.isAlive());
+		assertServices(new IServiceInfo[] {firstService, secondService}, result[0]);
+	}
+
+	public void testHangingChild() throws Exception {
+		first.entered = new CountDownLatch(1);
+		first.release = new CountDownLatch(1);
+		final IServiceInfo[][] result = new IServiceInfo[1][];
+		final Thread query = new Thread(new Runnable() {
+			public void run() {
+				result[0] = composite.getServices();
+			}
+		});
+		query.start();
+		assertTrue(first.entered.await(WAIT, TimeUnit.MILLISECONDS));
+		// the composite is not locked while it waits for its children
+		final TestDiscoveryContainer third = new TestDiscoveryContainer(getName() + ".third"); //$NON-NLS-1$
+		assertTrue(composite.addContainer(third));
+		assertTrue(composite.removeContainer(third));
+		assertTrue(query.isAlive());
+		// the hanging child is left out once it timed out
+		query.join(WAIT);
+		assertFalse(query.isAlive());
+		assertServices(new IServiceInfo[] {secondService}, result[0]);
+		// and the incomplete result is not cached
+		release(first);
+		assertServices(new IServiceInfo[] {firstService, secondService}, composite.getServices());
+		assertEquals(2, first.getServicesCalls.get());
+		assertEquals(2, second.getServicesCalls.get());
+	}
+
+	public void testStaleReloadDiscarded() throws Exception {
+		first.entered = new CountDownLatch(1);
+		first.release = new CountDownLatch(1);
+		final IServiceInfo[][] result = new IServiceInfo[1][];
+		final Thread query = new Thread(new Runnable() {
+			public void run() {
+				result[0] = composite.getServices();
+			}
+		});
+		query.start();
+		assertTrue(first.entered.await(WAIT, TimeUnit.MILLISECONDS));
+		final long deadline = System.currentTimeMillis() + WAIT;
+		while (second.getServicesCalls.get() == 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		// discovered after the second child answered, before the query ends
+		final IServiceInfo thirdService = createServiceInfo("third.example.org"); //$NON-NLS-1$
+		second.discover(thirdService);
+		release(first);
+		query.join(WAIT);
+		assertFalse(query.isAlive());
+		assertServices(new IServiceInfo[] {firstService, secondService}, result[0]);
+		// the reload missed the event, so the children are asked again
+		assertServices(new IServiceInfo[] {firstService, secondService, thirdService}, composite.getServices());
+		assertEquals(2, first.getServicesCalls.get());
+		assertEquals(2, second.getServicesCalls.get());
+	}
+}
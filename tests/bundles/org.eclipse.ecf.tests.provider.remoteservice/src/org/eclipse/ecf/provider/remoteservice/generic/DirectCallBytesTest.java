@@ -0,0 +1,236 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.remoteservice.generic;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.events.ContainerDisconnectedEvent;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectConfig;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectContext;
+import org.eclipse.ecf.core.sharedobject.SharedObjectMsg;
+import org.eclipse.ecf.core.sharedobject.SharedObjectMsgEvent;
+import org.eclipse.ecf.core.sharedobject.events.RemoteSharedObjectEvent;
+import org.eclipse.ecf.core.sharedobject.util.IQueueEnqueue;
+import org.eclipse.ecf.core.util.Event;
+import org.eclipse.ecf.provider.generic.RawSharedObjectMessage;
+import org.eclipse.equinox.concurrent.future.IExecutor;
+import org.eclipse.equinox.concurrent.future.ImmediateExecutor;
+
+/**
+ * Tests how {@link RegistrySharedObject} negotiates sending call requests and
+ * responses as {@link RawSharedObjectMessage}s, and falls back to
+ * SharedObjectMsgs for peers that do not support them.  Messages sent by one
+ * registry are handed to the other by the test.
+ */
+public class DirectCallBytesTest extends TestCase {
+
+	private static final long WAIT = 5000;
+
+	private static final String CALL_REQUEST_BYTES = "handleCallRequestBytes"; //$NON-NLS-1$
+
+	private static final String CALL_RESPONSE_BYTES = "handleCallResponseBytes"; //$NON-NLS-1$
+
+	public interface IConcat {
+		String concat(String a, String b);
+	}
+
+	static class Concat implements IConcat {
+		public String concat(String a, String b) {
+			return a + b;
+		}
+	}
+
+	static class Sent {
+		final ID target;
+		final Object message;
+
+		Sent(ID target, Object message) {
+			this.target = target;
+			this.message = message;
+		}
+	}
+
+	static class TestRegistry extends RegistrySharedObject {
+		final BlockingQueue<Sent> sent = new LinkedBlockingQueue<Sent>();
+
+		protected IExecutor createRequestExecutor(Request request) {
+			return new ImmediateExecutor();
+		}
+
+		Sent nextSent() throws InterruptedException {
+			final Sent result = sent.poll(WAIT, TimeUnit.MILLISECONDS);
+			assertNotNull("nothing sent", result); //$NON-NLS-1$
+			return result;
+		}
+	}
+
+	private ID requesterID;
+
+	private ID serviceID;
+
+	private TestRegistry requester;
+
+	private TestRegistry service;
+
+	private RemoteServiceRegistrationImpl registration;
+
+	private static TestRegistry createRegistry(final ID containerID) throws Exception {
+		final TestRegistry registry = new TestRegistry();
+		final IQueueEnqueue queue = (IQueueEnqueue) Proxy.newProxyInstance(DirectCallBytesTest.class.getClassLoader(), new Class[] {IQueueEnqueue.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("enqueue") && args[0] instanceof Event) //$NON-NLS-1$
+					registry.handleEvent((Event) args[0]);
+				return null;
+			}
+		});
+		final ISharedObjectContext context = (ISharedObjectContext) Proxy.newProxyInstance(DirectCallBytesTest.class.getClassLoader(), new Class[] {ISharedObjectContext.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("sendMessage")) { //$NON-NLS-1$
+					registry.sent.add(new Sent((ID) args[0], args[1]));
+					return null;
+				}
+				if (method.getName().equals("getQueue")) //$NON-NLS-1$
+					return queue;
+				if (method.getName().equals("getLocalContainerID")) //$NON-NLS-1$
+					return containerID;
+				if (method.getReturnType() == boolean.class)
+					return Boolean.FALSE;
+				return null;
+			}
+		});
+		final ID registryID = IDFactory.getDefault().createStringID(RegistrySharedObject.class.getName());
+		registry.init(new ISharedObjectConfig() {
+			public ID getSharedObjectID() {
+				return registryID;
+			}
+
+			public ID getHomeContainerID() {
+				return containerID;
+			}
+
+			public ISharedObjectContext getContext() {
+				return context;
+			}
+
+			public Map<String, ?> getProperties() {
+				return null;
+			}
+		});
+		return registry;
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		requesterID = IDFactory.getDefault().createGUID();
+		serviceID = IDFactory.getDefault().createGUID();
+		requester = createRegistry(requesterID);
+		service = createRegistry(serviceID);
+		registration = (RemoteServiceRegistrationImpl) service.registerRemoteService(new String[] {IConcat.class.getName()}, new Concat(), null);
+	}
+
+	private static void deliver(TestRegistry to, ID from, Object message) {
+		to.handleSharedObjectMsgEvent(new RemoteSharedObjectEvent(to.getID(), from, message));
+	}
+
+	private static void assertSharedObjectMsg(String method, Object message) {
+		assertTrue(message instanceof SharedObjectMsgEvent);
+		assertEquals(method, ((SharedObjectMsg) ((SharedObjectMsgEvent) message).getData()).getMethod());
+	}
+
+	private static void assertRaw(int type, Object message) {
+		assertTrue(message instanceof RawSharedObjectMessage);
+		final RawSharedObjectMessage raw = (RawSharedObjectMessage) message;
+		assertEquals(type, raw.getBytes()[raw.getOffset()]);
+	}
+
+	private static RemoteCallImpl createCall() {
+		return RemoteCallImpl.createRemoteCall(null, "concat", new Object[] {"a", "b"}, WAIT); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Send a call from the requester, hand it to the service, and hand the
+	 * service's response back to the requester.
+	 * @return Sent[] the request and the response sent
+	 */
+	private Sent[] call() throws Exception {
+		final Request request = requester.sendCallRequest(registration, createCall());
+		final Sent sentRequest = requester.nextSent();
+		assertEquals(serviceID, sentRequest.target);
+		deliver(service, requesterID, sentRequest.message);
+		final Sent sentResponse = service.nextSent();
+		assertEquals(requesterID, sentResponse.target);
+		deliver(requester, serviceID, sentResponse.message);
+		assertEquals("ab", request.getResponseFuture().get(WAIT, TimeUnit.MILLISECONDS).getResponse()); //$NON-NLS-1$
+		return new Sent[] {sentRequest, sentResponse};
+	}
+
+	public void testNegotiation() throws Exception {
+		assertTrue(RegistrySharedObject.DIRECT_CALL_BYTES);
+		// The first request does not know the service supports bytes
+		Sent[] sent = call();
+		assertSharedObjectMsg(CALL_REQUEST_BYTES, sent[0].message);
+		// but it says that the requester does
+		assertTrue(service.isDirectCallPeer(requesterID));
+		assertRaw(2, sent[1].message);
+		assertTrue(requester.isDirectCallPeer(serviceID));
+		// From then on, both directions are sent as bytes
+		sent = call();
+		assertRaw(1, sent[0].message);
+		assertRaw(2, sent[1].message);
+	}
+
+	public void testFallbackForRequesterWithoutSupport() throws Exception {
+		final ID oldRequesterID = IDFactory.getDefault().createGUID();
+		// Requests from older registries do not set acceptsCallBytes
+		final Request request = new Request(oldRequesterID, registration.getServiceId(), createCall());
+		deliver(service, oldRequesterID, SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, service.serializeCallRequest(request)));
+		final Sent sent = service.nextSent();
+		assertEquals(oldRequesterID, sent.target);
+		assertSharedObjectMsg(CALL_RESPONSE_BYTES, sent.message);
+		assertFalse(service.isDirectCallPeer(oldRequesterID));
+	}
+
+	public void testFallbackForServiceWithoutSupport() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			final Request request = requester.sendCallRequest(registration, createCall());
+			final Sent sent = requester.nextSent();
+			assertSharedObjectMsg(CALL_REQUEST_BYTES, sent.message);
+			// An older service always responds with a SharedObjectMsg
+			final Response response = new Response(request.getRequestId(), "ab"); //$NON-NLS-1$
+			deliver(requester, serviceID, new SharedObjectMsgEvent(service.getID(), requesterID, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, service.serializeCallResponse(response))));
+			assertEquals("ab", request.getResponseFuture().get(WAIT, TimeUnit.MILLISECONDS).getResponse()); //$NON-NLS-1$
+			assertFalse(requester.isDirectCallPeer(serviceID));
+		}
+	}
+
+	public void testPeerForgottenWhenDisconnected() throws Exception {
+		call();
+		assertTrue(requester.isDirectCallPeer(serviceID));
+		requester.handleContainerDisconnectedEvent(new ContainerDisconnectedEvent(requesterID, serviceID));
+		assertFalse(requester.isDirectCallPeer(serviceID));
+		// Negotiated again by the next call
+		final Sent[] sent = call();
+		assertSharedObjectMsg(CALL_REQUEST_BYTES, sent[0].message);
+		assertRaw(2, sent[1].message);
+	}
+}
@@ -0,0 +1,117 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.remoteservice.generic;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class HashedWheelTimerTest extends TestCase {
+
+	private static final long TICK = 10;
+
+	private static final long IDLE = 200;
+
+	private static final long DELAY = 100;
+
+	private String name;
+
+	private HashedWheelTimer timer;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		name = "HashedWheelTimerTest " + getName();
+		// a small wheel, so that longer delays take several rounds
+		timer = new HashedWheelTimer(name, TICK, 8, IDLE);
+	}
+
+	public void testExpiry() throws Exception {
+		final CountDownLatch expired = new CountDownLatch(1);
+		final long start = System.nanoTime();
+		final long[] elapsed = new long[1];
+		timer.schedule(new Runnable() {
+			public void run() {
+				elapsed[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+				expired.countDown();
+			}
+		}, DELAY);
+		assertTrue("timeout not expired", expired.await(DELAY * 10, TimeUnit.MILLISECONDS));
+		assertTrue("expired after " + elapsed[0] + "ms", elapsed[0] >= DELAY && elapsed[0] < DELAY + TICK * 10);
+	}
+
+	public void testExpiryOrder() throws Exception {
+		final CountDownLatch expired = new CountDownLatch(3);
+		final StringBuffer order = new StringBuffer();
+		final long[] delays = {DELAY * 3, DELAY, DELAY * 2};
+		for (int i = 0; i < delays.length; i++) {
+			final long delay = delays[i];
+			timer.schedule(new Runnable() {
+				public void run() {
+					order.append(delay / DELAY);
+					expired.countDown();
+				}
+			}, delay);
+		}
+		assertTrue("timeouts not expired", expired.await(DELAY * 10, TimeUnit.MILLISECONDS));
+		assertEquals("123", order.toString());
+	}
+
+	public void testCancel() throws Exception {
+		final CountDownLatch expired = new CountDownLatch(1);
+		final boolean[] cancelledRan = new boolean[1];
+		final HashedWheelTimer.Timeout cancelled = timer.schedule(new Runnable() {
+			public void run() {
+				cancelledRan[0] = true;
+			}
+		}, DELAY);
+		final HashedWheelTimer.Timeout later = timer.schedule(new Runnable() {
+			public void run() {
+				expired.countDown();
+			}
+		}, DELAY * 2);
+		assertTrue(cancelled.cancel());
+		assertFalse("cancelled twice", cancelled.cancel());
+		assertTrue("timeout not expired", expired.await(DELAY * 10, TimeUnit.MILLISECONDS));
+		assertFalse("cancelled timeout ran", cancelledRan[0]);
+		assertFalse("expired timeout cancelled", later.cancel());
+	}
+
+	public void testIdleThreadExitsAndRestarts() throws Exception {
+		assertFalse(isTimerThreadAlive());
+		for (int round = 0; round < 2; round++) {
+			final CountDownLatch expired = new CountDownLatch(1);
+			timer.schedule(new Runnable() {
+				public void run() {
+					expired.countDown();
+				}
+			}, DELAY);
+			assertTrue(isTimerThreadAlive());
+			assertTrue("timeout not expired", expired.await(DELAY * 10, TimeUnit.MILLISECONDS));
+			// the thread keeps running for the idle time after the wheel is empty
+			final long deadline = System.currentTimeMillis() + IDLE * 20;
+			while (isTimerThreadAlive() && System.currentTimeMillis() < deadline)
+				Thread.sleep(TICK);
+			assertFalse("timer thread still running", isTimerThreadAlive());
+		}
+	}
+
+	private boolean isTimerThreadAlive() {
+		final Thread[] threads = new Thread[Thread.activeCount() * 2];
+		final int count = Thread.enumerate(threads);
+		for (int i = 0; i < count; i++)
+			if (name.equals(threads[i].getName()))
+				return true;
+		return false;
+	}
+}
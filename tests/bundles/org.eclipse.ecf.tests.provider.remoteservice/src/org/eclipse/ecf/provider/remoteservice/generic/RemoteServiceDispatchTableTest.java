@@ -0,0 +1,174 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.remoteservice.generic;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.SharedObjectMsg;
+import org.eclipse.ecf.core.util.reflection.ClassUtil;
+
+/**
+ * Tests that calls dispatched through a {@link RemoteServiceDispatchTable}
+ * resolve to the same methods as {@link ClassUtil#getMethod(Class, String, Class[])},
+ * and behave like {@link java.lang.reflect.Method#invoke(Object, Object...)},
+ * whether or not they hit the cache.
+ */
+public class RemoteServiceDispatchTableTest extends TestCase {
+
+	private static final long WAIT = 5000;
+
+	public static class Service {
+		public String echo(String s) {
+			return "String:" + s; //$NON-NLS-1$
+		}
+
+		public String echo(Object o) {
+			return "Object:" + o; //$NON-NLS-1$
+		}
+
+		public String echo(Integer i) {
+			return "Integer:" + i; //$NON-NLS-1$
+		}
+
+		public String echo(String s, Object o) {
+			return "String,Object:" + s + o; //$NON-NLS-1$
+		}
+
+		public int twice(int i) {
+			return 2 * i;
+		}
+
+		public void fail(String message) {
+			throw new IllegalStateException(message);
+		}
+
+		public static String hello() {
+			return "hello"; //$NON-NLS-1$
+		}
+	}
+
+	static class HiddenService {
+		public String concat(String a, String b) {
+			return a + b;
+		}
+	}
+
+	private static Object call(RemoteServiceDispatchTable table, Object service, String method, Object[] args) throws Exception {
+		final RemoteServiceDispatchTable.Target target = table.resolve(method, args);
+		assertEquals(ClassUtil.getMethod(service.getClass(), method, SharedObjectMsg.getTypesForParameters(args)), target.method);
+		// resolved from the cache the second time
+		assertSame(target, table.resolve(method, args));
+		return target.invoke(service, args);
+	}
+
+	public void testOverloadsResolved() throws Exception {
+		final Service service = new Service();
+		final RemoteServiceDispatchTable table = new RemoteServiceDispatchTable(Service.class);
+		assertEquals("String:a", call(table, service, "echo", new Object[] {"a"})); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("Integer:1", call(table, service, "echo", new Object[] {Integer.valueOf(1)})); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("Object:1", call(table, service, "echo", new Object[] {Long.valueOf(1)})); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("String,Object:ab", call(table, service, "echo", new Object[] {"a", "b"})); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		assertEquals("String,Object:a1", call(table, service, "echo", new Object[] {"a", Integer.valueOf(1)})); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		// the cached entries for echo do not get in the way of each other
+		assertEquals("String:c", table.resolve("echo", new Object[] {"c"}).invoke(service, new Object[] {"c"})); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		assertEquals("Integer:2", table.resolve("echo", new Object[] {Integer.valueOf(2)}).invoke(service, new Object[] {Integer.valueOf(2)})); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testPrimitiveAndStaticMethods() throws Exception {
+		final Service service = new Service();
+		final RemoteServiceDispatchTable table = new RemoteServiceDispatchTable(Service.class);
+		assertEquals(Integer.valueOf(42), call(table, service, "twice", new Object[] {Integer.valueOf(21)})); //$NON-NLS-1$
+		assertEquals("hello", call(table, service, "hello", new Object[0])); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testMoreArgumentClassesThanCacheEntries() throws Exception {
+		final Service service = new Service();
+		final RemoteServiceDispatchTable table = new RemoteServiceDispatchTable(Service.class);
+		final Object[] values = {"a", Integer.valueOf(1), Long.valueOf(2), Short.valueOf((short) 3), Byte.valueOf((byte) 4), Double.valueOf(5), Float.valueOf(6), Boolean.TRUE, Character.valueOf('x'), new StringBuffer("y")}; //$NON-NLS-1$ //$NON-NLS-2$
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < values.length; i++) {
+				final Object[] args = {values[i]};
+				final Object result = table.resolve("echo", args).invoke(service, args); //$NON-NLS-1$
+				assertEquals(ClassUtil.getMethod(Service.class, "echo", SharedObjectMsg.getTypesForParameters(args)).invoke(service, args), result); //$NON-NLS-1$
+			}
+		}
+	}
+
+	public void testExceptionWrapped() throws Exception {
+		final RemoteServiceDispatchTable table = new RemoteServiceDispatchTable(Service.class);
+		final Object[] args = {"boom"}; //$NON-NLS-1$
+		try {
+			table.resolve("fail", args).invoke(new Service(), args); //$NON-NLS-1$
+			fail();
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			assertEquals("boom", e.getCause().getMessage()); //$NON-NLS-1$
+		}
+	}
+
+	public void testNullPrimitiveArgument() throws Exception {
+		final RemoteServiceDispatchTable table = new RemoteServiceDispatchTable(Service.class);
+		final Object[] args = {null};
+		try {
+			table.resolve("twice", args).invoke(new Service(), args); //$NON-NLS-1$
+			fail();
+		} catch (IllegalArgumentException e) {
+			// as with Method.invoke
+		}
+	}
+
+	public void testNoSuchMethod() throws Exception {
+		final RemoteServiceDispatchTable table = new RemoteServiceDispatchTable(Service.class);
+		try {
+			table.resolve("missing", new Object[0]); //$NON-NLS-1$
+			fail();
+		} catch (NoSuchMethodException e) {
+			// expected
+		}
+		try {
+			table.resolve("twice", new Object[] {"a"}); //$NON-NLS-1$ //$NON-NLS-2$
+			fail();
+		} catch (NoSuchMethodException e) {
+			// expected
+		}
+	}
+
+	private static RemoteServiceRegistrationImpl publish(Object service) {
+		final RemoteServiceRegistrationImpl registration = new RemoteServiceRegistrationImpl();
+		registration.publish(new RegistrySharedObject(), new RemoteServiceRegistryImpl(IDFactory.getDefault().createGUID()), service, new String[] {service.getClass().getName()}, null);
+		return registration;
+	}
+
+	public void testCallServiceOnNonPublicClass() throws Exception {
+		final RemoteServiceRegistrationImpl registration = publish(new HiddenService());
+		// not accessible through a method handle, so invoked reflectively
+		assertNull(registration.resolveTarget("concat", new Object[] {"a", "b"}).handle); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("ab", registration.callService(RemoteCallImpl.createRemoteCall(null, "concat", new Object[] {"a", "b"}, WAIT))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	public void testInvocationCounts() throws Exception {
+		final RemoteServiceRegistrationImpl registration = publish(new Service());
+		assertTrue(registration.getInvocationCounts().isEmpty());
+		for (int i = 0; i < 3; i++)
+			registration.callService(RemoteCallImpl.createRemoteCall(null, "echo", new Object[] {"a"}, WAIT)); //$NON-NLS-1$ //$NON-NLS-2$
+		registration.callService(RemoteCallImpl.createRemoteCall(null, "twice", new Object[] {Integer.valueOf(1)}, WAIT)); //$NON-NLS-1$
+		final Map<String, Long> counts = registration.getInvocationCounts();
+		assertEquals(2, counts.size());
+		assertEquals(Long.valueOf(3), counts.get("echo(java.lang.String)")); //$NON-NLS-1$
+		assertEquals(Long.valueOf(1), counts.get("twice(int)")); //$NON-NLS-1$
+	}
+}
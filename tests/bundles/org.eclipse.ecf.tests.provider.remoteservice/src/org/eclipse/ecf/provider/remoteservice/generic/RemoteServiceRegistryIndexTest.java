@@ -0,0 +1,169 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.remoteservice.generic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Hashtable;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.remoteservice.Constants;
+import org.eclipse.ecf.remoteservice.IRemoteFilter;
+import org.eclipse.ecf.remoteservice.IRemoteServiceReference;
+import org.eclipse.ecf.remoteservice.util.RemoteFilterImpl;
+
+/**
+ * Tests looking up registrations in a {@link RemoteServiceRegistryImpl}
+ * through its index, that publishing and unpublishing keep the index up to
+ * date, and that {@link RegistrySharedObject} reuses parsed filters.
+ */
+public class RemoteServiceRegistryIndexTest extends TestCase {
+
+	private static final String FOO = "com.acme.Foo"; //$NON-NLS-1$
+
+	private static final String BAR = "com.acme.Bar"; //$NON-NLS-1$
+
+	private static final String BAZ = "com.acme.Baz"; //$NON-NLS-1$
+
+	private RegistrySharedObject registrySharedObject;
+
+	private RemoteServiceRegistryImpl registry;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		registrySharedObject = new RegistrySharedObject();
+		registry = new RemoteServiceRegistryImpl(IDFactory.getDefault().createGUID());
+	}
+
+	private RemoteServiceRegistrationImpl publish(String[] classes, String color) {
+		final Hashtable<String, Object> properties = new Hashtable<String, Object>();
+		properties.put("color", color); //$NON-NLS-1$
+		final RemoteServiceRegistrationImpl registration = new RemoteServiceRegistrationImpl();
+		registration.publish(registrySharedObject, registry, new Object(), classes, properties);
+		return registration;
+	}
+
+	private IRemoteFilter filter(String filter) throws Exception {
+		return registrySharedObject.createRemoteFilter(filter);
+	}
+
+	private static String serviceIdFilter(RemoteServiceRegistrationImpl registration, String rest) {
+		return RemoteFilterImpl.REMOTE_SERVICEID_PREFIX + registration.getServiceId() + ")" + rest + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static void assertReferences(RemoteServiceRegistrationImpl[] expected, IRemoteServiceReference[] actual) {
+		if (expected.length == 0) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++)
+			assertTrue(Arrays.asList(actual).contains(expected[i].getReference()));
+	}
+
+	public void testLookupByClass() throws Exception {
+		final RemoteServiceRegistrationImpl foo = publish(new String[] {FOO}, "red"); //$NON-NLS-1$
+		final RemoteServiceRegistrationImpl bar = publish(new String[] {BAR}, "red"); //$NON-NLS-1$
+		final RemoteServiceRegistrationImpl fooBar = publish(new String[] {FOO, BAR}, "blue"); //$NON-NLS-1$
+		assertReferences(new RemoteServiceRegistrationImpl[] {foo, fooBar}, registry.lookupServiceReferences(FOO, null));
+		assertReferences(new RemoteServiceRegistrationImpl[] {bar, fooBar}, registry.lookupServiceReferences(BAR, null));
+		assertReferences(new RemoteServiceRegistrationImpl[0], registry.lookupServiceReferences(BAZ, null));
+		assertReferences(new RemoteServiceRegistrationImpl[] {foo, bar, fooBar}, registry.lookupServiceReferences(null, null));
+		assertReferences(new RemoteServiceRegistrationImpl[] {foo, bar, fooBar}, registry.lookupServiceReferences());
+		// the filter is matched against the registrations of the class only
+		assertReferences(new RemoteServiceRegistrationImpl[] {foo}, registry.lookupServiceReferences(FOO, filter("(color=red)"))); //$NON-NLS-1$
+		assertReferences(new RemoteServiceRegistrationImpl[0], registry.lookupServiceReferences(BAR, filter("(color=green)"))); //$NON-NLS-1$
+	}
+
+	public void testLookupByServiceIdFilter() throws Exception {
+		publish(new String[] {FOO}, "red"); //$NON-NLS-1$
+		final RemoteServiceRegistrationImpl bar = publish(new String[] {BAR}, "red"); //$NON-NLS-1$
+		publish(new String[] {FOO, BAR}, "red"); //$NON-NLS-1$
+		final String matching = serviceIdFilter(bar, "(color=red)"); //$NON-NLS-1$
+		assertReferences(new RemoteServiceRegistrationImpl[] {bar}, registry.lookupServiceReferences(null, filter(matching)));
+		assertReferences(new RemoteServiceRegistrationImpl[] {bar}, registry.lookupServiceReferences(BAR, filter(matching)));
+		// not published under that class
+		assertReferences(new RemoteServiceRegistrationImpl[0], registry.lookupServiceReferences(FOO, filter(matching)));
+		// the rest of the filter still has to match
+		assertReferences(new RemoteServiceRegistrationImpl[0], registry.lookupServiceReferences(null, filter(serviceIdFilter(bar, "(color=blue)")))); //$NON-NLS-1$
+		// no such service
+		assertReferences(new RemoteServiceRegistrationImpl[0], registry.lookupServiceReferences(null, filter(RemoteFilterImpl.REMOTE_SERVICEID_PREFIX + (bar.getServiceId() + 1000) + ")(" + Constants.SERVICE_ID + "=*))"))); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testFindRegistration() throws Exception {
+		final RemoteServiceRegistrationImpl foo = publish(new String[] {FOO}, "red"); //$NON-NLS-1$
+		final RemoteServiceRegistrationImpl bar = publish(new String[] {BAR}, "red"); //$NON-NLS-1$
+		assertSame(foo, registry.findRegistrationForServiceId(foo.getServiceId()));
+		assertSame(bar, registry.findRegistrationForServiceId(bar.getServiceId()));
+		assertNull(registry.findRegistrationForServiceId(bar.getServiceId() + 1000));
+		assertSame(bar, registry.findRegistrationForRemoteServiceId(bar.getID()));
+		// same container relative id in another container
+		final RemoteServiceRegistryImpl other = new RemoteServiceRegistryImpl(IDFactory.getDefault().createGUID());
+		assertNull(registry.findRegistrationForRemoteServiceId(other.createRemoteServiceID(bar.getServiceId())));
+		assertEquals(2, registry.getRegistrations().length);
+	}
+
+	public void testUnpublishUpdatesIndex() throws Exception {
+		final RemoteServiceRegistrationImpl foo = publish(new String[] {FOO}, "red"); //$NON-NLS-1$
+		final RemoteServiceRegistrationImpl fooBar = publish(new String[] {FOO, BAR}, "red"); //$NON-NLS-1$
+		assertReferences(new RemoteServiceRegistrationImpl[] {foo, fooBar}, registry.lookupServiceReferences(FOO, null));
+		registry.unpublishService(fooBar);
+		assertReferences(new RemoteServiceRegistrationImpl[] {foo}, registry.lookupServiceReferences(FOO, null));
+		assertReferences(new RemoteServiceRegistrationImpl[0], registry.lookupServiceReferences(BAR, null));
+		assertNull(registry.findRegistrationForServiceId(fooBar.getServiceId()));
+		assertReferences(new RemoteServiceRegistrationImpl[0], registry.lookupServiceReferences(null, filter(serviceIdFilter(fooBar, "(color=red)")))); //$NON-NLS-1$
+		final RemoteServiceRegistrationImpl bar = publish(new String[] {BAR}, "red"); //$NON-NLS-1$
+		assertReferences(new RemoteServiceRegistrationImpl[] {bar}, registry.lookupServiceReferences(BAR, null));
+		assertSame(bar, registry.findRegistrationForServiceId(bar.getServiceId()));
+		registry.unpublishServices();
+		assertReferences(new RemoteServiceRegistrationImpl[0], registry.lookupServiceReferences());
+		assertNull(registry.findRegistrationForServiceId(foo.getServiceId()));
+		assertEquals(0, registry.getRegistrations().length);
+	}
+
+	public void testIndexRebuiltAfterDeserialization() throws Exception {
+		final RemoteServiceRegistrationImpl foo = publish(new String[] {FOO}, "red"); //$NON-NLS-1$
+		publish(new String[] {BAR}, "blue"); //$NON-NLS-1$
+		// index built before serializing
+		registry.lookupServiceReferences(FOO, null);
+		final ByteArrayOutputStream bouts = new ByteArrayOutputStream();
+		final ObjectOutputStream oos = new ObjectOutputStream(bouts);
+		oos.writeObject(registry);
+		oos.close();
+		final RemoteServiceRegistryImpl copy = (RemoteServiceRegistryImpl) new ObjectInputStream(new ByteArrayInputStream(bouts.toByteArray())).readObject();
+		final IRemoteServiceReference[] references = copy.lookupServiceReferences(FOO, null);
+		assertEquals(1, references.length);
+		assertEquals(foo.getID(), references[0].getID());
+		assertEquals(foo.getID(), copy.findRegistrationForServiceId(foo.getServiceId()).getID());
+		assertEquals(2, copy.lookupServiceReferences().length);
+	}
+
+	public void testFilterCache() throws Exception {
+		final IRemoteFilter red = filter("(color=red)"); //$NON-NLS-1$
+		assertSame(red, filter("(color=red)")); //$NON-NLS-1$
+		assertNotSame(red, filter("(color=blue)")); //$NON-NLS-1$
+		final RemoteServiceRegistrationImpl bar = publish(new String[] {BAR}, "red"); //$NON-NLS-1$
+		final String serviceId = serviceIdFilter(bar, "(color=red)"); //$NON-NLS-1$
+		final IRemoteFilter cached = filter(serviceId);
+		assertSame(cached, filter(serviceId));
+		assertEquals(bar.getServiceId(), ((RemoteFilterImpl) cached).getRsId());
+		assertTrue(cached.match(bar.getReference()));
+	}
+}
@@ -0,0 +1,278 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.remoteservice.generic;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectConfig;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectContext;
+import org.eclipse.ecf.core.sharedobject.util.IEnqueueProcessor;
+import org.eclipse.ecf.core.sharedobject.util.IQueueEnqueue;
+import org.eclipse.ecf.core.sharedobject.util.QueueException;
+import org.eclipse.ecf.core.util.Event;
+import org.eclipse.ecf.remoteservice.IRemoteCallListener;
+import org.eclipse.ecf.remoteservice.events.IRemoteCallCompleteEvent;
+import org.eclipse.ecf.remoteservice.events.IRemoteCallEvent;
+import org.eclipse.equinox.concurrent.future.TimeoutException;
+import org.osgi.framework.ServiceException;
+
+/**
+ * Tests how {@link RegistrySharedObject} expires pending call requests.  The
+ * registry is given a context whose queue delivers events to the registry on a
+ * single event thread, as a container does.
+ */
+public class RequestTimeoutTest extends TestCase {
+
+	private static final long TIMEOUT = 300;
+
+	private static final long WAIT = 5000;
+
+	static final String EVENT_THREAD = "RequestTimeoutTest events"; //$NON-NLS-1$
+
+	static class TestRegistry extends RegistrySharedObject {
+		final List<Throwable> logged = new ArrayList<Throwable>();
+
+		protected void log(int code, String method, Throwable e) {
+			synchronized (logged) {
+				logged.add(e);
+			}
+		}
+
+		int getLoggedCount() {
+			synchronized (logged) {
+				return logged.size();
+			}
+		}
+	}
+
+	class EventQueue implements IQueueEnqueue {
+		volatile boolean closed;
+
+		public void enqueue(final Event event) throws QueueException {
+			if (closed)
+				throw new QueueException("closed"); //$NON-NLS-1$
+			eventThread.execute(new Runnable() {
+				public void run() {
+					registry.handleEvent(event);
+				}
+			});
+		}
+
+		public void enqueue(Event[] events) throws QueueException {
+			for (int i = 0; i < events.length; i++)
+				enqueue(events[i]);
+		}
+
+		public Object enqueue_prepare(Event[] events) throws QueueException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void enqueue_commit(Object enqueueKey) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void enqueue_abort(Object enqueueKey) {
+			throw new UnsupportedOperationException();
+		}
+
+		public boolean enqueue_lossy(Event event) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void setEnqueueProcessor(IEnqueueProcessor processor) {
+			throw new UnsupportedOperationException();
+		}
+
+		public IEnqueueProcessor getEnqueueProcessor() {
+			return null;
+		}
+
+		public int size() {
+			return 0;
+		}
+	}
+
+	static class Listener implements IRemoteCallListener {
+		final List<IRemoteCallCompleteEvent> events = new ArrayList<IRemoteCallCompleteEvent>();
+		final CountDownLatch notified = new CountDownLatch(1);
+		volatile String threadName;
+
+		public void handleEvent(IRemoteCallEvent event) {
+			synchronized (events) {
+				events.add((IRemoteCallCompleteEvent) event);
+			}
+			threadName = Thread.currentThread().getName();
+			notified.countDown();
+		}
+
+		IRemoteCallCompleteEvent awaitEvent() throws InterruptedException {
+			assertTrue("listener not notified", notified.await(WAIT, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+			synchronized (events) {
+				assertEquals(1, events.size());
+				return events.get(0);
+			}
+		}
+
+		int getEventCount() {
+			synchronized (events) {
+				return events.size();
+			}
+		}
+	}
+
+	ExecutorService eventThread;
+
+	TestRegistry registry;
+
+	private EventQueue queue;
+
+	private ID localID;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		eventThread = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				return new Thread(r, EVENT_THREAD);
+			}
+		});
+		localID = IDFactory.getDefault().createGUID();
+		queue = new EventQueue();
+		// Only the queue and the local container ID are used by these tests
+		final ISharedObjectContext context = (ISharedObjectContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {ISharedObjectContext.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getQueue")) //$NON-NLS-1$
+					return queue;
+				if (method.getName().equals("getLocalContainerID")) //$NON-NLS-1$
+					return localID;
+				if (method.getReturnType() == boolean.class)
+					return Boolean.FALSE;
+				return null;
+			}
+		});
+		final ID registryID = IDFactory.getDefault().createGUID();
+		registry = new TestRegistry();
+		registry.init(new ISharedObjectConfig() {
+			public ID getSharedObjectID() {
+				return registryID;
+			}
+
+			public ID getHomeContainerID() {
+				return localID;
+			}
+
+			public ISharedObjectContext getContext() {
+				return context;
+			}
+
+			public Map<String, ?> getProperties() {
+				return null;
+			}
+		});
+	}
+
+	protected void tearDown() throws Exception {
+		eventThread.shutdownNow();
+		super.tearDown();
+	}
+
+	private Request addRequest(IRemoteCallListener listener) {
+		final Request request = new Request(localID, 1, RemoteCallImpl.createRemoteCall(null, "concat", new Object[] {"a", "b"}, TIMEOUT), listener); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertTrue(registry.addRequest(request));
+		return request;
+	}
+
+	/**
+	 * Wait until the event thread has handled everything enqueued so far.
+	 */
+	private void drainEvents() throws Exception {
+		eventThread.submit(new Runnable() {
+			public void run() {
+				// nothing
+			}
+		}).get(WAIT, TimeUnit.MILLISECONDS);
+	}
+
+	public void testTimeoutNotifiesListenerOnEventThread() throws Exception {
+		final Listener listener = new Listener();
+		final Request request = addRequest(listener);
+		final IRemoteCallCompleteEvent event = listener.awaitEvent();
+		assertEquals(EVENT_THREAD, listener.threadName);
+		assertEquals(request.getRequestId(), event.getRequestId());
+		assertTrue(event.hadException());
+		assertTrue(event.getException() instanceof ServiceException);
+		assertTrue(event.getException().getCause() instanceof TimeoutException);
+		assertNull(registry.getRequest(request.getRequestId()));
+	}
+
+	public void testLateResponseDropped() throws Exception {
+		final Listener listener = new Listener();
+		final Request request = addRequest(listener);
+		assertTrue(listener.awaitEvent().hadException());
+		final int logged = registry.getLoggedCount();
+		registry.handleCallResponse(new Response(request.getRequestId(), "ab")); //$NON-NLS-1$
+		drainEvents();
+		assertEquals(1, listener.getEventCount());
+		// logged as a response to an unknown request
+		assertEquals(logged + 1, registry.getLoggedCount());
+	}
+
+	public void testResponseBeforeTimeout() throws Exception {
+		final Listener listener = new Listener();
+		final Request request = addRequest(listener);
+		registry.handleCallResponse(new Response(request.getRequestId(), "ab")); //$NON-NLS-1$
+		final IRemoteCallCompleteEvent event = listener.awaitEvent();
+		assertFalse(event.hadException());
+		assertEquals("ab", event.getResponse()); //$NON-NLS-1$
+		// the timeout was cancelled with the request
+		assertFalse(request.timeout.cancel());
+		Thread.sleep(TIMEOUT * 2);
+		drainEvents();
+		assertEquals(1, listener.getEventCount());
+		assertEquals(0, registry.getLoggedCount());
+	}
+
+	public void testTimeoutAfterQueueClosed() throws Exception {
+		queue.closed = true;
+		final Listener listener = new Listener();
+		addRequest(listener);
+		assertTrue(listener.awaitEvent().hadException());
+		// nowhere else to notify the listener
+		assertFalse(EVENT_THREAD.equals(listener.threadName));
+	}
+
+	public void testTimeoutCompletesFuture() throws Exception {
+		final Request request = addRequest(null);
+		try {
+			request.getResponseFuture().get(WAIT, TimeUnit.MILLISECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertNull(registry.getRequest(request.getRequestId()));
+	}
+}
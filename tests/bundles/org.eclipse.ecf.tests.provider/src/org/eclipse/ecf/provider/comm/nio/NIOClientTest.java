@@ -0,0 +1,303 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.nio;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.comm.AsynchEvent;
+import org.eclipse.ecf.provider.comm.ConnectionEvent;
+import org.eclipse.ecf.provider.comm.DisconnectEvent;
+import org.eclipse.ecf.provider.comm.ISynchAsynchEventHandler;
+import org.eclipse.ecf.provider.comm.SynchEvent;
+import org.eclipse.ecf.provider.comm.tcp.AsynchMessage;
+import org.eclipse.ecf.provider.comm.tcp.ConnectRequestMessage;
+import org.eclipse.ecf.provider.comm.tcp.ConnectResultMessage;
+
+/**
+ * Tests that {@link NIOClient} finds message boundaries however the bytes of
+ * the stream arrive, and closes connections sending too large messages.  The
+ * peer is either a blocking socket written by the test, or an
+ * {@link NIOServer}.
+ */
+public class NIOClientTest extends TestCase {
+
+	private static final long WAIT = 10000;
+
+	static class Handler implements ISynchAsynchEventHandler {
+		final ID id;
+		final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+		final CountDownLatch disconnected = new CountDownLatch(1);
+		volatile Throwable disconnectException;
+
+		Handler() throws Exception {
+			id = IDFactory.getDefault().createGUID();
+		}
+
+		public ID getEventHandlerID() {
+			return id;
+		}
+
+		public void handleDisconnectEvent(DisconnectEvent event) {
+			disconnectException = event.getException();
+			disconnected.countDown();
+		}
+
+		public void handleConnectEvent(ConnectionEvent event) {
+			// not used
+		}
+
+		public void handleAsynchEvent(AsynchEvent event) {
+			received.add(event.getData());
+		}
+
+		public Object handleSynchEvent(SynchEvent event) {
+			return null;
+		}
+
+		Object nextReceived() throws InterruptedException {
+			final Object result = received.poll(WAIT, TimeUnit.MILLISECONDS);
+			assertNotNull("nothing received", result); //$NON-NLS-1$
+			return result;
+		}
+
+		void awaitDisconnect() throws InterruptedException {
+			assertTrue("not disconnected", disconnected.await(WAIT, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Writes to the socket in chunks of the given size, flushing each, so
+	 * that the client reads partial messages.
+	 */
+	static class ChunkedOutputStream extends FilterOutputStream {
+		private final int chunk;
+
+		ChunkedOutputStream(OutputStream out, int chunk) {
+			super(out);
+			this.chunk = chunk;
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				final int n = Math.min(len, chunk);
+				out.write(b, off, n);
+				out.flush();
+				off += n;
+				len -= n;
+			}
+		}
+	}
+
+	private NIOSelectorGroup group;
+
+	private ServerSocket serverSocket;
+
+	private Socket peer;
+
+	private ObjectOutputStream peerOutput;
+
+	private Handler handler;
+
+	private NIOClient client;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		group = new NIOSelectorGroup("NIOClientTest", 1, 2); //$NON-NLS-1$
+		handler = new Handler();
+	}
+
+	protected void tearDown() throws Exception {
+		if (client != null)
+			client.disconnect();
+		if (peer != null)
+			peer.close();
+		if (serverSocket != null)
+			serverSocket.close();
+		group.shutdown();
+		super.tearDown();
+	}
+
+	private static byte[] bytes(int length, int seed) {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = (byte) (i * 31 + seed);
+		return bytes;
+	}
+
+	/**
+	 * Connect a client to a blocking peer that writes in chunks of the given
+	 * size.
+	 */
+	private void connectToPeer(final int chunk) throws Exception {
+		serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		final Exception[] peerException = new Exception[1];
+		final Thread acceptor = new Thread(new Runnable() {
+			public void run() {
+				try {
+					peer = serverSocket.accept();
+					peer.setTcpNoDelay(true);
+					peerOutput = new ObjectOutputStream(new ChunkedOutputStream(peer.getOutputStream(), chunk));
+					peerOutput.flush();
+					final ObjectInputStream in = new ObjectInputStream(peer.getInputStream());
+					final ConnectRequestMessage request = (ConnectRequestMessage) in.readObject();
+					peerOutput.writeObject(new ConnectResultMessage(request.getData()));
+					peerOutput.flush();
+				} catch (Exception e) {
+					peerException[0] = e;
+				}
+			}
+		});
+		acceptor.start();
+		client = new NIOClient(group, handler, 0);
+		final ID serverID = IDFactory.getDefault().createStringID("ecftcp://localhost:" + serverSocket.getLocalPort() + "/server"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("hello", client.connect(serverID, "hello", (int) WAIT)); //$NON-NLS-1$ //$NON-NLS-2$
+		acceptor.join(WAIT);
+		assertNull(peerException[0]);
+		client.start();
+	}
+
+	private void assertReceivedInOrder(int chunk) throws Exception {
+		connectToPeer(chunk);
+		final int count = 50;
+		for (int i = 0; i < count; i++) {
+			peerOutput.writeObject(new AsynchMessage(bytes(i * 997, i)));
+			if (i % 10 == 0)
+				peerOutput.reset();
+		}
+		peerOutput.flush();
+		for (int i = 0; i < count; i++)
+			assertTrue("message " + i, Arrays.equals(bytes(i * 997, i), (byte[]) handler.nextReceived())); //$NON-NLS-1$
+	}
+
+	public void testPartialReads() throws Exception {
+		assertReceivedInOrder(7);
+	}
+
+	public void testSingleByteReads() throws Exception {
+		assertReceivedInOrder(1);
+	}
+
+	public void testMessagesLargerThanReadBuffer() throws Exception {
+		connectToPeer(100000);
+		final byte[] large = bytes(NIOClient.DEFAULT_READ_BUFFER_SIZE * 5 + 3, 1);
+		peerOutput.writeObject(new AsynchMessage(large));
+		peerOutput.writeObject(new AsynchMessage("after")); //$NON-NLS-1$
+		peerOutput.flush();
+		assertTrue(Arrays.equals(large, (byte[]) handler.nextReceived()));
+		assertEquals("after", handler.nextReceived()); //$NON-NLS-1$
+	}
+
+	public void testOversizeMessageClosesConnection() throws Exception {
+		connectToPeer(100000);
+		client.setMaxMessageSize(NIOClient.DEFAULT_READ_BUFFER_SIZE * 2);
+		peerOutput.writeObject(new AsynchMessage("before")); //$NON-NLS-1$
+		peerOutput.flush();
+		assertEquals("before", handler.nextReceived()); //$NON-NLS-1$
+		try {
+			peerOutput.writeObject(new AsynchMessage(new byte[NIOClient.DEFAULT_READ_BUFFER_SIZE * 4]));
+			peerOutput.flush();
+		} catch (IOException e) {
+			// closed by the client while writing
+		}
+		handler.awaitDisconnect();
+		assertTrue(String.valueOf(handler.disconnectException), handler.disconnectException instanceof IOException);
+		assertFalse(client.isConnected());
+		assertTrue(handler.received.isEmpty());
+	}
+
+	public void testNIOServer() throws Exception {
+		final Handler serverHandler = new Handler();
+		final NIOServer server = new NIOServer(group, 0, InetAddress.getLoopbackAddress(), new INIOAcceptHandler() {
+			public Serializable handleConnectRequest(NIOClient c, ConnectRequestMessage req) {
+				c.setEventHandler(serverHandler);
+				c.start();
+				return "accepted:" + req.getData(); //$NON-NLS-1$
+			}
+		});
+		try {
+			client = new NIOClient(group, handler, 0);
+			final ID serverID = IDFactory.getDefault().createStringID("ecftcp://localhost:" + server.getLocalPort() + "/server"); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("accepted:hello", client.connect(serverID, "hello", (int) WAIT)); //$NON-NLS-1$ //$NON-NLS-2$
+			client.start();
+			final byte[] large = bytes(NIOClient.DEFAULT_READ_BUFFER_SIZE * 3, 2);
+			for (int i = 0; i < 20; i++)
+				client.sendAsynch(null, (i % 2 == 0) ? (Object) large : Integer.valueOf(i));
+			for (int i = 0; i < 20; i++) {
+				final Object received = serverHandler.nextReceived();
+				if (i % 2 == 0)
+					assertTrue(Arrays.equals(large, (byte[]) received));
+				else
+					assertEquals(Integer.valueOf(i), received);
+			}
+		} finally {
+			server.close();
+		}
+	}
+
+	public void testDispatchRetriedWhenWorkerQueueFull() throws Exception {
+		group.shutdown();
+		// one worker and room for one waiting task
+		group = new NIOSelectorGroup("NIOClientTest", 1, 1, 1); //$NON-NLS-1$
+		final CountDownLatch running = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Runnable block = new Runnable() {
+			public void run() {
+				running.countDown();
+				try {
+					release.await(WAIT, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		connectToPeer(100000);
+		// Keep the worker busy and the queue full.  The client's own dispatch
+		// task may still be queued from starting it.
+		while (running.getCount() > 0) {
+			try {
+				group.getWorkers().execute(block);
+				assertTrue(running.await(WAIT, TimeUnit.MILLISECONDS));
+			} catch (RejectedExecutionException e) {
+				Thread.sleep(10);
+			}
+		}
+		try {
+			group.getWorkers().execute(block);
+		} catch (RejectedExecutionException e) {
+			// already full
+		}
+		peerOutput.writeObject(new AsynchMessage("queued")); //$NON-NLS-1$
+		peerOutput.flush();
+		assertNull(handler.received.poll(200, TimeUnit.MILLISECONDS));
+		release.countDown();
+		assertEquals("queued", handler.nextReceived()); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,184 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.nio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.provider.comm.tcp.AsynchMessage;
+
+public class SerializationStreamScannerTest extends TestCase {
+
+	enum Color {
+		RED, GREEN
+	}
+
+	static class Node implements Serializable {
+		private static final long serialVersionUID = 1L;
+		final int value;
+		final Node next;
+		final Object[] values;
+
+		Node(int value, Node next, Object[] values) {
+			this.value = value;
+			this.next = next;
+			this.values = values;
+		}
+	}
+
+	private byte[] stream;
+
+	// offsets in stream just after the header and after each object
+	private List<Integer> boundaries;
+
+	/**
+	 * Write the given objects to a single stream, resetting it before the
+	 * objects at the given indexes, and record where each object ends.
+	 */
+	private void write(Object[] objects, int[] resets) throws Exception {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.flush();
+		boundaries = new ArrayList<Integer>();
+		boundaries.add(Integer.valueOf(bos.size()));
+		for (int i = 0; i < objects.length; i++) {
+			for (int j = 0; j < resets.length; j++)
+				if (resets[j] == i)
+					oos.reset();
+			oos.writeObject(objects[i]);
+			oos.flush();
+			boundaries.add(Integer.valueOf(bos.size()));
+		}
+		oos.close();
+		stream = bos.toByteArray();
+	}
+
+	private static Object[] objects() {
+		final HashMap<String, Object> map = new HashMap<String, Object>();
+		map.put("key", new int[] {1, 2, 3}); //$NON-NLS-1$
+		map.put("color", Color.GREEN); //$NON-NLS-1$
+		final Node list = new Node(1, new Node(2, null, new Object[] {"two", Long.valueOf(2)}), new Object[] {Color.RED, null}); //$NON-NLS-1$
+		final char[] longString = new char[70000];
+		Arrays.fill(longString, 'x');
+		return new Object[] {new AsynchMessage("first"), list, map, new AsynchMessage(new byte[20000]), new String(longString), Color.RED, new Node(3, list, new Object[] {map}), String.class, null, new AsynchMessage("last")}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Scan the stream as a reader given the bytes in chunks of the given size
+	 * would, and check every object is found where it ends.
+	 */
+	private void assertBoundaries(int chunk) throws Exception {
+		final SerializationStreamScanner scanner = new SerializationStreamScanner();
+		final List<Integer> found = new ArrayList<Integer>();
+		int start = 0;
+		boolean headerScanned = false;
+		for (int lim = Math.min(chunk, stream.length);; lim = Math.min(lim + chunk, stream.length)) {
+			for (;;) {
+				if (!headerScanned) {
+					final int p = scanner.scanHeader(stream, start, lim);
+					if (p < 0)
+						break;
+					headerScanned = true;
+					start = p;
+					found.add(Integer.valueOf(p));
+				}
+				final int end = scanner.scan(stream, start, lim);
+				if (end < 0)
+					break;
+				assertTrue(end <= lim);
+				found.add(Integer.valueOf(end));
+				start = end;
+			}
+			if (lim == stream.length)
+				break;
+		}
+		assertEquals(boundaries, found);
+	}
+
+	public void testWholeStream() throws Exception {
+		write(objects(), new int[0]);
+		assertBoundaries(stream.length);
+	}
+
+	public void testByteAtATime() throws Exception {
+		// back references to class descriptors written by earlier objects
+		// must survive the failed attempts on partial objects
+		write(objects(), new int[0]);
+		assertBoundaries(1);
+	}
+
+	public void testPartialReads() throws Exception {
+		write(objects(), new int[0]);
+		for (int chunk = 2; chunk < 100; chunk += 7)
+			assertBoundaries(chunk);
+		assertBoundaries(4096);
+	}
+
+	public void testResets() throws Exception {
+		write(objects(), new int[] {1, 2, 6, 9});
+		assertBoundaries(1);
+		assertBoundaries(13);
+	}
+
+	public void testIncompleteObject() throws Exception {
+		write(new Object[] {new AsynchMessage(new byte[1000])}, new int[0]);
+		final SerializationStreamScanner scanner = new SerializationStreamScanner();
+		final int p = scanner.scanHeader(stream, 0, stream.length);
+		assertEquals(SerializationStreamScanner.HEADER_LENGTH, p);
+		assertEquals(-1, scanner.scan(stream, p, stream.length - 1));
+		// nothing more is looked at until enough bytes for the array are there
+		assertEquals(-1, scanner.scan(stream, p, stream.length - 1));
+		assertEquals(stream.length, scanner.scan(stream, p, stream.length));
+	}
+
+	public void testIncompleteHeader() throws Exception {
+		write(new Object[0], new int[0]);
+		assertEquals(-1, new SerializationStreamScanner().scanHeader(stream, 0, SerializationStreamScanner.HEADER_LENGTH - 1));
+	}
+
+	public void testInvalidHeader() throws Exception {
+		try {
+			new SerializationStreamScanner().scanHeader(new byte[] {0, 0, 0, 5}, 0, 4);
+			fail();
+		} catch (StreamCorruptedException e) {
+			// expected
+		}
+	}
+
+	public void testInvalidTypeCode() throws Exception {
+		try {
+			new SerializationStreamScanner().scan(new byte[] {0x10}, 0, 1);
+			fail();
+		} catch (StreamCorruptedException e) {
+			// expected
+		}
+	}
+
+	public void testInvalidHandle() throws Exception {
+		// TC_REFERENCE to a handle that was never assigned
+		try {
+			new SerializationStreamScanner().scan(new byte[] {0x71, 0, 0x7e, 0, 5}, 0, 5);
+			fail();
+		} catch (StreamCorruptedException e) {
+			// expected
+		}
+	}
+}
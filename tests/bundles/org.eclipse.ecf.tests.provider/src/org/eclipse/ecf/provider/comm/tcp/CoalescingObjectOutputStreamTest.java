@@ -0,0 +1,121 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class CoalescingObjectOutputStreamTest extends TestCase {
+
+	private static byte[] bytes(int length) {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = (byte) (i * 31);
+		return bytes;
+	}
+
+	/**
+	 * Buffers over parts of the given bytes: a heap buffer at a non zero
+	 * offset, a direct buffer, and an empty buffer.
+	 */
+	private static ByteBuffer[] buffers(byte[] bytes) {
+		final int split = bytes.length / 3;
+		final byte[] padded = new byte[split + 10];
+		System.arraycopy(bytes, 0, padded, 5, split);
+		final ByteBuffer heap = ByteBuffer.wrap(padded, 5, split);
+		final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length - split);
+		direct.put(bytes, split, bytes.length - split);
+		direct.flip();
+		return new ByteBuffer[] {heap, ByteBuffer.allocate(0), direct};
+	}
+
+	/**
+	 * What a stream would write for the same message without the buffers:
+	 * the message as a byte array, between resets.
+	 */
+	private static byte[] expected(byte[] data) throws Exception {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(new AsynchMessage("before")); //$NON-NLS-1$
+		oos.reset();
+		oos.writeObject(new AsynchMessage(data));
+		oos.reset();
+		oos.writeObject(new AsynchMessage("after")); //$NON-NLS-1$
+		oos.close();
+		return bos.toByteArray();
+	}
+
+	private static byte[] actual(ByteBuffer[] data) throws Exception {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final CoalescingObjectOutputStream oos = new CoalescingObjectOutputStream(bos, 64);
+		oos.writeObject(new AsynchMessage("before")); //$NON-NLS-1$
+		oos.writeAsynchMessage(data);
+		oos.writeObject(new AsynchMessage("after")); //$NON-NLS-1$
+		oos.close();
+		assertEquals(bos.size(), oos.getBytesWritten());
+		return bos.toByteArray();
+	}
+
+	private void assertSameStream(byte[] data) throws Exception {
+		final ByteBuffer[] buffers = buffers(data);
+		final int[] positions = new int[buffers.length];
+		for (int i = 0; i < buffers.length; i++)
+			positions[i] = buffers[i].position();
+		final byte[] actual = actual(buffers);
+		assertTrue("Stream differs", Arrays.equals(expected(data), actual)); //$NON-NLS-1$
+		for (int i = 0; i < buffers.length; i++)
+			assertEquals(positions[i], buffers[i].position());
+		final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(actual));
+		assertEquals("before", ((AsynchMessage) ois.readObject()).getData()); //$NON-NLS-1$
+		assertTrue(Arrays.equals(data, (byte[]) ((AsynchMessage) ois.readObject()).getData()));
+		assertEquals("after", ((AsynchMessage) ois.readObject()).getData()); //$NON-NLS-1$
+	}
+
+	public void testSmallMessage() throws Exception {
+		assertSameStream(bytes(10));
+	}
+
+	public void testEmptyMessage() throws Exception {
+		assertSameStream(new byte[0]);
+	}
+
+	public void testMessageLargerThanBuffer() throws Exception {
+		assertSameStream(bytes(100000));
+	}
+
+	public void testConsecutiveMessages() throws Exception {
+		final byte[] data1 = bytes(100);
+		final byte[] data2 = bytes(300);
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		final ObjectOutputStream oos = new ObjectOutputStream(expected);
+		oos.reset();
+		oos.writeObject(new AsynchMessage(data1));
+		oos.reset();
+		oos.reset();
+		oos.writeObject(new AsynchMessage(data2));
+		oos.reset();
+		oos.close();
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		final CoalescingObjectOutputStream coos = new CoalescingObjectOutputStream(actual);
+		coos.writeAsynchMessage(buffers(data1));
+		coos.writeAsynchMessage(buffers(data2));
+		coos.close();
+		assertTrue("Stream differs", Arrays.equals(expected.toByteArray(), actual.toByteArray())); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,93 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.internal.provider.ByteBufferUtil;
+
+public class ContainerMessageTemplateTest extends TestCase {
+
+	private ID from;
+
+	private ID sharedObjectID;
+
+	private ID[] recipients;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		from = IDFactory.getDefault().createStringID("server"); //$NON-NLS-1$
+		sharedObjectID = IDFactory.getDefault().createGUID();
+		recipients = new ID[] {IDFactory.getDefault().createStringID("client"), //$NON-NLS-1$
+				IDFactory.getDefault().createGUID(), IDFactory.getDefault().createLongID(42), IDFactory.getDefault().createStringID("server"), //$NON-NLS-1$
+				IDFactory.getDefault().createURIID("ecftcp://localhost:3282/server"), //$NON-NLS-1$
+				null};
+	}
+
+	public void testStringData() throws Exception {
+		assertSameBytes("data"); //$NON-NLS-1$
+	}
+
+	public void testLargeData() throws Exception {
+		final byte[] data = new byte[100000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) i;
+		assertSameBytes(data);
+	}
+
+	public void testDataReferencingIDs() throws Exception {
+		// The data refers to the same IDs as the message and its recipients
+		final HashMap<String, Serializable> data = new HashMap<String, Serializable>();
+		data.put("from", from); //$NON-NLS-1$
+		data.put("client", IDFactory.getDefault().createStringID("client")); //$NON-NLS-1$ //$NON-NLS-2$
+		data.put("ids", recipients); //$NON-NLS-1$
+		assertSameBytes(data);
+	}
+
+	/**
+	 * Everything up to the toContainerID, which includes the data, is byte for
+	 * byte the same as the message serialized on its own.  The toContainerID
+	 * itself is serialized without references to the class descriptors before
+	 * it, so only a <code>null</code> one is identical as well; the others
+	 * must read back as the same message.
+	 */
+	private void assertSameBytes(Serializable data) throws Exception {
+		final Serializable messageData = ContainerMessage.createSharedObjectMessage(from, null, 0, sharedObjectID, data).getData();
+		final ContainerMessageTemplate template = ContainerMessageTemplate.create(from, messageData);
+		assertNotNull(template);
+		// Twice, to serialize again for recipients already serialized
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < recipients.length; i++) {
+				final long sequence = 0x123456789abcdefL * (i + 1) + round;
+				final byte[] expected = SOContainer.serialize(ContainerMessage.createSharedObjectMessage(from, recipients[i], sequence, sharedObjectID, data));
+				final ByteBuffer[] buffers = template.serialize(recipients[i], sequence);
+				final byte[] actual = ByteBufferUtil.toByteArray(buffers);
+				final int prefixLength = actual.length - buffers[buffers.length - 1].remaining();
+				assertTrue("Prefix differs for " + recipients[i], Arrays.equals(Arrays.copyOf(expected, prefixLength), Arrays.copyOf(actual, prefixLength))); //$NON-NLS-1$
+				if (recipients[i] == null)
+					assertTrue("Serialized message differs", Arrays.equals(expected, actual)); //$NON-NLS-1$
+				final ContainerMessage message = SOContainer.deserializeContainerMessage(actual);
+				assertEquals(recipients[i], message.getToContainerID());
+				assertEquals(from, message.getFromContainerID());
+				assertEquals(sequence, message.getSequence());
+			}
+		}
+	}
+}
@@ -0,0 +1,201 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.ISharedObject;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectConfig;
+import org.eclipse.ecf.core.sharedobject.SharedObjectInitException;
+import org.eclipse.ecf.core.sharedobject.events.RemoteSharedObjectEvent;
+import org.eclipse.ecf.core.util.Event;
+
+/**
+ * Tests that shared object messages deserialized by the container's message
+ * executor are delivered in the order they were received, whatever the order
+ * their deserialization completes in, and that none are lost when the
+ * executor's queue is full.
+ */
+public class PendingMessageOrderTest extends TestCase {
+
+	private static final long WAIT = 20000;
+
+	/**
+	 * An event queued between the messages, which must not overtake them.
+	 */
+	static class Marker implements Event {
+		final Integer value;
+
+		Marker(int value) {
+			this.value = Integer.valueOf(value);
+		}
+	}
+
+	/**
+	 * Records the messages and markers it handles.
+	 */
+	static class RecordingSharedObject implements ISharedObject {
+		final List<Object> received = new ArrayList<Object>();
+		CountDownLatch done;
+
+		public void init(ISharedObjectConfig config) throws SharedObjectInitException {
+			// nothing to initialize
+		}
+
+		public void handleEvent(Event event) {
+			Object value = null;
+			if (event instanceof RemoteSharedObjectEvent) {
+				final RawSharedObjectMessage message = (RawSharedObjectMessage) ((RemoteSharedObjectEvent) event).getData();
+				value = Integer.valueOf(message.getBytes()[message.getOffset()]);
+			} else if (event instanceof Marker)
+				value = ((Marker) event).value;
+			if (value != null) {
+				synchronized (received) {
+					received.add(value);
+				}
+				done.countDown();
+			}
+		}
+
+		public void handleEvents(Event[] events) {
+			for (int i = 0; i < events.length; i++)
+				handleEvent(events[i]);
+		}
+
+		public void dispose(ID containerID) {
+			// nothing to dispose
+		}
+
+		public <T> T getAdapter(Class<T> adapter) {
+			return null;
+		}
+
+		void assertReceivedInOrder(int count) {
+			synchronized (received) {
+				assertEquals(count, received.size());
+				for (int i = 0; i < count; i++)
+					assertEquals(Integer.valueOf(i), received.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Holds the tasks given to it until they are run.
+	 */
+	static class HoldingExecutor implements Executor {
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+
+		public synchronized void execute(Runnable command) {
+			tasks.add(command);
+		}
+
+		synchronized void runInReverse() {
+			for (int i = tasks.size() - 1; i >= 0; i--)
+				tasks.get(i).run();
+			tasks.clear();
+		}
+	}
+
+	private Executor executor;
+
+	private SOContainer container;
+
+	private ID sharedObjectID;
+
+	private RecordingSharedObject so;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		container = new TCPClientSOContainer(new SOContainerConfig(IDFactory.getDefault().createGUID())) {
+			protected Executor getSharedObjectMessageExecutor() {
+				return executor;
+			}
+		};
+		sharedObjectID = IDFactory.getDefault().createGUID();
+		so = new RecordingSharedObject();
+		container.getSharedObjectManager().addSharedObject(sharedObjectID, so, null);
+	}
+
+	protected void tearDown() throws Exception {
+		container.dispose();
+		if (executor instanceof ThreadPoolExecutor)
+			((ThreadPoolExecutor) executor).shutdownNow();
+		super.tearDown();
+	}
+
+	private void receive(int value) throws Exception {
+		// raw, so that it is deserialized without the bundle's class loader
+		final byte[] data = container.serializeSharedObjectMessage(sharedObjectID, new RawSharedObjectMessage(new byte[] {(byte) value}));
+		container.handleSharedObjectMessage(ContainerMessage.createSharedObjectMessage(IDFactory.getDefault().createGUID(), container.getID(), 0, sharedObjectID, data));
+	}
+
+	public void testDeserializedOutOfOrder() throws Exception {
+		final HoldingExecutor holding = new HoldingExecutor();
+		executor = holding;
+		final int count = 100;
+		so.done = new CountDownLatch(count);
+		for (int i = 0; i < count; i++) {
+			if (i % 10 == 5)
+				container.getSharedObjectWrapper(sharedObjectID).deliverEvent(new Marker(i));
+			else
+				receive(i);
+		}
+		// nothing after the first message can be delivered before it
+		Thread.sleep(200);
+		so.assertReceivedInOrder(0);
+		// the last message is deserialized first
+		holding.runInReverse();
+		assertTrue(so.done.await(WAIT, TimeUnit.MILLISECONDS));
+		so.assertReceivedInOrder(count);
+	}
+
+	public void testQueueFull() throws Exception {
+		final ThreadPoolExecutor pool = SOContainer.createMessageDeserializer(1, 2);
+		executor = pool;
+		// occupy the only thread, so that the queue fills up
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		pool.execute(new Runnable() {
+			public void run() {
+				blocked.countDown();
+				try {
+					release.await(WAIT, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		assertTrue(blocked.await(WAIT, TimeUnit.MILLISECONDS));
+		final int count = 50;
+		so.done = new CountDownLatch(count);
+		for (int i = 0; i < count; i++)
+			receive(i);
+		assertEquals(2, pool.getQueue().size());
+		// the messages deserialized on this thread wait for the two queued
+		// ones before them
+		Thread.sleep(200);
+		so.assertReceivedInOrder(0);
+		release.countDown();
+		assertTrue(so.done.await(WAIT, TimeUnit.MILLISECONDS));
+		so.assertReceivedInOrder(count);
+	}
+}
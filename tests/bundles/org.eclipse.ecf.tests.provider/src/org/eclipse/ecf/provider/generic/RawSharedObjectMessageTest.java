@@ -0,0 +1,121 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.util.ISharedObjectMessageSerializer;
+
+public class RawSharedObjectMessageTest extends TestCase {
+
+	private SOContainer container;
+
+	private ID sharedObjectID;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		container = new TCPClientSOContainer(new SOContainerConfig(IDFactory.getDefault().createGUID()));
+		sharedObjectID = IDFactory.getDefault().createGUID();
+	}
+
+	protected void tearDown() throws Exception {
+		container.dispose();
+		super.tearDown();
+	}
+
+	private static byte[] bytes(int length) {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = (byte) (i * 31);
+		return bytes;
+	}
+
+	private static byte[] range(RawSharedObjectMessage message) {
+		return Arrays.copyOfRange(message.getBytes(), message.getOffset(), message.getOffset() + message.getLength());
+	}
+
+	public void testRawMessageNotSerializedAgain() throws Exception {
+		final byte[] data = bytes(1000);
+		final byte[] padded = new byte[data.length + 10];
+		System.arraycopy(data, 0, padded, 5, data.length);
+		final byte[] serialized = container.serializeSharedObjectMessage(sharedObjectID, new RawSharedObjectMessage(padded, 5, data.length));
+		// only the one byte type is added
+		assertEquals(data.length + 1, serialized.length);
+		assertTrue(Arrays.equals(data, Arrays.copyOfRange(serialized, 1, serialized.length)));
+		final Object received = container.deserializeSharedObjectMessage(serialized);
+		assertTrue(received instanceof RawSharedObjectMessage);
+		final RawSharedObjectMessage message = (RawSharedObjectMessage) received;
+		// not copied on receipt
+		assertSame(serialized, message.getBytes());
+		assertTrue(Arrays.equals(data, range(message)));
+	}
+
+	public void testEmptyRawMessage() throws Exception {
+		final byte[] serialized = container.serializeSharedObjectMessage(sharedObjectID, new RawSharedObjectMessage(new byte[0]));
+		assertEquals(1, serialized.length);
+		final RawSharedObjectMessage message = (RawSharedObjectMessage) container.deserializeSharedObjectMessage(serialized);
+		assertEquals(0, message.getLength());
+	}
+
+	public void testOtherMessagesUnchanged() throws Exception {
+		// byte arrays and other messages are still serialized as objects
+		final byte[] serialized = container.serializeSharedObjectMessage(sharedObjectID, bytes(10));
+		assertEquals((byte) 0xAC, serialized[0]);
+		assertEquals((byte) 0xED, serialized[1]);
+		assertFalse(RawSharedObjectMessage.isRawMessage(serialized));
+		assertFalse(RawSharedObjectMessage.isRawMessage(container.serializeSharedObjectMessage(sharedObjectID, "data"))); //$NON-NLS-1$
+	}
+
+	public void testRawMessageRelayed() throws Exception {
+		final byte[] data = bytes(100);
+		final ID from = IDFactory.getDefault().createGUID();
+		final ContainerMessage message = ContainerMessage.createSharedObjectMessage(from, null, 1, sharedObjectID, container.serializeSharedObjectMessage(sharedObjectID, new RawSharedObjectMessage(data)));
+		// A server reads and writes the container message as it relays it
+		ContainerMessage relayed = message;
+		for (int i = 0; i < 2; i++) {
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			final ObjectOutputStream oos = new ObjectOutputStream(bos);
+			oos.writeObject(relayed);
+			oos.close();
+			relayed = (ContainerMessage) new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+		}
+		final byte[] received = (byte[]) ((ContainerMessage.SharedObjectMessage) relayed.getData()).getData();
+		final RawSharedObjectMessage raw = (RawSharedObjectMessage) container.deserializeSharedObjectMessage(received);
+		assertTrue(Arrays.equals(data, range(raw)));
+	}
+
+	public void testCustomSerializerGetsRawMessage() throws Exception {
+		final Object[] serialized = new Object[1];
+		container.setSharedObjectMessageSerializer(new ISharedObjectMessageSerializer() {
+			public byte[] serializeMessage(ID id, Object message) {
+				serialized[0] = message;
+				return new byte[0];
+			}
+
+			public Object deserializeMessage(byte[] data) {
+				return null;
+			}
+		});
+		final RawSharedObjectMessage message = new RawSharedObjectMessage(bytes(10));
+		container.serializeSharedObjectMessage(sharedObjectID, message);
+		assertSame(message, serialized[0]);
+	}
+}
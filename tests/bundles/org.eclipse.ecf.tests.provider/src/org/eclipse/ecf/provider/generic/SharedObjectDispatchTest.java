@@ -0,0 +1,201 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.ISharedObject;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectConfig;
+import org.eclipse.ecf.core.sharedobject.SharedObjectInitException;
+import org.eclipse.ecf.core.sharedobject.util.IQueueEnqueue;
+import org.eclipse.ecf.core.sharedobject.util.QueueException;
+import org.eclipse.ecf.core.util.Event;
+
+/**
+ * Tests processing the events of shared objects on the executor of the
+ * <code>shared</code> value of the
+ * <code>org.eclipse.ecf.provider.generic.sharedObjectDispatch</code> system
+ * property: each shared object sees its events one at a time and in order.
+ */
+public class SharedObjectDispatchTest extends TestCase {
+
+	private static final long WAIT = 20000;
+
+	static class Seq implements Event {
+		final int value;
+
+		Seq(int value) {
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Records the {@link Seq} events it handles, and whether it ever handles
+	 * two events at the same time.
+	 */
+	static class RecordingSharedObject implements ISharedObject {
+		final List<Integer> received = new ArrayList<Integer>();
+		final AtomicInteger handling = new AtomicInteger();
+		volatile boolean concurrent;
+		volatile Thread lastThread;
+		volatile IQueueEnqueue queue;
+		final int backlog;
+		CountDownLatch done;
+
+		RecordingSharedObject(int backlog) {
+			this.backlog = backlog;
+		}
+
+		public void init(ISharedObjectConfig config) throws SharedObjectInitException {
+			queue = config.getContext().getQueue();
+			// queued before the shared object is activated
+			try {
+				for (int i = 0; i < backlog; i++)
+					queue.enqueue(new Seq(i));
+			} catch (QueueException e) {
+				throw new SharedObjectInitException(e);
+			}
+		}
+
+		public void handleEvent(Event event) {
+			if (handling.incrementAndGet() != 1)
+				concurrent = true;
+			if (event instanceof Seq) {
+				lastThread = Thread.currentThread();
+				synchronized (received) {
+					received.add(Integer.valueOf(((Seq) event).value));
+				}
+				if (done != null)
+					done.countDown();
+			}
+			handling.decrementAndGet();
+		}
+
+		public void handleEvents(Event[] events) {
+			for (int i = 0; i < events.length; i++)
+				handleEvent(events[i]);
+		}
+
+		public void dispose(ID containerID) {
+			// nothing to dispose
+		}
+
+		public <T> T getAdapter(Class<T> adapter) {
+			return null;
+		}
+
+		void assertReceivedInOrder(int count) {
+			assertFalse("events handled concurrently", concurrent); //$NON-NLS-1$
+			synchronized (received) {
+				assertEquals(count, received.size());
+				for (int i = 0; i < count; i++)
+					assertEquals(i, received.get(i).intValue());
+			}
+		}
+	}
+
+	private ExecutorService executor;
+
+	private SOContainer container;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		executor = (ExecutorService) SOContainer.createSharedObjectDispatcher("shared"); //$NON-NLS-1$
+		container = new TCPClientSOContainer(new SOContainerConfig(IDFactory.getDefault().createGUID())) {
+			protected Executor getSharedObjectEventExecutor() {
+				return executor;
+			}
+		};
+	}
+
+	protected void tearDown() throws Exception {
+		container.dispose();
+		executor.shutdownNow();
+		super.tearDown();
+	}
+
+	private RecordingSharedObject add(int backlog) throws Exception {
+		final RecordingSharedObject so = new RecordingSharedObject(backlog);
+		container.getSharedObjectManager().addSharedObject(IDFactory.getDefault().createGUID(), so, null);
+		return so;
+	}
+
+	public void testPerObjectOrder() throws Exception {
+		final int objects = 16;
+		final int count = 5000;
+		final RecordingSharedObject[] sos = new RecordingSharedObject[objects];
+		final CountDownLatch done = new CountDownLatch(objects * count);
+		for (int i = 0; i < objects; i++) {
+			sos[i] = add(0);
+			sos[i].done = done;
+		}
+		// one thread enqueues the events of each shared object, all at the
+		// same time
+		final Thread[] producers = new Thread[objects];
+		final QueueException[] failure = new QueueException[1];
+		for (int i = 0; i < objects; i++) {
+			final RecordingSharedObject so = sos[i];
+			producers[i] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						for (int j = 0; j < count; j++)
+							so.queue.enqueue(new Seq(j));
+					} catch (QueueException e) {
+						failure[0] = e;
+					}
+				}
+			});
+			producers[i].start();
+		}
+		for (int i = 0; i < objects; i++)
+			producers[i].join(WAIT);
+		assertNull(failure[0]);
+		assertTrue(done.await(WAIT, TimeUnit.MILLISECONDS));
+		for (int i = 0; i < objects; i++) {
+			sos[i].assertReceivedInOrder(count);
+			assertTrue(sos[i].lastThread.getName().startsWith("ECF shared object dispatcher")); //$NON-NLS-1$
+		}
+	}
+
+	public void testBacklogProcessedInOrder() throws Exception {
+		final int count = 10000;
+		final RecordingSharedObject so = new RecordingSharedObject(count);
+		so.done = new CountDownLatch(count);
+		container.getSharedObjectManager().addSharedObject(IDFactory.getDefault().createGUID(), so, null);
+		assertTrue(so.done.await(WAIT, TimeUnit.MILLISECONDS));
+		so.assertReceivedInOrder(count);
+	}
+
+	public void testEventsProcessedAfterExecutorShutdown() throws Exception {
+		executor.shutdown();
+		// enough events queued before activation to overflow the stack if
+		// every batch was processed by a nested call
+		final int count = 1000000;
+		final RecordingSharedObject so = add(count);
+		// processed on this thread, as the executor rejects the mailbox
+		so.assertReceivedInOrder(count);
+		assertSame(Thread.currentThread(), so.lastThread);
+		so.queue.enqueue(new Seq(count));
+		so.assertReceivedInOrder(count + 1);
+	}
+}
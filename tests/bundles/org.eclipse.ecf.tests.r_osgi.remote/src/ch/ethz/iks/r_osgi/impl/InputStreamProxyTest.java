@@ -0,0 +1,252 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
+import ch.ethz.iks.r_osgi.channels.NetworkChannel;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+import ch.ethz.iks.r_osgi.messages.StreamRequestMessage;
+import ch.ethz.iks.r_osgi.streams.InputStreamProxy;
+
+/**
+ * Tests the push window of {@link InputStreamProxy}. The test plays the owner
+ * of the stream: it pushes data to the proxy and checks the operations the
+ * proxy sends.
+ */
+public class InputStreamProxyTest extends TestCase {
+
+	private static final long WAIT = 10000;
+
+	private static final short STREAM_ID = 7;
+
+	private static final int WINDOW = 16;
+
+	/**
+	 * A channel that only records the stream operations sent through it.
+	 */
+	static class RecordingChannel implements NetworkChannel {
+		final BlockingQueue<StreamRequestMessage> sent = new LinkedBlockingQueue<StreamRequestMessage>();
+		private final URI remoteAddress;
+
+		RecordingChannel(String name) {
+			remoteAddress = URI.create("pipe://" + name + ":1"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		public String getProtocol() {
+			return "pipe"; //$NON-NLS-1$
+		}
+
+		public URI getRemoteAddress() {
+			return remoteAddress;
+		}
+
+		public URI getLocalAddress() {
+			return URI.create("pipe://local:1"); //$NON-NLS-1$
+		}
+
+		public void bind(ChannelEndpoint endpoint) {
+			// nothing is received
+		}
+
+		public void close() {
+			// nothing to close
+		}
+
+		public void sendMessage(RemoteOSGiMessage message) {
+			sent.add((StreamRequestMessage) message);
+		}
+
+		StreamRequestMessage next() throws InterruptedException {
+			final StreamRequestMessage result = sent.poll(WAIT, TimeUnit.MILLISECONDS);
+			assertNotNull("nothing sent", result); //$NON-NLS-1$
+			assertEquals(STREAM_ID, result.getStreamID());
+			return result;
+		}
+	}
+
+	private RecordingChannel channel;
+
+	private ChannelEndpointImpl endpoint;
+
+	private InputStreamProxy proxy;
+
+	private ExecutorService reader;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		channel = new RecordingChannel(getName());
+		endpoint = new ChannelEndpointImpl(channel);
+		proxy = new InputStreamProxy(STREAM_ID, endpoint, WINDOW);
+		reader = Executors.newSingleThreadExecutor();
+	}
+
+	protected void tearDown() throws Exception {
+		reader.shutdownNow();
+		endpoint.dispose();
+		super.tearDown();
+	}
+
+	private static byte[] bytes(int length, int seed) {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = (byte) (i + seed);
+		return bytes;
+	}
+
+	private Future<Integer> readAsync(final byte[] b) {
+		return reader.submit(new Callable<Integer>() {
+			public Integer call() throws IOException {
+				return Integer.valueOf(proxy.read(b, 0, b.length));
+			}
+		});
+	}
+
+	/**
+	 * Open the window with a first read, push data to it and check the read
+	 * returns the data.
+	 */
+	private void open(int len) throws Exception {
+		final byte[] b = new byte[len];
+		final Future<Integer> read = readAsync(b);
+		final StreamRequestMessage open = channel.next();
+		assertEquals(StreamRequestMessage.OPEN_WINDOW, open.getOp());
+		assertEquals(WINDOW, open.getLenOrVal());
+		proxy.received(bytes(len, 0), len);
+		assertEquals(len, read.get(WAIT, TimeUnit.MILLISECONDS).intValue());
+		assertTrue(Arrays.equals(bytes(len, 0), b));
+	}
+
+	private void assertWindowUpdate(int credit) throws Exception {
+		final StreamRequestMessage update = channel.next();
+		assertEquals(StreamRequestMessage.WINDOW_UPDATE, update.getOp());
+		assertEquals(credit, update.getLenOrVal());
+	}
+
+	public void testPushBeforeOpenIgnored() throws Exception {
+		proxy.received(bytes(4, 100), 4);
+		assertEquals(0, proxy.available());
+		open(3);
+		assertTrue(channel.sent.isEmpty());
+	}
+
+	public void testRingBufferWrapsAround() throws Exception {
+		open(10);
+		assertWindowUpdate(10);
+		// 6 bytes at the end of the buffer and 6 at the start
+		proxy.received(bytes(12, 50), 12);
+		assertEquals(12, proxy.available());
+		final byte[] b = new byte[12];
+		assertEquals(12, proxy.read(b, 0, b.length));
+		assertTrue(Arrays.equals(bytes(12, 50), b));
+		assertWindowUpdate(12);
+	}
+
+	public void testCreditReturnedPerHalfWindow() throws Exception {
+		// one byte is consumed by opening the window
+		open(1);
+		proxy.received(bytes(WINDOW - 1, 1), WINDOW - 1);
+		for (int i = 1; i < WINDOW / 2 - 1; i++) {
+			assertEquals(i, proxy.read());
+			assertTrue(channel.sent.isEmpty());
+		}
+		assertEquals(WINDOW / 2 - 1, proxy.read());
+		assertWindowUpdate(WINDOW / 2);
+		final byte[] b = new byte[WINDOW];
+		assertEquals(WINDOW / 2, proxy.read(b, 0, b.length));
+		assertWindowUpdate(WINDOW / 2);
+		assertTrue(channel.sent.isEmpty());
+	}
+
+	public void testWindowExceeded() throws Exception {
+		open(1);
+		proxy.received(bytes(10, 1), 10);
+		proxy.received(bytes(10, 11), 10);
+		// the data received within the window is still read
+		final byte[] b = new byte[WINDOW];
+		assertEquals(10, proxy.read(b, 0, b.length));
+		try {
+			proxy.read();
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().indexOf("exceeded") >= 0); //$NON-NLS-1$
+		}
+	}
+
+	public void testEndOfStream() throws Exception {
+		open(1);
+		proxy.received(bytes(WINDOW - 1, 1), WINDOW - 1);
+		proxy.receivedEOF();
+		final byte[] b = new byte[WINDOW];
+		assertEquals(WINDOW - 1, proxy.read(b, 0, b.length));
+		assertEquals(-1, proxy.read());
+		assertEquals(-1, proxy.read(b, 0, b.length));
+		// no credit is returned once the owner has sent everything
+		assertTrue(channel.sent.isEmpty());
+	}
+
+	public void testClose() throws Exception {
+		open(1);
+		proxy.close();
+		proxy.close();
+		assertEquals(StreamRequestMessage.CLOSE, channel.next().getOp());
+		assertTrue(channel.sent.isEmpty());
+		proxy.received(bytes(4, 0), 4);
+		assertEquals(0, proxy.available());
+		try {
+			proxy.read();
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testCloseWakesReader() throws Exception {
+		open(1);
+		final Future<Integer> read = readAsync(new byte[4]);
+		Thread.sleep(100);
+		proxy.close();
+		try {
+			read.get(WAIT, TimeUnit.MILLISECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	public void testFailure() throws Exception {
+		open(1);
+		final Future<Integer> read = readAsync(new byte[4]);
+		final IOException failure = new IOException("owner failed"); //$NON-NLS-1$
+		proxy.failed(failure);
+		try {
+			read.get(WAIT, TimeUnit.MILLISECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertSame(failure, e.getCause());
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.osgi.framework.ServiceRegistration;
+
+import ch.ethz.iks.r_osgi.Remoting;
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
+import ch.ethz.iks.r_osgi.channels.NetworkChannel;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+import ch.ethz.iks.r_osgi.messages.StreamRequestMessage;
+
+/**
+ * Tests that channels of the {@link NIOChannelFactory} deliver the messages
+ * of a connection in order, whatever their size, also when the receiver falls
+ * behind, and that deactivating the factory disconnects them.
+ */
+public class NIOChannelFactoryTest extends TestCase {
+
+	private static final long WAIT = 20000;
+
+	/**
+	 * An endpoint that records the messages delivered to it.
+	 */
+	static class RecordingEndpoint implements ChannelEndpoint {
+		final BlockingQueue<RemoteOSGiMessage> received = new LinkedBlockingQueue<RemoteOSGiMessage>();
+		final CountDownLatch disconnected = new CountDownLatch(1);
+		volatile CountDownLatch block;
+		NetworkChannel channel;
+
+		public void receivedMessage(RemoteOSGiMessage msg) {
+			if (msg == null) {
+				disconnected.countDown();
+				return;
+			}
+			final CountDownLatch b = block;
+			if (b != null) {
+				try {
+					b.await(WAIT, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			received.add(msg);
+		}
+
+		StreamRequestMessage next() throws InterruptedException {
+			final RemoteOSGiMessage result = received.poll(WAIT, TimeUnit.MILLISECONDS);
+			assertNotNull("nothing received", result); //$NON-NLS-1$
+			return (StreamRequestMessage) result;
+		}
+
+		public Object invokeMethod(String service, String methodSignature, Object[] args) {
+			return null;
+		}
+
+		public Dictionary getProperties(String service) {
+			return null;
+		}
+
+		public Dictionary getPresentationProperties(String service) {
+			return null;
+		}
+
+		public void trackRegistration(String service, ServiceRegistration reg) {
+			// not used
+		}
+
+		public void untrackRegistration(String service) {
+			// not used
+		}
+
+		public URI getRemoteAddress() {
+			return channel.getRemoteAddress();
+		}
+
+		public void dispose() {
+			// not used
+		}
+	}
+
+	private NIOChannelFactory factory;
+
+	private final BlockingQueue<RecordingEndpoint> accepted = new LinkedBlockingQueue<RecordingEndpoint>();
+
+	private RecordingEndpoint client;
+
+	private RecordingEndpoint server;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		final ServerSocket free = new ServerSocket(0);
+		final int port = free.getLocalPort();
+		free.close();
+		System.setProperty(NIOChannelFactory.PORT_PROPERTY, String.valueOf(port));
+		factory = new NIOChannelFactory();
+		factory.activate(new Remoting() {
+			public ChannelEndpoint getEndpoint(String uri) {
+				return null;
+			}
+
+			public void createEndpoint(NetworkChannel channel) {
+				final RecordingEndpoint endpoint = new RecordingEndpoint();
+				endpoint.channel = channel;
+				channel.bind(endpoint);
+				accepted.add(endpoint);
+			}
+		});
+		client = new RecordingEndpoint();
+		client.channel = factory.getConnection(client, URI.create(NIOChannelFactory.PROTOCOL + "://localhost:" + factory.getListeningPort(NIOChannelFactory.PROTOCOL))); //$NON-NLS-1$
+		server = accepted.poll(WAIT, TimeUnit.MILLISECONDS);
+		assertNotNull("not accepted", server); //$NON-NLS-1$
+	}
+
+	protected void tearDown() throws Exception {
+		System.clearProperty(NIOChannelFactory.PORT_PROPERTY);
+		factory.deactivate(null);
+		super.tearDown();
+	}
+
+	private static byte[] bytes(int length, int seed) {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = (byte) (i * 7 + seed);
+		return bytes;
+	}
+
+	private static StreamRequestMessage message(int seq, int length) {
+		final StreamRequestMessage msg = new StreamRequestMessage();
+		msg.setStreamID((short) seq);
+		msg.setOp(StreamRequestMessage.PUSH_DATA);
+		msg.setLenOrVal(length);
+		msg.setData(bytes(length, seq));
+		return msg;
+	}
+
+	private static void assertMessage(int seq, int length, StreamRequestMessage msg) {
+		assertEquals(seq, msg.getStreamID());
+		assertEquals(length, msg.getLenOrVal());
+		assertTrue(Arrays.equals(bytes(length, seq), msg.getData()));
+	}
+
+	private static int size(int seq) {
+		// frames smaller and larger than the read buffer
+		return (seq % 5 == 0) ? 100000 + seq : seq * 13;
+	}
+
+	public void testMessagesDeliveredInOrder() throws Exception {
+		final int count = 300;
+		for (int i = 0; i < count; i++)
+			client.channel.sendMessage(message(i, size(i)));
+		for (int i = 0; i < count; i++)
+			assertMessage(i, size(i), server.next());
+		// and back
+		for (int i = 0; i < count; i++)
+			server.channel.sendMessage(message(i, size(i)));
+		for (int i = 0; i < count; i++)
+			assertMessage(i, size(i), client.next());
+	}
+
+	public void testSlowReceiver() throws Exception {
+		// more than the send and receive limits of a channel and the socket
+		// buffers together
+		final int count = 400;
+		final int length = 100000;
+		server.block = new CountDownLatch(1);
+		final Exception[] failure = new Exception[1];
+		final AtomicInteger sent = new AtomicInteger();
+		final Thread sender = new Thread(new Runnable() {
+			public void run() {
+				try {
+					for (int i = 0; i < count; i++) {
+						client.channel.sendMessage(message(i, length));
+						sent.incrementAndGet();
+					}
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			}
+		});
+		sender.start();
+		Thread.sleep(500);
+		// the sender is held back while the receiver does not keep up
+		final int held = sent.get();
+		Thread.sleep(200);
+		assertEquals(held, sent.get());
+		assertTrue(held < count);
+		server.block.countDown();
+		server.block = null;
+		for (int i = 0; i < count; i++)
+			assertMessage(i, length, server.next());
+		sender.join(WAIT);
+		assertNull(failure[0]);
+	}
+
+	public void testDeactivateDisconnects() throws Exception {
+		factory.deactivate(null);
+		assertTrue(client.disconnected.await(WAIT, TimeUnit.MILLISECONDS));
+		assertTrue(server.disconnected.await(WAIT, TimeUnit.MILLISECONDS));
+		try {
+			client.channel.sendMessage(message(1, 1));
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
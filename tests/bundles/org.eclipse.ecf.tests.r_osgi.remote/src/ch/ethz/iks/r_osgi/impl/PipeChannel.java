@@ -0,0 +1,171 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
+import ch.ethz.iks.r_osgi.channels.NetworkChannel;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+import ch.ethz.iks.r_osgi.messages.StreamRequestMessage;
+
+/**
+ * One end of an in memory channel between two {@link ChannelEndpointImpl}s.
+ * Messages are written to and parsed from bytes as a network channel would,
+ * and delivered to the other endpoint in order on a thread of its own.
+ */
+final class PipeChannel implements NetworkChannel {
+
+	private final URI localAddress;
+
+	private final URI remoteAddress;
+
+	private final ExecutorService receiver;
+
+	private PipeChannel peer;
+
+	private ChannelEndpoint endpoint;
+
+	private final List sent = new ArrayList();
+
+	private volatile boolean closed;
+
+	private PipeChannel(final String local, final String remote) {
+		localAddress = URI.create(local);
+		remoteAddress = URI.create(remote);
+		receiver = Executors.newSingleThreadExecutor();
+	}
+
+	/**
+	 * create the two endpoints of a new channel.
+	 *
+	 * @param name
+	 *            a name unique to the test.
+	 * @return the endpoints.
+	 */
+	static ChannelEndpointImpl[] connect(final String name) {
+		final PipeChannel a = new PipeChannel("pipe://" + name + "-a:1", "pipe://" + name + "-b:1"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		final PipeChannel b = new PipeChannel("pipe://" + name + "-b:1", "pipe://" + name + "-a:1"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		a.peer = b;
+		b.peer = a;
+		return new ChannelEndpointImpl[] { new ChannelEndpointImpl(a),
+				new ChannelEndpointImpl(b) };
+	}
+
+	static PipeChannel get(final ChannelEndpointImpl endpoint) {
+		return (PipeChannel) endpoint.networkChannel;
+	}
+
+	public String getProtocol() {
+		return "pipe"; //$NON-NLS-1$
+	}
+
+	public URI getRemoteAddress() {
+		return remoteAddress;
+	}
+
+	public URI getLocalAddress() {
+		return localAddress;
+	}
+
+	public void bind(final ChannelEndpoint e) {
+		endpoint = e;
+	}
+
+	public void close() {
+		closed = true;
+		receiver.shutdown();
+	}
+
+	public void sendMessage(final RemoteOSGiMessage message) throws IOException {
+		if (closed || peer.closed) {
+			throw new IOException("Channel closed"); //$NON-NLS-1$
+		}
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final ObjectOutputStream out = new ObjectOutputStream(bos);
+		message.send(out);
+		out.close();
+		if (message instanceof StreamRequestMessage) {
+			synchronized (sent) {
+				sent.add(Byte.valueOf(((StreamRequestMessage) message).getOp()));
+			}
+		}
+		peer.received(bos.toByteArray());
+	}
+
+	private void received(final byte[] bytes) {
+		receiver.execute(new Runnable() {
+			public void run() {
+				try {
+					endpoint.receivedMessage(RemoteOSGiMessage
+							.parse(new ObjectInputStream(
+									new ByteArrayInputStream(bytes))));
+				} catch (final Exception e) {
+					e.printStackTrace();
+				}
+			}
+		});
+	}
+
+	/**
+	 * @param op
+	 *            a stream operation code.
+	 * @return <code>true</code> if a stream request with the operation has
+	 *         been sent through this channel.
+	 */
+	boolean hasSent(final byte op) {
+		synchronized (sent) {
+			return sent.contains(Byte.valueOf(op));
+		}
+	}
+
+	/**
+	 * @param op
+	 *            a stream operation code.
+	 * @return the number of stream requests with the operation sent through
+	 *         this channel.
+	 */
+	int countSent(final byte op) {
+		int count = 0;
+		synchronized (sent) {
+			for (int i = 0; i < sent.size(); i++) {
+				if (((Byte) sent.get(i)).byteValue() == op) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * wait until the messages sent so far have been handled by the
+	 * receiving endpoint.
+	 */
+	void drain() throws Exception {
+		peer.receiver.submit(new Runnable() {
+			public void run() {
+				// nothing
+			}
+		}).get(10, TimeUnit.SECONDS);
+	}
+}
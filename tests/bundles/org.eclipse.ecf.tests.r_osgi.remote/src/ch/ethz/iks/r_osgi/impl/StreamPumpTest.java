@@ -0,0 +1,317 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import ch.ethz.iks.r_osgi.messages.StreamRequestMessage;
+import ch.ethz.iks.r_osgi.streams.InputStreamHandle;
+import ch.ethz.iks.r_osgi.streams.OutputStreamHandle;
+
+/**
+ * Tests reading and writing remote streams through windows, between two
+ * channel endpoints connected by a {@link PipeChannel}. Endpoint
+ * <code>proxySide</code> uses the proxies, endpoint <code>ownerSide</code>
+ * owns the streams and runs the {@link StreamPump}s.
+ */
+public class StreamPumpTest extends TestCase {
+
+	private static final long WAIT = 10000;
+
+	/**
+	 * An input stream that counts reads, records when it is closed and
+	 * fails on reads if it is given an exception.
+	 */
+	static class TestInputStream extends InputStream {
+		final InputStream in;
+		final RuntimeException runtimeFailure;
+		final IOException ioFailure;
+		final AtomicInteger reads = new AtomicInteger();
+		final CountDownLatch closed = new CountDownLatch(1);
+
+		TestInputStream(byte[] data, IOException ioFailure, RuntimeException runtimeFailure) {
+			this.in = new ByteArrayInputStream(data);
+			this.ioFailure = ioFailure;
+			this.runtimeFailure = runtimeFailure;
+		}
+
+		public int read() throws IOException {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			reads.incrementAndGet();
+			if (ioFailure != null)
+				throw ioFailure;
+			if (runtimeFailure != null)
+				throw runtimeFailure;
+			return in.read(b, off, len);
+		}
+
+		public void close() {
+			closed.countDown();
+		}
+
+		void awaitClosed() throws InterruptedException {
+			assertTrue("stream not closed", closed.await(WAIT, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * An output stream that collects the data written, records when it is
+	 * closed and fails on writes if it is given an exception.
+	 */
+	static class TestOutputStream extends OutputStream {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final RuntimeException runtimeFailure;
+		final IOException ioFailure;
+		final AtomicInteger writes = new AtomicInteger();
+		final CountDownLatch closed = new CountDownLatch(1);
+
+		TestOutputStream(IOException ioFailure, RuntimeException runtimeFailure) {
+			this.ioFailure = ioFailure;
+			this.runtimeFailure = runtimeFailure;
+		}
+
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			writes.incrementAndGet();
+			if (ioFailure != null)
+				throw ioFailure;
+			if (runtimeFailure != null)
+				throw runtimeFailure;
+			out.write(b, off, len);
+		}
+
+		public void close() {
+			closed.countDown();
+		}
+
+		synchronized byte[] toByteArray() {
+			return out.toByteArray();
+		}
+
+		void awaitClosed() throws InterruptedException {
+			assertTrue("stream not closed", closed.await(WAIT, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+		}
+	}
+
+	private ChannelEndpointImpl proxySide;
+
+	private ChannelEndpointImpl ownerSide;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		final ChannelEndpointImpl[] endpoints = PipeChannel.connect(getName());
+		proxySide = endpoints[0];
+		ownerSide = endpoints[1];
+	}
+
+	protected void tearDown() throws Exception {
+		proxySide.dispose();
+		ownerSide.dispose();
+		super.tearDown();
+	}
+
+	private static byte[] bytes(int length) {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = (byte) (i * 31 + i / 7);
+		return bytes;
+	}
+
+	private InputStream proxy(InputStream in) {
+		return proxySide.getInputStreamProxy(ownerSide.getInputStreamPlaceholder(in));
+	}
+
+	private OutputStream proxy(OutputStream out, int window) {
+		final OutputStreamHandle handle = ownerSide.getOutputStreamPlaceholder(out);
+		return proxySide.getOutputStreamProxy(new OutputStreamHandle(handle.getStreamID(), window));
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		final ByteArrayOutputStream result = new ByteArrayOutputStream();
+		final byte[] b = new byte[5000];
+		for (int n; (n = in.read(b, 0, b.length)) >= 0;)
+			result.write(b, 0, n);
+		return result.toByteArray();
+	}
+
+	private PipeChannel proxyChannel() {
+		return PipeChannel.get(proxySide);
+	}
+
+	private PipeChannel ownerChannel() {
+		return PipeChannel.get(ownerSide);
+	}
+
+	public void testReadThroughWindow() throws Exception {
+		// more than a window, so that credit has to be returned
+		final byte[] data = bytes(1024 * 1024 + 17);
+		final TestInputStream in = new TestInputStream(data, null, null);
+		final InputStream proxy = proxy(in);
+		assertTrue(Arrays.equals(data, readFully(proxy)));
+		assertEquals(-1, proxy.read());
+		// the owner closes the stream once it has sent the end
+		in.awaitClosed();
+		proxy.close();
+		proxyChannel().drain();
+		assertTrue(proxyChannel().hasSent(StreamRequestMessage.OPEN_WINDOW));
+		assertTrue(proxyChannel().hasSent(StreamRequestMessage.WINDOW_UPDATE));
+		assertTrue(proxyChannel().hasSent(StreamRequestMessage.CLOSE));
+		assertTrue(ownerChannel().hasSent(StreamRequestMessage.PUSH_DATA));
+		assertEquals(1, ownerChannel().countSent(StreamRequestMessage.PUSH_EOF));
+		assertFalse(ownerChannel().hasSent(StreamRequestMessage.PUSH_ERROR));
+	}
+
+	public void testReadFailure() throws Exception {
+		final TestInputStream in = new TestInputStream(new byte[10], new IOException("broken"), null); //$NON-NLS-1$
+		final InputStream proxy = proxy(in);
+		try {
+			proxy.read();
+			fail();
+		} catch (IOException e) {
+			assertEquals("broken", e.getMessage()); //$NON-NLS-1$
+		}
+		in.awaitClosed();
+		assertEquals(1, ownerChannel().countSent(StreamRequestMessage.PUSH_ERROR));
+		proxy.close();
+	}
+
+	public void testUnexpectedReadFailureStopsPump() throws Exception {
+		final TestInputStream in = new TestInputStream(new byte[10], null, new IllegalStateException("bug")); //$NON-NLS-1$
+		final InputStreamHandle handle = ownerSide.getInputStreamPlaceholder(in);
+		final InputStream proxy = proxySide.getInputStreamProxy(handle);
+		try {
+			proxy.read();
+			fail();
+		} catch (IOException e) {
+			assertEquals("bug", e.getMessage()); //$NON-NLS-1$
+		}
+		in.awaitClosed();
+		// not tried again
+		Thread.sleep(200);
+		assertEquals(1, in.reads.get());
+		assertEquals(1, ownerChannel().countSent(StreamRequestMessage.PUSH_ERROR));
+		// the stream is forgotten, so opening it again fails
+		proxySide.openStreamWindow(handle.getStreamID(), 1024);
+		proxyChannel().drain();
+		assertEquals(2, ownerChannel().countSent(StreamRequestMessage.PUSH_ERROR));
+		assertEquals(1, in.reads.get());
+	}
+
+	public void testWriteThroughWindow() throws Exception {
+		final byte[] data = bytes(100000);
+		final TestOutputStream out = new TestOutputStream(null, null);
+		final OutputStream proxy = proxy(out, 1024);
+		int off = 0;
+		for (int len = 1; off < data.length; len = len * 3 + 1) {
+			final int n = Math.min(len, data.length - off);
+			proxy.write(data, off, n);
+			off += n;
+		}
+		proxy.write(42);
+		// flush waits for the owner to acknowledge everything
+		proxy.flush();
+		final byte[] expected = Arrays.copyOf(data, data.length + 1);
+		expected[data.length] = 42;
+		assertTrue(Arrays.equals(expected, out.toByteArray()));
+		proxy.close();
+		out.awaitClosed();
+		assertTrue(proxyChannel().hasSent(StreamRequestMessage.WRITE_DATA));
+		assertEquals(1, proxyChannel().countSent(StreamRequestMessage.CLOSE));
+		assertTrue(ownerChannel().hasSent(StreamRequestMessage.WRITE_ACK));
+		assertFalse(ownerChannel().hasSent(StreamRequestMessage.WRITE_ERROR));
+	}
+
+	public void testWriteFailure() throws Exception {
+		final TestOutputStream out = new TestOutputStream(new IOException("full"), null); //$NON-NLS-1$
+		final OutputStream proxy = proxy(out, 1024);
+		proxy.write(bytes(100));
+		try {
+			proxy.flush();
+			fail();
+		} catch (IOException e) {
+			assertEquals("full", e.getMessage()); //$NON-NLS-1$
+		}
+		assertEquals(1, ownerChannel().countSent(StreamRequestMessage.WRITE_ERROR));
+	}
+
+	public void testUnexpectedWriteFailureStopsPump() throws Exception {
+		final TestOutputStream out = new TestOutputStream(null, new IllegalStateException("bug")); //$NON-NLS-1$
+		final OutputStream proxy = proxy(out, 1024);
+		proxy.write(bytes(100));
+		try {
+			proxy.flush();
+			fail();
+		} catch (IOException e) {
+			assertEquals("bug", e.getMessage()); //$NON-NLS-1$
+		}
+		out.awaitClosed();
+		Thread.sleep(200);
+		assertEquals(1, out.writes.get());
+		assertEquals(1, ownerChannel().countSent(StreamRequestMessage.WRITE_ERROR));
+	}
+
+	public void testStreamsClosedWhenEndpointDisposed() throws Exception {
+		final TestInputStream in = new TestInputStream(bytes(1024 * 1024), null, null);
+		final InputStream proxy = proxy(in);
+		assertEquals(bytes(1)[0] & 0xff, proxy.read());
+		// never read through the window
+		final TestInputStream unread = new TestInputStream(new byte[10], null, null);
+		proxy(unread);
+		final TestOutputStream out = new TestOutputStream(null, null);
+		final OutputStream outProxy = proxy(out, 1024);
+		outProxy.write(bytes(10));
+		outProxy.flush();
+		// the proxies are never closed
+		ownerSide.dispose();
+		in.awaitClosed();
+		unread.awaitClosed();
+		out.awaitClosed();
+	}
+
+	public void testUnknownStream() throws Exception {
+		final InputStream proxy = proxySide.getInputStreamProxy(new InputStreamHandle((short) 999, 1024));
+		try {
+			proxy.read();
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(1, ownerChannel().countSent(StreamRequestMessage.PUSH_ERROR));
+	}
+
+	public void testCloseWithoutReading() throws Exception {
+		final TestInputStream in = new TestInputStream(new byte[10], null, null);
+		proxy(in).close();
+		in.awaitClosed();
+		assertEquals(0, in.reads.get());
+		assertFalse(proxyChannel().hasSent(StreamRequestMessage.OPEN_WINDOW));
+		assertEquals(1, proxyChannel().countSent(StreamRequestMessage.CLOSE));
+	}
+}
@@ -0,0 +1,198 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that lanes of the {@link WorkerPool} run their tasks in order and
+ * within their limits, and that the shared workers are bounded.
+ */
+public class WorkerPoolTest extends TestCase {
+
+	private static final long WAIT = 10000;
+
+	/**
+	 * A task that records how many tasks of its kind run at the same time and
+	 * waits until it is released.
+	 */
+	static class BlockingTask implements Runnable {
+		final AtomicInteger running;
+		final AtomicInteger maxRunning;
+		final CountDownLatch started;
+		final CountDownLatch release;
+		final CountDownLatch done;
+
+		BlockingTask(AtomicInteger running, AtomicInteger maxRunning, CountDownLatch started, CountDownLatch release, CountDownLatch done) {
+			this.running = running;
+			this.maxRunning = maxRunning;
+			this.started = started;
+			this.release = release;
+			this.done = done;
+		}
+
+		public void run() {
+			final int now = running.incrementAndGet();
+			synchronized (maxRunning) {
+				maxRunning.set(Math.max(maxRunning.get(), now));
+			}
+			started.countDown();
+			try {
+				release.await(WAIT, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			running.decrementAndGet();
+			done.countDown();
+		}
+	}
+
+	private static void await(CountDownLatch latch) throws InterruptedException {
+		assertTrue("timed out", latch.await(WAIT, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+	}
+
+	public void testLaneRunsTasksInOrder() throws Exception {
+		final WorkerPool.Lane lane = new WorkerPool.Lane(1);
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final int count = 2000;
+		final CountDownLatch done = new CountDownLatch(count);
+		for (int i = 0; i < count; i++) {
+			final Integer n = Integer.valueOf(i);
+			lane.execute(new Runnable() {
+				public void run() {
+					maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+					order.add(n);
+					running.decrementAndGet();
+					done.countDown();
+				}
+			});
+		}
+		await(done);
+		assertEquals(1, maxRunning.get());
+		for (int i = 0; i < count; i++)
+			assertEquals(i, order.get(i).intValue());
+		assertEquals(0, lane.getQueuedTasks());
+	}
+
+	public void testLaneLimit() throws Exception {
+		final int limit = 3;
+		final int count = 10;
+		final WorkerPool.Lane lane = new WorkerPool.Lane(limit);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(limit);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(count);
+		for (int i = 0; i < count; i++)
+			lane.execute(new BlockingTask(running, maxRunning, started, release, done));
+		await(started);
+		Thread.sleep(100);
+		assertEquals(limit, running.get());
+		assertEquals(count - limit, lane.getQueuedTasks());
+		assertTrue(WorkerPool.getQueuedTasks() >= count - limit);
+		release.countDown();
+		await(done);
+		assertEquals(limit, maxRunning.get());
+		assertEquals(0, lane.getQueuedTasks());
+	}
+
+	public void testFailingTaskDoesNotStopLane() throws Exception {
+		final WorkerPool.Lane lane = new WorkerPool.Lane(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		lane.execute(new Runnable() {
+			public void run() {
+				throw new IllegalStateException("expected"); //$NON-NLS-1$
+			}
+		});
+		lane.execute(new Runnable() {
+			public void run() {
+				done.countDown();
+			}
+		});
+		await(done);
+	}
+
+	public void testClearDropsWaitingTasks() throws Exception {
+		final WorkerPool.Lane lane = new WorkerPool.Lane(1);
+		final AtomicInteger running = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		lane.execute(new BlockingTask(running, new AtomicInteger(), started, release, done));
+		await(started);
+		final AtomicInteger dropped = new AtomicInteger();
+		for (int i = 0; i < 5; i++) {
+			lane.execute(new Runnable() {
+				public void run() {
+					dropped.incrementAndGet();
+				}
+			});
+		}
+		assertEquals(5, lane.getQueuedTasks());
+		lane.clear();
+		assertEquals(0, lane.getQueuedTasks());
+		release.countDown();
+		await(done);
+		// the lane still takes new tasks
+		final CountDownLatch after = new CountDownLatch(1);
+		lane.execute(new Runnable() {
+			public void run() {
+				after.countDown();
+			}
+		});
+		await(after);
+		assertEquals(0, dropped.get());
+	}
+
+	public void testWorkersBounded() throws Exception {
+		final int max = WorkerPool.getMaxWorkers();
+		final int count = max + 5;
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(max);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(count);
+		// every lane is within its own limit, only the pool limits them
+		for (int i = 0; i < count; i++)
+			new WorkerPool.Lane(1).execute(new BlockingTask(running, maxRunning, started, release, done));
+		try {
+			await(started);
+			Thread.sleep(100);
+			assertEquals(max, running.get());
+			assertEquals(max, WorkerPool.getActiveWorkers());
+			assertTrue(WorkerPool.getQueuedTasks() >= count - max);
+			// the receiver threads are separate, so replies are still
+			// delivered while all workers are busy
+			final CountDownLatch received = new CountDownLatch(1);
+			WorkerPool.createReceiverLane().execute(new Runnable() {
+				public void run() {
+					received.countDown();
+				}
+			});
+			await(received);
+		} finally {
+			release.countDown();
+		}
+		await(done);
+		assertEquals(max, maxRunning.get());
+	}
+}
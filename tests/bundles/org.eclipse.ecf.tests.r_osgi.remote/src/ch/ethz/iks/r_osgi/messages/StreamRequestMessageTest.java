@@ -0,0 +1,102 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.messages;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests writing and parsing the windowed stream operations.
+ */
+public class StreamRequestMessageTest extends TestCase {
+
+	private static final byte[] WITH_DATA = {StreamRequestMessage.PUSH_DATA, StreamRequestMessage.PUSH_ERROR, StreamRequestMessage.WRITE_DATA, StreamRequestMessage.WRITE_ERROR};
+
+	private static final byte[] WITHOUT_DATA = {StreamRequestMessage.OPEN_WINDOW, StreamRequestMessage.WINDOW_UPDATE, StreamRequestMessage.PUSH_EOF, StreamRequestMessage.CLOSE, StreamRequestMessage.WRITE_ACK};
+
+	private static StreamRequestMessage roundTrip(StreamRequestMessage msg) throws Exception {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final ObjectOutputStream out = new ObjectOutputStream(bos);
+		msg.send(out);
+		out.close();
+		final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		final RemoteOSGiMessage result = RemoteOSGiMessage.parse(in);
+		// nothing is left behind for the next message
+		assertEquals(-1, in.read());
+		return (StreamRequestMessage) result;
+	}
+
+	private static StreamRequestMessage create(byte op, int lenOrVal, byte[] data) {
+		final StreamRequestMessage msg = new StreamRequestMessage();
+		msg.setXID(42);
+		msg.setStreamID((short) -3);
+		msg.setOp(op);
+		msg.setLenOrVal(lenOrVal);
+		msg.setData(data);
+		return msg;
+	}
+
+	public void testOperationsWithData() throws Exception {
+		final byte[] data = new byte[70000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) (i * 13);
+		for (int i = 0; i < WITH_DATA.length; i++) {
+			final StreamRequestMessage msg = roundTrip(create(WITH_DATA[i], data.length, data));
+			assertEquals(WITH_DATA[i], msg.getOp());
+			assertEquals(42, msg.getXID());
+			assertEquals(-3, msg.getStreamID());
+			assertEquals(data.length, msg.getLenOrVal());
+			assertTrue(Arrays.equals(data, msg.getData()));
+			assertTrue(msg.isWindowed());
+		}
+	}
+
+	public void testEmptyData() throws Exception {
+		for (int i = 0; i < WITH_DATA.length; i++) {
+			final StreamRequestMessage msg = roundTrip(create(WITH_DATA[i], 0, new byte[0]));
+			assertEquals(0, msg.getLenOrVal());
+			assertEquals(0, msg.getData().length);
+		}
+	}
+
+	public void testOperationsWithoutData() throws Exception {
+		for (int i = 0; i < WITHOUT_DATA.length; i++) {
+			final StreamRequestMessage msg = roundTrip(create(WITHOUT_DATA[i], 262144 + i, null));
+			assertEquals(WITHOUT_DATA[i], msg.getOp());
+			assertEquals(-3, msg.getStreamID());
+			assertEquals(262144 + i, msg.getLenOrVal());
+			assertNull(msg.getData());
+			assertTrue(msg.isWindowed());
+		}
+	}
+
+	public void testRequestOperationsNotWindowed() throws Exception {
+		final byte[] ops = {StreamRequestMessage.READ, StreamRequestMessage.READ_ARRAY, StreamRequestMessage.WRITE, StreamRequestMessage.WRITE_ARRAY};
+		for (int i = 0; i < ops.length; i++)
+			assertFalse(create(ops[i], 1, new byte[1]).isWindowed());
+	}
+
+	public void testUnknownOperation() throws Exception {
+		try {
+			roundTrip(create((byte) 13, 0, null));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,245 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.remoteservice.eventadmin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.SharedObjectMsg;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+public class DistributedEventAdminRoutingTest {
+
+	private static final String SINGLE = "__handlePostEventSharedObjectMsg";
+	private static final String BATCH = "__handlePostEventsSharedObjectMsg";
+	private static final String SUBSCRIPTIONS = "__handleSubscriptionsSharedObjectMsg";
+
+	private static class Sent {
+		final ID target;
+		final SharedObjectMsg msg;
+
+		Sent(ID target, SharedObjectMsg msg) {
+			this.target = target;
+			this.msg = msg;
+		}
+	}
+
+	private static class RoutingDistributedEventAdmin extends
+			DistributedEventAdmin {
+		final ID local;
+		ID[] members;
+		final List<Sent> sent = new ArrayList<Sent>();
+		final List<Event[]> dispatched = new ArrayList<Event[]>();
+		// when set, the first send waits for it, as on a full send queue
+		volatile CountDownLatch blockFirstSend;
+		final CountDownLatch firstSendBlocked = new CountDownLatch(1);
+
+		RoutingDistributedEventAdmin(ID local) {
+			this.local = local;
+		}
+
+		protected ID getLocalContainerID() {
+			return local;
+		}
+
+		protected ID[] getGroupMemberIDs() {
+			return members;
+		}
+
+		protected void sendSharedObjectMsgTo(ID toID, SharedObjectMsg msg) {
+			final CountDownLatch block = blockFirstSend;
+			if (block != null) {
+				blockFirstSend = null;
+				firstSendBlocked.countDown();
+				try {
+					block.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			synchronized (sent) {
+				sent.add(new Sent(toID, msg));
+				sent.notifyAll();
+			}
+		}
+
+		protected String[] getSubscribedTopics() {
+			return new String[0];
+		}
+
+		protected void localDispatch(Event[] dispatchedEvents, boolean isAsync) {
+			dispatched.add(dispatchedEvents);
+		}
+
+		public void send(Event event) {
+			sendMessage(event);
+		}
+
+		public void receive(ID fromID, SharedObjectMsg msg) {
+			handleSharedObjectMsg(fromID, msg);
+		}
+
+		public void subscribe(ID member, String[] topics) {
+			receive(member,
+					SharedObjectMsg.createMsg(SUBSCRIPTIONS, new Object[] { topics }));
+		}
+
+		public List<Sent> awaitSent(int count) throws InterruptedException {
+			long end = System.currentTimeMillis() + 5000;
+			synchronized (sent) {
+				while (sent.size() < count && System.currentTimeMillis() < end)
+					sent.wait(100);
+				return new ArrayList<Sent>(sent);
+			}
+		}
+	}
+
+	private ID local;
+	private ID a;
+	private ID b;
+	private RoutingDistributedEventAdmin dea;
+
+	@Before
+	public void setup() throws Exception {
+		local = IDFactory.getDefault().createStringID("local");
+		a = IDFactory.getDefault().createStringID("a");
+		b = IDFactory.getDefault().createStringID("b");
+		dea = new RoutingDistributedEventAdmin(local);
+		dea.members = new ID[] { local, a, b };
+	}
+
+	private static Event event(String topic, int i) {
+		HashMap<String, Object> properties = new HashMap<String, Object>();
+		properties.put("i", new Integer(i));
+		return new Event(topic, properties);
+	}
+
+	@Test
+	public void testBroadcastWithoutSubscriptions() throws Exception {
+		dea.send(event("a/x", 0));
+		List<Sent> sent = dea.awaitSent(1);
+		Assert.assertEquals(1, sent.size());
+		Assert.assertNull(sent.get(0).target);
+		Assert.assertEquals(SINGLE, sent.get(0).msg.getMethod());
+	}
+
+	@Test
+	public void testRouteToSubscriber() throws Exception {
+		dea.subscribe(a, new String[] { "a/*" });
+		dea.subscribe(b, new String[] { "b/c" });
+		dea.send(event("a/x", 0));
+		dea.send(event("b/x", 1));
+		dea.send(event("a/y", 2));
+		dea.awaitSent(1);
+		// give a misrouted batch the chance to show up
+		Thread.sleep(50);
+		List<Sent> sent = dea.awaitSent(1);
+		// a slow test run may split the events into more than one batch
+		Assert.assertEquals(2, countBatched(sent, a));
+	}
+
+	private static int countBatched(List<Sent> sent, ID target) {
+		int count = 0;
+		for (Sent s : sent) {
+			Assert.assertEquals(target, s.target);
+			Assert.assertEquals(BATCH, s.msg.getMethod());
+			count += s.msg.getParameters().length;
+		}
+		return count;
+	}
+
+	@Test
+	public void testBatchToWholeGroup() throws Exception {
+		dea.subscribe(a, new String[] { "*" });
+		dea.subscribe(b, new String[] { "a/*" });
+		for (int i = 0; i < 5; i++)
+			dea.send(event("a/x", i));
+		dea.awaitSent(1);
+		Thread.sleep(50);
+		Assert.assertEquals(5, countBatched(dea.awaitSent(1), null));
+	}
+
+	@Test
+	public void testUnknownMemberStillReceives() throws Exception {
+		dea.subscribe(a, new String[] { "a/*" });
+		dea.send(event("a/x", 0));
+		List<Sent> sent = dea.awaitSent(2);
+		Assert.assertEquals(2, sent.size());
+		Assert.assertEquals(b, sent.get(0).target);
+		Assert.assertEquals(SINGLE, sent.get(0).msg.getMethod());
+		Assert.assertEquals(a, sent.get(1).target);
+		Assert.assertEquals(BATCH, sent.get(1).msg.getMethod());
+	}
+
+	@Test
+	public void testBatchesKeepPostingOrder() throws Exception {
+		dea.subscribe(a, new String[] { "a/*" });
+		dea.subscribe(b, new String[] { "*" });
+		dea.send(event("a/x", 0));
+		dea.send(event("b/x", 1));
+		List<Sent> sent = dea.awaitSent(2);
+		Assert.assertEquals(2, sent.size());
+		// the group batch is sent before b is sent anything newer
+		Assert.assertNull(sent.get(0).target);
+		Assert.assertEquals(b, sent.get(1).target);
+	}
+
+	@Test
+	public void testBlockedSendDoesNotBlockOtherPosters() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		dea.blockFirstSend = release;
+		final Thread poster = new Thread(new Runnable() {
+			public void run() {
+				dea.send(event("a/x", 0));
+			}
+		});
+		poster.start();
+		Assert.assertTrue(dea.firstSendBlocked.await(5, TimeUnit.SECONDS));
+		final long start = System.currentTimeMillis();
+		// left to the blocked thread, which sends it after its own
+		dea.send(event("a/x", 1));
+		Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+		Assert.assertEquals(0, dea.awaitSent(0).size());
+		release.countDown();
+		List<Sent> sent = dea.awaitSent(2);
+		Assert.assertEquals(2, sent.size());
+		for (int i = 0; i < sent.size(); i++) {
+			EventMessage message = (EventMessage) sent.get(i).msg
+					.getParameters()[0];
+			Assert.assertEquals(new Integer(i), message.getEvent()
+					.getProperty("i"));
+		}
+		poster.join(5000);
+	}
+
+	@Test
+	public void testReceiveBatch() throws Exception {
+		Object[] batch = new Object[3];
+		for (int i = 0; i < batch.length; i++)
+			batch[i] = new Object[] { new EventMessage(event("a/x", i)) };
+		dea.receive(a, SharedObjectMsg.createMsg(BATCH, batch));
+		Assert.assertEquals(1, dea.dispatched.size());
+		Event[] events = dea.dispatched.get(0);
+		Assert.assertEquals(3, events.length);
+		for (int i = 0; i < events.length; i++)
+			Assert.assertEquals(new Integer(i), events[i].getProperty("i"));
+	}
+}
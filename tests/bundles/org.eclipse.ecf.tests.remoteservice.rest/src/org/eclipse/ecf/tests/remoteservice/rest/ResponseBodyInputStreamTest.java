@@ -0,0 +1,100 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.rest;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.internal.remoteservice.rest.ResponseBodyInputStream;
+
+public class ResponseBodyInputStreamTest extends TestCase {
+
+	private static final long READ_TIMEOUT = 200;
+
+	private int requested;
+
+	private boolean cancelled;
+
+	private ResponseBodyInputStream stream;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		stream = new ResponseBodyInputStream(READ_TIMEOUT);
+		stream.onSubscribe(new Flow.Subscription() {
+			public void request(long n) {
+				requested += n;
+			}
+
+			public void cancel() {
+				cancelled = true;
+			}
+		});
+	}
+
+	public void testRead() throws Exception {
+		assertEquals(1, requested);
+		stream.onNext(Arrays.asList(new ByteBuffer[] {ByteBuffer.wrap("ab".getBytes()), ByteBuffer.wrap("c".getBytes())}));
+		stream.onNext(Arrays.asList(new ByteBuffer[] {ByteBuffer.wrap("de".getBytes())}));
+		stream.onComplete();
+		byte[] b = new byte[10];
+		assertEquals(2, stream.read(b, 0, 10));
+		assertEquals(2, requested);
+		assertEquals('c', stream.read());
+		assertEquals(2, stream.read(b, 2, 8));
+		assertEquals("abde", new String(b, 0, 4));
+		assertEquals(-1, stream.read(b, 0, 10));
+		assertEquals(-1, stream.read());
+		assertFalse(cancelled);
+	}
+
+	public void testStalledBodyTimesOut() throws Exception {
+		stream.onNext(Arrays.asList(new ByteBuffer[] {ByteBuffer.wrap("ab".getBytes())}));
+		byte[] b = new byte[10];
+		assertEquals(2, stream.read(b, 0, 10));
+		long start = System.currentTimeMillis();
+		try {
+			stream.read(b, 0, 10);
+			fail();
+		} catch (SocketTimeoutException e) {
+			// expected
+		}
+		assertTrue(System.currentTimeMillis() - start >= READ_TIMEOUT);
+		assertTrue("response not cancelled", cancelled);
+	}
+
+	public void testError() throws Exception {
+		stream.onError(new IOException("reset"));
+		try {
+			stream.read();
+			fail();
+		} catch (IOException e) {
+			assertEquals("reset", e.getMessage());
+		}
+	}
+
+	public void testClose() throws Exception {
+		stream.close();
+		assertTrue(cancelled);
+		try {
+			stream.read();
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
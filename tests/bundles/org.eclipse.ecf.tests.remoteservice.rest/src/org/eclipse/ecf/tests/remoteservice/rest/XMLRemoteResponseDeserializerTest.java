@@ -0,0 +1,50 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.NotSerializableException;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.remoteservice.rest.client.XMLRemoteResponseDeserializer;
+import org.w3c.dom.Document;
+
+public class XMLRemoteResponseDeserializerTest extends TestCase {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><status><text>gr\u00fc\u00df</text></status>";
+
+	private XMLRemoteResponseDeserializer deserializer = new XMLRemoteResponseDeserializer();
+
+	public void testDeserializeStream() throws Exception {
+		Object result = deserializer.deserializeResponse("http://localhost", null, null, null, new ByteArrayInputStream(XML.getBytes("UTF-8")));
+		assertTrue(result instanceof Document);
+		Document document = (Document) result;
+		assertEquals("status", document.getDocumentElement().getNodeName());
+		assertEquals("gr\u00fc\u00df", document.getElementsByTagName("text").item(0).getTextContent());
+	}
+
+	public void testDeserializeBytes() throws Exception {
+		Object result = deserializer.deserializeResponse("http://localhost", null, null, null, "<status/>".getBytes());
+		assertTrue(result instanceof Document);
+	}
+
+	public void testDeserializeStreamNotXML() {
+		try {
+			deserializer.deserializeResponse("http://localhost", null, null, null, new ByteArrayInputStream("not xml".getBytes()));
+			fail();
+		} catch (NotSerializableException e) {
+			// expected
+		}
+	}
+}
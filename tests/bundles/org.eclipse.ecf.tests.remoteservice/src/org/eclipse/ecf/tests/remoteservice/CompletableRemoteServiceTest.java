@@ -0,0 +1,303 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.util.ECFException;
+import org.eclipse.ecf.remoteservice.AbstractRemoteService;
+import org.eclipse.ecf.remoteservice.ICompletableRemoteService;
+import org.eclipse.ecf.remoteservice.IRemoteCall;
+import org.eclipse.ecf.remoteservice.IRemoteCallListener;
+import org.eclipse.ecf.remoteservice.IRemoteServiceID;
+import org.eclipse.ecf.remoteservice.IRemoteServiceReference;
+import org.eclipse.ecf.remoteservice.RemoteCallFactory;
+import org.eclipse.ecf.remoteservice.asyncproxy.IAsyncProxyCompletable;
+import org.eclipse.ecf.remoteservice.events.IRemoteCallCompleteEvent;
+import org.eclipse.ecf.remoteservice.events.IRemoteCallEvent;
+import org.eclipse.equinox.concurrent.future.IFuture;
+
+/**
+ * Tests the futures of {@link AbstractRemoteService} that are completed by an
+ * {@link ICompletableRemoteService}, and
+ * <code>AbstractRemoteService.callAsyncWithTimeout</code>.
+ */
+public class CompletableRemoteServiceTest extends TestCase {
+
+	private static final long WAIT = 5000;
+
+	static class TestRemoteService extends AbstractRemoteService implements ICompletableRemoteService {
+
+		final BlockingQueue<IAsyncProxyCompletable> completables = new LinkedBlockingQueue<IAsyncProxyCompletable>();
+
+		TestRemoteService(ExecutorService executor) {
+			setFutureExecutorService(executor);
+		}
+
+		protected String[] getInterfaceClassNames() {
+			return new String[] {IConcatService.class.getName()};
+		}
+
+		protected IRemoteServiceID getRemoteServiceID() {
+			return null;
+		}
+
+		protected IRemoteServiceReference getRemoteServiceReference() {
+			return null;
+		}
+
+		public void callCompletable(IRemoteCall call, IAsyncProxyCompletable completable) {
+			completables.add(completable);
+		}
+
+		public Object callSync(IRemoteCall call) throws ECFException {
+			throw new ECFException("callSync not supported");
+		}
+
+		public void callAsync(IRemoteCall call, IRemoteCallListener listener) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void fireAsync(IRemoteCall call) throws ECFException {
+			throw new ECFException("fireAsync not supported");
+		}
+
+		IAsyncProxyCompletable nextCompletable() throws InterruptedException {
+			IAsyncProxyCompletable completable = completables.poll(WAIT, TimeUnit.MILLISECONDS);
+			assertNotNull(completable);
+			return completable;
+		}
+
+		Future future(IRemoteCall call) {
+			return callFutureAsync(call);
+		}
+
+		Future<Object> withTimeout(IRemoteCall call, Callable<Object> callable) {
+			return callAsyncWithTimeout(call, callable);
+		}
+
+		void withTimeout(IRemoteCall call, Callable<IRemoteCallCompleteEvent> callable, IRemoteCallListener listener) {
+			callAsyncWithTimeout(call, callable, listener);
+		}
+
+		IRemoteCallCompleteEvent success(Object result) {
+			return createRCCESuccess(result);
+		}
+	}
+
+	private TestRemoteService service;
+	private ExecutorService executor;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		executor = Executors.newCachedThreadPool();
+		service = new TestRemoteService(executor);
+	}
+
+	protected void tearDown() throws Exception {
+		service.dispose();
+		super.tearDown();
+	}
+
+	private static IRemoteCall call(long timeout) {
+		return RemoteCallFactory.createRemoteCall("concat", new Object[] {"a", "b"}, timeout);
+	}
+
+	public void testFutureCompletedByCompletable() throws Exception {
+		Future future = service.future(call(0));
+		IAsyncProxyCompletable completable = service.nextCompletable();
+		assertFalse(future.isDone());
+		try {
+			future.get(10, TimeUnit.MILLISECONDS);
+			fail();
+		} catch (TimeoutException e) {
+			// not complete yet
+		}
+		completable.handleComplete("ab", false, null);
+		assertTrue(future.isDone());
+		assertEquals("ab", future.get(WAIT, TimeUnit.MILLISECONDS));
+		// the first completion wins
+		completable.handleComplete("late", false, null);
+		assertEquals("ab", future.get());
+	}
+
+	public void testFutureException() throws Exception {
+		Future future = service.future(call(0));
+		IOException exception = new IOException();
+		service.nextCompletable().handleComplete(null, true, exception);
+		try {
+			future.get(WAIT, TimeUnit.MILLISECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ECFException);
+			assertSame(exception, ((ECFException) e.getCause()).getStatus().getException());
+		}
+	}
+
+	public void testFutureCancel() throws Exception {
+		Future future = service.future(call(0));
+		IAsyncProxyCompletable completable = service.nextCompletable();
+		// the future is completed only through the completable
+		assertFalse(future instanceof Runnable);
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+		assertTrue(future.isDone());
+		assertFalse(future.cancel(true));
+		completable.handleComplete("ab", false, null);
+		try {
+			future.get();
+			fail();
+		} catch (CancellationException e) {
+			// cancelled before the response
+		}
+	}
+
+	public void testIFutureCompletedByCompletable() throws Exception {
+		IFuture future = service.callAsync(call(0));
+		assertFalse(future.isDone());
+		service.nextCompletable().handleComplete("ab", false, null);
+		assertEquals("ab", future.get());
+	}
+
+	public void testCallAsyncWithTimeout() throws Exception {
+		Future<Object> future = service.withTimeout(call(WAIT), new Callable<Object>() {
+			public Object call() throws Exception {
+				return "ab";
+			}
+		});
+		assertEquals("ab", future.get(WAIT, TimeUnit.MILLISECONDS));
+		assertFalse(future.isCancelled());
+	}
+
+	public void testCallAsyncWithTimeoutException() throws Exception {
+		final IOException exception = new IOException();
+		Future<Object> future = service.withTimeout(call(WAIT), new Callable<Object>() {
+			public Object call() throws Exception {
+				throw exception;
+			}
+		});
+		try {
+			future.get(WAIT, TimeUnit.MILLISECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof InvocationTargetException);
+			assertSame(exception, e.getCause().getCause());
+		}
+	}
+
+	public void testCallAsyncWithTimeoutTimesOut() throws Exception {
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		Future<Object> future = service.withTimeout(call(100), new Callable<Object>() {
+			public Object call() throws Exception {
+				try {
+					Thread.sleep(10 * WAIT);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				return "late";
+			}
+		});
+		long start = System.currentTimeMillis();
+		try {
+			future.get(WAIT, TimeUnit.MILLISECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertTrue(System.currentTimeMillis() - start < WAIT);
+		// the callable is interrupted, and its late result is dropped
+		assertTrue(interrupted.await(WAIT, TimeUnit.MILLISECONDS));
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(WAIT, TimeUnit.MILLISECONDS));
+		try {
+			future.get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+	}
+
+	public void testCallAsyncWithTimeoutListener() throws Exception {
+		final List<IRemoteCallEvent> events = new ArrayList<IRemoteCallEvent>();
+		final CountDownLatch notified = new CountDownLatch(1);
+		service.withTimeout(call(WAIT), new Callable<IRemoteCallCompleteEvent>() {
+			public IRemoteCallCompleteEvent call() throws Exception {
+				return service.success("ab");
+			}
+		}, new IRemoteCallListener() {
+			public void handleEvent(IRemoteCallEvent event) {
+				synchronized (events) {
+					events.add(event);
+				}
+				notified.countDown();
+			}
+		});
+		assertTrue(notified.await(WAIT, TimeUnit.MILLISECONDS));
+		synchronized (events) {
+			assertEquals(1, events.size());
+			assertEquals("ab", ((IRemoteCallCompleteEvent) events.get(0)).getResponse());
+		}
+	}
+
+	public void testCallAsyncWithTimeoutListenerTimesOut() throws Exception {
+		final List<IRemoteCallEvent> events = new ArrayList<IRemoteCallEvent>();
+		final CountDownLatch notified = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		service.withTimeout(call(100), new Callable<IRemoteCallCompleteEvent>() {
+			public IRemoteCallCompleteEvent call() throws Exception {
+				// ignore the interrupt, so that a late result is produced
+				while (release.getCount() > 0) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						// keep waiting
+					}
+				}
+				return service.success("late");
+			}
+		}, new IRemoteCallListener() {
+			public void handleEvent(IRemoteCallEvent event) {
+				synchronized (events) {
+					events.add(event);
+				}
+				notified.countDown();
+			}
+		});
+		assertTrue(notified.await(WAIT, TimeUnit.MILLISECONDS));
+		release.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(WAIT, TimeUnit.MILLISECONDS));
+		synchronized (events) {
+			assertEquals(1, events.size());
+			IRemoteCallCompleteEvent event = (IRemoteCallCompleteEvent) events.get(0);
+			assertTrue(event.hadException());
+			assertTrue(event.getException() instanceof TimeoutException);
+		}
+	}
+}
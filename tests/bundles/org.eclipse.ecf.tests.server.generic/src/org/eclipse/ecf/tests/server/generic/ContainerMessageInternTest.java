@@ -0,0 +1,84 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.generic.ContainerMessage;
+
+/**
+ * Tests that deserialized container messages refer to the interned instances
+ * of their IDs.
+ */
+public class ContainerMessageInternTest extends TestCase {
+
+	private ID from;
+
+	private ID to;
+
+	private ID sharedObjectID;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		// held by the test, so they stay interned
+		from = IDFactory.internID(IDFactory.getDefault().createStringID(getName() + ".from")); //$NON-NLS-1$
+		to = IDFactory.internID(IDFactory.getDefault().createStringID(getName() + ".to")); //$NON-NLS-1$
+		sharedObjectID = IDFactory.internID(IDFactory.getDefault().createGUID());
+	}
+
+	private static ContainerMessage roundTrip(ContainerMessage message) throws Exception {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(message);
+		oos.close();
+		final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		return (ContainerMessage) ois.readObject();
+	}
+
+	public void testContainerIDsInterned() throws Exception {
+		final ContainerMessage message = roundTrip(ContainerMessage.createViewChangeMessage(from, to, 1, new ID[] {from}, true, null));
+		assertNotNull(message.getFromContainerID());
+		assertSame(from, message.getFromContainerID());
+		assertSame(to, message.getToContainerID());
+	}
+
+	public void testNullToContainerID() throws Exception {
+		final ContainerMessage message = roundTrip(ContainerMessage.createSharedObjectMessage(from, null, 1, sharedObjectID, "data")); //$NON-NLS-1$
+		assertSame(from, message.getFromContainerID());
+		assertNull(message.getToContainerID());
+	}
+
+	public void testSharedObjectIDInterned() throws Exception {
+		final ContainerMessage message = roundTrip(ContainerMessage.createSharedObjectMessage(from, to, 1, sharedObjectID, "data")); //$NON-NLS-1$
+		final ContainerMessage.SharedObjectMessage data = (ContainerMessage.SharedObjectMessage) message.getData();
+		assertSame(sharedObjectID, data.getFromSharedObjectID());
+		assertEquals("data", data.getData()); //$NON-NLS-1$
+	}
+
+	public void testMessagesShareIDs() throws Exception {
+		// equal, but not the interned instances
+		final ID otherFrom = IDFactory.getDefault().createStringID(from.getName());
+		final ContainerMessage message1 = roundTrip(ContainerMessage.createSharedObjectMessage(otherFrom, to, 1, sharedObjectID, "1")); //$NON-NLS-1$
+		final ContainerMessage message2 = roundTrip(ContainerMessage.createSharedObjectMessage(otherFrom, to, 2, sharedObjectID, "2")); //$NON-NLS-1$
+		assertSame(from, message1.getFromContainerID());
+		assertSame(message1.getFromContainerID(), message2.getFromContainerID());
+		assertSame(((ContainerMessage.SharedObjectMessage) message1.getData()).getFromSharedObjectID(), ((ContainerMessage.SharedObjectMessage) message2.getData()).getFromSharedObjectID());
+	}
+}
@@ -0,0 +1,144 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.sharedobject.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.sharedobject.util.RingFIFOQueue;
+
+public class RingFIFOQueueTest extends TestCase {
+
+	private static final int PRODUCERS = 4;
+	private static final int MESSAGES = 20000;
+
+	public void testOrder() {
+		final RingFIFOQueue queue = new RingFIFOQueue(8);
+		for (int i = 0; i < 8; i++)
+			assertTrue(queue.enqueue(new Integer(i)));
+		assertEquals(8, queue.size());
+		assertEquals(new Integer(0), queue.peekQueue());
+		for (int i = 0; i < 8; i++)
+			assertEquals(new Integer(i), queue.dequeue());
+		assertTrue(queue.isEmpty());
+		assertNull(queue.removeHead());
+	}
+
+	public void testCapacityIsRoundedUp() {
+		assertEquals(16, new RingFIFOQueue(10).getCapacity());
+		assertEquals(2, new RingFIFOQueue(1).getCapacity());
+	}
+
+	public void testRejectWhenFull() {
+		final RingFIFOQueue queue = new RingFIFOQueue(2, 0);
+		assertTrue(queue.enqueue("a")); //$NON-NLS-1$
+		assertTrue(queue.enqueue("b")); //$NON-NLS-1$
+		assertFalse(queue.enqueue("c")); //$NON-NLS-1$
+		assertEquals("a", queue.removeHead()); //$NON-NLS-1$
+		assertTrue(queue.enqueue("c")); //$NON-NLS-1$
+		assertEquals(2, queue.getHighWaterMark());
+	}
+
+	public void testEnqueueTimesOutWhenFull() {
+		final RingFIFOQueue queue = new RingFIFOQueue(2, 50);
+		assertTrue(queue.enqueue("a")); //$NON-NLS-1$
+		assertTrue(queue.enqueue("a")); //$NON-NLS-1$
+		final long start = System.currentTimeMillis();
+		assertFalse(queue.enqueue("b")); //$NON-NLS-1$
+		assertTrue(System.currentTimeMillis() - start >= 40);
+	}
+
+	public void testBlockedProducerResumes() throws Exception {
+		final RingFIFOQueue queue = new RingFIFOQueue(2);
+		queue.enqueue("a"); //$NON-NLS-1$
+		queue.enqueue("a"); //$NON-NLS-1$
+		final boolean[] result = new boolean[1];
+		final Thread producer = new Thread(new Runnable() {
+			public void run() {
+				result[0] = queue.enqueue("b"); //$NON-NLS-1$
+			}
+		});
+		producer.start();
+		Thread.sleep(50);
+		assertTrue(producer.isAlive());
+		assertEquals("a", queue.dequeue()); //$NON-NLS-1$
+		producer.join(5000);
+		assertTrue(result[0]);
+		assertEquals("a", queue.dequeue()); //$NON-NLS-1$
+		assertEquals("b", queue.dequeue()); //$NON-NLS-1$
+	}
+
+	public void testCloseReleasesWaiters() throws Exception {
+		final RingFIFOQueue queue = new RingFIFOQueue(4);
+		final Object[] result = new Object[] {"x"}; //$NON-NLS-1$
+		final Thread consumer = new Thread(new Runnable() {
+			public void run() {
+				result[0] = queue.dequeue();
+			}
+		});
+		consumer.start();
+		Thread.sleep(50);
+		queue.close();
+		consumer.join(5000);
+		assertFalse(consumer.isAlive());
+		assertNull(result[0]);
+		assertFalse(queue.enqueue("a")); //$NON-NLS-1$
+	}
+
+	public void testPeekWithTimeout() {
+		final RingFIFOQueue queue = new RingFIFOQueue(4);
+		assertNull(queue.peekQueue(10));
+		queue.enqueue("a"); //$NON-NLS-1$
+		assertEquals("a", queue.peekQueue(10)); //$NON-NLS-1$
+		assertEquals(1, queue.size());
+	}
+
+	public void testDrainTo() {
+		final RingFIFOQueue queue = new RingFIFOQueue(8);
+		for (int i = 0; i < 5; i++)
+			queue.enqueue(new Integer(i));
+		final List batch = new ArrayList();
+		assertEquals(3, queue.drainTo(batch, 3));
+		assertEquals(2, queue.drainTo(batch, 10));
+		for (int i = 0; i < 5; i++)
+			assertEquals(new Integer(i), batch.get(i));
+		assertEquals(0, queue.drainTo(batch, 10));
+	}
+
+	public void testConcurrentProducers() throws Exception {
+		final RingFIFOQueue queue = new RingFIFOQueue(64);
+		final Thread[] producers = new Thread[PRODUCERS];
+		for (int p = 0; p < PRODUCERS; p++) {
+			final int producer = p;
+			producers[p] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < MESSAGES; i++)
+						queue.enqueue(new int[] {producer, i});
+				}
+			});
+			producers[p].start();
+		}
+		// each producer's messages must arrive in order
+		final int[] next = new int[PRODUCERS];
+		for (int count = 0; count < PRODUCERS * MESSAGES; count++) {
+			final int[] msg = (int[]) queue.dequeue();
+			assertEquals(next[msg[0]]++, msg[1]);
+		}
+		for (int p = 0; p < PRODUCERS; p++)
+			producers[p].join(5000);
+		assertTrue(queue.isEmpty());
+		assertTrue(queue.getHighWaterMark() <= queue.getCapacity());
+	}
+}
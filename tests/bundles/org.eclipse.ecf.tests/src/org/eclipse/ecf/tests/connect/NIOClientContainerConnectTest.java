@@ -0,0 +1,49 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.tests.connect;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.ecf.core.ContainerFactory;
+import org.eclipse.ecf.core.IContainer;
+
+/**
+ * Runs the client connect tests against a server using the nio transport.
+ * Even numbered clients use the nio transport as well, odd numbered ones the
+ * default (thread per connection) transport, since both speak the same wire
+ * protocol.
+ */
+public class NIOClientContainerConnectTest extends ClientContainerConnectTest {
+
+	protected static final String TRANSPORT_PROP = "transport";
+
+	protected static final String NIO_TRANSPORT = "nio";
+
+	protected static final String TCP_TRANSPORT = "tcp";
+
+	protected IContainer createServer() throws Exception {
+		Map props = new HashMap();
+		props.put("id", serverID);
+		props.put(TRANSPORT_PROP, NIO_TRANSPORT);
+		return ContainerFactory.getDefault().createContainer(getServerContainerName(), new Object[] {props});
+	}
+
+	protected IContainer createClient(int index) throws Exception {
+		Map props = new HashMap();
+		props.put(TRANSPORT_PROP, (index % 2 == 0) ? NIO_TRANSPORT : TCP_TRANSPORT);
+		return ContainerFactory.getDefault().createContainer(getClientContainerName(), new Object[] {props});
+	}
+
+}